@@ -0,0 +1,505 @@
+package com.friendfinder.friendfindercommon.cache;
+
+import com.friendfinder.friendfindercommon.entity.types.FriendStatus;
+import com.friendfinder.friendfindercommon.repository.FriendRequestRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * <p>
+ * FriendGraph is an in-memory cache of accepted friendships. For every cached user it keeps the ids of the user's
+ * friends as a sorted primitive int array, so friend-id lookups, membership checks and friend counts are served
+ * without touching the database and without allocating.
+ * </p>
+ *
+ * <p>
+ * Users are loaded lazily from the friend_request indexes on the first lookup. The number of cached users is bounded
+ * by {@code friend.graph.max-users}; when the cache is full the least recently touched users are evicted using the
+ * CLOCK algorithm. FriendRequestServiceImpl writes through to the graph whenever a friendship is accepted or removed
+ * in this application. The web and the REST application keep a graph each, so a friendship changed by the other one is
+ * only seen when the entry is reloaded: entries older than {@code friend.graph.ttl-seconds} are loaded from the
+ * database again on their next lookup, which bounds how stale a cached friend list can be.
+ * </p>
+ *
+ * <p>
+ * Arrays returned by {@link #friendIds(int)} are shared with the cache and must not be modified. Writes replace the
+ * whole array instead of mutating it, so a reader always sees a consistent snapshot.
+ * </p>
+ */
+@Component
+public class FriendGraph {
+
+    private static final int FREE = 0;
+    private static final int BATCH_LOAD_SIZE = 500;
+    private static final int[] EMPTY = new int[0];
+
+    private final FriendRequestRepository friendRequestRepository;
+    private final int maxUsers;
+    private final long ttlSeconds;
+    private final long ttlNanos;
+
+    private final int[] keys;
+    private final int[][] values;
+    private final long[] loadedAt;
+    private final boolean[] referenced;
+    private final int mask;
+    private int size;
+    private int clockHand;
+    private long version;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public FriendGraph(FriendRequestRepository friendRequestRepository,
+                       @Value("${friend.graph.max-users:50000}") int maxUsers,
+                       @Value("${friend.graph.ttl-seconds:300}") long ttlSeconds) {
+        if (maxUsers < 1) {
+            throw new IllegalArgumentException("friend.graph.max-users must be positive");
+        }
+        if (ttlSeconds < 0) {
+            throw new IllegalArgumentException("friend.graph.ttl-seconds must not be negative");
+        }
+        this.friendRequestRepository = friendRequestRepository;
+        this.maxUsers = maxUsers;
+        this.ttlSeconds = ttlSeconds;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        int capacity = Integer.highestOneBit(maxUsers * 2 - 1) << 1;
+        this.keys = new int[capacity];
+        this.values = new int[capacity][];
+        this.loadedAt = new long[capacity];
+        this.referenced = new boolean[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Returns the sorted ids of the user's accepted friends, loading them from the database on a cache miss.
+     * The returned array is shared and must be treated as read-only.
+     */
+    public int[] friendIds(int userId) {
+        int[] cached = lookup(userId);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        return load(userId);
+    }
+
+    /**
+     * Returns the sorted friend ids of every given user, in the order of the given ids. The users that are not
+     * cached are loaded together with one query per {@value #BATCH_LOAD_SIZE} users instead of two queries each.
+     * The returned arrays are shared and must be treated as read-only.
+     */
+    public int[][] friendIdsOf(int[] userIds) {
+        int[][] result = new int[userIds.length][];
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < userIds.length; i++) {
+            result[i] = lookup(userIds[i]);
+            if (result[i] == null) {
+                missing.add(userIds[i]);
+            }
+        }
+        hits.add(userIds.length - missing.size());
+        if (missing.isEmpty()) {
+            return result;
+        }
+        misses.add(missing.size());
+
+        long loadVersion = currentVersion();
+        Map<Integer, List<Integer>> loaded = new HashMap<>();
+        for (int from = 0; from < missing.size(); from += BATCH_LOAD_SIZE) {
+            List<Integer> chunk = missing.subList(from, Math.min(from + BATCH_LOAD_SIZE, missing.size()));
+            for (Integer id : chunk) {
+                loaded.put(id, new ArrayList<>());
+            }
+            for (Object[] edge : friendRequestRepository.findEdgesByUserIdInAndStatus(chunk, FriendStatus.ACCEPTED)) {
+                int senderId = ((Number) edge[0]).intValue();
+                int receiverId = ((Number) edge[1]).intValue();
+                List<Integer> senderFriends = loaded.get(senderId);
+                if (senderFriends != null) {
+                    senderFriends.add(receiverId);
+                }
+                List<Integer> receiverFriends = loaded.get(receiverId);
+                if (receiverFriends != null) {
+                    receiverFriends.add(senderId);
+                }
+            }
+        }
+        for (int i = 0; i < userIds.length; i++) {
+            if (result[i] == null) {
+                result[i] = store(userIds[i], toSortedArray(loaded.get(userIds[i]), List.of()), loadVersion);
+            }
+        }
+        return result;
+    }
+
+    public int friendCount(int userId) {
+        return friendIds(userId).length;
+    }
+
+    public boolean areFriends(int userId, int otherUserId) {
+        return Arrays.binarySearch(friendIds(userId), otherUserId) >= 0;
+    }
+
+    /**
+     * Returns the sorted ids of the friends the two users have in common.
+     */
+    public int[] mutualFriendIds(int userId, int otherUserId) {
+        int[] first = friendIds(userId);
+        int[] second = friendIds(otherUserId);
+        int[] result = new int[Math.min(first.length, second.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                result[size++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return size == 0 ? EMPTY : Arrays.copyOf(result, size);
+    }
+
+    public int mutualFriendCount(int userId, int otherUserId) {
+        int[] first = friendIds(userId);
+        int[] second = friendIds(otherUserId);
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Records an accepted friendship. Only users that are already cached are updated; the others pick the edge
+     * up from the database when they are loaded.
+     */
+    public void addEdge(int firstUserId, int secondUserId) {
+        lock.writeLock().lock();
+        try {
+            version++;
+            int first = indexOf(firstUserId);
+            if (first >= 0) {
+                values[first] = insert(values[first], secondUserId);
+            }
+            int second = indexOf(secondUserId);
+            if (second >= 0) {
+                values[second] = insert(values[second], firstUserId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeEdge(int firstUserId, int secondUserId) {
+        lock.writeLock().lock();
+        try {
+            version++;
+            int first = indexOf(firstUserId);
+            if (first >= 0) {
+                values[first] = remove(values[first], secondUserId);
+            }
+            int second = indexOf(secondUserId);
+            if (second >= 0) {
+                values[second] = remove(values[second], firstUserId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops a deleted user from the graph, including the edges cached on the user's friends.
+     */
+    public void removeUser(int userId) {
+        lock.writeLock().lock();
+        try {
+            version++;
+            int slot = indexOf(userId);
+            if (slot < 0) {
+                for (int i = 0; i < keys.length; i++) {
+                    if (keys[i] != FREE) {
+                        values[i] = remove(values[i], userId);
+                    }
+                }
+                return;
+            }
+            for (int friendId : values[slot]) {
+                int friendSlot = indexOf(friendId);
+                if (friendSlot >= 0) {
+                    values[friendSlot] = remove(values[friendSlot], userId);
+                }
+            }
+            delete(slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void invalidate(int userId) {
+        lock.writeLock().lock();
+        try {
+            version++;
+            int slot = indexOf(userId);
+            if (slot >= 0) {
+                delete(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            version++;
+            Arrays.fill(keys, FREE);
+            Arrays.fill(values, null);
+            Arrays.fill(referenced, false);
+            Arrays.fill(loadedAt, 0);
+            size = 0;
+            clockHand = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    public int getSize() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getMaxUsers() {
+        return maxUsers;
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    private int[] lookup(int userId) {
+        lock.readLock().lock();
+        try {
+            int slot = indexOf(userId);
+            if (slot < 0 || isExpired(slot, System.nanoTime())) {
+                return null;
+            }
+            referenced[slot] = true;
+            return values[slot];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int[] load(int userId) {
+        long loadVersion = currentVersion();
+        int[] friendIds = toSortedArray(
+                friendRequestRepository.findReceiverIdsBySenderIdAndStatus(userId, FriendStatus.ACCEPTED),
+                friendRequestRepository.findSenderIdsByReceiverIdAndStatus(userId, FriendStatus.ACCEPTED));
+        return store(userId, friendIds, loadVersion);
+    }
+
+    private long currentVersion() {
+        lock.readLock().lock();
+        try {
+            return version;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Caches friend ids read from the database at the given version and returns the ids the caller should use.
+     */
+    private int[] store(int userId, int[] friendIds, long loadVersion) {
+        lock.writeLock().lock();
+        try {
+            long now = System.nanoTime();
+            int slot = indexOf(userId);
+            if (slot >= 0 && !isExpired(slot, now)) {
+                return values[slot];
+            }
+            // a friendship changed while we were reading, the loaded ids may already be stale
+            if (loadVersion != version) {
+                return friendIds;
+            }
+            if (slot >= 0) {
+                expirations.increment();
+                values[slot] = friendIds;
+                loadedAt[slot] = now;
+                referenced[slot] = true;
+                return friendIds;
+            }
+            if (size >= maxUsers) {
+                evict();
+            }
+            put(userId, friendIds, now);
+            return friendIds;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int indexOf(int userId) {
+        int slot = hash(userId) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == userId) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private boolean isExpired(int slot, long now) {
+        return now - loadedAt[slot] >= ttlNanos;
+    }
+
+    private void put(int userId, int[] friendIds, long now) {
+        int slot = hash(userId) & mask;
+        while (keys[slot] != FREE) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = userId;
+        values[slot] = friendIds;
+        loadedAt[slot] = now;
+        referenced[slot] = true;
+        size++;
+    }
+
+    private void evict() {
+        while (true) {
+            if (keys[clockHand] != FREE) {
+                if (!referenced[clockHand]) {
+                    delete(clockHand);
+                    evictions.increment();
+                    return;
+                }
+                referenced[clockHand] = false;
+            }
+            clockHand = (clockHand + 1) & mask;
+        }
+    }
+
+    /**
+     * Removes a slot from the linear-probing table and shifts the following entries of the same
+     * probe run back, so lookups never stop at a hole.
+     */
+    private void delete(int slot) {
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != FREE) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                loadedAt[hole] = loadedAt[next];
+                referenced[hole] = referenced[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = FREE;
+        values[hole] = null;
+        loadedAt[hole] = 0;
+        referenced[hole] = false;
+        size--;
+    }
+
+    private static int hash(int userId) {
+        int h = userId * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int[] toSortedArray(List<Integer> first, List<Integer> second) {
+        if (first.isEmpty() && second.isEmpty()) {
+            return EMPTY;
+        }
+        int[] result = new int[first.size() + second.size()];
+        int i = 0;
+        for (Integer id : first) {
+            result[i++] = id;
+        }
+        for (Integer id : second) {
+            result[i++] = id;
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    private static int[] insert(int[] friendIds, int friendId) {
+        int position = Arrays.binarySearch(friendIds, friendId);
+        if (position >= 0) {
+            return friendIds;
+        }
+        position = -position - 1;
+        int[] result = new int[friendIds.length + 1];
+        System.arraycopy(friendIds, 0, result, 0, position);
+        result[position] = friendId;
+        System.arraycopy(friendIds, position, result, position + 1, friendIds.length - position);
+        return result;
+    }
+
+    private static int[] remove(int[] friendIds, int friendId) {
+        int position = Arrays.binarySearch(friendIds, friendId);
+        if (position < 0) {
+            return friendIds;
+        }
+        if (friendIds.length == 1) {
+            return EMPTY;
+        }
+        int[] result = new int[friendIds.length - 1];
+        System.arraycopy(friendIds, 0, result, 0, position);
+        System.arraycopy(friendIds, position + 1, result, position, friendIds.length - position - 1);
+        return result;
+    }
+}
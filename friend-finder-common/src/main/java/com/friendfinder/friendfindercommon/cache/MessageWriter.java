@@ -0,0 +1,303 @@
+package com.friendfinder.friendfindercommon.cache;
+
+import com.friendfinder.friendfindercommon.entity.Message;
+import com.friendfinder.friendfindercommon.exception.custom.MessageQueueFullException;
+import com.friendfinder.friendfindercommon.exception.custom.SendMessageException;
+import com.friendfinder.friendfindercommon.repository.MessageRepository;
+import com.friendfinder.friendfindercommon.service.ChatService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * MessageWriter persists chat messages for MessageServiceImpl and keeps the conversation summary and the unread
+ * counters of their chat up to date in the same transaction.
+ * </p>
+ *
+ * <p>
+ * By default every message is written in its own transaction. When {@code chat.group-commit.enabled} is set, the
+ * messages are put on a bounded in-process queue and a single writer thread inserts whatever has accumulated, up to
+ * {@code chat.group-commit.batch-size} messages, with one JDBC batch in one transaction, so concurrent senders share
+ * one commit instead of paying for one each. The calling thread waits until the batch holding its message has
+ * committed, so the message has its id and is durable when write() returns.
+ * </p>
+ *
+ * <p>
+ * When the queue stays full for {@code chat.group-commit.offer-timeout-ms} the message is rejected with a
+ * MessageQueueFullException (503) rather than queued without limit. A batch that fails is not retried; every sender in
+ * it gets a SendMessageException. Messages that are still queued on shutdown are written before the writer stops.
+ * </p>
+ *
+ * <p>
+ * A sender waits {@code chat.group-commit.max-wait-ms} for its batch. If its message is still queued by then, it is
+ * taken off the queue and the sender gets a SendMessageException, so a retry cannot write it twice. Once the message
+ * has been taken into a batch it will be committed or rolled back, so the sender keeps waiting for that outcome
+ * instead of reporting a failure for a message that is written afterwards.
+ * </p>
+ */
+@Component
+@Slf4j
+public class MessageWriter {
+
+    private static final String INSERT_SQL = "insert into message (chat_id, sender_id, receiver_id, content, sent_at) " +
+            "values (?, ?, ?, ?, ?)";
+
+    private final MessageRepository messageRepository;
+    private final ChatService chatService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean groupCommit;
+    private final int batchSize;
+    private final long offerTimeoutMillis;
+    private final long maxWaitMillis;
+
+    private final BlockingQueue<PendingMessage> queue;
+    private volatile boolean running;
+    private Thread writer;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder writtenMessages = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder rejectedMessages = new LongAdder();
+
+    public MessageWriter(MessageRepository messageRepository,
+                         ChatService chatService,
+                         JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${chat.group-commit.enabled:false}") boolean groupCommit,
+                         @Value("${chat.group-commit.batch-size:200}") int batchSize,
+                         @Value("${chat.group-commit.queue-capacity:10000}") int queueCapacity,
+                         @Value("${chat.group-commit.offer-timeout-ms:100}") long offerTimeoutMillis,
+                         @Value("${chat.group-commit.max-wait-ms:5000}") long maxWaitMillis) {
+        if (batchSize < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("chat.group-commit.batch-size and queue-capacity must be positive");
+        }
+        this.messageRepository = messageRepository;
+        this.chatService = chatService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.groupCommit = groupCommit;
+        this.batchSize = batchSize;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.maxWaitMillis = maxWaitMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!groupCommit) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::run, "message-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join(maxWaitMillis);
+        }
+    }
+
+    /**
+     * Saves the message and updates its chat, directly or as part of the next batch, and returns once committed.
+     */
+    public Message write(Message message) {
+        if (!groupCommit) {
+            transactionTemplate.executeWithoutResult(status -> {
+                messageRepository.save(message);
+                chatService.updateLastMessage(message);
+                chatService.addUnread(message.getChat().getId(), message.getReceiver().getId(), 1);
+            });
+            return message;
+        }
+        PendingMessage pending = new PendingMessage(message);
+        try {
+            if (!running || !queue.offer(pending, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                rejectedMessages.increment();
+                throw new MessageQueueFullException("message queue is full, try again later");
+            }
+            pending.committed.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (queue.remove(pending)) {
+                throw new SendMessageException("interrupted while saving the message", e);
+            }
+            awaitBatch(pending);
+        } catch (ExecutionException e) {
+            throw new SendMessageException("could not save the message", e.getCause());
+        } catch (TimeoutException e) {
+            if (queue.remove(pending)) {
+                throw new SendMessageException("the message was not committed in time", e);
+            }
+            awaitBatch(pending);
+        }
+        return message;
+    }
+
+    /**
+     * Waits, without a timeout, for the batch that already holds the message: it is going to be written either way.
+     */
+    private void awaitBatch(PendingMessage pending) {
+        try {
+            pending.committed.join();
+        } catch (CompletionException e) {
+            throw new SendMessageException("could not save the message", e.getCause());
+        }
+    }
+
+    public boolean isGroupCommit() {
+        return groupCommit;
+    }
+
+    public int getQueuedMessages() {
+        return queue.size();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public long getWrittenMessages() {
+        return writtenMessages.sum();
+    }
+
+    public long getFailedBatches() {
+        return failedBatches.sum();
+    }
+
+    public long getRejectedMessages() {
+        return rejectedMessages.sum();
+    }
+
+    private void run() {
+        List<PendingMessage> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMessage first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<PendingMessage> batch) {
+        List<Message> messages = new ArrayList<>(batch.size());
+        for (PendingMessage pending : batch) {
+            messages.add(pending.message);
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                insert(messages);
+                updateChats(messages);
+            });
+        } catch (RuntimeException e) {
+            failedBatches.increment();
+            log.error("could not write a batch of {} messages", messages.size(), e);
+            for (PendingMessage pending : batch) {
+                pending.committed.completeExceptionally(e);
+            }
+            return;
+        }
+        batches.increment();
+        writtenMessages.add(messages.size());
+        for (PendingMessage pending : batch) {
+            pending.committed.complete(null);
+        }
+    }
+
+    private void insert(List<Message> messages) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (Message message : messages) {
+                    statement.setInt(1, message.getChat().getId());
+                    statement.setInt(2, message.getSender().getId());
+                    statement.setInt(3, message.getReceiver().getId());
+                    statement.setString(4, message.getContent());
+                    statement.setTimestamp(5, Timestamp.valueOf(message.getSentAt()));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next() && i < messages.size()) {
+                        messages.get(i++).setId(keys.getInt(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private void updateChats(List<Message> messages) {
+        // one summary update per chat and sender is enough, the latest message wins
+        Map<Long, Message> latest = new HashMap<>();
+        Map<Long, Integer> received = new HashMap<>();
+        for (Message message : messages) {
+            latest.merge(key(message.getChat().getId(), message.getSender().getId()), message,
+                    (current, candidate) -> candidate.getId() > current.getId() ? candidate : current);
+            received.merge(key(message.getChat().getId(), message.getReceiver().getId()), 1, Integer::sum);
+        }
+        // the increments go first: the recount of a sender below already sees the messages of this batch addressed to
+        // it and replaces its unread count, so incrementing afterwards would count them twice
+        for (Map.Entry<Long, Integer> entry : received.entrySet()) {
+            chatService.addUnread((int) (entry.getKey() >>> 32), (int) (long) entry.getKey(), entry.getValue());
+        }
+        List<Message> updates = new ArrayList<>(latest.values());
+        updates.sort(Comparator.comparingInt(Message::getId));
+        for (Message message : updates) {
+            chatService.updateLastMessage(message);
+        }
+    }
+
+    private static long key(int chatId, int userId) {
+        return ((long) chatId << 32) | (userId & 0xffffffffL);
+    }
+
+    private static final class PendingMessage {
+
+        private final Message message;
+        private final CompletableFuture<Void> committed = new CompletableFuture<>();
+
+        private PendingMessage(Message message) {
+            this.message = message;
+        }
+    }
+}
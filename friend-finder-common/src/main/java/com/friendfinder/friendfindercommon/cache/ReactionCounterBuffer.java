@@ -0,0 +1,340 @@
+package com.friendfinder.friendfindercommon.cache;
+
+import com.friendfinder.friendfindercommon.entity.types.LikeStatus;
+import com.friendfinder.friendfindercommon.repository.PostRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>
+ * ReactionCounterBuffer applies the like and dislike count deltas produced by LikeAndDislikeServiceImpl to the post
+ * table.
+ * </p>
+ *
+ * <p>
+ * By default every delta is written immediately with a single UPDATE. When {@code reaction.write-behind.enabled} is
+ * set, the deltas are instead accumulated in memory per post, spread over several striped cells so that concurrent
+ * reactions to a hot post do not contend on one counter, and written in one JDBC batch every
+ * {@code reaction.write-behind.flush-interval-ms}, as soon as {@code reaction.write-behind.flush-size} posts are
+ * pending, and on graceful shutdown. Deltas that are not flushed yet are merged into the counts shown to the users
+ * through {@link #pendingLikes(int)} and {@link #pendingDislikes(int)}.
+ * </p>
+ *
+ * <p>
+ * A delta added inside a transaction is only buffered after that transaction commits, so a rolled back reaction
+ * never reaches the counters. Flushes never run on the caller's thread: the size-triggered flush is handed to a
+ * single flusher thread and the periodic one runs on the scheduler, so the batch UPDATE always commits on its own
+ * and cannot be rolled back together with an unrelated reaction.
+ * </p>
+ *
+ * <p>
+ * Every application running in write-behind mode records a heartbeat in the reaction_buffer_instance table on each
+ * flush and removes it on shutdown. {@link #isWriteBehindActive()} reads it, so CounterReconciliationServiceImpl can
+ * tell that some application may hold deltas it cannot see, even when it runs in another JVM.
+ * </p>
+ *
+ * <p>
+ * A flush takes each pending entry out of the map and marks it as retired before draining it. A writer that finds
+ * its entry retired after adding to it moves whatever the flush did not drain to a fresh entry, so no delta is lost
+ * or applied twice. Deltas that are still in memory when the process dies are lost; the counters can be rebuilt
+ * from post_like.
+ * </p>
+ */
+@Component
+@Slf4j
+public class ReactionCounterBuffer {
+
+    private static final String FLUSH_SQL = "update post set like_count = greatest(like_count + ?, 0), " +
+            "dislike_count = greatest(dislike_count + ?, 0) where id = ?";
+    private static final String HEARTBEAT_UPDATE_SQL =
+            "update reaction_buffer_instance set seen_at = current_timestamp where instance_id = ?";
+    private static final String HEARTBEAT_INSERT_SQL =
+            "insert into reaction_buffer_instance (instance_id, seen_at) values (?, current_timestamp)";
+    private static final String HEARTBEAT_DELETE_SQL = "delete from reaction_buffer_instance where instance_id = ?";
+    private static final String ACTIVE_INSTANCES_SQL =
+            "select count(*) from reaction_buffer_instance where seen_at > timestampadd(SECOND, ?, current_timestamp)";
+
+    private final PostRepository postRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean writeBehind;
+    private final int flushSize;
+    private final int stripes;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @Value("${reaction.write-behind.heartbeat-timeout-seconds:60}")
+    private long heartbeatTimeoutSeconds = 60;
+
+    private final ConcurrentHashMap<Integer, PendingCounts> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushedPosts = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private volatile long lastFlushNanos;
+
+    public ReactionCounterBuffer(PostRepository postRepository,
+                                 JdbcTemplate jdbcTemplate,
+                                 @Value("${reaction.write-behind.enabled:false}") boolean writeBehind,
+                                 @Value("${reaction.write-behind.flush-size:1000}") int flushSize) {
+        if (flushSize < 1) {
+            throw new IllegalArgumentException("reaction.write-behind.flush-size must be positive");
+        }
+        this.postRepository = postRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeBehind = writeBehind;
+        this.flushSize = flushSize;
+        this.stripes = Integer.highestOneBit(Math.min(Runtime.getRuntime().availableProcessors(), 16) * 2 - 1);
+    }
+
+    /**
+     * Adds delta to the like or dislike count of the post, immediately or on the next flush. In write-behind mode a
+     * delta added inside a transaction is buffered once the transaction commits.
+     */
+    public void add(int postId, LikeStatus likeStatus, int delta) {
+        if (!writeBehind) {
+            if (likeStatus == LikeStatus.LIKE) {
+                postRepository.updateLikeCount(postId, delta);
+            } else {
+                postRepository.updateDislikeCount(postId, delta);
+            }
+            return;
+        }
+        long likes = likeStatus == LikeStatus.LIKE ? delta : 0;
+        long dislikes = likeStatus == LikeStatus.LIKE ? 0 : delta;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    buffer(postId, likes, dislikes);
+                }
+            });
+        } else {
+            buffer(postId, likes, dislikes);
+        }
+    }
+
+    public long pendingLikes(int postId) {
+        PendingCounts counts = pending.get(postId);
+        return counts == null ? 0 : counts.sum(0);
+    }
+
+    public long pendingDislikes(int postId) {
+        PendingCounts counts = pending.get(postId);
+        return counts == null ? 0 : counts.sum(1);
+    }
+
+    @Scheduled(fixedDelayString = "${reaction.write-behind.flush-interval-ms:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            drainAndWrite();
+        } finally {
+            flushLock.unlock();
+        }
+        if (writeBehind) {
+            heartbeat();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        flush();
+        if (writeBehind) {
+            try {
+                jdbcTemplate.update(HEARTBEAT_DELETE_SQL, instanceId);
+            } catch (DataAccessException e) {
+                log.warn("could not remove the reaction write-behind heartbeat of {}", instanceId, e);
+            }
+        }
+    }
+
+    /**
+     * Tells whether this or any other application has buffered reaction deltas recently, according to the
+     * heartbeats written within {@code reaction.write-behind.heartbeat-timeout-seconds}.
+     */
+    public boolean isWriteBehindActive() {
+        if (writeBehind) {
+            return true;
+        }
+        Integer instances = jdbcTemplate.queryForObject(ACTIVE_INSTANCES_SQL, Integer.class, -heartbeatTimeoutSeconds);
+        return instances != null && instances > 0;
+    }
+
+    public boolean isWriteBehind() {
+        return writeBehind;
+    }
+
+    public int getPendingPosts() {
+        return pending.size();
+    }
+
+    public long getPendingDeltas() {
+        long total = 0;
+        for (PendingCounts counts : pending.values()) {
+            total += Math.abs(counts.sum(0)) + Math.abs(counts.sum(1));
+        }
+        return total;
+    }
+
+    public long getFlushes() {
+        return flushes.sum();
+    }
+
+    public long getFlushedPosts() {
+        return flushedPosts.sum();
+    }
+
+    public long getFlushFailures() {
+        return flushFailures.sum();
+    }
+
+    public long getLastFlushMillis() {
+        return lastFlushNanos / 1_000_000;
+    }
+
+    public long getMaxFlushMillis() {
+        return maxFlushNanos.get() / 1_000_000;
+    }
+
+    private void buffer(int postId, long likes, long dislikes) {
+        addPending(postId, likes, dislikes);
+        if (pending.size() >= flushSize && flushRequested.compareAndSet(false, true)) {
+            try {
+                flusher.execute(() -> {
+                    try {
+                        flush();
+                    } finally {
+                        flushRequested.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // shutting down, the final flush writes the deltas
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    private void addPending(int postId, long likes, long dislikes) {
+        int stripe = (int) Thread.currentThread().getId() & (stripes - 1);
+        while (likes != 0 || dislikes != 0) {
+            PendingCounts counts = pending.computeIfAbsent(postId, id -> new PendingCounts(stripes));
+            counts.add(stripe, likes, dislikes);
+            if (!counts.retired) {
+                return;
+            }
+            // a flush took the entry while we were adding to it, move what it did not see to a fresh entry
+            likes = counts.drain(0);
+            dislikes = counts.drain(1);
+        }
+    }
+
+    private void heartbeat() {
+        try {
+            if (jdbcTemplate.update(HEARTBEAT_UPDATE_SQL, instanceId) == 0) {
+                jdbcTemplate.update(HEARTBEAT_INSERT_SQL, instanceId);
+            }
+        } catch (DataAccessException e) {
+            log.warn("could not record the reaction write-behind heartbeat of {}", instanceId, e);
+        }
+    }
+
+    private void drainAndWrite() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        List<Object[]> batch = new ArrayList<>();
+        for (Integer postId : pending.keySet()) {
+            PendingCounts counts = pending.remove(postId);
+            if (counts == null) {
+                continue;
+            }
+            counts.retired = true;
+            long likes = counts.drain(0);
+            long dislikes = counts.drain(1);
+            if (likes != 0 || dislikes != 0) {
+                batch.add(new Object[]{likes, dislikes, postId});
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+        } catch (DataAccessException e) {
+            flushFailures.increment();
+            log.error("could not flush reaction counters of {} posts, keeping them for the next flush", batch.size(), e);
+            for (Object[] row : batch) {
+                addPending((Integer) row[2], (Long) row[0], (Long) row[1]);
+            }
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        lastFlushNanos = elapsed;
+        maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+        flushes.increment();
+        flushedPosts.add(batch.size());
+    }
+
+    /**
+     * Striped like and dislike deltas of one post. Cell 2 * stripe holds likes and cell 2 * stripe + 1 dislikes.
+     */
+    private static final class PendingCounts {
+
+        private final AtomicLongArray cells;
+        private volatile boolean retired;
+
+        private PendingCounts(int stripes) {
+            this.cells = new AtomicLongArray(stripes * 2);
+        }
+
+        private void add(int stripe, long likes, long dislikes) {
+            if (likes != 0) {
+                cells.getAndAdd(stripe * 2, likes);
+            }
+            if (dislikes != 0) {
+                cells.getAndAdd(stripe * 2 + 1, dislikes);
+            }
+        }
+
+        private long sum(int offset) {
+            long sum = 0;
+            for (int i = offset; i < cells.length(); i += 2) {
+                sum += cells.get(i);
+            }
+            return sum;
+        }
+
+        private long drain(int offset) {
+            long sum = 0;
+            for (int i = offset; i < cells.length(); i += 2) {
+                sum += cells.getAndSet(i, 0);
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.friendfinder.friendfindercommon.cache;
+
+import com.friendfinder.friendfindercommon.repository.ChatRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * ReadReceiptBuffer coalesces "read up to message id" acknowledgements before they reach the chat table.
+ * </p>
+ *
+ * <p>
+ * Clients acknowledge every message they display, so a user scrolling through a busy chat sends a burst of
+ * acknowledgements for the same chat. Only the highest acknowledged message id per chat and user is kept, and it is
+ * written with a single UPDATE, which also recounts the unread messages of the user, every
+ * {@code chat.read-ack.flush-interval-ms} and on graceful shutdown. Acknowledgements that are still in memory when the
+ * process dies are lost; the client acknowledges again the next time the chat is shown.
+ * </p>
+ */
+@Component
+@Slf4j
+public class ReadReceiptBuffer {
+
+    private final ChatRepository chatRepository;
+
+    private final ConcurrentHashMap<Long, Integer> pending = new ConcurrentHashMap<>();
+
+    private final LongAdder acknowledgements = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+
+    public ReadReceiptBuffer(ChatRepository chatRepository) {
+        this.chatRepository = chatRepository;
+    }
+
+    public void acknowledge(int chatId, int userId, int messageId) {
+        acknowledgements.increment();
+        pending.merge(key(chatId, userId), messageId, Math::max);
+    }
+
+    @Scheduled(fixedDelayString = "${chat.read-ack.flush-interval-ms:500}")
+    public void flush() {
+        for (Long key : pending.keySet()) {
+            Integer messageId = pending.remove(key);
+            if (messageId == null) {
+                continue;
+            }
+            int chatId = (int) (key >>> 32);
+            int userId = (int) (long) key;
+            try {
+                chatRepository.markRead(chatId, userId, messageId);
+                writes.increment();
+            } catch (DataAccessException e) {
+                log.error("could not mark chat {} read for user {}, keeping it for the next flush", chatId, userId, e);
+                pending.merge(key, messageId, Math::max);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public int getPending() {
+        return pending.size();
+    }
+
+    public long getAcknowledgements() {
+        return acknowledgements.sum();
+    }
+
+    public long getWrites() {
+        return writes.sum();
+    }
+
+    private static long key(int chatId, int userId) {
+        return ((long) chatId << 32) | (userId & 0xffffffffL);
+    }
+}
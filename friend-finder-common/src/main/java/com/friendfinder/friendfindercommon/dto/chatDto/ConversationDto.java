@@ -0,0 +1,23 @@
+package com.friendfinder.friendfindercommon.dto.chatDto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConversationDto {
+    private int chatId;
+    private int userId;
+    private String name;
+    private String surname;
+    private String profilePicture;
+    private String lastMessage;
+    private LocalDateTime lastMessageAt;
+    private long unreadCount;
+}
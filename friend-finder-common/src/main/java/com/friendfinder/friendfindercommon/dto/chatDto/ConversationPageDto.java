@@ -0,0 +1,16 @@
+package com.friendfinder.friendfindercommon.dto.chatDto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ConversationPageDto {
+
+    private List<ConversationDto> conversations;
+    private Integer nextPage;
+}
@@ -0,0 +1,16 @@
+package com.friendfinder.friendfindercommon.dto.chatDto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class MessagePageResponseDto {
+
+    private List<MessageResponseDto> messages;
+    private Integer nextCursor;
+}
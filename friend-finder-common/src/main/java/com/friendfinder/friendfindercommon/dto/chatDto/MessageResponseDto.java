@@ -0,0 +1,24 @@
+package com.friendfinder.friendfindercommon.dto.chatDto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MessageResponseDto {
+    private int id;
+    private int chatId;
+    private int senderId;
+    private String senderName;
+    private String senderSurname;
+    private String senderProfilePicture;
+    private int receiverId;
+    private String content;
+    private LocalDateTime sentAt;
+}
@@ -0,0 +1,20 @@
+package com.friendfinder.friendfindercommon.dto.chatDto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MessageSearchHitDto {
+    private int messageId;
+    private int chatId;
+    private int senderId;
+    private String snippet;
+    private LocalDateTime sentAt;
+}
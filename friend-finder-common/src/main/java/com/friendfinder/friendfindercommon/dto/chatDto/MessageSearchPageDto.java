@@ -0,0 +1,16 @@
+package com.friendfinder.friendfindercommon.dto.chatDto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class MessageSearchPageDto {
+
+    private List<MessageSearchHitDto> hits;
+    private Integer nextPage;
+}
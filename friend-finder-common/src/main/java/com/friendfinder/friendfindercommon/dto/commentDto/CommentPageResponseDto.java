@@ -0,0 +1,17 @@
+package com.friendfinder.friendfindercommon.dto.commentDto;
+
+import com.friendfinder.friendfindercommon.dto.feedDto.FeedCommentDto;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CommentPageResponseDto {
+
+    private List<FeedCommentDto> comments;
+    private Integer nextCursor;
+}
@@ -0,0 +1,21 @@
+package com.friendfinder.friendfindercommon.dto.feedDto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FeedCommentDto {
+
+    private int id;
+    private int userId;
+    private String userName;
+    private String userSurname;
+    private String userProfilePicture;
+    private String commentaryText;
+    private LocalDateTime datetime;
+}
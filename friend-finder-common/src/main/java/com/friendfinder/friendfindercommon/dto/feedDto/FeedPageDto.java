@@ -0,0 +1,16 @@
+package com.friendfinder.friendfindercommon.dto.feedDto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FeedPageDto {
+
+    private List<FeedPostDto> posts;
+    private Integer nextCursor;
+}
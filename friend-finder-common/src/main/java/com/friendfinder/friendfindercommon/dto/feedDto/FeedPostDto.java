@@ -0,0 +1,32 @@
+package com.friendfinder.friendfindercommon.dto.feedDto;
+
+import com.friendfinder.friendfindercommon.entity.types.LikeStatus;
+import com.friendfinder.friendfindercommon.entity.types.MediaKind;
+import lombok.*;
+
+import java.util.Date;
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FeedPostDto {
+
+    private int id;
+    private String description;
+    private String imgName;
+    private String musicFileName;
+    private MediaKind mediaKind;
+    private Date postDatetime;
+    private int userId;
+    private String userName;
+    private String userSurname;
+    private String userProfilePicture;
+    private List<FeedCommentDto> comments;
+    private long commentCount;
+    private long likeCount;
+    private long dislikeCount;
+    private LikeStatus viewerReaction;
+}
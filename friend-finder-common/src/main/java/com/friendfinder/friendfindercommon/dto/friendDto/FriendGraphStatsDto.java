@@ -0,0 +1,19 @@
+package com.friendfinder.friendfindercommon.dto.friendDto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FriendGraphStatsDto {
+
+    private int size;
+    private int maxUsers;
+    private long ttlSeconds;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+}
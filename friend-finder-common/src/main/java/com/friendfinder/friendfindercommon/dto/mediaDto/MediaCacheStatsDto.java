@@ -0,0 +1,17 @@
+package com.friendfinder.friendfindercommon.dto.mediaDto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class MediaCacheStatsDto {
+
+    private long requests;
+    private long notModified;
+    private double notModifiedRatio;
+    private long bytesSaved;
+    private long sendfileResponses;
+}
@@ -0,0 +1,17 @@
+package com.friendfinder.friendfindercommon.dto.mediaDto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class MediaMigrationResultDto {
+
+    private boolean running;
+    private int files;
+    private int deduplicatedFiles;
+    private int missingFiles;
+    private int references;
+}
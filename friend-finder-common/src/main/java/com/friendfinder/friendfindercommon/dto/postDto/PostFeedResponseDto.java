@@ -0,0 +1,17 @@
+package com.friendfinder.friendfindercommon.dto.postDto;
+
+import com.friendfinder.friendfindercommon.entity.Post;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PostFeedResponseDto {
+
+    private List<Post> posts;
+    private Integer nextCursor;
+}
@@ -1,6 +1,7 @@
 package com.friendfinder.friendfindercommon.dto.postDto;
 
 import com.friendfinder.friendfindercommon.entity.User;
+import com.friendfinder.friendfindercommon.entity.types.MediaKind;
 import lombok.*;
 
 import java.util.Date;
@@ -16,6 +17,7 @@ public class PostRequestDto {
     private String description;
     private String imgName;
     private String musicFileName;
+    private MediaKind mediaKind;
     private Date postDatetime;
     private User user;
 }
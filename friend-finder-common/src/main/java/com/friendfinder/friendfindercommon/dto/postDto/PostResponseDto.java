@@ -1,6 +1,7 @@
 package com.friendfinder.friendfindercommon.dto.postDto;
 
 import com.friendfinder.friendfindercommon.entity.User;
+import com.friendfinder.friendfindercommon.entity.types.MediaKind;
 import lombok.*;
 
 import java.util.Date;
@@ -17,8 +18,10 @@ public class PostResponseDto {
     private String description;
     private String imgName;
     private String musicFileName;
+    private MediaKind mediaKind;
     private int likeCount;
     private int dislikeCount;
+    private int commentCount;
     private Date postDatetime;
     private User user;
 }
@@ -0,0 +1,20 @@
+package com.friendfinder.friendfindercommon.dto.postLikeDto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReactionBufferStatsDto {
+
+    private boolean writeBehind;
+    private int pendingPosts;
+    private long pendingDeltas;
+    private long flushes;
+    private long flushedPosts;
+    private long flushFailures;
+    private long lastFlushMillis;
+    private long maxFlushMillis;
+}
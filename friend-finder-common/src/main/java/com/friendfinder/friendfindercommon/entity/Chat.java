@@ -7,6 +7,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
@@ -30,6 +31,29 @@ public class Chat {
     @NotEmpty(message = "Receiver user can't be empty")
     private User anotherUser;
 
+    @Column(name = "low_user_id")
+    private int lowUserId;
+
+    @Column(name = "high_user_id")
+    private int highUserId;
+
+    @Column(name = "last_message_snippet")
+    private String lastMessageSnippet;
+
+    @Column(name = "last_message_at")
+    private LocalDateTime lastMessageAt;
+
+    @Column(name = "current_user_read_id")
+    private int currentUserReadId;
+
+    @Column(name = "another_user_read_id")
+    private int anotherUserReadId;
+
+    @Column(name = "current_user_unread")
+    private int currentUserUnread;
+
+    @Column(name = "another_user_unread")
+    private int anotherUserUnread;
 
     @OneToMany(mappedBy = "chat", cascade = CascadeType.ALL)
     private List<Message> messages;
@@ -0,0 +1,26 @@
+package com.friendfinder.friendfindercommon.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Data
+@Table(name = "feed_inbox")
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FeedInbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private int id;
+
+    private int ownerId;
+
+    private int postId;
+
+    private int authorId;
+}
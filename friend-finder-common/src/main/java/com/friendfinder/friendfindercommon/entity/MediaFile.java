@@ -0,0 +1,28 @@
+package com.friendfinder.friendfindercommon.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Data
+@Table(name = "media_file")
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class MediaFile {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private int id;
+
+    private String directory;
+
+    private String fileName;
+
+    private long fileSize;
+
+    private int refCount;
+}
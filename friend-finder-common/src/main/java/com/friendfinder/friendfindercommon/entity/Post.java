@@ -1,5 +1,6 @@
 package com.friendfinder.friendfindercommon.entity;
 
+import com.friendfinder.friendfindercommon.entity.types.MediaKind;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.*;
@@ -23,8 +24,14 @@ public class Post {
     private String description;
     private String imgName;
     private String musicFileName;
+
+    @Enumerated(value = EnumType.STRING)
+    private MediaKind mediaKind;
+
     private int likeCount;
     private int dislikeCount;
+    private int commentCount;
+    private boolean fannedOut;
 
     @DateTimeFormat(pattern = "yyyy-MM-dd")
     private Date postDatetime;
@@ -0,0 +1,17 @@
+package com.friendfinder.friendfindercommon.entity.types;
+
+public enum MediaKind {
+    TEXT, IMAGE, VIDEO, IMAGE_VIDEO;
+
+    public static MediaKind of(String imgName, String musicFileName) {
+        boolean image = imgName != null && !imgName.isEmpty();
+        boolean video = musicFileName != null && !musicFileName.isEmpty();
+        if (image && video) {
+            return IMAGE_VIDEO;
+        }
+        if (image) {
+            return IMAGE;
+        }
+        return video ? VIDEO : TEXT;
+    }
+}
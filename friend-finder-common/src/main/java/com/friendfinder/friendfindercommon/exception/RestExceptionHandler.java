@@ -2,6 +2,7 @@ package com.friendfinder.friendfindercommon.exception;
 
 import com.friendfinder.friendfindercommon.dto.exceptionRestDto.RestErrorDto;
 import com.friendfinder.friendfindercommon.exception.custom.DeleteFriendNotFoundException;
+import com.friendfinder.friendfindercommon.exception.custom.PostNotFoundException;
 import com.friendfinder.friendfindercommon.exception.custom.RejectFriendRequestException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -25,6 +26,7 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
     @ExceptionHandler(value = {
             DeleteFriendNotFoundException.class,
             HttpClientErrorException.class,
+            PostNotFoundException.class,
             RejectFriendRequestException.class
     })
     public ResponseEntity<Object> handleEntityNotFoundException(Exception ex, WebRequest request) {
@@ -0,0 +1,23 @@
+package com.friendfinder.friendfindercommon.exception.custom;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+public class MessageQueueFullException extends RuntimeException {
+    public MessageQueueFullException() {
+        super();
+    }
+
+    public MessageQueueFullException(String message) {
+        super(message);
+    }
+
+    public MessageQueueFullException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public MessageQueueFullException(Throwable cause) {
+        super(cause);
+    }
+}
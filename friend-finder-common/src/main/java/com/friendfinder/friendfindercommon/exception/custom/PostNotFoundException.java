@@ -0,0 +1,23 @@
+package com.friendfinder.friendfindercommon.exception.custom;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.NOT_FOUND)
+public class PostNotFoundException extends RuntimeException {
+    public PostNotFoundException() {
+        super();
+    }
+
+    public PostNotFoundException(String message) {
+        super(message);
+    }
+
+    public PostNotFoundException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public PostNotFoundException(Throwable cause) {
+        super(cause);
+    }
+}
@@ -0,0 +1,22 @@
+package com.friendfinder.friendfindercommon.mapper;
+
+import com.friendfinder.friendfindercommon.dto.chatDto.MessageResponseDto;
+import com.friendfinder.friendfindercommon.entity.Message;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring")
+public interface MessageMapper {
+
+    @Mapping(target = "chatId", source = "chat.id")
+    @Mapping(target = "senderId", source = "sender.id")
+    @Mapping(target = "senderName", source = "sender.name")
+    @Mapping(target = "senderSurname", source = "sender.surname")
+    @Mapping(target = "senderProfilePicture", source = "sender.profilePicture")
+    @Mapping(target = "receiverId", source = "receiver.id")
+    MessageResponseDto mapToDto(Message message);
+
+    List<MessageResponseDto> mapToDtos(List<Message> messages);
+}
@@ -2,14 +2,72 @@ package com.friendfinder.friendfindercommon.repository;
 
 import com.friendfinder.friendfindercommon.entity.Chat;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 public interface ChatRepository extends JpaRepository<Chat, Integer> {
 
     Optional<Chat> findByCurrentUserIdAndAnotherUserId(int firstId, int secondId);
+    Optional<Chat> findByLowUserIdAndHighUserId(int lowUserId, int highUserId);
     List<Chat> findAllByCurrentUserId(int currentUserId);
     List<Chat> findAllByAnotherUserId(int anotherUserId);
-}
 
+    @Query("select c.id from Chat c where c.currentUser.id = :userId or c.anotherUser.id = :userId")
+    List<Integer> findIdsByUserId(@Param("userId") int userId);
+
+    /**
+     * Returns one row per chat of the user, most recently active first:
+     * chat id, counterpart id, name, surname, profile picture, last message snippet, last message time, unread count.
+     */
+    @Query(value = "select c.chat_id, u.id, u.name, u.surname, u.profile_pic, c.last_message_snippet, c.last_message_at, c.unread " +
+            "from (select id as chat_id, another_user_id as other_id, current_user_unread as unread, " +
+            "last_message_snippet, last_message_at from chat where current_user_id = :userId " +
+            "union all " +
+            "select id, current_user_id, another_user_unread, last_message_snippet, last_message_at " +
+            "from chat where another_user_id = :userId) c " +
+            "join user u on u.id = c.other_id " +
+            "order by c.last_message_at desc, c.chat_id desc limit :limit offset :offset", nativeQuery = true)
+    List<Object[]> findConversations(@Param("userId") int userId, @Param("limit") int limit, @Param("offset") int offset);
+
+    @Modifying
+    @Transactional
+    @Query("update Chat c set c.lastMessageSnippet = :snippet, c.lastMessageAt = :sentAt where c.id = :chatId")
+    void updateLastMessage(@Param("chatId") int chatId, @Param("snippet") String snippet, @Param("sentAt") LocalDateTime sentAt);
+
+    /**
+     * Moves the read pointer of the user forward to messageId and recounts the messages the user has not read yet.
+     * The recount uses the new pointer itself rather than the column assigned earlier in the same SET, which only
+     * MySQL evaluates left to right.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "update chat c set " +
+            "c.current_user_read_id = case when c.current_user_id = :userId then greatest(c.current_user_read_id, :messageId) else c.current_user_read_id end, " +
+            "c.current_user_unread = case when c.current_user_id = :userId then (select count(*) from message m " +
+            "where m.chat_id = c.id and m.receiver_id = :userId and m.id > greatest(c.current_user_read_id, :messageId)) else c.current_user_unread end, " +
+            "c.another_user_read_id = case when c.another_user_id = :userId then greatest(c.another_user_read_id, :messageId) else c.another_user_read_id end, " +
+            "c.another_user_unread = case when c.another_user_id = :userId then (select count(*) from message m " +
+            "where m.chat_id = c.id and m.receiver_id = :userId and m.id > greatest(c.another_user_read_id, :messageId)) else c.another_user_unread end " +
+            "where c.id = :chatId", nativeQuery = true)
+    int markRead(@Param("chatId") int chatId, @Param("userId") int userId, @Param("messageId") int messageId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "update chat set " +
+            "current_user_unread = current_user_unread + case when current_user_id = :userId then :count else 0 end, " +
+            "another_user_unread = another_user_unread + case when another_user_id = :userId then :count else 0 end " +
+            "where id = :chatId", nativeQuery = true)
+    void addUnread(@Param("chatId") int chatId, @Param("userId") int userId, @Param("count") int count);
+
+    @Query(value = "select coalesce(sum(unread), 0) from (" +
+            "select current_user_unread as unread from chat where current_user_id = :userId " +
+            "union all " +
+            "select another_user_unread from chat where another_user_id = :userId) c", nativeQuery = true)
+    long sumUnread(@Param("userId") int userId);
+}
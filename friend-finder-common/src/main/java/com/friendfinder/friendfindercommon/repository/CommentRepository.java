@@ -1,7 +1,31 @@
 package com.friendfinder.friendfindercommon.repository;
 
+import com.friendfinder.friendfindercommon.dto.feedDto.FeedCommentDto;
 import com.friendfinder.friendfindercommon.entity.Comment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Integer> {
+
+    /**
+     * Returns the latest comments of every post, oldest first, numbering the comments of each post newest first over
+     * the (post_id, id desc) index:
+     * comment id, post id, author id, name, surname, profile picture, comment text, comment time.
+     */
+    @Query(value = "select c.id, c.post_id, u.id as user_id, u.name, u.surname, u.profile_pic, c.commentary_text, c.date_time " +
+            "from (select id, post_id, user_id, commentary_text, date_time, " +
+            "row_number() over (partition by post_id order by id desc) as position_in_post " +
+            "from commentary where post_id in (:postIds)) c " +
+            "join user u on u.id = c.user_id " +
+            "where c.position_in_post <= :limit order by c.id", nativeQuery = true)
+    List<Object[]> findLatestByPostIdIn(@Param("postIds") List<Integer> postIds, @Param("limit") int limit);
+
+    @Query("select new com.friendfinder.friendfindercommon.dto.feedDto.FeedCommentDto(c.id, u.id, u.name, u.surname, " +
+            "u.profilePicture, c.commentaryText, c.datetime) " +
+            "from Comment c join c.user u where c.post.id = :postId and c.id < :before order by c.id desc")
+    List<FeedCommentDto> findByPostIdBefore(@Param("postId") int postId, @Param("before") int before, Pageable pageable);
 }
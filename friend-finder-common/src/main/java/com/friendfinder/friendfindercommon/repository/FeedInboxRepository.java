@@ -0,0 +1,45 @@
+package com.friendfinder.friendfindercommon.repository;
+
+import com.friendfinder.friendfindercommon.entity.FeedInbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface FeedInboxRepository extends JpaRepository<FeedInbox, Integer> {
+
+    @Query("select fi.postId from FeedInbox fi where fi.ownerId = :ownerId and fi.postId < :cursor order by fi.postId desc")
+    List<Integer> findPostIdsByOwnerIdBefore(@Param("ownerId") int ownerId, @Param("cursor") int cursor, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query(value = "insert into feed_inbox (owner_id, post_id, author_id) " +
+            "select fr.receiver_id, :postId, :authorId from friend_request fr " +
+            "where fr.sender_id = :authorId and fr.status = 'ACCEPTED' " +
+            "union all " +
+            "select fr.sender_id, :postId, :authorId from friend_request fr " +
+            "where fr.receiver_id = :authorId and fr.status = 'ACCEPTED'", nativeQuery = true)
+    int fanOutPost(@Param("postId") int postId, @Param("authorId") int authorId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "insert into feed_inbox (owner_id, post_id, author_id) " +
+            "select :ownerId, p.id, p.user_id from post p " +
+            "where p.user_id = :authorId and p.fanned_out = true and not exists " +
+            "(select 1 from feed_inbox fi where fi.owner_id = :ownerId and fi.post_id = p.id)", nativeQuery = true)
+    int copyAuthorPosts(@Param("ownerId") int ownerId, @Param("authorId") int authorId);
+
+    @Modifying
+    @Transactional
+    @Query("delete from FeedInbox fi where fi.postId = :postId")
+    int deleteByPostId(@Param("postId") int postId);
+
+    @Modifying
+    @Transactional
+    @Query("delete from FeedInbox fi where fi.ownerId = :ownerId and fi.authorId = :authorId")
+    int deleteByOwnerIdAndAuthorId(@Param("ownerId") int ownerId, @Param("authorId") int authorId);
+}
@@ -1,7 +1,11 @@
 package com.friendfinder.friendfindercommon.repository;
 
 import com.friendfinder.friendfindercommon.entity.FriendRequest;
+import com.friendfinder.friendfindercommon.entity.User;
+import com.friendfinder.friendfindercommon.entity.types.FriendStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -10,4 +14,30 @@ public interface FriendRequestRepository extends JpaRepository<FriendRequest, In
     List<FriendRequest> findByReceiverId(int receiverId);
 
     Optional<FriendRequest> findBySenderIdAndReceiverId(int senderId, int receiverId);
+
+    @Query("select u from User u where u.id in " +
+            "(select fr.receiver.id from FriendRequest fr where fr.sender.id = :userId and fr.status = :status) " +
+            "or u.id in " +
+            "(select fr.sender.id from FriendRequest fr where fr.receiver.id = :userId and fr.status = :status)")
+    List<User> findFriendsByUserIdAndStatus(@Param("userId") int userId, @Param("status") FriendStatus status);
+
+    @Query("select fr.receiver.id from FriendRequest fr where fr.sender.id = :userId and fr.status = :status")
+    List<Integer> findReceiverIdsBySenderIdAndStatus(@Param("userId") int userId, @Param("status") FriendStatus status);
+
+    @Query("select fr.sender.id from FriendRequest fr where fr.receiver.id = :userId and fr.status = :status")
+    List<Integer> findSenderIdsByReceiverIdAndStatus(@Param("userId") int userId, @Param("status") FriendStatus status);
+
+    @Query("select fr.sender.id, fr.receiver.id from FriendRequest fr " +
+            "where (fr.sender.id in :userIds or fr.receiver.id in :userIds) and fr.status = :status")
+    List<Object[]> findEdgesByUserIdInAndStatus(@Param("userIds") List<Integer> userIds, @Param("status") FriendStatus status);
+
+    @Query("select fr.receiver.id from FriendRequest fr where fr.sender.id = :userId")
+    List<Integer> findReceiverIdsBySenderId(@Param("userId") int userId);
+
+    @Query("select fr.sender.id from FriendRequest fr where fr.receiver.id = :userId")
+    List<Integer> findSenderIdsByReceiverId(@Param("userId") int userId);
+
+    @Query("select count(fr) from FriendRequest fr " +
+            "where (fr.sender.id = :userId or fr.receiver.id = :userId) and fr.status = :status")
+    long countFriendsByUserIdAndStatus(@Param("userId") int userId, @Param("status") FriendStatus status);
 }
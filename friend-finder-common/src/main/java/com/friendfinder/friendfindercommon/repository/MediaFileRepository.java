@@ -0,0 +1,19 @@
+package com.friendfinder.friendfindercommon.repository;
+
+import com.friendfinder.friendfindercommon.entity.MediaFile;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface MediaFileRepository extends JpaRepository<MediaFile, Integer> {
+
+    boolean existsByDirectoryAndFileName(String directory, String fileName);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select m from MediaFile m where m.directory = :directory and m.fileName = :fileName")
+    Optional<MediaFile> findForUpdate(@Param("directory") String directory, @Param("fileName") String fileName);
+}
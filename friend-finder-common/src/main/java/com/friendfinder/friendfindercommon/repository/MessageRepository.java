@@ -1,10 +1,30 @@
 package com.friendfinder.friendfindercommon.repository;
 
 import com.friendfinder.friendfindercommon.entity.Message;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface MessageRepository extends JpaRepository<Message, Integer> {
 
-}
\ No newline at end of file
+    @Query("select m from Message m join fetch m.sender where m.chat.id = :chatId and m.id < :before order by m.id desc")
+    List<Message> findByChatIdBefore(@Param("chatId") int chatId, @Param("before") int before, Pageable pageable);
+
+    /**
+     * Returns id, chat id, sender id, content and sent time of the messages of the user's chats that match the
+     * boolean-mode query, newest first. Requires the message_content_ft FULLTEXT index (MySQL only).
+     */
+    @Query(value = "select m.id, m.chat_id, m.sender_id, m.content, m.sent_at from message m " +
+            "join chat c on c.id = m.chat_id " +
+            "where (c.current_user_id = :userId or c.another_user_id = :userId) " +
+            "and match(m.content) against (:query in boolean mode) " +
+            "order by m.id desc limit :limit offset :offset", nativeQuery = true)
+    List<Object[]> searchFullText(@Param("userId") int userId, @Param("query") String query,
+                                  @Param("limit") int limit, @Param("offset") int offset);
+
+    @Query("select m.id, m.chat.id, m.sender.id, m.content, m.sentAt from Message m where m.id > :after order by m.id")
+    List<Object[]> findIndexRowsAfter(@Param("after") int after, Pageable pageable);
+}
@@ -1,11 +1,36 @@
 package com.friendfinder.friendfindercommon.repository;
 
 import com.friendfinder.friendfindercommon.entity.PostLike;
+import com.friendfinder.friendfindercommon.entity.types.LikeStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface PostLikeRepository extends JpaRepository<PostLike, Integer> {
 
     Optional<PostLike> findByUserIdAndPostId(int userId, int postId);
+
+    @Query("select pl.post.id, pl.likeStatus from PostLike pl where pl.user.id = :userId and pl.post.id in :postIds")
+    List<Object[]> findReactionsByUserIdAndPostIdIn(@Param("userId") int userId, @Param("postIds") List<Integer> postIds);
+
+    @Query("select pl.post.id, pl.likeStatus, count(pl) from PostLike pl where pl.post.id between :fromId and :toId " +
+            "group by pl.post.id, pl.likeStatus")
+    List<Object[]> countReactionsByPostIdBetween(@Param("fromId") int fromId, @Param("toId") int toId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "insert ignore into post_like (like_status, post_id, user_id) values (:likeStatus, :postId, :userId)",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("userId") int userId, @Param("postId") int postId, @Param("likeStatus") String likeStatus);
+
+    @Modifying
+    @Transactional
+    @Query("delete from PostLike pl where pl.user.id = :userId and pl.post.id = :postId and pl.likeStatus = :likeStatus")
+    int deleteByUserIdAndPostIdAndLikeStatus(@Param("userId") int userId, @Param("postId") int postId,
+                                             @Param("likeStatus") LikeStatus likeStatus);
 }
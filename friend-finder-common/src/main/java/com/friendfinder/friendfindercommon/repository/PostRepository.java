@@ -1,9 +1,15 @@
 package com.friendfinder.friendfindercommon.repository;
 
 import com.friendfinder.friendfindercommon.entity.Post;
+import com.friendfinder.friendfindercommon.entity.types.FriendStatus;
+import com.friendfinder.friendfindercommon.entity.types.MediaKind;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -12,8 +18,80 @@ public interface PostRepository extends JpaRepository<Post, Integer> {
     List<Post> findByUserId(int id);
 
     Page<Post> findByUserIdIn(List<Integer> userIds, Pageable pageable);
-    Page<Post> findPostsByMusicFileNameIn(List<String> musicFileName, Pageable pageable);
-    Page<Post> findPostsByImgNameIn(List<String> imgName, Pageable pageable);
 
     Page<Post> findPostsByUserIdIn(List<Integer> userId, Pageable pageable);
+
+    @Query(value = "select p from Post p join fetch p.user where p.user.id in " +
+            "(select fr.receiver.id from FriendRequest fr where fr.sender.id = :userId and fr.status = :status) " +
+            "or p.user.id in " +
+            "(select fr.sender.id from FriendRequest fr where fr.receiver.id = :userId and fr.status = :status)",
+            countQuery = "select count(p) from Post p where p.user.id in " +
+                    "(select fr.receiver.id from FriendRequest fr where fr.sender.id = :userId and fr.status = :status) " +
+                    "or p.user.id in " +
+                    "(select fr.sender.id from FriendRequest fr where fr.receiver.id = :userId and fr.status = :status)")
+    Page<Post> findFriendsPostsByUserIdAndStatus(@Param("userId") int userId, @Param("status") FriendStatus status,
+                                                 Pageable pageable);
+
+    @Query(value = "select p from Post p join fetch p.user where p.mediaKind in :mediaKinds and (p.user.id in " +
+            "(select fr.receiver.id from FriendRequest fr where fr.sender.id = :userId and fr.status = :status) " +
+            "or p.user.id in " +
+            "(select fr.sender.id from FriendRequest fr where fr.receiver.id = :userId and fr.status = :status))",
+            countQuery = "select count(p) from Post p where p.mediaKind in :mediaKinds and (p.user.id in " +
+                    "(select fr.receiver.id from FriendRequest fr where fr.sender.id = :userId and fr.status = :status) " +
+                    "or p.user.id in " +
+                    "(select fr.sender.id from FriendRequest fr where fr.receiver.id = :userId and fr.status = :status))")
+    Page<Post> findFriendsPostsByUserIdAndStatusAndMediaKindIn(@Param("userId") int userId,
+                                                               @Param("status") FriendStatus status,
+                                                               @Param("mediaKinds") List<MediaKind> mediaKinds,
+                                                               Pageable pageable);
+
+    @Query("select p from Post p join fetch p.user where p.fannedOut = false and p.id < :cursor and (p.user.id in " +
+            "(select fr.receiver.id from FriendRequest fr where fr.sender.id = :userId and fr.status = :status) " +
+            "or p.user.id in " +
+            "(select fr.sender.id from FriendRequest fr where fr.receiver.id = :userId and fr.status = :status)) " +
+            "order by p.id desc")
+    List<Post> findNotFannedOutFriendsPostsBefore(@Param("userId") int userId, @Param("status") FriendStatus status,
+                                                  @Param("cursor") int cursor, Pageable pageable);
+
+    @Query("select p from Post p join fetch p.user where p.id in :ids")
+    List<Post> findPostsWithUserByIdIn(@Param("ids") List<Integer> ids);
+
+    @Query("select p from Post p join fetch p.user where p.fannedOut = false and p.id > :after order by p.id")
+    List<Post> findNotFannedOutAfter(@Param("after") int after, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("update Post p set p.fannedOut = true where p.id = :id and p.fannedOut = false")
+    int markFannedOut(@Param("id") int id);
+
+    @Modifying
+    @Transactional
+    @Query("update Post p set p.commentCount = p.commentCount + :delta where p.id = :id and p.commentCount + :delta >= 0")
+    int updateCommentCount(@Param("id") int id, @Param("delta") int delta);
+
+    @Modifying
+    @Transactional
+    @Query("update Post p set p.likeCount = p.likeCount + :delta where p.id = :id and p.likeCount + :delta >= 0")
+    int updateLikeCount(@Param("id") int id, @Param("delta") int delta);
+
+    @Modifying
+    @Transactional
+    @Query("update Post p set p.dislikeCount = p.dislikeCount + :delta where p.id = :id and p.dislikeCount + :delta >= 0")
+    int updateDislikeCount(@Param("id") int id, @Param("delta") int delta);
+
+    @Query("select coalesce(max(p.id), 0) from Post p")
+    int findMaxId();
+
+    @Query("select p.id, p.likeCount, p.dislikeCount from Post p where p.id between :fromId and :toId")
+    List<Object[]> findReactionCountsByIdBetween(@Param("fromId") int fromId, @Param("toId") int toId);
+
+    @Modifying
+    @Transactional
+    @Query("update Post p set p.likeCount = :likeCount, p.dislikeCount = :dislikeCount where p.id = :id " +
+            "and p.likeCount = :expectedLikeCount and p.dislikeCount = :expectedDislikeCount")
+    int replaceReactionCounts(@Param("id") int id,
+                              @Param("expectedLikeCount") int expectedLikeCount,
+                              @Param("expectedDislikeCount") int expectedDislikeCount,
+                              @Param("likeCount") int likeCount,
+                              @Param("dislikeCount") int dislikeCount);
 }
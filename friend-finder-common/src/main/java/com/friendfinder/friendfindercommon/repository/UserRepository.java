@@ -25,4 +25,6 @@ public interface UserRepository extends JpaRepository<User, Integer> {
 
     Page<User> findUsersByIdIn(List<Integer> friendsId, Pageable pageable);
 
+    List<User> findByIdNotInOrderByIdDesc(List<Integer> ids, Pageable pageable);
+
 }
@@ -1,6 +1,8 @@
 package com.friendfinder.friendfindercommon.service;
 
+import com.friendfinder.friendfindercommon.dto.chatDto.ConversationPageDto;
 import com.friendfinder.friendfindercommon.entity.Chat;
+import com.friendfinder.friendfindercommon.entity.Message;
 import com.friendfinder.friendfindercommon.entity.User;
 
 import java.util.List;
@@ -13,10 +15,22 @@ public interface ChatService {
 
     Optional<Chat> findByCurrentUserIdAndAnotherUserId(int firstId, int secondId);
 
+    Optional<Chat> findByUserPair(int firstUserId, int secondUserId);
+
     Optional<Chat> findById(int id);
 
     void save(Chat chat);
 
     boolean create(int userId, User user);
+
+    ConversationPageDto conversations(int userId, int page, int size);
+
+    void updateLastMessage(Message message);
+
+    void markRead(int chatId, int userId, int messageId);
+
+    void addUnread(int chatId, int userId, int count);
+
+    long totalUnread(int userId);
 }
 
@@ -1,5 +1,6 @@
 package com.friendfinder.friendfindercommon.service;
 
+import com.friendfinder.friendfindercommon.dto.commentDto.CommentPageResponseDto;
 import com.friendfinder.friendfindercommon.dto.commentDto.CommentRequestDto;
 import com.friendfinder.friendfindercommon.entity.Comment;
 import com.friendfinder.friendfindercommon.entity.Post;
@@ -13,4 +14,6 @@ public interface CommentService {
     Comment deleteComment(int id);
 
     List<Comment> commentList();
+
+    CommentPageResponseDto commentsBefore(int postId, Integer before, int limit);
 }
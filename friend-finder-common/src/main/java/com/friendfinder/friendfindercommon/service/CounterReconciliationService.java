@@ -0,0 +1,10 @@
+package com.friendfinder.friendfindercommon.service;
+
+public interface CounterReconciliationService {
+
+    int reconcile();
+
+    boolean startReconcile();
+
+    boolean isRunning();
+}
@@ -0,0 +1,15 @@
+package com.friendfinder.friendfindercommon.service;
+
+import com.friendfinder.friendfindercommon.dto.feedDto.FeedPageDto;
+import com.friendfinder.friendfindercommon.dto.feedDto.FeedPostDto;
+import com.friendfinder.friendfindercommon.dto.postDto.PostFeedResponseDto;
+import com.friendfinder.friendfindercommon.entity.Post;
+
+import java.util.List;
+
+public interface FeedAssemblerService {
+
+    List<FeedPostDto> assemble(List<Post> posts, int viewerId);
+
+    FeedPageDto assemble(PostFeedResponseDto feed, int viewerId);
+}
@@ -0,0 +1,20 @@
+package com.friendfinder.friendfindercommon.service;
+
+import com.friendfinder.friendfindercommon.entity.Post;
+
+import java.util.List;
+
+public interface FeedInboxService {
+
+    void fanOut(Post post);
+
+    List<Post> feedBefore(int userId, int cursor, int limit);
+
+    void addFriendship(int firstUserId, int secondUserId);
+
+    void removeFriendship(int firstUserId, int secondUserId);
+
+    void removePost(int postId);
+
+    int backfill();
+}
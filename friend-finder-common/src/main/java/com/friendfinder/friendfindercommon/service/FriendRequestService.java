@@ -22,8 +22,14 @@ public interface FriendRequestService {
 
     List<User> findFriendsByUserId(int userId);
 
+    int[] findFriendIdsByUserId(int userId);
+
     FriendRequest changeStatus(FriendRequest friendRequest);
 
     int findFriendsByUserIdCount(int id);
 
+    int findMutualFriendsCount(int userId, int otherUserId);
+
+    Page<User> mutualFriendsPage(int userId, int otherUserId, int pageNumber);
+
 }
@@ -0,0 +1,13 @@
+package com.friendfinder.friendfindercommon.service;
+
+import com.friendfinder.friendfindercommon.entity.User;
+import com.friendfinder.friendfindercommon.security.CurrentUser;
+
+import java.util.List;
+
+public interface FriendSuggestionService {
+
+    List<User> suggestFriends(CurrentUser currentUser);
+
+    void invalidate(int userId);
+}
@@ -1,7 +1,7 @@
 package com.friendfinder.friendfindercommon.service;
 
 import com.friendfinder.friendfindercommon.entity.Country;
-import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.core.io.Resource;
 
 import java.util.List;
 
@@ -9,15 +9,11 @@ public interface MainService {
 
     List<Country> findAllCountries();
 
-    @ResponseBody
-    byte[] getImage(String imageName);
+    Resource getImage(String imageName, Integer size);
 
-    @ResponseBody
-    byte[] getVideo(String imageName);
+    Resource getVideo(String imageName);
 
-    @ResponseBody
-    byte[] getProfilePic(String imageName);
+    Resource getProfilePic(String imageName, Integer size);
 
-    @ResponseBody
-    byte[] getBgProfilePic(String imageName);
+    Resource getBgProfilePic(String imageName, Integer size);
 }
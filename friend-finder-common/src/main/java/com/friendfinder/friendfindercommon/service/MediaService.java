@@ -0,0 +1,13 @@
+package com.friendfinder.friendfindercommon.service;
+
+import com.friendfinder.friendfindercommon.dto.mediaDto.MediaCacheStatsDto;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+public interface MediaService {
+
+    ResponseEntity<Resource> serve(Resource resource, WebRequest request);
+
+    MediaCacheStatsDto stats();
+}
@@ -0,0 +1,23 @@
+package com.friendfinder.friendfindercommon.service;
+
+import com.friendfinder.friendfindercommon.dto.mediaDto.MediaMigrationResultDto;
+import org.springframework.web.multipart.MultipartFile;
+
+public interface MediaStorageService {
+
+    String store(MultipartFile multipartFile, String directory);
+
+    void retain(String directory, String fileName);
+
+    void release(String directory, String fileName);
+
+    void releaseUserMedia(int userId);
+
+    MediaMigrationResultDto migrateLegacyFiles();
+
+    boolean startMigration();
+
+    MediaMigrationResultDto migrationProgress();
+
+    boolean isMigrating();
+}
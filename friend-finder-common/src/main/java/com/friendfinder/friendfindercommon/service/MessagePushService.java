@@ -0,0 +1,15 @@
+package com.friendfinder.friendfindercommon.service;
+
+import com.friendfinder.friendfindercommon.dto.chatDto.MessageResponseDto;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface MessagePushService {
+
+    SseEmitter subscribe(int userId);
+
+    void publish(MessageResponseDto message);
+
+    int getConnections();
+
+    long getDroppedConnections();
+}
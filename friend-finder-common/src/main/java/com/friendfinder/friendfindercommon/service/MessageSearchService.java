@@ -0,0 +1,11 @@
+package com.friendfinder.friendfindercommon.service;
+
+import com.friendfinder.friendfindercommon.dto.chatDto.MessageSearchPageDto;
+import com.friendfinder.friendfindercommon.entity.Message;
+
+public interface MessageSearchService {
+
+    MessageSearchPageDto search(int userId, String query, int page, int size);
+
+    void index(Message message);
+}
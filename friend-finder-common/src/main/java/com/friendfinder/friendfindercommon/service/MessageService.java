@@ -1,5 +1,6 @@
 package com.friendfinder.friendfindercommon.service;
 
+import com.friendfinder.friendfindercommon.dto.chatDto.MessagePageResponseDto;
 import com.friendfinder.friendfindercommon.dto.chatDto.SendMessageDto;
 import com.friendfinder.friendfindercommon.entity.Message;
 import com.friendfinder.friendfindercommon.entity.User;
@@ -8,4 +9,8 @@ public interface MessageService {
     boolean save(SendMessageDto sendMessageDto, User currentUser);
 
     void save(Message message);
+
+    MessagePageResponseDto messagesBefore(int chatId, User currentUser, Integer before, int limit);
+
+    MessagePageResponseDto messagesBefore(int chatId, Integer before, int limit);
 }
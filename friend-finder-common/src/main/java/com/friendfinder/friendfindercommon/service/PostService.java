@@ -1,7 +1,7 @@
 package com.friendfinder.friendfindercommon.service;
 
+import com.friendfinder.friendfindercommon.dto.postDto.PostFeedResponseDto;
 import com.friendfinder.friendfindercommon.dto.postDto.PostRequestDto;
-import com.friendfinder.friendfindercommon.dto.postDto.PostResponseDto;
 import com.friendfinder.friendfindercommon.entity.Post;
 import com.friendfinder.friendfindercommon.security.CurrentUser;
 import org.springframework.data.domain.Page;
@@ -13,6 +13,8 @@ public interface PostService {
 
     Page<Post> postFindPage(int pageNumber, CurrentUser currentUser);
 
+    PostFeedResponseDto postFeedBefore(Integer before, int limit, CurrentUser currentUser);
+
     Page<Post> postFindPageVideo(int pageNumber, CurrentUser currentUser);
 
     Page<Post> postFindPageImage(int pageNumber, CurrentUser currentUser);
@@ -21,8 +23,6 @@ public interface PostService {
 
     Post postSave(PostRequestDto post, CurrentUser currentUser, MultipartFile image, MultipartFile video);
 
-    List<PostResponseDto> getAllPostFriends(int userId);
-
     List<Post> postUserById(int id);
 
     Post deletePostId(int id);
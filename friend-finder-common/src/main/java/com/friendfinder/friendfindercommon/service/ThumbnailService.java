@@ -0,0 +1,16 @@
+package com.friendfinder.friendfindercommon.service;
+
+import org.springframework.core.io.Resource;
+
+public interface ThumbnailService {
+
+    void enqueue(String directory, String fileName);
+
+    Resource variant(String directory, String fileName, Integer size);
+
+    boolean isPending(Resource resource);
+
+    void move(String directory, String fileName, String newFileName);
+
+    void remove(String directory, String fileName);
+}
@@ -12,7 +12,7 @@ public interface UserImageService {
 
     List<UserImage> getUserImageById(int userId);
 
-    void userImageSave(UserImage userImage, CurrentUser currentUser);
+    void userImageSave(UserImage userImage, CurrentUser currentUser, String imageName);
 
     UserImage deleteUserImageById(int id);
 }
@@ -4,7 +4,6 @@ import com.friendfinder.friendfindercommon.dto.userDto.UserLoginRequestDto;
 import com.friendfinder.friendfindercommon.dto.userDto.UserRegisterRequestDto;
 import com.friendfinder.friendfindercommon.entity.Country;
 import com.friendfinder.friendfindercommon.entity.User;
-import com.friendfinder.friendfindercommon.security.CurrentUser;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -16,8 +15,6 @@ public interface UserService {
 
     List<Country> findAllCountries();
 
-    List<User> userForAddFriend(CurrentUser currentUser);
-
     User userRegister(UserRegisterRequestDto dto);
 
     boolean userLogin(UserLoginRequestDto loginRequestDto);
@@ -1,13 +1,21 @@
 package com.friendfinder.friendfindercommon.service.impl;
 
+import com.friendfinder.friendfindercommon.cache.ReadReceiptBuffer;
+import com.friendfinder.friendfindercommon.dto.chatDto.ConversationDto;
+import com.friendfinder.friendfindercommon.dto.chatDto.ConversationPageDto;
 import com.friendfinder.friendfindercommon.entity.Chat;
+import com.friendfinder.friendfindercommon.entity.Message;
 import com.friendfinder.friendfindercommon.entity.User;
 import com.friendfinder.friendfindercommon.repository.ChatRepository;
 import com.friendfinder.friendfindercommon.service.ChatService;
 import com.friendfinder.friendfindercommon.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,6 +31,7 @@ import java.util.Optional;
  *     to perform CRUD operations on the Chat entity.</li>
  *     <li>userService: The UserService interface, used to retrieve user information when creating chat messages
  *     between users.</li>
+ *     <li>readReceiptBuffer: The ReadReceiptBuffer that coalesces read acknowledgements before they are written.</li>
  * </ul>
  *
  * <p>Methods:</p>
@@ -35,11 +44,27 @@ import java.util.Optional;
  *     <li>findByCurrentUserIdAndAnotherUserId(firstId, secondId): Retrieves an optional Chat object based on the
  *     provided IDs of the current user and another user. It is used to check if a chat conversation between two
  *     specific users already exists.</li>
+ *     <li>findByUserPair(firstUserId, secondUserId): Retrieves the chat between two users regardless of which of them
+ *     started it, with a single probe of the unique (low_user_id, high_user_id) index.</li>
  *     <li>findById(id): Retrieves an optional Chat object based on the provided chat ID.</li>
  *     <li>save(chat): Saves the provided Chat object to the database.</li>
  *     <li>create(userId, user): Creates a new chat conversation between the current user and another user specified
  *     by their ID. It performs validation to ensure that the chat doesn't already exist, and the provided user ID
- *     is valid. If the chat is successfully created, it returns true; otherwise, it returns false.</li>
+ *     is valid. If the chat is successfully created, it returns true; otherwise, it returns false. The unique index
+ *     on the user pair decides between two concurrent creates of the same chat.</li>
+ *     <li>conversations(userId, page, size): Retrieves one page of the conversation list of a user, most recently
+ *     active first. Every ConversationDto carries the display fields of the other participant, the snippet and time
+ *     of the last message and the number of messages the user has not read yet, all read with a single query. The
+ *     returned ConversationPageDto carries the next page number, or null on the last page.</li>
+ *     <li>updateLastMessage(message): Stores the snippet and time of a newly sent message on its chat and moves the
+ *     read pointer of the sender past it.</li>
+ *     <li>markRead(chatId, userId, messageId): Marks the messages of the chat up to messageId as read by the user.
+ *     The read pointer only moves forward. Rapid acknowledgements of the same chat are coalesced by the
+ *     readReceiptBuffer into one UPDATE, which also recounts the unread messages of the user.</li>
+ *     <li>addUnread(chatId, userId, count): Adds newly received messages to the unread counter of the user in the
+ *     chat.</li>
+ *     <li>totalUnread(userId): Returns the number of unread messages of the user across all chats by summing the
+ *     maintained counters, without reading the message table.</li>
  * </ul>
  *
  * <p>Usage:</p>
@@ -53,8 +78,12 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class ChatServiceImpl implements ChatService {
 
+    private static final int SNIPPET_LENGTH = 255;
+    private static final int MAX_PAGE_SIZE = 50;
+
     private final ChatRepository chatRepository;
     private final UserService userService;
+    private final ReadReceiptBuffer readReceiptBuffer;
 
     @Override
     public List<Chat> findAllByCurrentUserId(int currentUserId) {
@@ -71,6 +100,12 @@ public class ChatServiceImpl implements ChatService {
         return chatRepository.findByCurrentUserIdAndAnotherUserId(firstId, secondId);
     }
 
+    @Override
+    public Optional<Chat> findByUserPair(int firstUserId, int secondUserId) {
+        return chatRepository.findByLowUserIdAndHighUserId(Math.min(firstUserId, secondUserId),
+                Math.max(firstUserId, secondUserId));
+    }
+
     @Override
     public Optional<Chat> findById(int id) {
         return chatRepository.findById(id);
@@ -92,23 +127,84 @@ public class ChatServiceImpl implements ChatService {
             return false;
         }
 
-        Optional<Chat> byCurrentUserIdAndAnotherUserId = findByCurrentUserIdAndAnotherUserId(user.getId(), userId);
-        if (byCurrentUserIdAndAnotherUserId.isPresent()) {
-            return false;
-        }
-
-        Optional<Chat> byAnotherUserIdAndCurrentUserID = findByCurrentUserIdAndAnotherUserId(userId, user.getId());
-        if (byAnotherUserIdAndCurrentUserID.isPresent()) {
+        if (findByUserPair(user.getId(), userId).isPresent()) {
             return false;
         }
 
         Chat newChat = Chat.builder()
                 .anotherUser(userById.get())
                 .currentUser(user)
+                .lowUserId(Math.min(user.getId(), userId))
+                .highUserId(Math.max(user.getId(), userId))
+                .lastMessageAt(LocalDateTime.now())
                 .build();
 
-        save(newChat);
+        try {
+            save(newChat);
+        } catch (DataIntegrityViolationException e) {
+            // the same chat was created concurrently
+            return false;
+        }
         return true;
     }
-}
 
+    @Override
+    public ConversationPageDto conversations(int userId, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int pageNumber = Math.max(page, 0);
+        // one extra row tells whether a next page exists without a count query
+        List<Object[]> rows = chatRepository.findConversations(userId, pageSize + 1, pageNumber * pageSize);
+        Integer nextPage = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            nextPage = pageNumber + 1;
+        }
+        List<ConversationDto> conversations = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            conversations.add(ConversationDto.builder()
+                    .chatId(((Number) row[0]).intValue())
+                    .userId(((Number) row[1]).intValue())
+                    .name((String) row[2])
+                    .surname((String) row[3])
+                    .profilePicture((String) row[4])
+                    .lastMessage((String) row[5])
+                    .lastMessageAt(toLocalDateTime(row[6]))
+                    .unreadCount(((Number) row[7]).longValue())
+                    .build());
+        }
+        return ConversationPageDto.builder()
+                .conversations(conversations)
+                .nextPage(nextPage)
+                .build();
+    }
+
+    @Override
+    public void updateLastMessage(Message message) {
+        String content = message.getContent();
+        String snippet = content != null && content.length() > SNIPPET_LENGTH ? content.substring(0, SNIPPET_LENGTH) : content;
+        chatRepository.updateLastMessage(message.getChat().getId(), snippet, message.getSentAt());
+        chatRepository.markRead(message.getChat().getId(), message.getSender().getId(), message.getId());
+    }
+
+    @Override
+    public void markRead(int chatId, int userId, int messageId) {
+        readReceiptBuffer.acknowledge(chatId, userId, messageId);
+    }
+
+    @Override
+    public void addUnread(int chatId, int userId, int count) {
+        chatRepository.addUnread(chatId, userId, count);
+    }
+
+    @Override
+    public long totalUnread(int userId) {
+        return chatRepository.sumUnread(userId);
+    }
+
+    private LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+}
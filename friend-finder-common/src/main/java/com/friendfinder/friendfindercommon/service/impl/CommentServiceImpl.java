@@ -1,15 +1,20 @@
 package com.friendfinder.friendfindercommon.service.impl;
 
+import com.friendfinder.friendfindercommon.dto.commentDto.CommentPageResponseDto;
 import com.friendfinder.friendfindercommon.dto.commentDto.CommentRequestDto;
+import com.friendfinder.friendfindercommon.dto.feedDto.FeedCommentDto;
 import com.friendfinder.friendfindercommon.entity.Comment;
 import com.friendfinder.friendfindercommon.entity.Post;
 import com.friendfinder.friendfindercommon.mapper.CommentMapper;
 import com.friendfinder.friendfindercommon.repository.CommentRepository;
+import com.friendfinder.friendfindercommon.repository.PostRepository;
 import com.friendfinder.friendfindercommon.security.CurrentUser;
 import com.friendfinder.friendfindercommon.service.CommentService;
 import com.friendfinder.friendfindercommon.service.UserActivityService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -28,17 +33,27 @@ import java.util.Optional;
  *     <li>userActivityService: The UserActivityService interface, used to record user activity when a new comment
  *     is added to a post.</li>
  *     <li>commentMapper: The CommentMapper interface, used to map CommentRequestDto objects to Comment entities.</li>
+ *     <li>postRepository: The PostRepository interface, used to keep the denormalized comment count of a post in
+ *     step with its comments.</li>
  * </ul>
  *
  * <p>Methods:</p>
  * <ul>
- *     <li>commentList(): Retrieves a list of all comments in the system.</li>
+ *     <li>commentList(): Retrieves a list of all comments in the system. It is meant for the admin pages only; posts
+ *     load their comments with commentsBefore().</li>
+ *     <li>commentsBefore(postId, before, limit): Retrieves up to limit comments of a post with an id lower than the
+ *     before cursor (the newest comments when it is null), newest first. The comments are read with a range scan of
+ *     the (post_id, id) index and no count query is issued. Only the comment fields and the author's name and picture
+ *     are selected, as FeedCommentDto rows, so no user entity is serialized. The returned CommentPageResponseDto carries
+ *     the cursor for the next call, or null when there are no older comments.</li>
  *     <li>addComment(comment, currentUser, post): Adds a new comment to a specific post. It takes a CommentRequestDto
  *     object containing the comment details, the current authenticated user (CurrentUser), and the Post to which the
  *     comment will be added. The method maps the CommentRequestDto to a Comment entity, sets the appropriate fields
  *     (user, post, commentaryText, and datetime), saves the comment to the database, and records the user activity
- *     as "commented on a post" using the userActivityService.</li>
- *     <li>deleteComment(id): Deletes a comment with the provided ID from the database, if it exists.</li>
+ *     as "commented on a post" using the userActivityService. The comment count of the post is incremented with an
+ *     UPDATE in the same transaction.</li>
+ *     <li>deleteComment(id): Deletes a comment with the provided ID from the database, if it exists, and decrements
+ *     the comment count of its post in the same transaction.</li>
  * </ul>
  *
  * <p>Usage:</p>
@@ -52,9 +67,12 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class CommentServiceImpl implements CommentService {
 
+    private static final int MAX_PAGE_LIMIT = 50;
+
     private final CommentRepository commentRepository;
     private final UserActivityService userActivityService;
     private final CommentMapper commentMapper;
+    private final PostRepository postRepository;
 
     @Override
     public List<Comment> commentList() {
@@ -62,6 +80,24 @@ public class CommentServiceImpl implements CommentService {
     }
 
     @Override
+    public CommentPageResponseDto commentsBefore(int postId, Integer before, int limit) {
+        int cursor = before == null ? Integer.MAX_VALUE : before;
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_LIMIT));
+        // one extra row tells whether an older page exists without a count query
+        List<FeedCommentDto> comments = commentRepository.findByPostIdBefore(postId, cursor, PageRequest.of(0, size + 1));
+        Integer nextCursor = null;
+        if (comments.size() > size) {
+            comments = comments.subList(0, size);
+            nextCursor = comments.get(size - 1).getId();
+        }
+        return CommentPageResponseDto.builder()
+                .comments(comments)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    @Override
+    @Transactional
     public Comment addComment(CommentRequestDto comment, CurrentUser currentUser, Post post) {
         Comment commentSave = commentMapper.map(CommentRequestDto.builder()
                 .user(currentUser.getUser())
@@ -70,15 +106,19 @@ public class CommentServiceImpl implements CommentService {
                 .datetime(LocalDateTime.now())
                 .build());
         userActivityService.save(currentUser.getUser(), "commented on a post");
-        return commentRepository.save(commentSave);
+        Comment savedComment = commentRepository.save(commentSave);
+        postRepository.updateCommentCount(post.getId(), 1);
+        return savedComment;
     }
 
     @Override
+    @Transactional
     public Comment deleteComment(int id) {
         Optional<Comment> byId = commentRepository.findById(id);
         if (byId.isPresent()) {
             Comment comment = byId.get();
             commentRepository.deleteById(comment.getId());
+            postRepository.updateCommentCount(comment.getPost().getId(), -1);
         }
         return null;
     }
@@ -0,0 +1,221 @@
+package com.friendfinder.friendfindercommon.service.impl;
+
+import com.friendfinder.friendfindercommon.cache.ReactionCounterBuffer;
+import com.friendfinder.friendfindercommon.entity.types.LikeStatus;
+import com.friendfinder.friendfindercommon.repository.PostLikeRepository;
+import com.friendfinder.friendfindercommon.repository.PostRepository;
+import com.friendfinder.friendfindercommon.service.CounterReconciliationService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * CounterReconciliationServiceImpl repairs the denormalized likeCount and dislikeCount columns of the post table by
+ * comparing them with the rows of post_like.
+ * </p>
+ *
+ * <p>Fields:</p>
+ * <ul>
+ *     <li>postRepository: The PostRepository used to read the stored counts of a chunk of posts and to replace the
+ *     counts that differ.</li>
+ *     <li>postLikeRepository: The PostLikeRepository used to count the reactions of a chunk of posts with a grouped
+ *     query.</li>
+ *     <li>reactionCounterBuffer: The ReactionCounterBuffer that tells whether any application buffers reaction deltas
+ *     in write-behind mode. Their stored counts lag behind post_like until the owning application flushes, and that
+ *     flush would add the deltas again on top of a repaired count, so the job does not run while any does.</li>
+ *     <li>chunkSize: The number of post ids covered by one chunk.</li>
+ *     <li>threads: The number of chunks processed in parallel.</li>
+ *     <li>pauseMillis: The pause of a worker after every chunk, which keeps the load on the database low enough to run
+ *     the job during production hours.</li>
+ * </ul>
+ *
+ * <p>Methods:</p>
+ * <ul>
+ *     <li>reconcile(): Walks the post table in id ranges of chunkSize on a pool of threads workers. For every chunk
+ *     the stored counts and the grouped reaction counts are loaded with one query each, and only the posts whose
+ *     counts differ are updated. The update only applies if the stored counts are still the ones that were read, so
+ *     reactions saved while the job runs are never overwritten. Returns the number of fixed posts, or 0 without doing
+ *     anything when a run is already in progress or write-behind is active in any application. A run stops at the
+ *     next chunk when write-behind becomes active while it runs.</li>
+ *     <li>startReconcile(): Claims the run with the same single compare-and-set as reconcile() and runs it on a
+ *     background thread. Returns false when a run is already in progress, so a caller never starts a second one.</li>
+ *     <li>scheduledReconcile(): Runs reconcile() on the {@code reaction.reconcile.cron} schedule. The schedule is
+ *     disabled unless the property is set, so only the application that sets it, the REST application, runs the
+ *     nightly job.</li>
+ *     <li>isRunning(): Tells whether a run is in progress.</li>
+ * </ul>
+ *
+ * <p>Usage:</p>
+ * <p>
+ * The job runs every night in the REST application and can be started on demand through its admin endpoint, which
+ * answers at once and leaves the run to the background thread.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CounterReconciliationServiceImpl implements CounterReconciliationService {
+
+    private static final int[] NO_REACTIONS = new int[2];
+
+    private final PostRepository postRepository;
+    private final PostLikeRepository postLikeRepository;
+    private final ReactionCounterBuffer reactionCounterBuffer;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService runner = Executors.newSingleThreadExecutor();
+
+    @Value("${reaction.reconcile.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${reaction.reconcile.threads:2}")
+    private int threads;
+
+    @Value("${reaction.reconcile.pause-ms:50}")
+    private long pauseMillis;
+
+    @Override
+    public int reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("reaction count reconciliation is already running");
+            return 0;
+        }
+        return runClaimed();
+    }
+
+    @Override
+    public boolean startReconcile() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            runner.execute(this::runClaimed);
+            return true;
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    @Scheduled(cron = "${reaction.reconcile.cron:-}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    private int runClaimed() {
+        try {
+            if (reactionCounterBuffer.isWriteBehindActive()) {
+                log.warn("reaction count reconciliation skipped, reaction write-behind is active");
+                return 0;
+            }
+            long start = System.currentTimeMillis();
+            int fixed = reconcileChunks(postRepository.findMaxId());
+            log.info("reconciled reaction counts of {} posts in {} ms", fixed, System.currentTimeMillis() - start);
+            return fixed;
+        } catch (RuntimeException e) {
+            log.error("reaction count reconciliation failed", e);
+            throw e;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private int reconcileChunks(int maxId) {
+        AtomicInteger nextId = new AtomicInteger(1);
+        AtomicInteger fixed = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                workers.add(pool.submit(() -> {
+                    int fromId;
+                    while ((fromId = nextId.getAndAdd(chunkSize)) <= maxId) {
+                        if (reactionCounterBuffer.isWriteBehindActive()) {
+                            log.warn("reaction count reconciliation stopped, reaction write-behind became active");
+                            return;
+                        }
+                        fixed.addAndGet(reconcileChunk(fromId, Math.min(fromId + chunkSize - 1, maxId)));
+                        if (!pause()) {
+                            return;
+                        }
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("reaction count reconciliation stopped", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return fixed.get();
+    }
+
+    private int reconcileChunk(int fromId, int toId) {
+        List<Object[]> posts = postRepository.findReactionCountsByIdBetween(fromId, toId);
+        if (posts.isEmpty()) {
+            return 0;
+        }
+        Map<Integer, int[]> reactions = new HashMap<>();
+        for (Object[] row : postLikeRepository.countReactionsByPostIdBetween(fromId, toId)) {
+            if (row[1] == null) {
+                continue;
+            }
+            int[] counts = reactions.computeIfAbsent((Integer) row[0], id -> new int[2]);
+            counts[row[1] == LikeStatus.LIKE ? 0 : 1] = ((Long) row[2]).intValue();
+        }
+        int fixed = 0;
+        for (Object[] row : posts) {
+            int postId = (Integer) row[0];
+            int likeCount = (Integer) row[1];
+            int dislikeCount = (Integer) row[2];
+            int[] counts = reactions.getOrDefault(postId, NO_REACTIONS);
+            if (counts[0] != likeCount || counts[1] != dislikeCount) {
+                fixed += postRepository.replaceReactionCounts(postId, likeCount, dislikeCount, counts[0], counts[1]);
+            }
+        }
+        return fixed;
+    }
+
+    private boolean pause() {
+        if (pauseMillis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.friendfinder.friendfindercommon.service.impl;
+
+import com.friendfinder.friendfindercommon.cache.ReactionCounterBuffer;
+import com.friendfinder.friendfindercommon.dto.feedDto.FeedCommentDto;
+import com.friendfinder.friendfindercommon.dto.feedDto.FeedPageDto;
+import com.friendfinder.friendfindercommon.dto.feedDto.FeedPostDto;
+import com.friendfinder.friendfindercommon.dto.postDto.PostFeedResponseDto;
+import com.friendfinder.friendfindercommon.entity.Post;
+import com.friendfinder.friendfindercommon.entity.User;
+import com.friendfinder.friendfindercommon.entity.types.LikeStatus;
+import com.friendfinder.friendfindercommon.repository.CommentRepository;
+import com.friendfinder.friendfindercommon.repository.PostLikeRepository;
+import com.friendfinder.friendfindercommon.service.FeedAssemblerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * <p>
+ * FeedAssemblerServiceImpl turns a page of posts into the read model rendered by the newsfeed and timeline pages and
+ * returned by the REST feed.
+ * </p>
+ *
+ * <p>Fields:</p>
+ * <ul>
+ *     <li>commentRepository: The CommentRepository used to load the latest comments of the page.</li>
+ *     <li>postLikeRepository: The PostLikeRepository used to load the viewer's reactions to the posts of the page.</li>
+ *     <li>reactionCounterBuffer: The ReactionCounterBuffer whose pending like and dislike deltas are added to the
+ *     counts of the posts, so a user sees their own reaction before it is flushed.</li>
+ *     <li>commentPreviewSize: The number of latest comments loaded for every post.</li>
+ * </ul>
+ *
+ * <p>Methods:</p>
+ * <ul>
+ *     <li>assemble(posts, viewerId): Builds a FeedPostDto for every post, keeping the order of the page. The latest
+ *     comments with their authors and the viewer's reactions are each loaded with a single query for the whole page,
+ *     so the number of queries does not depend on the page size. Posts and comments are copied into flat DTOs that
+ *     carry only the id, name and picture of their authors, so no other user data reaches the pages or the JSON feed. The comment counts are read from the denormalized
+ *     commentCount column of the posts, and the post authors are expected to be fetched together with the page.</li>
+ *     <li>assemble(feed, viewerId): Does the same for a page of the cursor feed and keeps its next cursor.</li>
+ * </ul>
+ *
+ * <p>Usage:</p>
+ * <p>
+ * The web controllers of the newsfeed, image, video and timeline pages and the REST feed endpoint use this service
+ * instead of loading every comment of the application and filtering it per post in the templates.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+public class FeedAssemblerServiceImpl implements FeedAssemblerService {
+
+    private final CommentRepository commentRepository;
+    private final PostLikeRepository postLikeRepository;
+    private final ReactionCounterBuffer reactionCounterBuffer;
+
+    @Value("${feed.comment-preview-size:5}")
+    private int commentPreviewSize;
+
+    @Override
+    public List<FeedPostDto> assemble(List<Post> posts, int viewerId) {
+        if (posts.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Integer> postIds = posts.stream().map(Post::getId).toList();
+
+        Map<Integer, List<FeedCommentDto>> commentsByPostId = new HashMap<>();
+        for (Object[] row : commentRepository.findLatestByPostIdIn(postIds, commentPreviewSize)) {
+            commentsByPostId.computeIfAbsent(((Number) row[1]).intValue(), id -> new ArrayList<>())
+                    .add(FeedCommentDto.builder()
+                            .id(((Number) row[0]).intValue())
+                            .userId(((Number) row[2]).intValue())
+                            .userName((String) row[3])
+                            .userSurname((String) row[4])
+                            .userProfilePicture((String) row[5])
+                            .commentaryText((String) row[6])
+                            .datetime(toLocalDateTime(row[7]))
+                            .build());
+        }
+        Map<Integer, LikeStatus> reactions = new HashMap<>();
+        for (Object[] row : postLikeRepository.findReactionsByUserIdAndPostIdIn(viewerId, postIds)) {
+            reactions.put((Integer) row[0], (LikeStatus) row[1]);
+        }
+
+        List<FeedPostDto> feedPosts = new ArrayList<>(posts.size());
+        for (Post post : posts) {
+            User author = post.getUser();
+            feedPosts.add(FeedPostDto.builder()
+                    .id(post.getId())
+                    .description(post.getDescription())
+                    .imgName(post.getImgName())
+                    .musicFileName(post.getMusicFileName())
+                    .mediaKind(post.getMediaKind())
+                    .postDatetime(post.getPostDatetime())
+                    .userId(author.getId())
+                    .userName(author.getName())
+                    .userSurname(author.getSurname())
+                    .userProfilePicture(author.getProfilePicture())
+                    .comments(commentsByPostId.getOrDefault(post.getId(), Collections.emptyList()))
+                    .commentCount(post.getCommentCount())
+                    .likeCount(post.getLikeCount() + reactionCounterBuffer.pendingLikes(post.getId()))
+                    .dislikeCount(post.getDislikeCount() + reactionCounterBuffer.pendingDislikes(post.getId()))
+                    .viewerReaction(reactions.get(post.getId()))
+                    .build());
+        }
+        return feedPosts;
+    }
+
+    @Override
+    public FeedPageDto assemble(PostFeedResponseDto feed, int viewerId) {
+        return FeedPageDto.builder()
+                .posts(assemble(feed.getPosts(), viewerId))
+                .nextCursor(feed.getNextCursor())
+                .build();
+    }
+
+    private LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+}
@@ -0,0 +1,152 @@
+package com.friendfinder.friendfindercommon.service.impl;
+
+import com.friendfinder.friendfindercommon.cache.FriendGraph;
+import com.friendfinder.friendfindercommon.entity.Post;
+import com.friendfinder.friendfindercommon.entity.types.FriendStatus;
+import com.friendfinder.friendfindercommon.repository.FeedInboxRepository;
+import com.friendfinder.friendfindercommon.repository.PostRepository;
+import com.friendfinder.friendfindercommon.service.FeedInboxService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ * FeedInboxServiceImpl maintains the feed_inbox table, a materialized home timeline holding, for every user, the ids of
+ * the posts written by the user's friends. Feed reads become a range scan on (owner_id, post_id) instead of a join over
+ * all friendships.
+ * </p>
+ *
+ * <p>Fields:</p>
+ * <ul>
+ *     <li>feedInboxRepository: The FeedInboxRepository used to write and read inbox rows.</li>
+ *     <li>postRepository: The PostRepository used to load posts and to flag posts that have been fanned out.</li>
+ *     <li>friendGraph: The FriendGraph used to check the author's friend count before fanning out.</li>
+ *     <li>transactionTemplate: Runs the flag update and the inbox insert of a post in one transaction.</li>
+ *     <li>maxFanOutFriends: Authors with more friends than this are not fanned out; their posts are merged into
+ *     the feed at read time instead.</li>
+ * </ul>
+ *
+ * <p>Methods:</p>
+ * <ul>
+ *     <li>fanOut(post): Asynchronously inserts the post id into the inbox of every accepted friend of the author with
+ *     a single insert-select statement, and marks the post as fanned out.</li>
+ *     <li>feedBefore(userId, cursor, limit): Returns up to limit posts older than the cursor, merging the inbox with the
+ *     posts of friends that were not fanned out.</li>
+ *     <li>addFriendship(firstUserId, secondUserId): Copies the fanned-out posts of each user into the other's inbox.</li>
+ *     <li>removeFriendship(firstUserId, secondUserId): Removes each user's posts from the other's inbox.</li>
+ *     <li>removePost(postId): Removes a deleted post from every inbox.</li>
+ *     <li>backfill(): Fans out the existing posts that are not in the inboxes yet and returns how many were fanned out.</li>
+ * </ul>
+ *
+ * <p>Usage:</p>
+ * <p>
+ * PostServiceImpl calls fanOut after saving a post and removePost before deleting one, and reads the cursor feed through
+ * feedBefore. FriendRequestServiceImpl calls addFriendship and removeFriendship when a friendship is accepted or removed.
+ * The backfill is started by an administrator after the inbox is introduced or after the threshold is lowered.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FeedInboxServiceImpl implements FeedInboxService {
+
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
+    private final FeedInboxRepository feedInboxRepository;
+    private final PostRepository postRepository;
+    private final FriendGraph friendGraph;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${feed.fanout.max-friends:1000}")
+    private int maxFanOutFriends;
+
+    @Override
+    @Async
+    public void fanOut(Post post) {
+        fanOutPost(post.getId(), post.getUser().getId());
+    }
+
+    @Override
+    public List<Post> feedBefore(int userId, int cursor, int limit) {
+        PageRequest pageRequest = PageRequest.of(0, limit);
+        List<Integer> postIds = feedInboxRepository.findPostIdsByOwnerIdBefore(userId, cursor, pageRequest);
+        List<Post> pushed = postIds.isEmpty() ? Collections.emptyList() : postRepository.findPostsWithUserByIdIn(postIds);
+        List<Post> pulled = postRepository.findNotFannedOutFriendsPostsBefore(userId, FriendStatus.ACCEPTED, cursor, pageRequest);
+        return merge(pushed, pulled, limit);
+    }
+
+    @Override
+    public void addFriendship(int firstUserId, int secondUserId) {
+        feedInboxRepository.copyAuthorPosts(firstUserId, secondUserId);
+        feedInboxRepository.copyAuthorPosts(secondUserId, firstUserId);
+    }
+
+    @Override
+    public void removeFriendship(int firstUserId, int secondUserId) {
+        feedInboxRepository.deleteByOwnerIdAndAuthorId(firstUserId, secondUserId);
+        feedInboxRepository.deleteByOwnerIdAndAuthorId(secondUserId, firstUserId);
+    }
+
+    @Override
+    public void removePost(int postId) {
+        feedInboxRepository.deleteByPostId(postId);
+    }
+
+    @Override
+    public int backfill() {
+        int fannedOut = 0;
+        int after = 0;
+        List<Post> batch;
+        do {
+            batch = postRepository.findNotFannedOutAfter(after, PageRequest.of(0, BACKFILL_BATCH_SIZE));
+            for (Post post : batch) {
+                if (fanOutPost(post.getId(), post.getUser().getId())) {
+                    fannedOut++;
+                }
+                after = post.getId();
+            }
+        } while (batch.size() == BACKFILL_BATCH_SIZE);
+        log.info("Feed inbox backfill fanned out {} posts", fannedOut);
+        return fannedOut;
+    }
+
+    private boolean fanOutPost(int postId, int authorId) {
+        if (friendGraph.friendCount(authorId) > maxFanOutFriends) {
+            return false;
+        }
+        // the flag is flipped in the same transaction, so a post is never fanned out twice
+        Boolean fannedOut = transactionTemplate.execute(status -> {
+            if (postRepository.markFannedOut(postId) == 0) {
+                return false;
+            }
+            feedInboxRepository.fanOutPost(postId, authorId);
+            return true;
+        });
+        return Boolean.TRUE.equals(fannedOut);
+    }
+
+    private static List<Post> merge(List<Post> pushed, List<Post> pulled, int limit) {
+        List<Post> sortedPushed = new ArrayList<>(pushed);
+        sortedPushed.sort((first, second) -> Integer.compare(second.getId(), first.getId()));
+        List<Post> result = new ArrayList<>(Math.min(limit, sortedPushed.size() + pulled.size()));
+        int i = 0;
+        int j = 0;
+        while (result.size() < limit && (i < sortedPushed.size() || j < pulled.size())) {
+            if (j == pulled.size() || (i < sortedPushed.size() && sortedPushed.get(i).getId() > pulled.get(j).getId())) {
+                result.add(sortedPushed.get(i++));
+            } else {
+                result.add(pulled.get(j++));
+            }
+        }
+        return result;
+    }
+}
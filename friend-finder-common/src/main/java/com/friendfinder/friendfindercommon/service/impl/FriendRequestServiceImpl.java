@@ -1,19 +1,25 @@
 package com.friendfinder.friendfindercommon.service.impl;
 
+import com.friendfinder.friendfindercommon.cache.FriendGraph;
 import com.friendfinder.friendfindercommon.entity.FriendRequest;
 import com.friendfinder.friendfindercommon.entity.User;
 import com.friendfinder.friendfindercommon.entity.types.FriendStatus;
 import com.friendfinder.friendfindercommon.repository.FriendRequestRepository;
 import com.friendfinder.friendfindercommon.repository.UserRepository;
+import com.friendfinder.friendfindercommon.service.FeedInboxService;
 import com.friendfinder.friendfindercommon.service.FriendRequestService;
+import com.friendfinder.friendfindercommon.service.FriendSuggestionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,6 +35,12 @@ import java.util.Optional;
  *     database to perform CRUD operations on FriendRequest entities.</li>
  *     <li>userRepository: The UserRepository interface, providing access to user-related data and operations.</li>
  *     <li>mailService: An instance of the MailService used to send email notifications related to friend requests.</li>
+ *     <li>friendGraph: The in-memory FriendGraph that serves friend ids and counts. Every accepted or removed
+ *     friendship is written through to it after the database write.</li>
+ *     <li>feedInboxService: The FeedInboxService used to add or remove the posts of new or former friends in the
+ *     feed inboxes of both users.</li>
+ *     <li>friendSuggestionService: The FriendSuggestionService whose cached suggestions of both users are dropped
+ *     whenever a friend request between them is created, accepted or deleted.</li>
  * </ul>
  *
  * <p>Methods:</p>
@@ -42,14 +54,20 @@ import java.util.Optional;
  *     receiverId. If the request is found, it returns the FriendRequest object; otherwise, it returns null.</li>
  *     <li>delete(friendRequest): Deletes the specified FriendRequest from the database.</li>
  *     <li>userFriendsPageByUserId(userId, pageNumber): Retrieves a paginated list of user friends based on the
- *     userId and pageNumber. The method fetches the list of friends by calling findFriendsByUserId(userId) and then
+ *     userId and pageNumber. The method fetches only the friend ids by calling findFriendIdsByUserId(userId) and then
  *     uses pagination to return a specific page of user friends.</li>
- *     <li>findFriendsByUserId(userId): Retrieves a list of user friends based on the userId. It searches through all
- *     FriendRequests and returns users who have an "ACCEPTED" status for friend requests related to the specified
- *     userId.</li>
+ *     <li>findFriendsByUserId(userId): Retrieves a list of user friends based on the userId. A single query returns the
+ *     users on either side of an "ACCEPTED" friend request related to the specified userId.</li>
+ *     <li>findFriendIdsByUserId(userId): Retrieves the sorted ids of the user's friends from the FriendGraph without
+ *     loading User entities.</li>
  *     <li>changeStatus(friendRequest): Changes the status of a FriendRequest to "ACCEPTED". It also sends an email
  *     notification to the sender indicating that their friend request has been accepted.</li>
- *     <li>findFriendsByUserIdCount(id): Retrieves the count of user friends based on the userId.</li>
+ *     <li>findFriendsByUserIdCount(id): Retrieves the count of user friends based on the userId from the
+ *     FriendGraph.</li>
+ *     <li>findMutualFriendsCount(userId, otherUserId): Retrieves the number of friends the two users have in common by
+ *     intersecting their sorted friend ids in the FriendGraph.</li>
+ *     <li>mutualFriendsPage(userId, otherUserId, pageNumber): Retrieves a page of the friends the two users have in
+ *     common. The friend ids are intersected in memory and only the users on the requested page are loaded.</li>
  *     <li>delete(sender, receiver): Deletes a friend request based on the sender and receiver users. It first checks
  *     if a FriendRequest exists in both directions (sender to receiver and receiver to sender) and then deletes the
  *     appropriate one.</li>
@@ -71,6 +89,9 @@ public class FriendRequestServiceImpl implements FriendRequestService {
     private final FriendRequestRepository friendRequestRepository;
     private final UserRepository userRepository;
     private final MailService mailService;
+    private final FriendGraph friendGraph;
+    private final FeedInboxService feedInboxService;
+    private final FriendSuggestionService friendSuggestionService;
 
     @Override
     public FriendRequest save(FriendRequest friendRequest) {
@@ -78,6 +99,11 @@ public class FriendRequestServiceImpl implements FriendRequestService {
         if (findBySenderIdAndReceiverId(friendRequest.getSender().getId(), friendRequest.getReceiver().getId()) == null
                 && findBySenderIdAndReceiverId(friendRequest.getReceiver().getId(), friendRequest.getSender().getId()) == null) {
             friendRequests = friendRequestRepository.save(friendRequest);
+            invalidateSuggestions(friendRequests);
+            if (friendRequests.getStatus() == FriendStatus.ACCEPTED) {
+                friendGraph.addEdge(friendRequests.getSender().getId(), friendRequests.getReceiver().getId());
+                feedInboxService.addFriendship(friendRequests.getSender().getId(), friendRequests.getReceiver().getId());
+            }
         }
         mailService.sendMail(friendRequest.getReceiver().getEmail(), "You have a new friend request", "Hi, "
                 + friendRequest.getReceiver().getName() + ". You have an friend request from " +
@@ -108,6 +134,11 @@ public class FriendRequestServiceImpl implements FriendRequestService {
         Optional<FriendRequest> byId = friendRequestRepository.findById(friendRequest.getId());
         if (byId.isPresent()) {
             friendRequestRepository.delete(friendRequest);
+            invalidateSuggestions(byId.get());
+            if (byId.get().getStatus() == FriendStatus.ACCEPTED) {
+                friendGraph.removeEdge(byId.get().getSender().getId(), byId.get().getReceiver().getId());
+                feedInboxService.removeFriendship(byId.get().getSender().getId(), byId.get().getReceiver().getId());
+            }
             return true;
         }
         return false;
@@ -115,11 +146,7 @@ public class FriendRequestServiceImpl implements FriendRequestService {
 
     @Override
     public Page<User> userFriendsPageByUserId(int userId, int pageNumber) {
-        List<User> friendsByUserId = findFriendsByUserId(userId);
-        List<Integer> friendsId = new ArrayList<>();
-        for (User user : friendsByUserId) {
-            friendsId.add(user.getId());
-        }
+        List<Integer> friendsId = Arrays.stream(findFriendIdsByUserId(userId)).boxed().toList();
         Sort sort = Sort.by(Sort.Order.desc("id"));
         Pageable pageable = PageRequest.of(pageNumber - 1, 12, sort);
         return userRepository.findUsersByIdIn(friendsId, pageable);
@@ -127,17 +154,12 @@ public class FriendRequestServiceImpl implements FriendRequestService {
 
     @Override
     public List<User> findFriendsByUserId(int userId) {
-        List<FriendRequest> all = friendRequestRepository.findAll();
-        List<User> result = new ArrayList<>();
-        for (FriendRequest friendRequest : all) {
-            if (friendRequest.getSender().getId() == userId && friendRequest.getStatus() == FriendStatus.ACCEPTED) {
-                result.add(friendRequest.getReceiver());
-            }
-            if (friendRequest.getReceiver().getId() == userId && friendRequest.getStatus() == FriendStatus.ACCEPTED) {
-                result.add(friendRequest.getSender());
-            }
-        }
-        return result;
+        return friendRequestRepository.findFriendsByUserIdAndStatus(userId, FriendStatus.ACCEPTED);
+    }
+
+    @Override
+    public int[] findFriendIdsByUserId(int userId) {
+        return friendGraph.friendIds(userId);
     }
 
     @Override
@@ -147,13 +169,38 @@ public class FriendRequestServiceImpl implements FriendRequestService {
                 "Hi, " + friendRequest.getSender().getName() +
                         ". " + friendRequest.getReceiver().getName() + " accepted your request.");
         friendRequestRepository.save(friendRequest);
+        friendGraph.addEdge(friendRequest.getSender().getId(), friendRequest.getReceiver().getId());
+        feedInboxService.addFriendship(friendRequest.getSender().getId(), friendRequest.getReceiver().getId());
+        invalidateSuggestions(friendRequest);
         return friendRequest;
     }
 
     @Override
     public int findFriendsByUserIdCount(int id) {
-        List<User> friendsByUserId = findFriendsByUserId(id);
-        return friendsByUserId.size();
+        return friendGraph.friendCount(id);
+    }
+
+    @Override
+    public int findMutualFriendsCount(int userId, int otherUserId) {
+        return friendGraph.mutualFriendCount(userId, otherUserId);
+    }
+
+    @Override
+    public Page<User> mutualFriendsPage(int userId, int otherUserId, int pageNumber) {
+        int[] mutualIds = friendGraph.mutualFriendIds(userId, otherUserId);
+        Pageable pageable = PageRequest.of(pageNumber - 1, 12, Sort.by(Sort.Order.desc("id")));
+        int from = (int) Math.min(pageable.getOffset(), mutualIds.length);
+        int to = Math.min(from + pageable.getPageSize(), mutualIds.length);
+        if (from == to) {
+            return new PageImpl<>(new ArrayList<>(), pageable, mutualIds.length);
+        }
+        List<Integer> pageIds = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            pageIds.add(mutualIds[mutualIds.length - 1 - i]);
+        }
+        List<User> users = new ArrayList<>(userRepository.findAllById(pageIds));
+        users.sort(Comparator.comparingInt(User::getId).reversed());
+        return new PageImpl<>(users, pageable, mutualIds.length);
     }
 
     @Override
@@ -169,4 +216,8 @@ public class FriendRequestServiceImpl implements FriendRequestService {
         return false;
     }
 
+    private void invalidateSuggestions(FriendRequest friendRequest) {
+        friendSuggestionService.invalidate(friendRequest.getSender().getId());
+        friendSuggestionService.invalidate(friendRequest.getReceiver().getId());
+    }
 }
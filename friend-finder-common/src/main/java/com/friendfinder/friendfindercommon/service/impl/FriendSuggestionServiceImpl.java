@@ -0,0 +1,223 @@
+package com.friendfinder.friendfindercommon.service.impl;
+
+import com.friendfinder.friendfindercommon.cache.FriendGraph;
+import com.friendfinder.friendfindercommon.entity.User;
+import com.friendfinder.friendfindercommon.repository.FriendRequestRepository;
+import com.friendfinder.friendfindercommon.repository.UserRepository;
+import com.friendfinder.friendfindercommon.security.CurrentUser;
+import com.friendfinder.friendfindercommon.service.FriendSuggestionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * FriendSuggestionServiceImpl computes the "Who to Follow" suggestions of a user from the user's friends of friends,
+ * ranked by the number of mutual friends.
+ * </p>
+ *
+ * <p>Fields:</p>
+ * <ul>
+ *     <li>friendGraph: The FriendGraph from which the friend ids of the user and of the user's friends are read. The
+ *     friends that are not cached are loaded together, so a cold graph costs one query instead of two per friend.</li>
+ *     <li>friendRequestRepository: The FriendRequestRepository used to load, in bulk, the users the current user already
+ *     has a friend request with, so they are not suggested again.</li>
+ *     <li>userRepository: The UserRepository used to load the suggested users.</li>
+ *     <li>limit: The number of suggestions returned.</li>
+ *     <li>cityBoost, countryBoost: Added to the mutual-friend count of candidates living in the same city or country as
+ *     the user. Zero disables the boost.</li>
+ *     <li>ttlMillis, maxCachedUsers: How long and for how many users the computed suggestions are cached.</li>
+ * </ul>
+ *
+ * <p>Methods:</p>
+ * <ul>
+ *     <li>suggestFriends(currentUser): Returns the top suggestions for the current user. Friends of friends are counted
+ *     with sorted primitive arrays, users with an existing friend request in either direction are excluded, and only the
+ *     best candidates are loaded from the database. When there are not enough friends of friends, the list is filled
+ *     with the newest users. The suggested ids are cached per user.</li>
+ *     <li>invalidate(userId): Drops the cached suggestions of a user. It is called by FriendRequestServiceImpl whenever
+ *     a friend request of the user is created, accepted or deleted.</li>
+ * </ul>
+ *
+ * <p>Usage:</p>
+ * <p>
+ * The web controllers call suggestFriends to fill the suggestions sidebar. A cached page render costs a single query
+ * that loads the suggested users.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+public class FriendSuggestionServiceImpl implements FriendSuggestionService {
+
+    private static final int CANDIDATE_POOL_FACTOR = 3;
+
+    private final FriendGraph friendGraph;
+    private final FriendRequestRepository friendRequestRepository;
+    private final UserRepository userRepository;
+
+    private final Map<Integer, CachedSuggestions> cache = new ConcurrentHashMap<>();
+
+    @Value("${friend.suggestion.limit:10}")
+    private int limit;
+
+    @Value("${friend.suggestion.city-boost:1}")
+    private int cityBoost;
+
+    @Value("${friend.suggestion.country-boost:1}")
+    private int countryBoost;
+
+    @Value("${friend.suggestion.ttl-millis:600000}")
+    private long ttlMillis;
+
+    @Value("${friend.suggestion.max-cached-users:10000}")
+    private int maxCachedUsers;
+
+    @Override
+    public List<User> suggestFriends(CurrentUser currentUser) {
+        User user = currentUser.getUser();
+        long now = System.currentTimeMillis();
+        CachedSuggestions cached = cache.get(user.getId());
+        if (cached != null && cached.expiresAt > now) {
+            return loadInOrder(cached.userIds);
+        }
+
+        List<User> suggestions = computeSuggestions(user);
+        if (cache.size() >= maxCachedUsers) {
+            cache.clear();
+        }
+        cache.put(user.getId(), new CachedSuggestions(suggestions.stream().map(User::getId).toList(), now + ttlMillis));
+        return suggestions;
+    }
+
+    @Override
+    public void invalidate(int userId) {
+        cache.remove(userId);
+    }
+
+    private List<User> computeSuggestions(User user) {
+        int userId = user.getId();
+        int[] friendIds = friendGraph.friendIds(userId);
+        int[] excluded = excludedIds(userId, friendIds);
+
+        long[] ranked = rankFriendsOfFriends(friendIds, excluded);
+        int poolSize = Math.min(ranked.length, limit * CANDIDATE_POOL_FACTOR);
+        Map<Integer, Integer> mutualCounts = new HashMap<>();
+        for (int i = 0; i < poolSize; i++) {
+            long key = ranked[ranked.length - 1 - i];
+            mutualCounts.put(Integer.MAX_VALUE - (int) key, (int) (key >>> 32));
+        }
+
+        List<User> candidates = new ArrayList<>(userRepository.findAllById(mutualCounts.keySet()));
+        candidates.sort(Comparator.comparingInt((User candidate) -> score(user, candidate, mutualCounts.get(candidate.getId())))
+                .thenComparingInt(candidate -> mutualCounts.get(candidate.getId()))
+                .reversed()
+                .thenComparingInt(User::getId));
+        List<User> suggestions = new ArrayList<>(candidates.subList(0, Math.min(limit, candidates.size())));
+
+        if (suggestions.size() < limit) {
+            List<Integer> notSuggested = new ArrayList<>(excluded.length + suggestions.size());
+            for (int id : excluded) {
+                notSuggested.add(id);
+            }
+            suggestions.forEach(suggestion -> notSuggested.add(suggestion.getId()));
+            suggestions.addAll(userRepository.findByIdNotInOrderByIdDesc(notSuggested,
+                    PageRequest.of(0, limit - suggestions.size())));
+        }
+        return suggestions;
+    }
+
+    /**
+     * The user, the user's friends and everyone the user has a pending friend request with, as a sorted array.
+     */
+    private int[] excludedIds(int userId, int[] friendIds) {
+        List<Integer> sent = friendRequestRepository.findReceiverIdsBySenderId(userId);
+        List<Integer> received = friendRequestRepository.findSenderIdsByReceiverId(userId);
+        int[] excluded = new int[friendIds.length + sent.size() + received.size() + 1];
+        System.arraycopy(friendIds, 0, excluded, 0, friendIds.length);
+        int i = friendIds.length;
+        for (Integer id : sent) {
+            excluded[i++] = id;
+        }
+        for (Integer id : received) {
+            excluded[i++] = id;
+        }
+        excluded[i] = userId;
+        Arrays.sort(excluded);
+        return excluded;
+    }
+
+    /**
+     * Counts how many of the user's friends every friend of a friend is connected to. The result is sorted in
+     * ascending order and packs the mutual count in the high 32 bits, so the best candidates are at the end and
+     * equal counts prefer the lower user id.
+     */
+    private long[] rankFriendsOfFriends(int[] friendIds, int[] excluded) {
+        int[] buffer = new int[64];
+        int size = 0;
+        for (int[] friendsOfFriend : friendGraph.friendIdsOf(friendIds)) {
+            for (int candidateId : friendsOfFriend) {
+                if (Arrays.binarySearch(excluded, candidateId) >= 0) {
+                    continue;
+                }
+                if (size == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, size * 2);
+                }
+                buffer[size++] = candidateId;
+            }
+        }
+        Arrays.sort(buffer, 0, size);
+
+        long[] ranked = new long[size];
+        int count = 0;
+        int i = 0;
+        while (i < size) {
+            int candidateId = buffer[i];
+            int j = i;
+            while (j < size && buffer[j] == candidateId) {
+                j++;
+            }
+            ranked[count++] = ((long) (j - i) << 32) | (Integer.MAX_VALUE - candidateId);
+            i = j;
+        }
+        ranked = Arrays.copyOf(ranked, count);
+        Arrays.sort(ranked);
+        return ranked;
+    }
+
+    private int score(User user, User candidate, int mutualCount) {
+        int score = mutualCount;
+        if (user.getCity() != null && user.getCity().equalsIgnoreCase(candidate.getCity())) {
+            score += cityBoost;
+        }
+        if (user.getCountry() != null && candidate.getCountry() != null
+                && user.getCountry().getId() == candidate.getCountry().getId()) {
+            score += countryBoost;
+        }
+        return score;
+    }
+
+    private List<User> loadInOrder(List<Integer> userIds) {
+        if (userIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, User> byId = new HashMap<>();
+        for (User user : userRepository.findAllById(userIds)) {
+            byId.put(user.getId(), user);
+        }
+        List<User> users = new ArrayList<>(userIds.size());
+        for (Integer userId : userIds) {
+            User user = byId.get(userId);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    private record CachedSuggestions(List<Integer> userIds, long expiresAt) {
+    }
+}
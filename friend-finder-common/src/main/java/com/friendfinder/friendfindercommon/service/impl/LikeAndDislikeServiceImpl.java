@@ -1,11 +1,11 @@
 package com.friendfinder.friendfindercommon.service.impl;
 
 
+import com.friendfinder.friendfindercommon.cache.ReactionCounterBuffer;
 import com.friendfinder.friendfindercommon.dto.postLikeDto.PostLikeDto;
-import com.friendfinder.friendfindercommon.entity.Post;
 import com.friendfinder.friendfindercommon.entity.PostLike;
 import com.friendfinder.friendfindercommon.entity.types.LikeStatus;
-import com.friendfinder.friendfindercommon.mapper.PostLikeMapper;
+import com.friendfinder.friendfindercommon.exception.custom.PostNotFoundException;
 import com.friendfinder.friendfindercommon.repository.PostLikeRepository;
 import com.friendfinder.friendfindercommon.repository.PostRepository;
 import com.friendfinder.friendfindercommon.security.CurrentUser;
@@ -14,8 +14,6 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Optional;
-
 /**
  * <p>
  * LikeAndDislikeServiceImpl is the implementation of the LikeAndDislikeService interface, providing methods to interact
@@ -26,17 +24,21 @@ import java.util.Optional;
  * <ul>
  *     <li>postLikeRepository: The PostLikeRepository interface, allowing this service to interact with the database
  *     to perform CRUD operations on PostLike entities.</li>
- *     <li>postRepository: The PostRepository interface, enabling this service to interact with the database to update
- *     Post entities based on reaction counts.</li>
- *     <li>postLikeMapper: The PostLikeMapper interface, used for mapping PostLikeDto objects to PostLike entities.</li>
+ *     <li>postRepository: The PostRepository interface, used to tell a reaction to a post that does not exist from a
+ *     repeated one.</li>
+ *     <li>reactionCounterBuffer: The ReactionCounterBuffer that applies the like and dislike count deltas of a post,
+ *     either immediately with single UPDATE statements or batched in write-behind mode.</li>
  * </ul>
  *
  * <p>Methods:</p>
  * <ul>
- *     <li>saveReaction(postLikeDto, currentUser, post): Saves or updates a PostLike entity in the database based on the
- *     provided PostLikeDto object. If the user has not reacted to the post, a new PostLike entity is created, and the
- *     like/dislike count of the corresponding Post is updated accordingly. If the user has already reacted, their
- *     previous reaction is removed, and the like/dislike count is adjusted accordingly.</li>
+ *     <li>saveReaction(postLikeDto, currentUser, postId): Toggles the reaction of the current user to the post with the
+ *     given id without loading the post. The reaction is inserted only if the user has not reacted yet, which is
+ *     decided by the unique (user_id, post_id) constraint of post_like, and the matching counter of the post is
+ *     incremented through the ReactionCounterBuffer. If the user has already reacted, the existing reaction is deleted and its counter is
+ *     decremented. Concurrent reactions to the same post never overwrite each other's counts. A new reaction is
+ *     returned as the persisted PostLike row and a removed one as null. When the post does not exist, a
+ *     PostNotFoundException (404) is thrown.</li>
  * </ul>
  *
  * <p>Usage:</p>
@@ -55,35 +57,28 @@ public class LikeAndDislikeServiceImpl implements LikeAndDislikeService {
 
     private final PostLikeRepository postLikeRepository;
     private final PostRepository postRepository;
-    private final PostLikeMapper postLikeMapper;
+    private final ReactionCounterBuffer reactionCounterBuffer;
 
     @Override
     @Transactional
-    public PostLike saveReaction(PostLikeDto postLikeDto, CurrentUser currentUser, Post post) {
-        Optional<PostLike> byUserIdAndPostId = postLikeRepository.findByUserIdAndPostId(currentUser.getUser().getId(), post.getId());
-        if (byUserIdAndPostId.isEmpty()) {
-            postLikeDto.setUser(currentUser.getUser());
-            postLikeDto.setPost(post);
-            if (postLikeDto.getLikeStatus() == LikeStatus.LIKE) {
-                post.setLikeCount(post.getLikeCount() + 1);
-                postRepository.save(post);
-            } else {
-                post.setDislikeCount(post.getDislikeCount() + 1);
-                postRepository.save(post);
-            }
-            PostLike postLike = postLikeMapper.map(postLikeDto);
-            return postLikeRepository.save(postLike);
-        } else {
-            PostLike postLikeDelete = byUserIdAndPostId.get();
-            postLikeRepository.delete(postLikeDelete);
-            if (postLikeDelete.getLikeStatus() == LikeStatus.LIKE) {
-                post.setLikeCount(post.getLikeCount() - 1);
-                postRepository.save(post);
-            } else {
-                post.setDislikeCount(post.getDislikeCount() - 1);
-                postRepository.save(post);
+    public PostLike saveReaction(PostLikeDto postLikeDto, CurrentUser currentUser, int postId) {
+        int userId = currentUser.getUser().getId();
+        LikeStatus likeStatus = postLikeDto.getLikeStatus();
+        if (postLikeRepository.insertIfAbsent(userId, postId, likeStatus.name()) == 1) {
+            reactionCounterBuffer.add(postId, likeStatus, 1);
+            return postLikeRepository.findByUserIdAndPostId(userId, postId).orElseThrow();
+        }
+        // the user has already reacted to the post, a second click takes the reaction back
+        for (LikeStatus existingStatus : LikeStatus.values()) {
+            if (postLikeRepository.deleteByUserIdAndPostIdAndLikeStatus(userId, postId, existingStatus) == 1) {
+                reactionCounterBuffer.add(postId, existingStatus, -1);
+                return null;
             }
         }
+        // nothing was inserted or deleted, which insert ignore also reports when the post does not exist
+        if (!postRepository.existsById(postId)) {
+            throw new PostNotFoundException("Post with id " + postId + " not found");
+        }
         return null;
     }
 }
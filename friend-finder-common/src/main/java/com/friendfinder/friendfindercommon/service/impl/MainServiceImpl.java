@@ -3,12 +3,13 @@ package com.friendfinder.friendfindercommon.service.impl;
 import com.friendfinder.friendfindercommon.entity.Country;
 import com.friendfinder.friendfindercommon.repository.CountryRepository;
 import com.friendfinder.friendfindercommon.service.MainService;
+import com.friendfinder.friendfindercommon.service.ThumbnailService;
 import com.friendfinder.friendfindercommon.util.ImageUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
-import org.springframework.web.bind.annotation.ResponseBody;
 
 import java.util.List;
 
@@ -25,19 +26,19 @@ import java.util.List;
  *     <li>userProfilePicPath: The path to the directory where user profile pictures are stored.</li>
  *     <li>userBgProfilePicPath: The path to the directory where user background profile pictures are stored.</li>
  *     <li>countryRepository: The CountryRepository interface used to access and retrieve country-related data from the database.</li>
+ *     <li>thumbnailService: The ThumbnailService that picks the downscaled variant of an image for a requested size.</li>
  * </ul>
  *
  * <p>Methods:</p>
  * <ul>
  *     <li>findAllCountries(): Retrieves a list of all countries from the database.</li>
- *     <li>getImage(imageName): Retrieves the byte array representation of an image with the specified image name from the
- *     imageUploadPath directory.</li>
- *     <li>getVideo(imageName): Retrieves the byte array representation of a video with the specified image name from the
- *     videoUploadPath directory.</li>
- *     <li>getProfilePic(imageName): Retrieves the byte array representation of a user's profile picture with the specified
- *     image name from the userProfilePicPath directory.</li>
- *     <li>getBgProfilePic(imageName): Retrieves the byte array representation of a user's background profile picture with
- *     the specified image name from the userBgProfilePicPath directory.</li>
+ *     <li>getImage(imageName, size): Retrieves an image with the specified image name from the imageUploadPath directory,
+ *     or its smallest variant that is at least size pixels wide when a size is given and the variant exists.</li>
+ *     <li>getVideo(imageName): Retrieves a video with the specified image name from the videoUploadPath directory.</li>
+ *     <li>getProfilePic(imageName, size): Retrieves a user's profile picture with the specified image name from the
+ *     userProfilePicPath directory, or a variant of it for the size.</li>
+ *     <li>getBgProfilePic(imageName, size): Retrieves a user's background profile picture with the specified image name from
+ *     the userBgProfilePicPath directory, or a variant of it for the size.</li>
  * </ul>
  *
  * <p>Usage:</p>
@@ -45,7 +46,9 @@ import java.util.List;
  * MainServiceImpl provides utility methods to handle image and video retrieval, as well as access to country-related data.
  * It is used in various parts of the application to serve images and videos to users, such as profile pictures, background
  * profile pictures, and media content associated with posts. Additionally, it offers the capability to retrieve a list of all
- * countries for user selection or display purposes in the application. By providing these methods, the class enhances the
+ * countries for user selection or display purposes in the application. The media methods return a Resource backed by the
+ * file, or null if it does not exist, so that the file is streamed from disk when the response is written and Range
+ * requests can be answered without reading the whole file. By providing these methods, the class enhances the
  * overall functionality of the application, allowing it to efficiently manage and serve media content and country data.
  * </p>
  */
@@ -67,6 +70,7 @@ public class MainServiceImpl implements MainService {
     private String userBgProfilePicPath;
 
     private final CountryRepository countryRepository;
+    private final ThumbnailService thumbnailService;
 
     @Override
     public List<Country> findAllCountries() {
@@ -74,22 +78,22 @@ public class MainServiceImpl implements MainService {
     }
 
     @Override
-    public @ResponseBody byte[] getImage(String imageName) {
-        return ImageUtil.getBytes(imageName, imageUploadPath);
+    public Resource getImage(String imageName, Integer size) {
+        return thumbnailService.variant(imageUploadPath, imageName, size);
     }
 
     @Override
-    public @ResponseBody byte[] getVideo(String imageName) {
-        return ImageUtil.getBytes(imageName, videoUploadPath);
+    public Resource getVideo(String imageName) {
+        return ImageUtil.getResource(imageName, videoUploadPath);
     }
 
     @Override
-    public @ResponseBody byte[] getProfilePic(String imageName) {
-        return ImageUtil.getBytes(imageName, userProfilePicPath);
+    public Resource getProfilePic(String imageName, Integer size) {
+        return thumbnailService.variant(userProfilePicPath, imageName, size);
     }
 
     @Override
-    public @ResponseBody byte[] getBgProfilePic(String imageName) {
-        return ImageUtil.getBytes(imageName, userBgProfilePicPath);
+    public Resource getBgProfilePic(String imageName, Integer size) {
+        return thumbnailService.variant(userBgProfilePicPath, imageName, size);
     }
 }
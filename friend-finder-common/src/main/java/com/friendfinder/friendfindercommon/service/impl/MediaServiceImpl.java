@@ -0,0 +1,190 @@
+package com.friendfinder.friendfindercommon.service.impl;
+
+import com.friendfinder.friendfindercommon.dto.mediaDto.MediaCacheStatsDto;
+import com.friendfinder.friendfindercommon.service.MediaService;
+import com.friendfinder.friendfindercommon.service.ThumbnailService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * MediaServiceImpl is the implementation of the MediaService interface, which builds the HTTP responses of the
+ * uploaded images and videos.
+ * </p>
+ *
+ * <p>Methods:</p>
+ * <ul>
+ *     <li>serve(resource, request): Returns 404 if the resource is null. Otherwise it derives a strong ETag from the
+ *     size and modification time of the file and sends it with Last-Modified and
+ *     {@code Cache-Control: public, max-age=31536000, immutable}: uploads are stored under a unique
+ *     {@code nanoTime_name} file name and never rewritten, so a URL always refers to the same bytes. The exception is
+ *     an original served in place of a thumbnail that does not exist yet, as told by ThumbnailService.isPending, which
+ *     is sent with {@code Cache-Control: no-cache} so that the browser picks up the thumbnail once it exists. When the
+ *     If-None-Match or If-Modified-Since header of the request matches, the response is 304 Not Modified without a
+ *     body; otherwise the file is sent with the content type of its extension, and Range requests are answered with
+ *     206 Partial Content by Spring MVC. A weak comparison is used for If-None-Match, which takes precedence over
+ *     If-Modified-Since.</li>
+ *     <li>stats(): Returns the number of served requests, how many of them were answered with 304 and the number of
+ *     body bytes that were not sent because of it, and how many files were handed to the container's sendfile.</li>
+ * </ul>
+ *
+ * <p>Usage:</p>
+ * <p>
+ * MediaServiceImpl is used by the media endpoints of the web and REST applications. Browsers revalidate or skip media
+ * they have already downloaded instead of fetching the full file on every page render.
+ * </p>
+ *
+ * <p>
+ * Full GET responses of files of at least {@code media.sendfile.min-size} bytes (48 KB by default, the threshold of
+ * Tomcat's DefaultServlet) are handed to the servlet container when it supports sendfile, as embedded Tomcat with the
+ * NIO connector does: the controller returns only the headers and Tomcat transfers the file with
+ * FileChannel.transferTo, so its bytes never pass through the heap. Smaller files, Range requests and containers
+ * without sendfile fall back to the streaming copy of Spring MVC through a fixed 8 KB buffer.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MediaServiceImpl implements MediaService {
+
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS)
+            .cachePublic()
+            .immutable();
+
+    private final ThumbnailService thumbnailService;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+    private final LongAdder sendfileResponses = new LongAdder();
+
+    @Value("${media.sendfile.min-size:49152}")
+    private long sendfileMinSize;
+
+    @Override
+    public ResponseEntity<Resource> serve(Resource resource, WebRequest request) {
+        if (resource == null) {
+            return ResponseEntity.notFound().build();
+        }
+        long length;
+        long lastModified;
+        try {
+            length = resource.contentLength();
+            lastModified = resource.lastModified();
+        } catch (IOException e) {
+            log.error("could not read the metadata of {}", resource.getFilename(), e);
+            return ResponseEntity.notFound().build();
+        }
+        requests.increment();
+        CacheControl cacheControl = thumbnailService.isPending(resource) ? CacheControl.noCache() : IMMUTABLE;
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+        // answered here rather than by Spring MVC so that the 304s can be counted
+        if (isNotModified(request, etag, lastModified)) {
+            notModified.increment();
+            bytesSaved.add(length);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .lastModified(lastModified)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .lastModified(lastModified)
+                .cacheControl(cacheControl)
+                .contentType(MediaTypeFactory.getMediaType(resource).orElse(MediaType.APPLICATION_OCTET_STREAM));
+        if (sendfile(resource, request, length)) {
+            sendfileResponses.increment();
+            return response.contentLength(length).build();
+        }
+        return response.body(resource);
+    }
+
+    @Override
+    public MediaCacheStatsDto stats() {
+        long total = requests.sum();
+        long hits = notModified.sum();
+        return MediaCacheStatsDto.builder()
+                .requests(total)
+                .notModified(hits)
+                .notModifiedRatio(total == 0 ? 0 : (double) hits / total)
+                .bytesSaved(bytesSaved.sum())
+                .sendfileResponses(sendfileResponses.sum())
+                .build();
+    }
+
+    /**
+     * Asks the container to write the whole file after the headers, if it supports sendfile.
+     */
+    private boolean sendfile(Resource resource, WebRequest request, long length) {
+        if (length < sendfileMinSize || !resource.isFile()
+                || !(request instanceof ServletWebRequest servletRequest)
+                || !"GET".equals(servletRequest.getRequest().getMethod())
+                || request.getHeader(HttpHeaders.RANGE) != null
+                || !Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED, RequestAttributes.SCOPE_REQUEST))) {
+            return false;
+        }
+        String path;
+        try {
+            // Tomcat only accepts canonical paths
+            path = resource.getFile().toPath().toRealPath().toString();
+        } catch (IOException e) {
+            log.error("could not resolve {} for sendfile", resource.getFilename(), e);
+            return false;
+        }
+        request.setAttribute(SENDFILE_FILENAME, path, RequestAttributes.SCOPE_REQUEST);
+        request.setAttribute(SENDFILE_START, 0L, RequestAttributes.SCOPE_REQUEST);
+        request.setAttribute(SENDFILE_END, length, RequestAttributes.SCOPE_REQUEST);
+        return true;
+    }
+
+    private static boolean isNotModified(WebRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        String ifModifiedSince = request.getHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        if (ifModifiedSince == null) {
+            return false;
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.IF_MODIFIED_SINCE, ifModifiedSince);
+        try {
+            long since = headers.getIfModifiedSince();
+            // HTTP dates have a resolution of one second
+            return since >= 0 && lastModified / 1000 <= since / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,530 @@
+package com.friendfinder.friendfindercommon.service.impl;
+
+import com.friendfinder.friendfindercommon.dto.mediaDto.MediaMigrationResultDto;
+import com.friendfinder.friendfindercommon.entity.MediaFile;
+import com.friendfinder.friendfindercommon.entity.Post;
+import com.friendfinder.friendfindercommon.entity.UserImage;
+import com.friendfinder.friendfindercommon.repository.MediaFileRepository;
+import com.friendfinder.friendfindercommon.repository.PostRepository;
+import com.friendfinder.friendfindercommon.repository.UserImageRepository;
+import com.friendfinder.friendfindercommon.repository.UserRepository;
+import com.friendfinder.friendfindercommon.service.MediaStorageService;
+import com.friendfinder.friendfindercommon.service.ThumbnailService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>
+ * MediaStorageServiceImpl is the implementation of the MediaStorageService interface, which stores uploaded images and
+ * videos under the SHA-256 hash of their content, so that a file uploaded many times is kept on disk once.
+ * </p>
+ *
+ * <p>Fields:</p>
+ * <ul>
+ *     <li>mediaFileRepository: The MediaFileRepository that keeps the number of references to every stored file.</li>
+ *     <li>postRepository, userImageRepository, userRepository: The repositories used to find the files referenced by
+ *     a user who is deleted.</li>
+ *     <li>thumbnailService: The ThumbnailService whose variants are moved and deleted together with the originals.</li>
+ *     <li>jdbcTemplate: The JdbcTemplate used by the migration to rewrite the file names of the referencing columns.</li>
+ *     <li>transactionTemplate: The TransactionTemplate that runs every change of a reference count in a transaction of
+ *     its own, holding the lock of the media_file row.</li>
+ *     <li>postImageUploadPath, postVideoUploadPath, userProfilePicPath, userBgProfilePicPath: The directories of the
+ *     post images, the post videos, the profile pictures and the profile background pictures.</li>
+ * </ul>
+ *
+ * <p>Methods:</p>
+ * <ul>
+ *     <li>store(multipartFile, directory): Copies the upload to a temporary file while hashing it and moves it to
+ *     {@code ab/cd/<sha256>.<extension>} in the directory, unless a file with the same content is already stored there.
+ *     Either way one reference to the file is counted and its name, to be saved in Post.imgName,
+ *     Post.musicFileName, User.profilePicture or User.profileBackgroundPic, is returned. Returns null if there is no
+ *     upload, its format is not allowed or it could not be written.</li>
+ *     <li>retain(directory, fileName): Counts one more reference to a stored file, such as the UserImage saved for a
+ *     new profile picture.</li>
+ *     <li>release(directory, fileName): Drops one reference to a stored file and deletes the file and its thumbnails
+ *     when it was the last one. Called within a transaction, the reference is only dropped after the transaction
+ *     commits, so a row whose save or delete fails keeps its file. Names of files uploaded before the
+ *     content-addressed storage are not counted and are left alone.</li>
+ *     <li>releaseUserMedia(userId): Releases the profile pictures, images and post files of a user who is about to be
+ *     deleted, because their rows are removed by the database cascade. Must be called within the transaction that
+ *     deletes the user, so that nothing is released when the delete fails.</li>
+ *     <li>migrateLegacyFiles(): Moves the files uploaded before the content-addressed storage into it. The referencing
+ *     columns are walked in chunks of distinct legacy names; every file is hashed, copied into the storage or matched
+ *     to an identical stored file, and the rows are rewritten to the new name with one update per name, counting their
+ *     references. The legacy files are deleted once all columns are migrated, so a run that stops halfway can simply
+ *     be started again. Returns the number of migrated and deduplicated files, of names whose file does not exist and
+ *     of rewritten references, or an empty result without doing anything when a run is already in progress.</li>
+ *     <li>startMigration(): Claims the run with the same single compare-and-set as migrateLegacyFiles() and runs it on
+ *     a background thread. Returns false when a run is already in progress, so a caller never starts a second one.</li>
+ *     <li>migrationProgress(): Returns the counts of the run in progress, or of the last one, and whether it is still
+ *     running.</li>
+ *     <li>isMigrating(): Tells whether a migration is in progress.</li>
+ * </ul>
+ *
+ * <p>Usage:</p>
+ * <p>
+ * The media_file table holds one row per stored file with its reference count. The web and the REST application
+ * share the upload directories and the table, so every count change takes the row with select ... for update and
+ * places or deletes the file before the transaction commits: an upload of the same content in the other application
+ * waits for the lock instead of counting on a file that is being deleted. A released file is moved aside and only
+ * deleted when the count change commits. Spreading the files over two levels of directories keeps every directory
+ * small.
+ * </p>
+ */
+@Service
+@Slf4j
+public class MediaStorageServiceImpl implements MediaStorageService {
+
+    private static final Set<String> EXTENSIONS = Set.of("img", "jpg", "png", "mp4", "jpeg", "gif", "svg", "webp");
+    private static final int LOCK_ATTEMPTS = 3;
+    private static final int MIGRATION_CHUNK_SIZE = 500;
+
+    private final MediaFileRepository mediaFileRepository;
+    private final PostRepository postRepository;
+    private final UserImageRepository userImageRepository;
+    private final UserRepository userRepository;
+    private final ThumbnailService thumbnailService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean migrating = new AtomicBoolean();
+    private final ExecutorService migrationRunner = Executors.newSingleThreadExecutor();
+    private volatile MediaMigrationResultDto lastMigration = new MediaMigrationResultDto();
+
+    @Value("${post.upload.image.path}")
+    private String postImageUploadPath;
+
+    @Value("${post.video.upload.image.path}")
+    private String postVideoUploadPath;
+
+    @Value("${user.profile.picture.path}")
+    private String userProfilePicPath;
+
+    @Value("${user.profile.background-picture.path}")
+    private String userBgProfilePicPath;
+
+    public MediaStorageServiceImpl(MediaFileRepository mediaFileRepository,
+                                   PostRepository postRepository,
+                                   UserImageRepository userImageRepository,
+                                   UserRepository userRepository,
+                                   ThumbnailService thumbnailService,
+                                   JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager) {
+        this.mediaFileRepository = mediaFileRepository;
+        this.postRepository = postRepository;
+        this.userImageRepository = userImageRepository;
+        this.userRepository = userRepository;
+        this.thumbnailService = thumbnailService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public String store(MultipartFile multipartFile, String directory) {
+        if (multipartFile == null || multipartFile.isEmpty()) {
+            return null;
+        }
+        String extension = extension(multipartFile.getOriginalFilename());
+        if (!EXTENSIONS.contains(extension)) {
+            log.error("Wrong file format: {}", multipartFile.getOriginalFilename());
+            return null;
+        }
+        Path root = root(directory);
+        Path temp = null;
+        try (InputStream in = multipartFile.getInputStream()) {
+            MessageDigest digest = sha256();
+            temp = receive(in, root, digest);
+            String fileName = contentName(digest.digest(), extension);
+            Path upload = temp;
+            changeLocked(root, fileName, Files.size(temp), file -> {
+                file.setRefCount(file.getRefCount() + 1);
+                return place(root, upload, fileName);
+            });
+            return fileName;
+        } catch (IOException e) {
+            log.error("could not store {}", multipartFile.getOriginalFilename(), e);
+            return null;
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    @Override
+    public void retain(String directory, String fileName) {
+        if (!isContentName(fileName)) {
+            return;
+        }
+        Boolean retained = transactionTemplate.execute(status -> mediaFileRepository
+                .findForUpdate(root(directory).toString(), fileName)
+                .map(file -> {
+                    file.setRefCount(file.getRefCount() + 1);
+                    return true;
+                })
+                .orElse(false));
+        if (!Boolean.TRUE.equals(retained)) {
+            log.warn("{} is not a stored file and cannot be retained", fileName);
+        }
+    }
+
+    @Override
+    public void release(String directory, String fileName) {
+        if (!isContentName(fileName)) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    releaseNow(directory, fileName);
+                }
+            });
+        } else {
+            releaseNow(directory, fileName);
+        }
+    }
+
+    @Override
+    public void releaseUserMedia(int userId) {
+        userRepository.findById(userId).ifPresent(user -> {
+            release(userProfilePicPath, user.getProfilePicture());
+            release(userBgProfilePicPath, user.getProfileBackgroundPic());
+        });
+        for (UserImage userImage : userImageRepository.findByUserId(userId)) {
+            release(userProfilePicPath, userImage.getImageName());
+        }
+        for (Post post : postRepository.findByUserId(userId)) {
+            release(postImageUploadPath, post.getImgName());
+            release(postVideoUploadPath, post.getMusicFileName());
+        }
+    }
+
+    @Override
+    public MediaMigrationResultDto migrateLegacyFiles() {
+        if (!migrating.compareAndSet(false, true)) {
+            log.info("media migration is already running");
+            return new MediaMigrationResultDto();
+        }
+        return migrateClaimed();
+    }
+
+    @Override
+    public boolean startMigration() {
+        if (!migrating.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            migrationRunner.execute(this::migrateClaimed);
+            return true;
+        } catch (RejectedExecutionException e) {
+            migrating.set(false);
+            throw e;
+        }
+    }
+
+    @Override
+    public MediaMigrationResultDto migrationProgress() {
+        MediaMigrationResultDto result = lastMigration;
+        return MediaMigrationResultDto.builder()
+                .running(migrating.get())
+                .files(result.getFiles())
+                .deduplicatedFiles(result.getDeduplicatedFiles())
+                .missingFiles(result.getMissingFiles())
+                .references(result.getReferences())
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        migrationRunner.shutdownNow();
+    }
+
+    private MediaMigrationResultDto migrateClaimed() {
+        MediaMigrationResultDto result = new MediaMigrationResultDto();
+        lastMigration = result;
+        try {
+            long start = System.currentTimeMillis();
+            Map<Path, String> migrated = new HashMap<>();
+            migrateColumn("post", "img_name", postImageUploadPath, migrated, result);
+            migrateColumn("post", "music_file_name", postVideoUploadPath, migrated, result);
+            migrateColumn("user", "profile_pic", userProfilePicPath, migrated, result);
+            migrateColumn("user", "profile_bg_pic", userBgProfilePicPath, migrated, result);
+            migrateColumn("user_image", "image_name", userProfilePicPath, migrated, result);
+            for (Path legacy : migrated.keySet()) {
+                deleteQuietly(legacy);
+            }
+            log.info("migrated {} media files ({} duplicates) and {} references in {} ms, {} files were missing",
+                    result.getFiles(), result.getDeduplicatedFiles(), result.getReferences(),
+                    System.currentTimeMillis() - start, result.getMissingFiles());
+            return result;
+        } catch (RuntimeException e) {
+            log.error("media migration failed", e);
+            throw e;
+        } finally {
+            migrating.set(false);
+        }
+    }
+
+    @Override
+    public boolean isMigrating() {
+        return migrating.get();
+    }
+
+    private void migrateColumn(String table, String column, String directory, Map<Path, String> migrated,
+                               MediaMigrationResultDto result) {
+        String select = "select distinct " + column + " from " + table + " where " + column + " > ? and "
+                + column + " not like '%/%' order by " + column + " limit " + MIGRATION_CHUNK_SIZE;
+        String update = "update " + table + " set " + column + " = ? where " + column + " = ?";
+        Path root = root(directory);
+        String after = "";
+        List<String> names;
+        do {
+            names = jdbcTemplate.queryForList(select, String.class, after);
+            for (String name : names) {
+                after = name;
+                Path legacy = root.resolve(name).normalize();
+                if (!legacy.startsWith(root) || !Files.isRegularFile(legacy)) {
+                    result.setMissingFiles(result.getMissingFiles() + 1);
+                    continue;
+                }
+                try {
+                    String known = migrated.get(legacy);
+                    Path temp = null;
+                    try {
+                        String fileName = known;
+                        if (fileName == null) {
+                            MessageDigest digest = sha256();
+                            try (InputStream in = Files.newInputStream(legacy)) {
+                                temp = receive(in, root, digest);
+                            }
+                            fileName = contentName(digest.digest(), extension(name));
+                        }
+                        Path copy = temp;
+                        String target = fileName;
+                        boolean[] placed = new boolean[1];
+                        int references = changeLocked(root, fileName, Files.size(legacy), file -> {
+                            if (copy != null) {
+                                placed[0] = place(root, copy, target);
+                            }
+                            int count = jdbcTemplate.update(update, target, name);
+                            file.setRefCount(file.getRefCount() + count);
+                            return count;
+                        });
+                        if (known == null) {
+                            if (!placed[0]) {
+                                result.setDeduplicatedFiles(result.getDeduplicatedFiles() + 1);
+                            }
+                            thumbnailService.move(directory, name, fileName);
+                            result.setFiles(result.getFiles() + 1);
+                            migrated.put(legacy, fileName);
+                        }
+                        result.setReferences(result.getReferences() + references);
+                    } finally {
+                        deleteQuietly(temp);
+                    }
+                } catch (IOException e) {
+                    log.error("could not migrate {}", legacy, e);
+                }
+            }
+        } while (names.size() == MIGRATION_CHUNK_SIZE);
+    }
+
+    private void releaseNow(String directory, String fileName) {
+        Path root = root(directory);
+        transactionTemplate.executeWithoutResult(status -> mediaFileRepository
+                .findForUpdate(root.toString(), fileName)
+                .filter(file -> file.getRefCount() > 0)
+                .ifPresent(file -> {
+                    file.setRefCount(file.getRefCount() - 1);
+                    if (file.getRefCount() == 0) {
+                        mediaFileRepository.delete(file);
+                        discard(root, fileName);
+                    }
+                }));
+    }
+
+    /**
+     * Applies the change to the media_file row of the file in a transaction holding the row lock, inserting the row
+     * with no references first if there is none. The row is looked up again when a release deletes it in between.
+     */
+    private <T> T changeLocked(Path root, String fileName, long size, RowChange<T> change) throws IOException {
+        String directory = root.toString();
+        for (int attempt = 0; attempt < LOCK_ATTEMPTS; attempt++) {
+            insertIfAbsent(directory, fileName, size);
+            try {
+                Optional<T> result = transactionTemplate.execute(status -> mediaFileRepository
+                        .findForUpdate(directory, fileName)
+                        .map(file -> {
+                            try {
+                                return change.apply(file);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }));
+                if (result != null && result.isPresent()) {
+                    return result.get();
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        throw new IOException("the media_file row of " + fileName + " kept disappearing");
+    }
+
+    private void insertIfAbsent(String directory, String fileName, long size) {
+        if (mediaFileRepository.existsByDirectoryAndFileName(directory, fileName)) {
+            return;
+        }
+        try {
+            mediaFileRepository.saveAndFlush(MediaFile.builder()
+                    .directory(directory)
+                    .fileName(fileName)
+                    .fileSize(size)
+                    .refCount(0)
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            // another instance inserted the row first
+        }
+    }
+
+    /**
+     * Moves the temporary file to its name unless the file is already stored. Must be called with the row lock of the
+     * file held. Returns whether the file was moved.
+     */
+    private static boolean place(Path root, Path temp, String fileName) throws IOException {
+        Path target = root.resolve(fileName);
+        if (Files.isRegularFile(target)) {
+            return false;
+        }
+        Files.createDirectories(target.getParent());
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        return true;
+    }
+
+    /**
+     * Deletes the thumbnails of a file whose last reference was released and moves the file aside, so that it is
+     * deleted when the transaction holding its row lock commits and put back when it rolls back. Must be called with
+     * the row lock of the file held.
+     */
+    private void discard(Path root, String fileName) {
+        thumbnailService.remove(root.toString(), fileName);
+        Path target = root.resolve(fileName);
+        Path tombstone = target.resolveSibling(target.getFileName() + "." + UUID.randomUUID() + ".deleted");
+        try {
+            Files.move(target, tombstone, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException e) {
+            log.warn("could not delete {}", fileName, e);
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            deleteQuietly(tombstone);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    deleteQuietly(tombstone);
+                } else {
+                    restore(tombstone, target);
+                }
+            }
+        });
+    }
+
+    private static void restore(Path tombstone, Path target) {
+        try {
+            if (!Files.exists(target)) {
+                Files.move(tombstone, target, StandardCopyOption.ATOMIC_MOVE);
+                return;
+            }
+        } catch (IOException e) {
+            log.warn("could not restore {}", target, e);
+        }
+        deleteQuietly(tombstone);
+    }
+
+    private static Path receive(InputStream in, Path root, MessageDigest digest) throws IOException {
+        Files.createDirectories(root);
+        Path temp = Files.createTempFile(root, "upload", ".tmp");
+        try (InputStream hashing = new DigestInputStream(in, digest)) {
+            Files.copy(hashing, temp, StandardCopyOption.REPLACE_EXISTING);
+            return temp;
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw e;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("could not delete {}", file, e);
+        }
+    }
+
+    private static Path root(String directory) {
+        return Path.of(directory).toAbsolutePath().normalize();
+    }
+
+    private static boolean isContentName(String fileName) {
+        return fileName != null && fileName.indexOf('/') > 0;
+    }
+
+    private static String contentName(byte[] hash, String extension) {
+        String hex = HexFormat.of().formatHex(hash);
+        return hex.substring(0, 2) + "/" + hex.substring(2, 4) + "/" + hex + "." + extension;
+    }
+
+    private static String extension(String fileName) {
+        if (fileName == null) {
+            return "";
+        }
+        return fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowChange<T> {
+        T apply(MediaFile file) throws IOException;
+    }
+}
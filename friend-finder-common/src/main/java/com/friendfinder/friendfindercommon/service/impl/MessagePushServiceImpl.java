@@ -0,0 +1,235 @@
+package com.friendfinder.friendfindercommon.service.impl;
+
+import com.friendfinder.friendfindercommon.dto.chatDto.MessageResponseDto;
+import com.friendfinder.friendfindercommon.service.MessagePushService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * MessagePushServiceImpl delivers new chat messages to the browsers and clients of both participants over
+ * Server-Sent Events, so a sent message shows up without reloading the messages page.
+ * </p>
+ *
+ * <p>Fields:</p>
+ * <ul>
+ *     <li>connections: The open event streams of every connected user. A user can have several, one per tab or
+ *     device.</li>
+ *     <li>senders: A small thread pool that writes queued events to the streams, so a slow client never blocks the
+ *     thread that saved the message.</li>
+ *     <li>timeoutMillis, bufferSize: The lifetime of a stream ({@code chat.push.timeout-ms}) and the number of events
+ *     that may wait for one stream ({@code chat.push.buffer-size}).</li>
+ * </ul>
+ *
+ * <p>Methods:</p>
+ * <ul>
+ *     <li>subscribe(userId): Opens a new event stream for the authenticated user. The stream is removed when it
+ *     completes, times out or fails.</li>
+ *     <li>publish(message): Sends the message to the receiver and the sender as a "message" event. When called inside
+ *     a transaction the events are sent only after it commits, so clients never see a message that was rolled
+ *     back.</li>
+ *     <li>heartbeat(): Sends a comment line to every stream every {@code chat.push.heartbeat-ms}, so idle streams are
+ *     not cut by proxies and dead ones are detected.</li>
+ * </ul>
+ *
+ * <p>Usage:</p>
+ * <p>
+ * MessageServiceImpl publishes every saved message. The chat endpoint of friend-finder-rest and the chat controller
+ * of friend-finder-web expose subscribe() behind their usual authentication (JWT and session respectively). Every
+ * stream has a bounded queue; when a client falls behind by more than {@code chat.push.buffer-size} events its
+ * stream is closed instead of buffering without limit, and the client reconnects and reloads the recent history.
+ * </p>
+ */
+@Service
+@Slf4j
+public class MessagePushServiceImpl implements MessagePushService {
+
+    private final ConcurrentHashMap<Integer, Set<Connection>> connections = new ConcurrentHashMap<>();
+    private final ExecutorService senders;
+    private final long timeoutMillis;
+    private final int bufferSize;
+
+    private final LongAdder droppedConnections = new LongAdder();
+
+    public MessagePushServiceImpl(@Value("${chat.push.timeout-ms:1800000}") long timeoutMillis,
+                                  @Value("${chat.push.buffer-size:64}") int bufferSize,
+                                  @Value("${chat.push.sender-threads:4}") int senderThreads) {
+        if (bufferSize < 1 || senderThreads < 1) {
+            throw new IllegalArgumentException("chat.push.buffer-size and chat.push.sender-threads must be positive");
+        }
+        this.timeoutMillis = timeoutMillis;
+        this.bufferSize = bufferSize;
+        this.senders = Executors.newFixedThreadPool(senderThreads);
+    }
+
+    @Override
+    public SseEmitter subscribe(int userId) {
+        SseEmitter emitter = newEmitter(timeoutMillis);
+        Connection connection = new Connection(userId, emitter, bufferSize);
+        connections.compute(userId, (id, userConnections) -> {
+            if (userConnections == null) {
+                userConnections = ConcurrentHashMap.newKeySet();
+            }
+            userConnections.add(connection);
+            return userConnections;
+        });
+        emitter.onCompletion(() -> remove(connection));
+        emitter.onTimeout(() -> remove(connection));
+        emitter.onError(e -> remove(connection));
+        enqueue(connection, SseEmitter.event().comment("connected"));
+        return emitter;
+    }
+
+    @Override
+    public void publish(MessageResponseDto message) {
+        if (message == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    push(message);
+                }
+            });
+        } else {
+            push(message);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${chat.push.heartbeat-ms:25000}")
+    public void heartbeat() {
+        for (Set<Connection> userConnections : connections.values()) {
+            for (Connection connection : userConnections) {
+                enqueue(connection, SseEmitter.event().comment("ping"));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+        for (Set<Connection> userConnections : connections.values()) {
+            for (Connection connection : userConnections) {
+                connection.emitter.complete();
+            }
+        }
+        connections.clear();
+    }
+
+    @Override
+    public int getConnections() {
+        int count = 0;
+        for (Set<Connection> userConnections : connections.values()) {
+            count += userConnections.size();
+        }
+        return count;
+    }
+
+    @Override
+    public long getDroppedConnections() {
+        return droppedConnections.sum();
+    }
+
+    protected SseEmitter newEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    private void push(MessageResponseDto message) {
+        pushTo(message.getReceiverId(), message);
+        if (message.getSenderId() != message.getReceiverId()) {
+            pushTo(message.getSenderId(), message);
+        }
+    }
+
+    private void pushTo(int userId, MessageResponseDto message) {
+        Set<Connection> userConnections = connections.get(userId);
+        if (userConnections == null) {
+            return;
+        }
+        for (Connection connection : userConnections) {
+            enqueue(connection, SseEmitter.event()
+                    .id(String.valueOf(message.getId()))
+                    .name("message")
+                    .data(message, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    private void enqueue(Connection connection, SseEmitter.SseEventBuilder event) {
+        if (!connection.queue.offer(event)) {
+            log.warn("push buffer of user {} is full, closing the stream", connection.userId);
+            droppedConnections.increment();
+            remove(connection);
+            connection.emitter.complete();
+            return;
+        }
+        schedule(connection);
+    }
+
+    private void schedule(Connection connection) {
+        if (connection.sending.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(connection));
+            } catch (RejectedExecutionException e) {
+                connection.sending.set(false);
+            }
+        }
+    }
+
+    private void drain(Connection connection) {
+        SseEmitter.SseEventBuilder event;
+        try {
+            while ((event = connection.queue.poll()) != null) {
+                connection.emitter.send(event);
+            }
+        } catch (IOException | IllegalStateException e) {
+            // the client went away, the container completes the emitter
+            remove(connection);
+            return;
+        }
+        connection.sending.set(false);
+        // an event may have been queued after the last poll but before the flag was cleared
+        if (!connection.queue.isEmpty()) {
+            schedule(connection);
+        }
+    }
+
+    private void remove(Connection connection) {
+        connections.computeIfPresent(connection.userId, (id, userConnections) -> {
+            userConnections.remove(connection);
+            return userConnections.isEmpty() ? null : userConnections;
+        });
+    }
+
+    private static final class Connection {
+
+        private final int userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue;
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private Connection(int userId, SseEmitter emitter, int bufferSize) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.friendfinder.friendfindercommon.service.impl;
+
+import com.friendfinder.friendfindercommon.dto.chatDto.MessageSearchHitDto;
+import com.friendfinder.friendfindercommon.dto.chatDto.MessageSearchPageDto;
+import com.friendfinder.friendfindercommon.entity.Message;
+import com.friendfinder.friendfindercommon.repository.ChatRepository;
+import com.friendfinder.friendfindercommon.repository.MessageRepository;
+import com.friendfinder.friendfindercommon.service.MessageSearchService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * MessageSearchServiceImpl is the implementation of the MessageSearchService interface, which provides full-text
+ * search over the messages of the chats a user takes part in.
+ * </p>
+ *
+ * <p>Fields:</p>
+ * <ul>
+ *     <li>messageRepository: The MessageRepository used to run the FULLTEXT query and to load the messages into the
+ *     in-memory index.</li>
+ *     <li>chatRepository: The ChatRepository used to find the chats of the user when searching the in-memory
+ *     index.</li>
+ *     <li>jdbcTemplate: The JdbcTemplate used to find out which database the application runs on.</li>
+ *     <li>engine: The {@code chat.search.engine} property, one of fulltext, memory or auto (the default), which picks
+ *     fulltext on MySQL and memory on any other database.</li>
+ * </ul>
+ *
+ * <p>Methods:</p>
+ * <ul>
+ *     <li>search(userId, query, page, size): Retrieves one page of the messages of the user's chats that contain
+ *     every word of the query, newest first. Words match as prefixes and words shorter than three characters are
+ *     ignored, the same way the InnoDB FULLTEXT index treats them, so both engines return the same hits. Every
+ *     MessageSearchHitDto carries the chat id and a snippet of the message around the first matching word. The
+ *     returned MessageSearchPageDto carries the next page number, or null on the last page.</li>
+ *     <li>index(message): Adds a newly saved message to the in-memory index. InnoDB maintains the FULLTEXT index in
+ *     the inserting transaction, so this does nothing with the fulltext engine.</li>
+ * </ul>
+ *
+ * <p>Usage:</p>
+ * <p>
+ * On MySQL the search is a single MATCH ... AGAINST query in boolean mode over the message_content_ft index, joined
+ * to the chats of the user. Other databases, such as the H2 database of the integration tests, have no compatible
+ * full-text support, so the service keeps an inverted index of word to message ids in memory instead. It is loaded
+ * from the message table on the first search and kept up to date by MessageServiceImpl.save.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MessageSearchServiceImpl implements MessageSearchService {
+
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MIN_TERM_LENGTH = 3;
+    private static final int MAX_TERMS = 8;
+    private static final int MAX_PAGE_SIZE = 50;
+    private static final int SNIPPET_LENGTH = 120;
+    private static final int LOAD_CHUNK_SIZE = 1000;
+
+    private final MessageRepository messageRepository;
+    private final ChatRepository chatRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentSkipListMap<String, Set<Integer>> postings = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<Integer, IndexedMessage> documents = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    @Value("${chat.search.engine:auto}")
+    private String engine;
+
+    private boolean fullText;
+
+    @PostConstruct
+    public void init() {
+        fullText = switch (engine) {
+            case "fulltext" -> true;
+            case "memory" -> false;
+            case "auto" -> "MySQL".equalsIgnoreCase(jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+            default -> throw new IllegalArgumentException("chat.search.engine must be fulltext, memory or auto");
+        };
+        log.info("message search uses the {} engine", fullText ? "fulltext" : "memory");
+    }
+
+    @Override
+    public MessageSearchPageDto search(int userId, String query, int page, int size) {
+        List<String> terms = terms(query);
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int offset = Math.max(page, 0) * limit;
+        if (terms.isEmpty()) {
+            return MessageSearchPageDto.builder()
+                    .hits(Collections.emptyList())
+                    .build();
+        }
+        // one extra row tells whether a next page exists without a count query
+        List<MessageSearchHitDto> hits = fullText
+                ? searchFullText(userId, terms, limit + 1, offset)
+                : searchMemory(userId, terms, limit + 1, offset);
+        Integer nextPage = null;
+        if (hits.size() > limit) {
+            hits = hits.subList(0, limit);
+            nextPage = Math.max(page, 0) + 1;
+        }
+        return MessageSearchPageDto.builder()
+                .hits(hits)
+                .nextPage(nextPage)
+                .build();
+    }
+
+    @Override
+    public void index(Message message) {
+        if (fullText || message == null || message.getId() == 0 || message.getChat() == null) {
+            return;
+        }
+        add(message.getId(), message.getChat().getId(),
+                message.getSender() == null ? 0 : message.getSender().getId(),
+                message.getContent(), message.getSentAt());
+    }
+
+    private List<MessageSearchHitDto> searchFullText(int userId, List<String> terms, int limit, int offset) {
+        StringBuilder query = new StringBuilder();
+        for (String term : terms) {
+            query.append(query.isEmpty() ? "" : " ").append('+').append(term).append('*');
+        }
+        List<Object[]> rows = messageRepository.searchFullText(userId, query.toString(), limit, offset);
+        List<MessageSearchHitDto> hits = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            hits.add(hit(((Number) row[0]).intValue(), ((Number) row[1]).intValue(), ((Number) row[2]).intValue(),
+                    (String) row[3], toLocalDateTime(row[4]), terms));
+        }
+        return hits;
+    }
+
+    private List<MessageSearchHitDto> searchMemory(int userId, List<String> terms, int limit, int offset) {
+        load();
+        Set<Integer> chatIds = new HashSet<>(chatRepository.findIdsByUserId(userId));
+        if (chatIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<Integer> candidates = null;
+        for (String term : terms) {
+            Set<Integer> matches = new HashSet<>();
+            for (Set<Integer> ids : postings.subMap(term, term + Character.MAX_VALUE).values()) {
+                matches.addAll(ids);
+            }
+            if (candidates == null) {
+                candidates = matches;
+            } else {
+                candidates.retainAll(matches);
+            }
+            if (candidates.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+        List<IndexedMessage> found = new ArrayList<>();
+        for (Integer id : candidates) {
+            IndexedMessage message = documents.get(id);
+            if (message != null && chatIds.contains(message.chatId())) {
+                found.add(message);
+            }
+        }
+        found.sort(Comparator.comparingInt(IndexedMessage::id).reversed());
+        List<MessageSearchHitDto> hits = new ArrayList<>();
+        for (int i = offset; i < found.size() && hits.size() < limit; i++) {
+            IndexedMessage message = found.get(i);
+            hits.add(hit(message.id(), message.chatId(), message.senderId(), message.content(), message.sentAt(),
+                    terms));
+        }
+        return hits;
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            int after = 0;
+            List<Object[]> rows;
+            do {
+                rows = messageRepository.findIndexRowsAfter(after, PageRequest.of(0, LOAD_CHUNK_SIZE));
+                for (Object[] row : rows) {
+                    after = (Integer) row[0];
+                    add(after, (Integer) row[1], (Integer) row[2], (String) row[3], (LocalDateTime) row[4]);
+                }
+            } while (rows.size() == LOAD_CHUNK_SIZE);
+            loaded = true;
+            log.info("loaded {} messages into the in-memory search index", documents.size());
+        }
+    }
+
+    private void add(int id, int chatId, int senderId, String content, LocalDateTime sentAt) {
+        if (content == null) {
+            return;
+        }
+        documents.put(id, new IndexedMessage(id, chatId, senderId, content, sentAt));
+        for (String word : WORD_SEPARATOR.split(content.toLowerCase(Locale.ROOT))) {
+            if (word.length() >= MIN_TERM_LENGTH) {
+                postings.computeIfAbsent(word, w -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+    }
+
+    private static List<String> terms(String query) {
+        if (query == null) {
+            return Collections.emptyList();
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        for (String word : WORD_SEPARATOR.split(query.toLowerCase(Locale.ROOT))) {
+            if (word.length() >= MIN_TERM_LENGTH && terms.size() < MAX_TERMS) {
+                terms.add(word);
+            }
+        }
+        return new ArrayList<>(terms);
+    }
+
+    private static MessageSearchHitDto hit(int id, int chatId, int senderId, String content, LocalDateTime sentAt,
+                                           List<String> terms) {
+        return MessageSearchHitDto.builder()
+                .messageId(id)
+                .chatId(chatId)
+                .senderId(senderId)
+                .snippet(snippet(content, terms))
+                .sentAt(sentAt)
+                .build();
+    }
+
+    private static String snippet(String content, List<String> terms) {
+        if (content == null || content.length() <= SNIPPET_LENGTH) {
+            return content;
+        }
+        String lower = content.toLowerCase(Locale.ROOT);
+        int match = -1;
+        for (String term : terms) {
+            int index = lower.indexOf(term);
+            if (index >= 0 && (match < 0 || index < match)) {
+                match = index;
+            }
+        }
+        int start = Math.max(0, Math.min(match - SNIPPET_LENGTH / 4, content.length() - SNIPPET_LENGTH));
+        int end = start + SNIPPET_LENGTH;
+        return (start > 0 ? "…" : "") + content.substring(start, end).strip() + (end < content.length() ? "…" : "");
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+
+    private record IndexedMessage(int id, int chatId, int senderId, String content, LocalDateTime sentAt) {
+    }
+}
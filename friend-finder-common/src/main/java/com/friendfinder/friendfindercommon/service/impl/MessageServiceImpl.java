@@ -1,17 +1,26 @@
 package com.friendfinder.friendfindercommon.service.impl;
 
+import com.friendfinder.friendfindercommon.cache.MessageWriter;
+import com.friendfinder.friendfindercommon.dto.chatDto.MessagePageResponseDto;
+import com.friendfinder.friendfindercommon.dto.chatDto.MessageResponseDto;
 import com.friendfinder.friendfindercommon.dto.chatDto.SendMessageDto;
 import com.friendfinder.friendfindercommon.entity.Chat;
 import com.friendfinder.friendfindercommon.entity.Message;
 import com.friendfinder.friendfindercommon.entity.User;
+import com.friendfinder.friendfindercommon.mapper.MessageMapper;
 import com.friendfinder.friendfindercommon.repository.MessageRepository;
 import com.friendfinder.friendfindercommon.service.ChatService;
+import com.friendfinder.friendfindercommon.service.MessagePushService;
+import com.friendfinder.friendfindercommon.service.MessageSearchService;
 import com.friendfinder.friendfindercommon.service.MessageService;
-import com.friendfinder.friendfindercommon.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -22,16 +31,33 @@ import java.util.Optional;
  * <p>Fields:</p>
  * <ul>
  *     <li>messageRepository: The MessageRepository interface used to access and save message-related data to the database.</li>
- *     <li>userService: The UserService interface used to access and retrieve user-related data from the database.</li>
  *     <li>chatService: The ChatService interface used to access and retrieve chat-related data from the database.</li>
+ *     <li>messageMapper: The MessageMapper used to map Message entities to MessageResponseDto objects.</li>
+ *     <li>messagePushService: The MessagePushService used to push saved messages to the participants of the chat.</li>
+ *     <li>messageWriter: The MessageWriter that inserts messages, one by one or in group-committed batches.</li>
+ *     <li>messageSearchService: The MessageSearchService whose index is kept up to date with the saved messages.</li>
  * </ul>
  *
  * <p>Methods:</p>
  * <ul>
  *     <li>save(sendMessageDto, currentUser): Saves a chat message to the database based on the information provided in the
- *     SendMessageDto object. The method validates the input data, checks if the receiver user and chat exist in the database,
- *     and then saves the message with the sender, receiver, chat, content, and timestamp.</li>
- *     <li>save(message): Saves a message object to the database using the messageRepository.</li>
+ *     SendMessageDto object. The method validates the input data, checks that the chat exists and that the current user
+ *     takes part in it, and then saves the message with the sender, the other participant of the chat as the receiver,
+ *     chat, content, and timestamp. The receiver id of the request is not trusted, so a user can neither write into
+ *     another pair's chat nor push messages to or raise the unread count of an arbitrary user.</li>
+ *     <li>save(message): Saves a message object to the database using the messageRepository. The caller is responsible
+ *     for the sender and receiver being the participants of the chat.
+ *     Both save methods write through the messageWriter, which also stores the snippet and time of the message on its
+ *     chat in the same transaction, so the conversation list can be read without touching the message table. Once
+ *     the message is committed it is added to the search index and pushed to both participants.</li>
+ *     <li>messagesBefore(chatId, currentUser, before, limit): Retrieves a page of the history of a chat for one of its
+ *     two participants. It returns null if the chat does not exist or the user does not take part in it. Reading the
+ *     most recent page marks the chat as read by the user.</li>
+ *     <li>messagesBefore(chatId, before, limit): Retrieves up to limit messages of the chat with an id lower than the
+ *     before cursor (the most recent messages when it is null). The messages are read newest first with a range scan
+ *     of the (chat_id, id) index and returned oldest first, so that a page can be prepended to the history already
+ *     shown. The returned MessagePageResponseDto carries the cursor for the next older page, or null when there are no
+ *     older messages.</li>
  * </ul>
  *
  * <p>Usage:</p>
@@ -48,27 +74,30 @@ import java.util.Optional;
 @Service
 @RequiredArgsConstructor
 public class MessageServiceImpl implements MessageService {
+
+    private static final int MAX_PAGE_LIMIT = 50;
+
     private final MessageRepository messageRepository;
-    private final UserService userService;
     private final ChatService chatService;
+    private final MessageMapper messageMapper;
+    private final MessagePushService messagePushService;
+    private final MessageWriter messageWriter;
+    private final MessageSearchService messageSearchService;
 
     @Override
     public boolean save(SendMessageDto sendMessageDto, User currentUser) {
         if (sendMessageDto == null || currentUser == null) return false;
 
-        Optional<User> userById = userService.findUserById(sendMessageDto.getReceiverId());
-        if (userById.isEmpty()) {
-            return false;
-        }
-
         Optional<Chat> chatById = chatService.findById(sendMessageDto.getChatId());
-        if (chatById.isEmpty()) {
+        if (chatById.isEmpty() || !isParticipant(chatById.get(), currentUser)) {
             return false;
         }
+        Chat chat = chatById.get();
 
-        messageRepository.save(Message.builder()
-                .receiver(userById.get())
-                .chat(chatById.get())
+        // the receiver is the other participant of the chat, whatever receiver id the request carries
+        save(Message.builder()
+                .receiver(isCurrentUser(chat, currentUser) ? chat.getAnotherUser() : chat.getCurrentUser())
+                .chat(chat)
                 .sender(currentUser)
                 .content(sendMessageDto.getContent())
                 .sentAt(LocalDateTime.now())
@@ -78,6 +107,50 @@ public class MessageServiceImpl implements MessageService {
 
     @Override
     public void save(Message message) {
-        messageRepository.save(message);
+        messageWriter.write(message);
+        messageSearchService.index(message);
+        messagePushService.publish(messageMapper.mapToDto(message));
+    }
+
+    @Override
+    public MessagePageResponseDto messagesBefore(int chatId, User currentUser, Integer before, int limit) {
+        Optional<Chat> chatById = chatService.findById(chatId);
+        if (chatById.isEmpty() || !isParticipant(chatById.get(), currentUser)) {
+            return null;
+        }
+        MessagePageResponseDto page = messagesBefore(chatId, before, limit);
+        List<MessageResponseDto> messages = page.getMessages();
+        if (before == null && !messages.isEmpty()) {
+            chatService.markRead(chatId, currentUser.getId(), messages.get(messages.size() - 1).getId());
+        }
+        return page;
+    }
+
+    @Override
+    public MessagePageResponseDto messagesBefore(int chatId, Integer before, int limit) {
+        int cursor = before == null ? Integer.MAX_VALUE : before;
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_LIMIT));
+        // one extra row tells whether an older page exists without a count query
+        List<Message> messages = messageRepository.findByChatIdBefore(chatId, cursor, PageRequest.of(0, size + 1));
+        Integer nextCursor = null;
+        if (messages.size() > size) {
+            messages = messages.subList(0, size);
+            nextCursor = messages.get(size - 1).getId();
+        }
+        messages = new ArrayList<>(messages);
+        Collections.reverse(messages);
+        return MessagePageResponseDto.builder()
+                .messages(messageMapper.mapToDtos(messages))
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private boolean isParticipant(Chat chat, User user) {
+        return isCurrentUser(chat, user)
+                || (chat.getAnotherUser() != null && chat.getAnotherUser().getId() == user.getId());
+    }
+
+    private boolean isCurrentUser(Chat chat, User user) {
+        return chat.getCurrentUser() != null && chat.getCurrentUser().getId() == user.getId();
     }
 }
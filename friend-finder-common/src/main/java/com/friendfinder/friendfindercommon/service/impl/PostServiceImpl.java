@@ -1,17 +1,20 @@
 package com.friendfinder.friendfindercommon.service.impl;
 
+import com.friendfinder.friendfindercommon.dto.postDto.PostFeedResponseDto;
 import com.friendfinder.friendfindercommon.dto.postDto.PostRequestDto;
-import com.friendfinder.friendfindercommon.dto.postDto.PostResponseDto;
 import com.friendfinder.friendfindercommon.entity.Post;
 import com.friendfinder.friendfindercommon.entity.User;
+import com.friendfinder.friendfindercommon.entity.types.FriendStatus;
+import com.friendfinder.friendfindercommon.entity.types.MediaKind;
 import com.friendfinder.friendfindercommon.mapper.PostMapper;
 import com.friendfinder.friendfindercommon.repository.PostRepository;
 import com.friendfinder.friendfindercommon.repository.UserRepository;
 import com.friendfinder.friendfindercommon.security.CurrentUser;
-import com.friendfinder.friendfindercommon.service.FriendRequestService;
+import com.friendfinder.friendfindercommon.service.FeedInboxService;
+import com.friendfinder.friendfindercommon.service.MediaStorageService;
 import com.friendfinder.friendfindercommon.service.PostService;
+import com.friendfinder.friendfindercommon.service.ThumbnailService;
 import com.friendfinder.friendfindercommon.service.UserActivityService;
-import com.friendfinder.friendfindercommon.util.ImageUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
@@ -32,30 +35,40 @@ import java.util.*;
  * <ul>
  *     <li>postRepository: The PostRepository interface used to access and save post-related data to the database.</li>
  *     <li>userRepository: The UserRepository interface used to access and retrieve user-related data from the database.</li>
- *     <li>friendRequestService: The FriendRequestService interface used to manage friend requests and retrieve friends of a user.</li>
  *     <li>postMapper: The PostMapper interface used for mapping between post-related DTOs and entities.</li>
  *     <li>userActivityService: The UserActivityService interface used to manage and save user activity data.</li>
+ *     <li>feedInboxService: The FeedInboxService interface used to deliver new posts to the friends' feed inboxes and
+ *     to read the cursor feed from them.</li>
+ *     <li>thumbnailService: The ThumbnailService that generates the downscaled variants of the uploaded images.</li>
+ *     <li>mediaStorageService: The MediaStorageService that stores the uploaded images and videos by their content and
+ *     counts the posts referencing them.</li>
  * </ul>
  *
  * <p>Methods:</p>
  * <ul>
  *     <li>postFindPage(pageNumber, currentUser): Retrieves a page of posts from friends of the current user.
- *     It fetches the posts from users who are friends of the current user based on the pageNumber and currentUser information.
- *     The method returns a Page object containing the post data.</li>
+ *     A single query joins the accepted friendships of the current user to their posts, fetching the authors eagerly,
+ *     so the cost of a page does not grow with the number of friends. The method returns a Page object containing the post data.</li>
+ *     <li>postFeedBefore(before, limit, currentUser): Retrieves up to limit posts from friends of the current user with an
+ *     id lower than the before cursor (the newest posts when it is null). The posts are read from the user's feed inbox
+ *     with a range scan instead of an OFFSET scan and no count query is issued. The returned PostFeedResponseDto carries the cursor for
+ *     the next call, or null when there are no older posts.</li>
  *     <li>postFindPageVideo(pageNumber, currentUser): Retrieves a page of video posts from friends of the current user.
- *     Similar to postFindPage(), this method fetches video posts specifically and returns a Page object containing the post data.</li>
+ *     Similar to postFindPage(), this method filters the friends' posts by their media kind and returns a Page object containing the post data.</li>
  *     <li>postFindPageImage(pageNumber, currentUser): Retrieves a page of image posts from friends of the current user.
- *     Similar to postFindPage(), this method fetches image posts specifically and returns a Page object containing the post data.</li>
+ *     Similar to postFindPage(), this method filters the friends' posts by their media kind and returns a Page object containing the post data.</li>
  *     <li>postPageByUserId(userId, pageNumber): Retrieves a page of posts by a specific user.
  *     It fetches the posts made by the user with the given userId based on the pageNumber and returns a Page object containing the post data.</li>
  *     <li>postSave(requestDto, currentUser, image, video): Saves a new post to the database based on the information provided in the PostRequestDto object.
- *     The method validates the input data, uploads images and videos to the server, and then saves the post with the current timestamp and user information.</li>
- *     <li>getAllPostFriends(userId): Retrieves a list of posts made by friends of the user with the given userId.
- *     The method fetches the posts made by all friends of the user and returns a list of PostResponseDto objects containing the post data.</li>
+ *     The method validates the input data, uploads images and videos to the server, and then saves the post with the current timestamp, user information and
+ *     the media kind derived from the uploaded files.
+ *     The saved post is then fanned out to the friends' feed inboxes in the background, and the thumbnails of the image
+ *     are generated in the background as well. When the post cannot be saved, the stored files are released again.</li>
  *     <li>findAll(): Retrieves a list of all posts available in the database and returns it.</li>
  *     <li>postUserById(id): Retrieves a list of posts made by a user with the given id.
  *     The method fetches the posts made by the user with the given id and returns a list of Post objects containing the post data.</li>
- *     <li>deletePostId(id): Deletes a post with the given id from the database if it exists.</li>
+ *     <li>deletePostId(id): Deletes a post with the given id, together with its feed inbox entries, from the database if it exists,
+ *     and releases its image and video.</li>
  * </ul>
  *
  * <p>Usage:</p>
@@ -71,11 +84,17 @@ import java.util.*;
 @RequiredArgsConstructor
 public class PostServiceImpl implements PostService {
 
+    private static final int MAX_FEED_LIMIT = 50;
+    private static final List<MediaKind> IMAGE_KINDS = List.of(MediaKind.IMAGE, MediaKind.IMAGE_VIDEO);
+    private static final List<MediaKind> VIDEO_KINDS = List.of(MediaKind.VIDEO, MediaKind.IMAGE_VIDEO);
+
     private final PostRepository postRepository;
     private final UserRepository userRepository;
-    private final FriendRequestService friendRequestService;
     private final PostMapper postMapper;
     private final UserActivityService userActivityService;
+    private final FeedInboxService feedInboxService;
+    private final ThumbnailService thumbnailService;
+    private final MediaStorageService mediaStorageService;
 
     @Value("${post.upload.image.path}")
     private String postImageUploadPath;
@@ -85,41 +104,45 @@ public class PostServiceImpl implements PostService {
 
     @Override
     public Page<Post> postFindPage(int pageNumber, CurrentUser currentUser) {
-        List<PostResponseDto> allPostFriends = getAllPostFriends(currentUser.getUser().getId());
-        List<Integer> friendIds = new ArrayList<>();
-        for (PostResponseDto post : allPostFriends) {
-            friendIds.add(post.getUser().getId());
-        }
         Sort sort = Sort.by(Sort.Order.desc("id"));
         Pageable pageable = PageRequest.of(pageNumber - 1, 5, sort);
 
-        return postRepository.findByUserIdIn(friendIds, pageable);
+        return postRepository.findFriendsPostsByUserIdAndStatus(currentUser.getUser().getId(), FriendStatus.ACCEPTED, pageable);
     }
 
     @Override
-    public Page<Post> postFindPageVideo(int pageNumber, CurrentUser currentUser) {
-        List<PostResponseDto> allPostFriends = getAllPostFriends(currentUser.getUser().getId());
-        List<String> videos = new ArrayList<>();
-        for (PostResponseDto post : allPostFriends) {
-            videos.add(post.getMusicFileName());
+    public PostFeedResponseDto postFeedBefore(Integer before, int limit, CurrentUser currentUser) {
+        int cursor = before == null ? Integer.MAX_VALUE : before;
+        int size = Math.max(1, Math.min(limit, MAX_FEED_LIMIT));
+        // one extra row tells whether an older page exists without a count query
+        List<Post> posts = feedInboxService.feedBefore(currentUser.getUser().getId(), cursor, size + 1);
+        Integer nextCursor = null;
+        if (posts.size() > size) {
+            posts = posts.subList(0, size);
+            nextCursor = posts.get(size - 1).getId();
         }
-        Sort sort = Sort.by(Sort.Order.desc("id"));
-        Pageable pageable = PageRequest.of(pageNumber - 1, 10, sort);
+        return PostFeedResponseDto.builder()
+                .posts(posts)
+                .nextCursor(nextCursor)
+                .build();
+    }
 
-        return postRepository.findPostsByMusicFileNameIn(videos, pageable);
+    @Override
+    public Page<Post> postFindPageVideo(int pageNumber, CurrentUser currentUser) {
+        return findFriendsPostsByMediaKind(pageNumber, currentUser, VIDEO_KINDS);
     }
 
     @Override
     public Page<Post> postFindPageImage(int pageNumber, CurrentUser currentUser) {
-        List<PostResponseDto> allPostFriends = getAllPostFriends(currentUser.getUser().getId());
-        List<String> images = new ArrayList<>();
-        for (PostResponseDto post : allPostFriends) {
-            images.add(post.getImgName());
-        }
+        return findFriendsPostsByMediaKind(pageNumber, currentUser, IMAGE_KINDS);
+    }
+
+    private Page<Post> findFriendsPostsByMediaKind(int pageNumber, CurrentUser currentUser, List<MediaKind> mediaKinds) {
         Sort sort = Sort.by(Sort.Order.desc("id"));
         Pageable pageable = PageRequest.of(pageNumber - 1, 10, sort);
 
-        return postRepository.findPostsByImgNameIn(images, pageable);
+        return postRepository.findFriendsPostsByUserIdAndStatusAndMediaKindIn(currentUser.getUser().getId(),
+                FriendStatus.ACCEPTED, mediaKinds, pageable);
     }
 
     @Override
@@ -136,37 +159,33 @@ public class PostServiceImpl implements PostService {
 
     @Override
     public Post postSave(PostRequestDto requestDto, CurrentUser currentUser, MultipartFile image, MultipartFile video) {
-        String imgName = ImageUtil.uploadImage(image, postImageUploadPath);
-        String musicFileName = ImageUtil.uploadImage(video, postVideoUploadPath);
-        Post post = postMapper.map(PostRequestDto.builder()
-                .imgName(imgName)
-                .musicFileName(musicFileName)
-                .postDatetime(new Date())
-                .description(requestDto.getDescription())
-                .user(currentUser.getUser())
-                .build());
-        if (imgName != null) {
-            userActivityService.save(currentUser.getUser(), "posted a photo");
-        } else {
-            userActivityService.save(currentUser.getUser(), "posted a video");
-        }
-        return postRepository.save(post);
-    }
-
-    @Override
-    public List<PostResponseDto> getAllPostFriends(int userId) {
-        List<User> friendsByUserId = friendRequestService.findFriendsByUserId(userId);
-        List<Integer> friendsIds = friendsByUserId
-                .stream()
-                .map(User::getId)
-                .toList();
-
-        List<PostResponseDto> postList = new ArrayList<>();
-        for (Integer friendsId : friendsIds) {
-            postList.addAll(postMapper.mapResp(postRepository.findByUserId(friendsId)));
+        String imgName = mediaStorageService.store(image, postImageUploadPath);
+        String musicFileName = null;
+        Post savedPost;
+        try {
+            musicFileName = mediaStorageService.store(video, postVideoUploadPath);
+            thumbnailService.enqueue(postImageUploadPath, imgName);
+            Post post = postMapper.map(PostRequestDto.builder()
+                    .imgName(imgName)
+                    .musicFileName(musicFileName)
+                    .mediaKind(MediaKind.of(imgName, musicFileName))
+                    .postDatetime(new Date())
+                    .description(requestDto.getDescription())
+                    .user(currentUser.getUser())
+                    .build());
+            if (imgName != null) {
+                userActivityService.save(currentUser.getUser(), "posted a photo");
+            } else {
+                userActivityService.save(currentUser.getUser(), "posted a video");
+            }
+            savedPost = postRepository.save(post);
+        } catch (RuntimeException e) {
+            mediaStorageService.release(postImageUploadPath, imgName);
+            mediaStorageService.release(postVideoUploadPath, musicFileName);
+            throw e;
         }
-
-        return postList;
+        feedInboxService.fanOut(savedPost);
+        return savedPost;
     }
 
     @Override
@@ -190,7 +209,10 @@ public class PostServiceImpl implements PostService {
         Optional<Post> byId = postRepository.findById(id);
         if (byId.isPresent()) {
             Post post = byId.get();
+            feedInboxService.removePost(post.getId());
             postRepository.deleteById(post.getId());
+            mediaStorageService.release(postImageUploadPath, post.getImgName());
+            mediaStorageService.release(postVideoUploadPath, post.getMusicFileName());
         }
         return null;
     }
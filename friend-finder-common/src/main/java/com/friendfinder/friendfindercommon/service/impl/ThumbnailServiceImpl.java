@@ -0,0 +1,274 @@
+package com.friendfinder.friendfindercommon.service.impl;
+
+import com.friendfinder.friendfindercommon.service.ThumbnailService;
+import com.friendfinder.friendfindercommon.util.ImageUtil;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * ThumbnailServiceImpl is the implementation of the ThumbnailService interface, which produces downscaled variants of
+ * uploaded images so that pages showing small tiles do not have to load the originals.
+ * </p>
+ *
+ * <p>Fields:</p>
+ * <ul>
+ *     <li>widths: The {@code media.thumbnail.widths} property, the widths in pixels of the variants (160, 480 and 1080
+ *     by default).</li>
+ *     <li>workers: A pool of {@code media.thumbnail.threads} threads with a queue of at most
+ *     {@code media.thumbnail.queue-capacity} images waiting to be processed.</li>
+ *     <li>pending: The originals whose variants are queued or being generated by this application, so that an image
+ *     is not queued twice.</li>
+ *     <li>skipped: The originals that were processed without getting a variant, because they are not wider than the
+ *     smallest width, cannot be read or their generation failed, so that they are not queued again on every
+ *     request.</li>
+ * </ul>
+ *
+ * <p>Methods:</p>
+ * <ul>
+ *     <li>enqueue(directory, fileName): Schedules the generation of the variants of an uploaded image. If the queue is
+ *     full the image is skipped and queued again by the next request for a smaller size.</li>
+ *     <li>variant(directory, fileName, size): Returns the smallest existing variant that is at least size pixels wide,
+ *     or the original if there is none yet, the image is not wider than the requested size or no size is given. It
+ *     returns null if the original does not exist. When a size is asked for and the smallest variant is missing, the
+ *     original is queued, so images uploaded before the thumbnails existed, skipped by a full queue or served by the
+ *     other application than the one they were uploaded to get their variants on their first request. The original
+ *     is then returned as a stand-in, unless the image is known to get no variant.</li>
+ *     <li>isPending(resource): Tells whether the resource is such a stand-in for a variant that does not exist yet, so
+ *     that the original served under the URL of a smaller size is not cached as the final answer, whether or not the
+ *     image could be queued.</li>
+ *     <li>move(directory, fileName, newFileName): Renames the existing variants of an image for its new name, so that
+ *     files moved into the content-addressed storage keep their thumbnails.</li>
+ *     <li>remove(directory, fileName): Deletes the variants of an image whose original was deleted.</li>
+ * </ul>
+ *
+ * <p>Usage:</p>
+ * <p>
+ * The variants are decoded and encoded with ImageIO, in the format of the original, and stored next to it as
+ * {@code w<width>_<fileName>}, the prefix going on the last segment of names that contain directories. Images whose
+ * smallest variant already exists, such as re-uploads of stored content, are not processed again. Every variant is scaled from the next larger one in successive halving steps with
+ * bilinear interpolation, which keeps the quality close to area averaging at a fraction of its cost. Only variants
+ * narrower than the original are produced. A variant is written to a temporary file and moved into place, so a
+ * partially written file is never served. Formats ImageIO cannot read or write, such as svg and webp, are served in
+ * full size only.
+ * </p>
+ */
+@Service
+@Slf4j
+public class ThumbnailServiceImpl implements ThumbnailService {
+
+    private static final Set<String> OPAQUE_FORMATS = Set.of("jpg", "jpeg", "bmp");
+    private static final Pattern VARIANT_NAME = Pattern.compile("w\\d+_.*");
+
+    private final int[] widths;
+    private final ThreadPoolExecutor workers;
+    private final Set<Path> pending = ConcurrentHashMap.newKeySet();
+    private final Set<Path> skipped = ConcurrentHashMap.newKeySet();
+
+    public ThumbnailServiceImpl(@Value("${media.thumbnail.widths:160,480,1080}") int[] widths,
+                                @Value("${media.thumbnail.threads:2}") int threads,
+                                @Value("${media.thumbnail.queue-capacity:200}") int queueCapacity) {
+        if (widths.length == 0 || Arrays.stream(widths).anyMatch(width -> width < 1)) {
+            throw new IllegalArgumentException("media.thumbnail.widths must be positive");
+        }
+        this.widths = widths.clone();
+        Arrays.sort(this.widths);
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "thumbnail-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void enqueue(String directory, String fileName) {
+        if (fileName == null) {
+            return;
+        }
+        Path original = Path.of(directory).resolve(fileName).toAbsolutePath().normalize();
+        if (!pending.add(original)) {
+            return;
+        }
+        try {
+            workers.execute(() -> generate(original, fileName));
+        } catch (RejectedExecutionException e) {
+            pending.remove(original);
+            log.warn("thumbnail queue is full, {} will be served in full size", fileName);
+        }
+    }
+
+    @Override
+    public Resource variant(String directory, String fileName, Integer size) {
+        Resource original = ImageUtil.getResource(fileName, directory);
+        if (original == null || size == null) {
+            return original;
+        }
+        for (int width : widths) {
+            if (width >= size) {
+                Resource variant = ImageUtil.getResource(variantName(fileName, width), directory);
+                if (variant != null) {
+                    return variant;
+                }
+            }
+        }
+        Path path = Path.of(directory).resolve(fileName).toAbsolutePath().normalize();
+        String name = path.getFileName().toString();
+        if (VARIANT_NAME.matcher(name).matches() || skipped.contains(path)
+                || Files.exists(path.resolveSibling(variantName(name, widths[0])))) {
+            return original;
+        }
+        enqueue(directory, fileName);
+        return new StandIn(path);
+    }
+
+    @Override
+    public boolean isPending(Resource resource) {
+        return resource instanceof StandIn;
+    }
+
+    @Override
+    public void move(String directory, String fileName, String newFileName) {
+        Path root = Path.of(directory).toAbsolutePath().normalize();
+        for (int width : widths) {
+            Path variant = root.resolve(variantName(fileName, width)).normalize();
+            if (!variant.startsWith(root) || !Files.isRegularFile(variant)) {
+                continue;
+            }
+            try {
+                Path target = root.resolve(variantName(newFileName, width)).normalize();
+                if (Files.exists(target)) {
+                    Files.delete(variant);
+                } else {
+                    Files.createDirectories(target.getParent());
+                    Files.move(variant, target, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } catch (IOException e) {
+                log.warn("could not move the {} px thumbnail of {}", width, fileName, e);
+            }
+        }
+    }
+
+    @Override
+    public void remove(String directory, String fileName) {
+        Path root = Path.of(directory).toAbsolutePath().normalize();
+        skipped.remove(root.resolve(fileName).normalize());
+        for (int width : widths) {
+            Path variant = root.resolve(variantName(fileName, width)).normalize();
+            try {
+                if (variant.startsWith(root)) {
+                    Files.deleteIfExists(variant);
+                }
+            } catch (IOException e) {
+                log.warn("could not delete the {} px thumbnail of {}", width, fileName, e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private void generate(Path original, String fileName) {
+        String name = original.getFileName().toString();
+        Path smallest = original.resolveSibling(variantName(name, widths[0]));
+        try {
+            String format = extension(fileName);
+            if (!ImageIO.getImageWritersBySuffix(format).hasNext() || Files.exists(smallest)) {
+                return;
+            }
+            BufferedImage image = ImageIO.read(original.toFile());
+            if (image == null) {
+                return;
+            }
+            boolean alpha = !OPAQUE_FORMATS.contains(format);
+            BufferedImage source = image;
+            for (int i = widths.length - 1; i >= 0; i--) {
+                if (widths[i] >= image.getWidth()) {
+                    continue;
+                }
+                source = scale(source, widths[i], alpha);
+                write(source, format, original.resolveSibling(variantName(name, widths[i])));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("could not generate the thumbnails of {}", fileName, e);
+        } finally {
+            // recorded before the original leaves pending, so that variant() does not queue it again in between
+            if (!Files.exists(smallest)) {
+                skipped.add(original);
+            }
+            pending.remove(original);
+        }
+    }
+
+    private static void write(BufferedImage image, String format, Path target) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), "thumbnail", "." + format);
+        try {
+            if (!ImageIO.write(image, format, temp.toFile())) {
+                throw new IOException("no ImageIO writer for " + format);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Scales the image to the width, halving its size at most once per step.
+     */
+    private static BufferedImage scale(BufferedImage source, int width, boolean alpha) {
+        int height = Math.max(1, (int) Math.round((double) source.getHeight() * width / source.getWidth()));
+        BufferedImage current = source;
+        do {
+            int stepWidth = Math.max(width, current.getWidth() / 2);
+            int stepHeight = Math.max(height, current.getHeight() / 2);
+            BufferedImage next = new BufferedImage(stepWidth, stepHeight,
+                    alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(current, 0, 0, stepWidth, stepHeight, alpha ? null : Color.WHITE, null);
+            graphics.dispose();
+            current = next;
+        } while (current.getWidth() != width || current.getHeight() != height);
+        return current;
+    }
+
+    private static String variantName(String fileName, int width) {
+        int slash = fileName.lastIndexOf('/') + 1;
+        return fileName.substring(0, slash) + "w" + width + "_" + fileName.substring(slash);
+    }
+
+    private static String extension(String fileName) {
+        return fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * An original returned by variant() in place of a variant that does not exist yet.
+     */
+    private static final class StandIn extends FileSystemResource {
+
+        private StandIn(Path path) {
+            super(path);
+        }
+    }
+}
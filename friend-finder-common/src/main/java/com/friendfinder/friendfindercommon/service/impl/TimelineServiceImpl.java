@@ -4,12 +4,14 @@ import com.friendfinder.friendfindercommon.dto.userDto.UserUpdateRequestDto;
 import com.friendfinder.friendfindercommon.entity.Country;
 import com.friendfinder.friendfindercommon.entity.User;
 import com.friendfinder.friendfindercommon.entity.UserImage;
+import com.friendfinder.friendfindercommon.exception.custom.WrongUserIdException;
 import com.friendfinder.friendfindercommon.repository.CountryRepository;
 import com.friendfinder.friendfindercommon.repository.UserRepository;
 import com.friendfinder.friendfindercommon.security.CurrentUser;
+import com.friendfinder.friendfindercommon.service.MediaStorageService;
+import com.friendfinder.friendfindercommon.service.ThumbnailService;
 import com.friendfinder.friendfindercommon.service.TimelineService;
 import com.friendfinder.friendfindercommon.service.UserImageService;
-import com.friendfinder.friendfindercommon.util.ImageUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -27,6 +29,8 @@ import java.util.List;
  *     <li>countryRepository: The CountryRepository interface used to access and retrieve country-related data from the database.</li>
  *     <li>userRepository: The UserRepository interface used to access and retrieve user-related data from the database.</li>
  *     <li>userImageService: The UserImageService interface used to manage user images in the application.</li>
+ *     <li>thumbnailService: The ThumbnailService that generates the downscaled variants of the uploaded pictures.</li>
+ *     <li>mediaStorageService: The MediaStorageService that stores the uploaded pictures by their content.</li>
  *     <li>userProfilePicPath: The file path for storing user profile pictures.</li>
  *     <li>userBgProfilePicPath: The file path for storing user profile background pictures.</li>
  * </ul>
@@ -38,18 +42,26 @@ import java.util.List;
  *     The method modifies the user's name, surname, email, date of birth, gender, city, country, and personal information.
  *     The updated user object is then saved to the database.</li>
  *     <li>updateUserProfilePic(profilePic, currentUser, userImage): Updates the user's profile picture and saves the UserImage object.
- *     The method uploads the profile picture file using ImageUtil, associates it with the user, and saves the user object along with the UserImage.</li>
+ *     The method stores the profile picture file using MediaStorageService, associates it with the user, and saves the user object along with the UserImage.</li>
  *     <li>updateUserProfileBackgroundPic(bgPic, currentUser): Updates the user's profile background picture.
- *     The method uploads the background picture file using ImageUtil and saves the updated user object to the database.</li>
+ *     The method stores the background picture file using MediaStorageService and saves the updated user object to the database.
+ *     Both update methods enqueue the uploaded picture for thumbnail generation and release the picture it replaces.
+ *     When the user cannot be saved, the uploaded picture is released instead and the previous one is put back.</li>
  * </ul>
  *
+ * <p>
+ * All update methods read the user from the database instead of changing the User cached in the session, so a
+ * picture name rewritten since the login is neither written back nor released twice, and copy the result back to the
+ * session afterwards.
+ * </p>
+ *
  * <p>Usage:</p>
  * <p>
  * TimelineServiceImpl provides functionality for managing user timeline information in the application. It handles operations
  * related to updating user profile details such as name, surname, email, date of birth, gender, city, country, and personal information.
  * The service also allows users to update their profile pictures and background pictures by uploading image files, which are then
  * saved to the appropriate file paths. The service ensures that user-related data is properly updated and persisted in the database
- * to reflect the changes on the user's timeline. It collaborates with other services such as UserImageService and ImageUtil to perform
+ * to reflect the changes on the user's timeline. It collaborates with other services such as UserImageService and MediaStorageService to perform
  * image-related operations efficiently and enhance the user experience in the social media application.
  * </p>
  */
@@ -60,6 +72,8 @@ public class TimelineServiceImpl implements TimelineService {
     private final CountryRepository countryRepository;
     private final UserRepository userRepository;
     private final UserImageService userImageService;
+    private final ThumbnailService thumbnailService;
+    private final MediaStorageService mediaStorageService;
 
     @Value("${user.profile.picture.path}")
     private String userProfilePicPath;
@@ -75,7 +89,7 @@ public class TimelineServiceImpl implements TimelineService {
 
     @Override
     public User updateUser(UserUpdateRequestDto user, CurrentUser currentUser) {
-        User loggedInUser = currentUser.getUser();
+        User loggedInUser = reload(currentUser);
         loggedInUser.setName(user.getName());
         loggedInUser.setSurname(user.getSurname());
         loggedInUser.setEmail(user.getEmail());
@@ -84,21 +98,76 @@ public class TimelineServiceImpl implements TimelineService {
         loggedInUser.setCity(user.getCity());
         loggedInUser.setCountry(user.getCountry());
         loggedInUser.setPersonalInformation(user.getPersonalInformation());
-        return userRepository.save(loggedInUser);
+        User saved = userRepository.save(loggedInUser);
+        refreshSession(currentUser, loggedInUser);
+        return saved;
     }
 
     @Override
     public User updateUserProfilePic(MultipartFile profilePic, CurrentUser currentUser, UserImage userImage) {
-        User user = currentUser.getUser();
-        user.setProfilePicture(ImageUtil.uploadImage(profilePic, userProfilePicPath));
-        userImageService.userImageSave(userImage, currentUser);
-        return userRepository.save(user);
+        User user = reload(currentUser);
+        String previous = user.getProfilePicture();
+        String stored = mediaStorageService.store(profilePic, userProfilePicPath);
+        user.setProfilePicture(stored);
+        User saved;
+        try {
+            thumbnailService.enqueue(userProfilePicPath, stored);
+            userImageService.userImageSave(userImage, currentUser, stored);
+            saved = userRepository.save(user);
+        } catch (RuntimeException e) {
+            user.setProfilePicture(previous);
+            mediaStorageService.release(userProfilePicPath, stored);
+            throw e;
+        }
+        refreshSession(currentUser, user);
+        mediaStorageService.release(userProfilePicPath, previous);
+        return saved;
     }
 
     @Override
     public User updateUserProfileBackgroundPic(MultipartFile bgPic, CurrentUser currentUser) {
-        User user = currentUser.getUser();
-        user.setProfileBackgroundPic(ImageUtil.uploadImage(bgPic, userBgProfilePicPath));
-        return userRepository.save(user);
+        User user = reload(currentUser);
+        String previous = user.getProfileBackgroundPic();
+        String stored = mediaStorageService.store(bgPic, userBgProfilePicPath);
+        user.setProfileBackgroundPic(stored);
+        User saved;
+        try {
+            thumbnailService.enqueue(userBgProfilePicPath, stored);
+            saved = userRepository.save(user);
+        } catch (RuntimeException e) {
+            user.setProfileBackgroundPic(previous);
+            mediaStorageService.release(userBgProfilePicPath, stored);
+            throw e;
+        }
+        refreshSession(currentUser, user);
+        mediaStorageService.release(userBgProfilePicPath, previous);
+        return saved;
+    }
+
+    /**
+     * The session keeps the User it was logged in with, whose picture names may have been rewritten since, e.g. by
+     * the media migration, so the row is read again before it is changed and the released picture is the stored one.
+     */
+    private User reload(CurrentUser currentUser) {
+        int userId = currentUser.getUser().getId();
+        return userRepository.findById(userId)
+                .orElseThrow(() -> new WrongUserIdException("User with id " + userId + " not found"));
+    }
+
+    private void refreshSession(CurrentUser currentUser, User user) {
+        User sessionUser = currentUser.getUser();
+        if (sessionUser == user) {
+            return;
+        }
+        sessionUser.setName(user.getName());
+        sessionUser.setSurname(user.getSurname());
+        sessionUser.setEmail(user.getEmail());
+        sessionUser.setDateOfBirth(user.getDateOfBirth());
+        sessionUser.setGender(user.getGender());
+        sessionUser.setCity(user.getCity());
+        sessionUser.setCountry(user.getCountry());
+        sessionUser.setPersonalInformation(user.getPersonalInformation());
+        sessionUser.setProfilePicture(user.getProfilePicture());
+        sessionUser.setProfileBackgroundPic(user.getProfileBackgroundPic());
     }
 }
@@ -5,8 +5,10 @@ import com.friendfinder.friendfindercommon.entity.UserImage;
 import com.friendfinder.friendfindercommon.repository.UserImageRepository;
 import com.friendfinder.friendfindercommon.repository.UserRepository;
 import com.friendfinder.friendfindercommon.security.CurrentUser;
+import com.friendfinder.friendfindercommon.service.MediaStorageService;
 import com.friendfinder.friendfindercommon.service.UserImageService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -27,6 +29,8 @@ import java.util.Optional;
  * <ul>
  *     <li>userImageRepository: The UserImageRepository interface used to access and retrieve user image data from the database.</li>
  *     <li>userRepository: The UserRepository interface used to access and retrieve user data from the database.</li>
+ *     <li>mediaStorageService: The MediaStorageService that counts the user images referencing a stored profile picture.</li>
+ *     <li>userProfilePicPath: The directory of the profile pictures the user images refer to.</li>
  * </ul>
  *
  * <p>Methods:</p>
@@ -34,10 +38,10 @@ import java.util.Optional;
  *     <li>userImagePageByUserId(userId, pageNumber): Retrieves a page of user images associated with the given user ID from the database.
  *     The method returns 12 user images per page and orders them by ID in descending order.</li>
  *     <li>getUserImageById(userId): Retrieves a list of user images associated with the given user ID from the database.</li>
- *     <li>userImageSave(userImage, currentUser): Saves a new user image record in the database based on the provided user image and current user.
- *     The method creates a UserImage object with the user, image name, and then saves it to the database.</li>
+ *     <li>userImageSave(userImage, currentUser, imageName): Saves a new user image record in the database based on the provided user image and current user.
+ *     The method creates a UserImage object with the user and the stored name of the picture, and then saves it to the database, retaining the picture.</li>
  *     <li>deleteUserImageById(id): Deletes a user image record from the database based on the provided image ID.
- *     The method finds the user image by ID, deletes it from the database, and returns null.</li>
+ *     The method finds the user image by ID, deletes it from the database, releases the picture, and returns null.</li>
  * </ul>
  *
  * <p>Usage:</p>
@@ -56,6 +60,10 @@ public class UserImageServiceImpl implements UserImageService {
 
     private final UserImageRepository userImageRepository;
     private final UserRepository userRepository;
+    private final MediaStorageService mediaStorageService;
+
+    @Value("${user.profile.picture.path}")
+    private String userProfilePicPath;
 
     @Override
     public Page<UserImage> userImagePageByUserId(int userId, int pageNumber) {
@@ -80,11 +88,12 @@ public class UserImageServiceImpl implements UserImageService {
     }
 
     @Override
-    public void userImageSave(UserImage userImage, CurrentUser currentUser) {
+    public void userImageSave(UserImage userImage, CurrentUser currentUser, String imageName) {
         userImageRepository.save(UserImage.builder()
                 .user(currentUser.getUser())
-                .imageName(currentUser.getUser().getProfilePicture())
+                .imageName(imageName)
                 .build());
+        mediaStorageService.retain(userProfilePicPath, imageName);
     }
 
     @Override
@@ -93,6 +102,7 @@ public class UserImageServiceImpl implements UserImageService {
         if (byId.isPresent()) {
             UserImage userImage = byId.get();
             userImageRepository.deleteById(userImage.getId());
+            mediaStorageService.release(userProfilePicPath, userImage.getImageName());
         }
         return null;
     }
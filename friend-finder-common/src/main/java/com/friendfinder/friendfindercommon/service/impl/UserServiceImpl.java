@@ -1,5 +1,6 @@
 package com.friendfinder.friendfindercommon.service.impl;
 
+import com.friendfinder.friendfindercommon.cache.FriendGraph;
 import com.friendfinder.friendfindercommon.dto.userDto.UserLoginRequestDto;
 import com.friendfinder.friendfindercommon.dto.userDto.UserRegisterRequestDto;
 import com.friendfinder.friendfindercommon.entity.Country;
@@ -9,8 +10,7 @@ import com.friendfinder.friendfindercommon.exception.custom.UserLoginException;
 import com.friendfinder.friendfindercommon.mapper.UserRegisterMapper;
 import com.friendfinder.friendfindercommon.repository.CountryRepository;
 import com.friendfinder.friendfindercommon.repository.UserRepository;
-import com.friendfinder.friendfindercommon.security.CurrentUser;
-import com.friendfinder.friendfindercommon.service.FriendRequestService;
+import com.friendfinder.friendfindercommon.service.MediaStorageService;
 import com.friendfinder.friendfindercommon.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -20,8 +20,8 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -35,18 +35,17 @@ import java.util.stream.Collectors;
  * <p>Fields:</p>
  * <ul>
  *     <li>passwordEncoder: The PasswordEncoder interface used to encode passwords for secure storage and authentication.</li>
- *     <li>friendRequestService: The FriendRequestService interface used to manage friend requests between users.</li>
  *     <li>userRegisterMapper: The UserRegisterMapper interface used to map user registration data between DTO and entity.</li>
  *     <li>countryRepository: The CountryRepository interface used to access and retrieve country data from the database.</li>
  *     <li>userRepository: The UserRepository interface used to access and retrieve user data from the database.</li>
  *     <li>mailService: The MailService interface used to send email notifications to users.</li>
+ *     <li>friendGraph: The in-memory FriendGraph, from which deleted users are removed.</li>
+ *     <li>mediaStorageService: The MediaStorageService that releases the pictures and post files of deleted users.</li>
  *     <li>siteUrl: The URL of the site where the application is hosted, used for email verification links.</li>
  * </ul>
  *
  * <p>Methods:</p>
  * <ul>
- *     <li>userForAddFriend(currentUser): Retrieves a list of users who can be added as friends by the current user.
- *     The method filters out users who are already friends or have pending friend requests with the current user.</li>
  *     <li>findAllCountries(): Retrieves a list of all countries available in the application.</li>
  *     <li>userRegister(dto): Registers a new user in the application based on the provided user registration data in the UserRegisterRequestDto.
  *     The method checks if the user with the given email already exists. If not, it encodes the password, generates a verification token,
@@ -60,7 +59,8 @@ import java.util.stream.Collectors;
  *     The method filters out the current user from the list of users.</li>
  *     <li>findAll(pageable): Retrieves a paginated list of all users in the application from the database using the UserRepository.</li>
  *     <li>userFindAll(): Retrieves a list of all users in the application from the database using the UserRepository.</li>
- *     <li>deleteUserById(id): Deletes a user from the database based on the provided user ID.</li>
+ *     <li>deleteUserById(id): Deletes a user from the database based on the provided user ID, releases the user's
+ *     pictures and post files once the delete is committed and drops the user's friendships from the FriendGraph.</li>
  *     <li>blockUserById(id): Blocks a user in the application based on the provided user ID.
  *     The method updates the user's role to "BLOCKED" and saves the changes to the database.</li>
  *     <li>unblockUserById(id): Unblocks a user in the application based on the provided user ID.
@@ -84,29 +84,16 @@ import java.util.stream.Collectors;
 public class UserServiceImpl implements UserService {
 
     private final PasswordEncoder passwordEncoder;
-    private final FriendRequestService friendRequestService;
     private final UserRegisterMapper userRegisterMapper;
     private final CountryRepository countryRepository;
     private final UserRepository userRepository;
 
     private final MailService mailService;
+    private final FriendGraph friendGraph;
+    private final MediaStorageService mediaStorageService;
     @Value("${site.url}")
     String siteUrl;
 
-    @Override
-    public List<User> userForAddFriend(CurrentUser currentUser) {
-        List<User> users = userFindAll();
-        List<User> userForAddFriend = new ArrayList<>();
-        for (User user : users) {
-            if (friendRequestService.findBySenderIdAndReceiverId(user.getId(), currentUser.getUser().getId()) == null &&
-                    user.getId() != currentUser.getUser().getId() && friendRequestService.findBySenderIdAndReceiverId(currentUser.getUser().getId(),
-                    user.getId()) == null) {
-                userForAddFriend.add(user);
-            }
-        }
-        return userForAddFriend;
-    }
-
     @Override
     public List<Country> findAllCountries() {
         return countryRepository.findAll();
@@ -186,8 +173,11 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional
     public void deleteUserById(int id) {
+        mediaStorageService.releaseUserMedia(id);
         userRepository.deleteById(id);
+        friendGraph.removeUser(id);
     }
 
     @Override
@@ -7,11 +7,13 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 @SpringBootApplication
 @EnableAsync
+@EnableScheduling
 @ComponentScan(basePackages = {"com.friendfinder.friendfinderrest", "com.friendfinder.friendfindercommon"})
 @EntityScan(basePackages = "com.friendfinder.friendfindercommon.entity")
 @EnableJpaRepositories(basePackages = "com.friendfinder.friendfindercommon.repository")
@@ -1,13 +1,23 @@
 package com.friendfinder.friendfinderrest.endpoint;
 
+import com.friendfinder.friendfindercommon.cache.FriendGraph;
+import com.friendfinder.friendfindercommon.cache.ReactionCounterBuffer;
 import com.friendfinder.friendfindercommon.dto.commentDto.CommentRequestDto;
+import com.friendfinder.friendfindercommon.dto.friendDto.FriendGraphStatsDto;
+import com.friendfinder.friendfindercommon.dto.mediaDto.MediaCacheStatsDto;
+import com.friendfinder.friendfindercommon.dto.mediaDto.MediaMigrationResultDto;
 import com.friendfinder.friendfindercommon.dto.postDto.PostResponseDto;
+import com.friendfinder.friendfindercommon.dto.postLikeDto.ReactionBufferStatsDto;
 import com.friendfinder.friendfindercommon.dto.userDto.UserDto;
 import com.friendfinder.friendfindercommon.exception.custom.WrongUserIdException;
 import com.friendfinder.friendfindercommon.mapper.CommentMapper;
 import com.friendfinder.friendfindercommon.mapper.PostMapper;
 import com.friendfinder.friendfindercommon.mapper.UserMapper;
 import com.friendfinder.friendfindercommon.service.CommentService;
+import com.friendfinder.friendfindercommon.service.CounterReconciliationService;
+import com.friendfinder.friendfindercommon.service.FeedInboxService;
+import com.friendfinder.friendfindercommon.service.MediaService;
+import com.friendfinder.friendfindercommon.service.MediaStorageService;
 import com.friendfinder.friendfindercommon.service.PostService;
 import com.friendfinder.friendfindercommon.service.UserService;
 import lombok.RequiredArgsConstructor;
@@ -25,7 +35,9 @@ import java.util.List;
  * <p>This class handles various administrative operations such as retrieving all users,
  * all posts, and all comments. It also provides functionality to delete users, posts,
  * and comments by their respective IDs. Additionally, it allows blocking and unblocking
- * users by their IDs.
+ * users by their IDs, backfilling the feed inboxes, inspecting the reaction counter buffer and the friend graph
+ * cache, reconciling the reaction counts of the posts, inspecting how many media requests were answered with 304
+ * Not Modified and moving the files uploaded before the content-addressed media storage into it in the background.
  */
 @RestController
 @RequestMapping("/admin")
@@ -39,6 +51,12 @@ public class AdminEndpoint {
     private final UserMapper userMapper;
     private final PostMapper postMapper;
     private final CommentMapper commentMapper;
+    private final FeedInboxService feedInboxService;
+    private final ReactionCounterBuffer reactionCounterBuffer;
+    private final FriendGraph friendGraph;
+    private final CounterReconciliationService counterReconciliationService;
+    private final MediaService mediaService;
+    private final MediaStorageService mediaStorageService;
 
     /**
      * Retrieves a list of all users.
@@ -148,4 +166,108 @@ public class AdminEndpoint {
         String body = "user with id {" + id + "} successfully unblocked";
         return new ResponseEntity<>(body, HttpStatus.OK);
     }
+
+    /**
+     * Fans out the existing posts that are not in the friends' feed inboxes yet.
+     *
+     * @return ResponseEntity with a message containing the number of fanned-out posts.
+     */
+    @PostMapping("/feed/backfill")
+    public ResponseEntity<String> backfillFeedInbox() {
+        int fannedOut = feedInboxService.backfill();
+        String body = fannedOut + " posts successfully fanned out";
+        return new ResponseEntity<>(body, HttpStatus.OK);
+    }
+
+    /**
+     * Retrieves the backlog and flush metrics of the reaction counter buffer.
+     *
+     * @return ResponseEntity with the ReactionBufferStatsDto of the buffer.
+     */
+    @GetMapping("/reactions/buffer")
+    public ResponseEntity<ReactionBufferStatsDto> reactionBufferStats() {
+        return ResponseEntity.ok(ReactionBufferStatsDto.builder()
+                .writeBehind(reactionCounterBuffer.isWriteBehind())
+                .pendingPosts(reactionCounterBuffer.getPendingPosts())
+                .pendingDeltas(reactionCounterBuffer.getPendingDeltas())
+                .flushes(reactionCounterBuffer.getFlushes())
+                .flushedPosts(reactionCounterBuffer.getFlushedPosts())
+                .flushFailures(reactionCounterBuffer.getFlushFailures())
+                .lastFlushMillis(reactionCounterBuffer.getLastFlushMillis())
+                .maxFlushMillis(reactionCounterBuffer.getMaxFlushMillis())
+                .build());
+    }
+
+    /**
+     * Retrieves the size and the hit, miss, eviction and expiration counters of the in-memory friend graph of this
+     * application.
+     *
+     * @return ResponseEntity with the FriendGraphStatsDto of the graph.
+     */
+    @GetMapping("/friends/graph")
+    public ResponseEntity<FriendGraphStatsDto> friendGraphStats() {
+        return ResponseEntity.ok(FriendGraphStatsDto.builder()
+                .size(friendGraph.getSize())
+                .maxUsers(friendGraph.getMaxUsers())
+                .ttlSeconds(friendGraph.getTtlSeconds())
+                .hits(friendGraph.getHits())
+                .misses(friendGraph.getMisses())
+                .evictions(friendGraph.getEvictions())
+                .expirations(friendGraph.getExpirations())
+                .build());
+    }
+
+    /**
+     * Starts recomputing the like and dislike counts of all posts from their reactions in the background, fixing the
+     * ones that differ.
+     *
+     * @return ResponseEntity with ACCEPTED if the reconciliation was started, or CONFLICT if one is already running or
+     * reaction write-behind is active in any application.
+     */
+    @PostMapping("/reactions/reconcile")
+    public ResponseEntity<String> reconcileReactionCounts() {
+        if (reactionCounterBuffer.isWriteBehindActive()) {
+            return new ResponseEntity<>("reaction write-behind is active, its pending deltas would be counted twice",
+                    HttpStatus.CONFLICT);
+        }
+        if (!counterReconciliationService.startReconcile()) {
+            return new ResponseEntity<>("reaction count reconciliation is already running", HttpStatus.CONFLICT);
+        }
+        return new ResponseEntity<>("reaction count reconciliation started", HttpStatus.ACCEPTED);
+    }
+
+    /**
+     * Retrieves the number of media requests, how many of them were answered with 304 Not Modified and the body
+     * bytes saved by it, and how many files were sent with the container's sendfile.
+     *
+     * @return ResponseEntity with the MediaCacheStatsDto of the media endpoints.
+     */
+    @GetMapping("/media/cache")
+    public ResponseEntity<MediaCacheStatsDto> mediaCacheStats() {
+        return ResponseEntity.ok(mediaService.stats());
+    }
+
+    /**
+     * Starts moving the files uploaded before the content-addressed media storage into it in the background, rewriting
+     * the posts, users and user images referencing them.
+     *
+     * @return ResponseEntity with ACCEPTED if the migration was started, or CONFLICT if one is already running.
+     */
+    @PostMapping("/media/migrate")
+    public ResponseEntity<String> migrateMedia() {
+        if (!mediaStorageService.startMigration()) {
+            return new ResponseEntity<>("media migration is already running", HttpStatus.CONFLICT);
+        }
+        return new ResponseEntity<>("media migration started", HttpStatus.ACCEPTED);
+    }
+
+    /**
+     * Retrieves the counts of the media migration in progress, or of the last one, and whether it is still running.
+     *
+     * @return ResponseEntity with the MediaMigrationResultDto of the run.
+     */
+    @GetMapping("/media/migrate")
+    public ResponseEntity<MediaMigrationResultDto> mediaMigrationProgress() {
+        return ResponseEntity.ok(mediaStorageService.migrationProgress());
+    }
 }
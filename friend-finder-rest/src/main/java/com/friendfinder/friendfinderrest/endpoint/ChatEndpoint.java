@@ -1,25 +1,34 @@
 package com.friendfinder.friendfinderrest.endpoint;
 
 import com.friendfinder.friendfindercommon.dto.chatDto.ChatDto;
+import com.friendfinder.friendfindercommon.dto.chatDto.ConversationPageDto;
+import com.friendfinder.friendfindercommon.dto.chatDto.MessagePageResponseDto;
+import com.friendfinder.friendfindercommon.dto.chatDto.MessageSearchPageDto;
 import com.friendfinder.friendfindercommon.dto.chatDto.SendMessageDto;
 import com.friendfinder.friendfindercommon.dto.chatDto.SentMessageResponseDto;
 import com.friendfinder.friendfindercommon.exception.custom.ChatCreateException;
 import com.friendfinder.friendfindercommon.exception.custom.SendMessageException;
 import com.friendfinder.friendfindercommon.security.CurrentUser;
 import com.friendfinder.friendfindercommon.service.ChatService;
+import com.friendfinder.friendfindercommon.service.MessagePushService;
+import com.friendfinder.friendfindercommon.service.MessageSearchService;
 import com.friendfinder.friendfindercommon.service.MessageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * REST API endpoints for handling chat-related operations.
  *
- * <p>This class provides endpoints for creating a new chat with another user and sending
- * messages in the chat.
+ * <p>This class provides endpoints for creating a new chat with another user, listing the
+ * conversations of the user, sending messages in the chat, receiving new messages as they are sent,
+ * reading the chat history page by page, searching the messages of the user's chats and acknowledging
+ * read messages.
  */
 @RestController
 @RequiredArgsConstructor
@@ -29,6 +38,8 @@ public class ChatEndpoint {
 
     private final ChatService chatService;
     private final MessageService messageService;
+    private final MessagePushService messagePushService;
+    private final MessageSearchService messageSearchService;
 
     /**
      * Creates a new chat with another user.
@@ -50,12 +61,90 @@ public class ChatEndpoint {
                 .build());
     }
 
+    /**
+     * Retrieves the conversations of the authenticated user, most recently active first.
+     *
+     * @param page        The page number, starting at 0.
+     * @param size        The maximum number of conversations per page.
+     * @param currentUser The authenticated user.
+     * @return ResponseEntity with the conversations, each with the other participant, the last message and the
+     * unread count, and the next page number (null on the last page).
+     */
+    @GetMapping("/conversations")
+    public ResponseEntity<ConversationPageDto> conversations(
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @AuthenticationPrincipal CurrentUser currentUser) {
+        return ResponseEntity.ok(chatService.conversations(currentUser.getUser().getId(), page, size));
+    }
+
+    /**
+     * Searches the messages of the chats the authenticated user takes part in, newest first.
+     *
+     * @param query       The words to search for, every word must occur in a message.
+     * @param page        The page number, starting at 0.
+     * @param size        The maximum number of hits per page.
+     * @param currentUser The authenticated user.
+     * @return ResponseEntity with the hits, each with the chat id and a snippet of the message, and the next page
+     * number (null on the last page).
+     */
+    @GetMapping("/messages/search")
+    public ResponseEntity<MessageSearchPageDto> searchMessages(
+            @RequestParam("q") String query,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @AuthenticationPrincipal CurrentUser currentUser) {
+        return ResponseEntity.ok(messageSearchService.search(currentUser.getUser().getId(), query, page, size));
+    }
+
+    /**
+     * Marks the messages of a chat up to the given message as read by the authenticated user.
+     * Acknowledgements are applied asynchronously, several acknowledgements of the same chat in quick
+     * succession result in a single update.
+     *
+     * @param chatId      The ID of the chat.
+     * @param messageId   The id of the newest message the user has seen.
+     * @param currentUser The authenticated user.
+     * @return ResponseEntity with status 202 (Accepted).
+     */
+    @PostMapping("/{chatId}/read")
+    public ResponseEntity<Void> markRead(@PathVariable("chatId") int chatId,
+                                         @RequestParam("messageId") int messageId,
+                                         @AuthenticationPrincipal CurrentUser currentUser) {
+        chatService.markRead(chatId, currentUser.getUser().getId(), messageId);
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * Retrieves the number of unread messages of the authenticated user across all chats.
+     *
+     * @param currentUser The authenticated user.
+     * @return ResponseEntity with the unread message count.
+     */
+    @GetMapping("/unread")
+    public ResponseEntity<Long> unread(@AuthenticationPrincipal CurrentUser currentUser) {
+        return ResponseEntity.ok(chatService.totalUnread(currentUser.getUser().getId()));
+    }
+
+    /**
+     * Opens a Server-Sent Events stream that receives a "message" event for every message sent to or by the
+     * authenticated user, in any of the user's chats.
+     *
+     * @param currentUser The authenticated user.
+     * @return The event stream.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@AuthenticationPrincipal CurrentUser currentUser) {
+        return messagePushService.subscribe(currentUser.getUser().getId());
+    }
+
     /**
      * Sends a message in the chat.
      *
      * @param sendMessageDto The DTO containing the message information to be sent.
      * @param currentUser    The authenticated user who sends the message.
-     * @return ResponseEntity with the SentMessageResponseDto containing message information.
+     * @return ResponseEntity with the SentMessageResponseDto containing message information, or 404 if the chat
+     * does not exist or the current user does not take part in it.
      */
     @PostMapping("/send-message")
     public ResponseEntity<SentMessageResponseDto> sendMessage(@RequestBody SendMessageDto sendMessageDto,
@@ -63,7 +152,7 @@ public class ChatEndpoint {
         boolean save = messageService.save(sendMessageDto, currentUser.getUser());
         if (!save) {
             log.error("send message error, class: ChatEndpoint, method: sendMessage", new SendMessageException());
-            ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
         return ResponseEntity.ok(SentMessageResponseDto.builder()
                 .receiverId(sendMessageDto.getReceiverId())
@@ -72,4 +161,28 @@ public class ChatEndpoint {
                 .build());
     }
 
+    /**
+     * Retrieves the messages of a chat that are older than the given cursor, oldest first.
+     * Only the participants of the chat can read its history.
+     *
+     * @param chatId      The ID of the chat.
+     * @param before      The id of the oldest message already seen, or null for the most recent messages.
+     * @param limit       The maximum number of messages to return.
+     * @param currentUser The authenticated user reading the chat.
+     * @return ResponseEntity with the messages and the cursor for the next older page (null on the last page),
+     * or 404 if the chat does not exist or the user does not take part in it.
+     */
+    @GetMapping("/{chatId}/messages")
+    public ResponseEntity<MessagePageResponseDto> chatMessages(
+            @PathVariable("chatId") int chatId,
+            @RequestParam(value = "before", required = false) Integer before,
+            @RequestParam(value = "limit", defaultValue = "20") int limit,
+            @AuthenticationPrincipal CurrentUser currentUser) {
+        MessagePageResponseDto page = messageService.messagesBefore(chatId, currentUser.getUser(), before, limit);
+        if (page == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(page);
+    }
+
 }
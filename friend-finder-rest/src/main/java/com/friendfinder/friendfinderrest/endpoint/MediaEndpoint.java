@@ -0,0 +1,86 @@
+package com.friendfinder.friendfinderrest.endpoint;
+
+import com.friendfinder.friendfindercommon.service.MainService;
+import com.friendfinder.friendfindercommon.service.MediaService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * REST API endpoints for serving uploaded images and videos.
+ *
+ * <p>The files are streamed from disk with the content type of their extension. Requests with a
+ * Range header are answered with 206 Partial Content, so video players can seek without downloading
+ * the whole file again. Uploaded files never change, so the responses carry an ETag and
+ * Last-Modified and may be cached for a year; conditional requests are answered with 304 Not Modified.
+ * Images can be requested for a display width, they are then served from a downscaled variant once
+ * it has been generated in the background.
+ */
+@RestController
+@RequiredArgsConstructor
+public class MediaEndpoint {
+
+    private final MainService mainService;
+    private final MediaService mediaService;
+
+    /**
+     * Retrieves an image of a post.
+     *
+     * @param imageName The file name of the image.
+     * @param size      The width in pixels the image is displayed at, to receive a smaller variant of it.
+     * @param request   The request, checked for If-None-Match and If-Modified-Since.
+     * @return ResponseEntity with the image, 304 if the client's copy is current, or 404 if it does not exist.
+     */
+    @GetMapping("/getImage")
+    public ResponseEntity<Resource> getImage(@RequestParam("imageName") String imageName,
+                                             @RequestParam(value = "size", required = false) Integer size,
+                                             WebRequest request) {
+        return mediaService.serve(mainService.getImage(imageName, size), request);
+    }
+
+    /**
+     * Retrieves a video of a post, or the requested byte ranges of it.
+     *
+     * @param videoName The file name of the video.
+     * @param request   The request, checked for If-None-Match and If-Modified-Since.
+     * @return ResponseEntity with the video, 304 if the client's copy is current, or 404 if it does not exist.
+     */
+    @GetMapping("/getVideo")
+    public ResponseEntity<Resource> getVideo(@RequestParam("videoName") String videoName, WebRequest request) {
+        return mediaService.serve(mainService.getVideo(videoName), request);
+    }
+
+    /**
+     * Retrieves a profile picture.
+     *
+     * @param imageName The file name of the picture.
+     * @param size      The width in pixels the picture is displayed at, to receive a smaller variant of it.
+     * @param request   The request, checked for If-None-Match and If-Modified-Since.
+     * @return ResponseEntity with the picture, 304 if the client's copy is current, or 404 if it does not exist.
+     */
+    @GetMapping("/getProfilePic")
+    public ResponseEntity<Resource> getProfilePic(@RequestParam("imageName") String imageName,
+                                                  @RequestParam(value = "size", required = false) Integer size,
+                                                  WebRequest request) {
+        return mediaService.serve(mainService.getProfilePic(imageName, size), request);
+    }
+
+    /**
+     * Retrieves a profile background picture.
+     *
+     * @param imageName The file name of the picture.
+     * @param size      The width in pixels the picture is displayed at, to receive a smaller variant of it.
+     * @param request   The request, checked for If-None-Match and If-Modified-Since.
+     * @return ResponseEntity with the picture, 304 if the client's copy is current, or 404 if it does not exist.
+     */
+    @GetMapping("/getBgProfilePic")
+    public ResponseEntity<Resource> getBgProfilePic(@RequestParam("imageName") String imageName,
+                                                    @RequestParam(value = "size", required = false) Integer size,
+                                                    WebRequest request) {
+        return mediaService.serve(mainService.getBgProfilePic(imageName, size), request);
+    }
+}
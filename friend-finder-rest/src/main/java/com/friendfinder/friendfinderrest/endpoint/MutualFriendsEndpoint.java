@@ -0,0 +1,53 @@
+package com.friendfinder.friendfinderrest.endpoint;
+
+import com.friendfinder.friendfindercommon.entity.User;
+import com.friendfinder.friendfindercommon.security.CurrentUser;
+import com.friendfinder.friendfindercommon.service.FriendRequestService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * The MutualFriendsEndpoint class defines RESTful endpoints for the friends the authenticated user
+ * has in common with another user.
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/users")
+public class MutualFriendsEndpoint {
+
+    private final FriendRequestService friendRequestService;
+
+    /**
+     * Endpoint to retrieve a paginated list of the friends the authenticated user has in common with another user.
+     *
+     * @param userId      The ID of the other user.
+     * @param currentPage The page number of the mutual friends list to retrieve.
+     * @param currentUser The currently authenticated user (obtained from the security context).
+     * @return ResponseEntity containing a list of User objects representing the mutual friends on the page.
+     */
+    @GetMapping("/{userId}/mutual-friends")
+    public ResponseEntity<List<User>> mutualFriends(@PathVariable("userId") int userId,
+                                                    @RequestParam(value = "page", defaultValue = "1") int currentPage,
+                                                    @AuthenticationPrincipal CurrentUser currentUser) {
+        Page<User> page = friendRequestService.mutualFriendsPage(currentUser.getUser().getId(), userId, currentPage);
+        return ResponseEntity.ok(page.getContent());
+    }
+
+    /**
+     * Endpoint to retrieve the number of friends the authenticated user has in common with another user.
+     *
+     * @param userId      The ID of the other user.
+     * @param currentUser The currently authenticated user (obtained from the security context).
+     * @return ResponseEntity containing the number of mutual friends.
+     */
+    @GetMapping("/{userId}/mutual-friends/count")
+    public ResponseEntity<Integer> mutualFriendsCount(@PathVariable("userId") int userId,
+                                                      @AuthenticationPrincipal CurrentUser currentUser) {
+        return ResponseEntity.ok(friendRequestService.findMutualFriendsCount(currentUser.getUser().getId(), userId));
+    }
+}
@@ -1,6 +1,8 @@
 package com.friendfinder.friendfinderrest.endpoint;
 
+import com.friendfinder.friendfindercommon.dto.commentDto.CommentPageResponseDto;
 import com.friendfinder.friendfindercommon.dto.commentDto.CommentRequestDto;
+import com.friendfinder.friendfindercommon.dto.feedDto.FeedPageDto;
 import com.friendfinder.friendfindercommon.dto.postDto.PostRequestDto;
 import com.friendfinder.friendfindercommon.dto.postLikeDto.PostLikeDto;
 import com.friendfinder.friendfindercommon.entity.Comment;
@@ -9,6 +11,7 @@ import com.friendfinder.friendfindercommon.entity.PostLike;
 import com.friendfinder.friendfindercommon.entity.types.LikeStatus;
 import com.friendfinder.friendfindercommon.security.CurrentUser;
 import com.friendfinder.friendfindercommon.service.CommentService;
+import com.friendfinder.friendfindercommon.service.FeedAssemblerService;
 import com.friendfinder.friendfindercommon.service.LikeAndDislikeService;
 import com.friendfinder.friendfindercommon.service.PostService;
 import lombok.RequiredArgsConstructor;
@@ -34,6 +37,7 @@ public class PostEndpoint {
     private final PostService postService;
     private final LikeAndDislikeService likeAndDislikeService;
     private final CommentService commentService;
+    private final FeedAssemblerService feedAssemblerService;
 
     /**
      * Retrieves a list of posts by friends for the authenticated user.
@@ -51,6 +55,25 @@ public class PostEndpoint {
         return ResponseEntity.ok(content);
     }
 
+    /**
+     * Retrieves the posts by friends for the authenticated user that are older than the given cursor.
+     * Unlike the numbered pages, the cost of a request does not grow with how deep the user has scrolled.
+     * Each post comes with its latest comments, its comment count and the reaction of the current user.
+     *
+     * @param before      The id of the last post already seen, or null for the newest posts.
+     * @param limit       The maximum number of posts to return.
+     * @param currentUser The currently authenticated user (obtained from the security context).
+     * @return ResponseEntity with the assembled posts and the cursor for the next request (null on the last page).
+     */
+    @GetMapping("/feed")
+    public ResponseEntity<FeedPageDto> postFeed(
+            @RequestParam(value = "before", required = false) Integer before,
+            @RequestParam(value = "limit", defaultValue = "5") int limit,
+            @AuthenticationPrincipal CurrentUser currentUser) {
+        return ResponseEntity.ok(feedAssemblerService.assemble(postService.postFeedBefore(before, limit, currentUser),
+                currentUser.getUser().getId()));
+    }
+
     /**
      * Adds a new post with the specified content, image, and video.
      *
@@ -73,15 +96,15 @@ public class PostEndpoint {
      *
      * @param postLikeDto The PostLikeDto containing like information.
      * @param currentUser The CurrentUser object representing the currently logged-in user.
-     * @param post        The Post object to which the like is added.
+     * @param postId      The ID of the post to like.
      * @return ResponseEntity containing the created PostLike object if successful.
      */
     @PostMapping("/reaction/like/{postId}")
     public ResponseEntity<PostLike> addLike(PostLikeDto postLikeDto,
                                             @AuthenticationPrincipal CurrentUser currentUser,
-                                            @PathVariable(name = "postId") Post post) {
+                                            @PathVariable(name = "postId") int postId) {
         postLikeDto.setLikeStatus(LikeStatus.LIKE);
-        return ResponseEntity.ok(likeAndDislikeService.saveReaction(postLikeDto, currentUser, post));
+        return ResponseEntity.ok(likeAndDislikeService.saveReaction(postLikeDto, currentUser, postId));
     }
 
     /**
@@ -89,15 +112,31 @@ public class PostEndpoint {
      *
      * @param postLikeDto The PostLikeDto containing dislike information.
      * @param currentUser The CurrentUser object representing the currently logged-in user.
-     * @param post        The Post object to which the dislike is added.
+     * @param postId      The ID of the post to dislike.
      * @return ResponseEntity containing the created PostLike object if successful.
      */
     @PostMapping("/reaction/dislike/{postId}")
     public ResponseEntity<PostLike> addDislike(PostLikeDto postLikeDto,
                                                @AuthenticationPrincipal CurrentUser currentUser,
-                                               @PathVariable(name = "postId") Post post) {
+                                               @PathVariable(name = "postId") int postId) {
         postLikeDto.setLikeStatus(LikeStatus.DISLIKE);
-        return ResponseEntity.ok(likeAndDislikeService.saveReaction(postLikeDto, currentUser, post));
+        return ResponseEntity.ok(likeAndDislikeService.saveReaction(postLikeDto, currentUser, postId));
+    }
+
+    /**
+     * Retrieves the comments of a post that are older than the given cursor, newest first.
+     *
+     * @param postId The ID of the post.
+     * @param cursor The id of the last comment already seen, or null for the newest comments.
+     * @param limit  The maximum number of comments to return.
+     * @return ResponseEntity with the comments and the cursor for the next request (null on the last page).
+     */
+    @GetMapping("/{postId}/comments")
+    public ResponseEntity<CommentPageResponseDto> postComments(
+            @PathVariable("postId") int postId,
+            @RequestParam(value = "cursor", required = false) Integer cursor,
+            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return ResponseEntity.ok(commentService.commentsBefore(postId, cursor, limit));
     }
 
     /**
@@ -51,15 +51,15 @@ public class PostVideoEndpoint {
      *
      * @param postLikeDto The PostLikeDto containing like information.
      * @param currentUser The CurrentUser object representing the currently logged-in user.
-     * @param post        The Post object to which the like is added.
+     * @param postId      The ID of the post to like.
      * @return ResponseEntity containing the created PostLike object if successful.
      */
     @PostMapping("/reaction/like/{postId}")
     public ResponseEntity<PostLike> addLike(PostLikeDto postLikeDto,
                                             @AuthenticationPrincipal CurrentUser currentUser,
-                                            @PathVariable(name = "postId") Post post) {
+                                            @PathVariable(name = "postId") int postId) {
         postLikeDto.setLikeStatus(LikeStatus.LIKE);
-        return ResponseEntity.ok(likeAndDislikeService.saveReaction(postLikeDto, currentUser, post));
+        return ResponseEntity.ok(likeAndDislikeService.saveReaction(postLikeDto, currentUser, postId));
     }
 
     /**
@@ -67,15 +67,15 @@ public class PostVideoEndpoint {
      *
      * @param postLikeDto The PostLikeDto containing dislike information.
      * @param currentUser The CurrentUser object representing the currently logged-in user.
-     * @param post        The Post object to which the dislike is added.
+     * @param postId      The ID of the post to dislike.
      * @return ResponseEntity containing the created PostLike object if successful.
      */
     @PostMapping("/reaction/dislike/{postId}")
     public ResponseEntity<PostLike> addDislike(PostLikeDto postLikeDto,
                                                @AuthenticationPrincipal CurrentUser currentUser,
-                                               @PathVariable(name = "postId") Post post) {
+                                               @PathVariable(name = "postId") int postId) {
         postLikeDto.setLikeStatus(LikeStatus.DISLIKE);
-        return ResponseEntity.ok(likeAndDislikeService.saveReaction(postLikeDto, currentUser, post));
+        return ResponseEntity.ok(likeAndDislikeService.saveReaction(postLikeDto, currentUser, postId));
     }
 
     /**
@@ -103,15 +103,15 @@ public class UserProfileEndpoint {
      *
      * @param postLikeDto The PostLikeDto object containing the like data.
      * @param currentUser The CurrentUser object representing the currently authenticated user.
-     * @param post        The Post object representing the post to like.
+     * @param postId      The ID of the post to like.
      * @return ResponseEntity containing the PostLike object representing the like.
      */
     @PostMapping("/reaction/like/{postId}")
     public ResponseEntity<PostLike> addLike(PostLikeDto postLikeDto,
                                             @AuthenticationPrincipal CurrentUser currentUser,
-                                            @PathVariable(name = "postId") Post post) {
+                                            @PathVariable(name = "postId") int postId) {
         postLikeDto.setLikeStatus(LikeStatus.LIKE);
-        return ResponseEntity.ok(likeAndDislikeService.saveReaction(postLikeDto, currentUser, post));
+        return ResponseEntity.ok(likeAndDislikeService.saveReaction(postLikeDto, currentUser, postId));
     }
 
     /**
@@ -119,15 +119,15 @@ public class UserProfileEndpoint {
      *
      * @param postLikeDto The PostLikeDto object containing the dislike data.
      * @param currentUser The CurrentUser object representing the currently authenticated user.
-     * @param post        The Post object representing the post to dislike.
+     * @param postId      The ID of the post to dislike.
      * @return ResponseEntity containing the PostLike object representing the dislike.
      */
     @PostMapping("/reaction/dislike/{postId}")
     public ResponseEntity<PostLike> addDislike(PostLikeDto postLikeDto,
                                                @AuthenticationPrincipal CurrentUser currentUser,
-                                               @PathVariable(name = "postId") Post post) {
+                                               @PathVariable(name = "postId") int postId) {
         postLikeDto.setLikeStatus(LikeStatus.DISLIKE);
-        return ResponseEntity.ok(likeAndDislikeService.saveReaction(postLikeDto, currentUser, post));
+        return ResponseEntity.ok(likeAndDislikeService.saveReaction(postLikeDto, currentUser, postId));
     }
 
     /**
@@ -0,0 +1,193 @@
+package com.friendfinder.friendfinderrest.endpoint;
+
+import com.friendfinder.friendfindercommon.dto.mediaDto.MediaCacheStatsDto;
+import com.friendfinder.friendfindercommon.service.MainService;
+import com.friendfinder.friendfindercommon.service.ThumbnailService;
+import com.friendfinder.friendfindercommon.service.impl.MediaServiceImpl;
+import com.friendfinder.friendfindercommon.util.ImageUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class MediaEndpointTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private MainService mainService;
+    private ThumbnailService thumbnailService;
+    private MediaServiceImpl mediaService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.writeString(uploadDir.resolve("clip.mp4"), "0123456789");
+        Files.writeString(uploadDir.resolve("photo.png"), "png");
+        mainService = mock(MainService.class);
+        thumbnailService = mock(ThumbnailService.class);
+        mediaService = new MediaServiceImpl(thumbnailService);
+        mockMvc = MockMvcBuilders.standaloneSetup(new MediaEndpoint(mainService, mediaService)).build();
+    }
+
+    private void mockVideo(String name) {
+        when(mainService.getVideo(name)).thenReturn(ImageUtil.getResource(name, uploadDir.toString()));
+    }
+
+    @Test
+    void testGetVideo_FullWithContentTypeAndAcceptRanges() throws Exception {
+        mockVideo("clip.mp4");
+
+        mockMvc.perform(get("/getVideo").param("videoName", "clip.mp4"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("video/mp4"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(content().string("0123456789"));
+    }
+
+    @Test
+    void testGetVideo_RangeReturnsPartialContent() throws Exception {
+        mockVideo("clip.mp4");
+
+        mockMvc.perform(get("/getVideo").param("videoName", "clip.mp4").header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(content().string("2345"));
+    }
+
+    @Test
+    void testGetVideo_UnsatisfiableRange() throws Exception {
+        mockVideo("clip.mp4");
+
+        mockMvc.perform(get("/getVideo").param("videoName", "clip.mp4").header(HttpHeaders.RANGE, "bytes=20-30"))
+                .andExpect(status().isRequestedRangeNotSatisfiable());
+    }
+
+    @Test
+    void testGetImage_ContentTypeFromExtension() throws Exception {
+        when(mainService.getImage("photo.png", null)).thenReturn(ImageUtil.getResource("photo.png", uploadDir.toString()));
+
+        mockMvc.perform(get("/getImage").param("imageName", "photo.png"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/png"));
+    }
+
+    @Test
+    void testGetVideo_Missing_NotFound() throws Exception {
+        mockVideo("missing.mp4");
+
+        mockMvc.perform(get("/getVideo").param("videoName", "missing.mp4"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testGetImage_ValidatorsAndImmutableCaching() throws Exception {
+        when(mainService.getImage("photo.png", null)).thenReturn(ImageUtil.getResource("photo.png", uploadDir.toString()));
+
+        mockMvc.perform(get("/getImage").param("imageName", "photo.png"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    void testGetImage_SizeWhileThumbnailsPending_NotCachedAsFinal() throws Exception {
+        Resource original = ImageUtil.getResource("photo.png", uploadDir.toString());
+        when(mainService.getImage("photo.png", 480)).thenReturn(original);
+        when(thumbnailService.isPending(original)).thenReturn(true);
+
+        mockMvc.perform(get("/getImage").param("imageName", "photo.png").param("size", "480"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(content().string("png"));
+    }
+
+    @Test
+    void testGetImage_MatchingEtag_NotModified() throws Exception {
+        when(mainService.getImage("photo.png", null)).thenReturn(ImageUtil.getResource("photo.png", uploadDir.toString()));
+        String etag = mockMvc.perform(get("/getImage").param("imageName", "photo.png"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/getImage").param("imageName", "photo.png").header(HttpHeaders.IF_NONE_MATCH, "W/" + etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/getImage").param("imageName", "photo.png").header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+                .andExpect(status().isOk())
+                .andExpect(content().string("png"));
+
+        MediaCacheStatsDto stats = mediaService.stats();
+        assertEquals(3, stats.getRequests());
+        assertEquals(1, stats.getNotModified());
+        assertEquals(3, stats.getBytesSaved());
+    }
+
+    @Test
+    void testGetImage_IfModifiedSince() throws Exception {
+        Files.setLastModifiedTime(uploadDir.resolve("photo.png"), FileTime.fromMillis(1_000_000_000_000L));
+        when(mainService.getImage("photo.png", null)).thenReturn(ImageUtil.getResource("photo.png", uploadDir.toString()));
+
+        mockMvc.perform(get("/getImage").param("imageName", "photo.png")
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, "Sun, 09 Sep 2001 01:46:40 GMT"))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/getImage").param("imageName", "photo.png")
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, "Sun, 09 Sep 2001 01:46:39 GMT"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testGetVideo_SendfileSupported_HandsFileToContainer() throws Exception {
+        ReflectionTestUtils.setField(mediaService, "sendfileMinSize", 4L);
+        mockVideo("clip.mp4");
+
+        mockMvc.perform(get("/getVideo").param("videoName", "clip.mp4")
+                        .requestAttr("org.apache.tomcat.sendfile.support", true))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 10))
+                .andExpect(content().string(""))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.filename",
+                        uploadDir.resolve("clip.mp4").toRealPath().toString()))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.end", 10L));
+        assertEquals(1, mediaService.stats().getSendfileResponses());
+    }
+
+    @Test
+    void testGetVideo_SendfileBelowMinSizeOrRange_Streams() throws Exception {
+        ReflectionTestUtils.setField(mediaService, "sendfileMinSize", 4L);
+        mockVideo("clip.mp4");
+        when(mainService.getImage("photo.png", null)).thenReturn(ImageUtil.getResource("photo.png", uploadDir.toString()));
+
+        mockMvc.perform(get("/getVideo").param("videoName", "clip.mp4").header(HttpHeaders.RANGE, "bytes=0-1")
+                        .requestAttr("org.apache.tomcat.sendfile.support", true))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string("01"));
+        mockMvc.perform(get("/getImage").param("imageName", "photo.png")
+                        .requestAttr("org.apache.tomcat.sendfile.support", true))
+                .andExpect(content().string("png"));
+        assertEquals(0, mediaService.stats().getSendfileResponses());
+    }
+
+    @Test
+    void testGetResource_RejectsNamesOutsideDirectory() throws IOException {
+        Path upload = Files.createDirectory(uploadDir.resolve("upload"));
+
+        assertNull(ImageUtil.getResource("../clip.mp4", upload.toString()));
+    }
+}
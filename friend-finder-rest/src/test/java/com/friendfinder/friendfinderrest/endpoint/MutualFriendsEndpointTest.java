@@ -0,0 +1,137 @@
+package com.friendfinder.friendfinderrest.endpoint;
+
+import com.friendfinder.friendfindercommon.cache.FriendGraph;
+import com.friendfinder.friendfindercommon.entity.Country;
+import com.friendfinder.friendfindercommon.entity.FriendRequest;
+import com.friendfinder.friendfindercommon.entity.User;
+import com.friendfinder.friendfindercommon.entity.types.FriendStatus;
+import com.friendfinder.friendfindercommon.entity.types.UserGender;
+import com.friendfinder.friendfindercommon.entity.types.UserRole;
+import com.friendfinder.friendfindercommon.repository.FriendRequestRepository;
+import com.friendfinder.friendfindercommon.repository.UserRepository;
+import com.friendfinder.friendfindercommon.security.CurrentUser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.Date;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(locations = "classpath:application-integration.yml")
+class MutualFriendsEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FriendRequestRepository friendRequestRepository;
+
+    @Autowired
+    private FriendGraph friendGraph;
+
+    private User currentUser;
+    private User stranger;
+    private User commonFriend;
+    private User ownFriend;
+
+    @BeforeEach
+    void setUp() {
+        friendGraph.clear();
+        currentUser = saveUser("user@friendfinder.com");
+        stranger = saveUser("stranger@friendfinder.com");
+        commonFriend = saveUser("common@friendfinder.com");
+        ownFriend = saveUser("own@friendfinder.com");
+        saveFriendship(currentUser, commonFriend);
+        saveFriendship(currentUser, ownFriend);
+        saveFriendship(commonFriend, stranger);
+    }
+
+    @AfterEach
+    void cleanRepositories() {
+        friendRequestRepository.deleteAll();
+        userRepository.deleteAll();
+        friendGraph.clear();
+    }
+
+    @Test
+    void testMutualFriends_Self_ReturnsOwnFriends() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/users/{userId}/mutual-friends", currentUser.getId())
+                        .with(user(new CurrentUser(currentUser))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(ownFriend.getId()))
+                .andExpect(jsonPath("$[1].id").value(commonFriend.getId()));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/users/{userId}/mutual-friends/count", currentUser.getId())
+                        .with(user(new CurrentUser(currentUser))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(2));
+    }
+
+    @Test
+    void testMutualFriends_NonFriendUser_ReturnsCommonFriendsOnly() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/users/{userId}/mutual-friends", stranger.getId())
+                        .with(user(new CurrentUser(currentUser))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(commonFriend.getId()));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/users/{userId}/mutual-friends/count", stranger.getId())
+                        .with(user(new CurrentUser(currentUser))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(1));
+    }
+
+    @Test
+    void testMutualFriends_UnknownUser_ReturnsEmptyList() throws Exception {
+        int unknownId = ownFriend.getId() + 1000;
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/users/{userId}/mutual-friends", unknownId)
+                        .with(user(new CurrentUser(currentUser))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/users/{userId}/mutual-friends/count", unknownId)
+                        .with(user(new CurrentUser(currentUser))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(0));
+    }
+
+    private void saveFriendship(User sender, User receiver) {
+        friendRequestRepository.save(FriendRequest.builder()
+                .sender(sender)
+                .receiver(receiver)
+                .status(FriendStatus.ACCEPTED)
+                .build());
+    }
+
+    private User saveUser(String email) {
+        return userRepository.save(User.builder()
+                .name("user")
+                .surname("user")
+                .email(email)
+                .password("user")
+                .dateOfBirth(new Date(1990, 5, 15))
+                .gender(UserGender.MALE)
+                .city("New York")
+                .country(new Country(1, "Afghanistan"))
+                .personalInformation("Some personal info")
+                .enabled(true)
+                .role(UserRole.USER)
+                .build());
+    }
+}
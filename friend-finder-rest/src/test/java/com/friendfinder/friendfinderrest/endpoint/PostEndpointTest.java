@@ -102,14 +102,14 @@ class PostEndpointTest {
         Post post = createPost();
 
         PostLike mockPostLike = new PostLike();
-        when(likeAndDislikeService.saveReaction(postLikeDto, currentUser, post)).thenReturn(mockPostLike);
+        when(likeAndDislikeService.saveReaction(postLikeDto, currentUser, post.getId())).thenReturn(mockPostLike);
 
-        ResponseEntity<PostLike> response = postEndpoint.addLike(postLikeDto, currentUser, post);
+        ResponseEntity<PostLike> response = postEndpoint.addLike(postLikeDto, currentUser, post.getId());
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(mockPostLike, response.getBody());
 
-        verify(likeAndDislikeService, times(1)).saveReaction(postLikeDto, currentUser, post);
+        verify(likeAndDislikeService, times(1)).saveReaction(postLikeDto, currentUser, post.getId());
     }
 
     @Test
@@ -120,14 +120,14 @@ class PostEndpointTest {
         Post post = createPost();
 
         PostLike mockPostLike = new PostLike();
-        when(likeAndDislikeService.saveReaction(postLikeDto, currentUser, post)).thenReturn(mockPostLike);
+        when(likeAndDislikeService.saveReaction(postLikeDto, currentUser, post.getId())).thenReturn(mockPostLike);
 
-        ResponseEntity<PostLike> response = postEndpoint.addDislike(postLikeDto, currentUser, post);
+        ResponseEntity<PostLike> response = postEndpoint.addDislike(postLikeDto, currentUser, post.getId());
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(mockPostLike, response.getBody());
 
-        verify(likeAndDislikeService, times(1)).saveReaction(postLikeDto, currentUser, post);
+        verify(likeAndDislikeService, times(1)).saveReaction(postLikeDto, currentUser, post.getId());
     }
 
     @Test
@@ -72,14 +72,14 @@ class PostImageEndpointTest {
         Post post = createPost();
 
         PostLike mockPostLike = new PostLike();
-        when(likeAndDislikeService.saveReaction(postLikeDto, currentUser, post)).thenReturn(mockPostLike);
+        when(likeAndDislikeService.saveReaction(postLikeDto, currentUser, post.getId())).thenReturn(mockPostLike);
 
-        ResponseEntity<PostLike> response = postImageEndpoint.addLike(postLikeDto, currentUser, post);
+        ResponseEntity<PostLike> response = postImageEndpoint.addLike(postLikeDto, currentUser, post.getId());
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(mockPostLike, response.getBody());
 
-        verify(likeAndDislikeService, times(1)).saveReaction(postLikeDto, currentUser, post);
+        verify(likeAndDislikeService, times(1)).saveReaction(postLikeDto, currentUser, post.getId());
     }
 
     @Test
@@ -90,14 +90,14 @@ class PostImageEndpointTest {
         Post post = createPost();
 
         PostLike mockPostLike = new PostLike();
-        when(likeAndDislikeService.saveReaction(postLikeDto, currentUser, post)).thenReturn(mockPostLike);
+        when(likeAndDislikeService.saveReaction(postLikeDto, currentUser, post.getId())).thenReturn(mockPostLike);
 
-        ResponseEntity<PostLike> response = postImageEndpoint.addDislike(postLikeDto, currentUser, post);
+        ResponseEntity<PostLike> response = postImageEndpoint.addDislike(postLikeDto, currentUser, post.getId());
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(mockPostLike, response.getBody());
 
-        verify(likeAndDislikeService, times(1)).saveReaction(postLikeDto, currentUser, post);
+        verify(likeAndDislikeService, times(1)).saveReaction(postLikeDto, currentUser, post.getId());
     }
 
     @Test
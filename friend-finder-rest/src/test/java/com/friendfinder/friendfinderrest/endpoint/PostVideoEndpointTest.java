@@ -71,14 +71,14 @@ class PostVideoEndpointTest {
         Post post = createPost();
 
         PostLike mockPostLike = new PostLike();
-        when(likeAndDislikeService.saveReaction(postLikeDto, currentUser, post)).thenReturn(mockPostLike);
+        when(likeAndDislikeService.saveReaction(postLikeDto, currentUser, post.getId())).thenReturn(mockPostLike);
 
-        ResponseEntity<PostLike> response = postVideoEndpoint.addLike(postLikeDto, currentUser, post);
+        ResponseEntity<PostLike> response = postVideoEndpoint.addLike(postLikeDto, currentUser, post.getId());
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(mockPostLike, response.getBody());
 
-        verify(likeAndDislikeService, times(1)).saveReaction(postLikeDto, currentUser, post);
+        verify(likeAndDislikeService, times(1)).saveReaction(postLikeDto, currentUser, post.getId());
     }
 
     @Test
@@ -89,14 +89,14 @@ class PostVideoEndpointTest {
         Post post = createPost();
 
         PostLike mockPostLike = new PostLike();
-        when(likeAndDislikeService.saveReaction(postLikeDto, currentUser, post)).thenReturn(mockPostLike);
+        when(likeAndDislikeService.saveReaction(postLikeDto, currentUser, post.getId())).thenReturn(mockPostLike);
 
-        ResponseEntity<PostLike> response = postVideoEndpoint.addDislike(postLikeDto, currentUser, post);
+        ResponseEntity<PostLike> response = postVideoEndpoint.addDislike(postLikeDto, currentUser, post.getId());
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(mockPostLike, response.getBody());
 
-        verify(likeAndDislikeService, times(1)).saveReaction(postLikeDto, currentUser, post);
+        verify(likeAndDislikeService, times(1)).saveReaction(postLikeDto, currentUser, post.getId());
     }
 
     @Test
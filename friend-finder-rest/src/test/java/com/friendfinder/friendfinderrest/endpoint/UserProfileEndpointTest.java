@@ -143,14 +143,14 @@ class UserProfileEndpointTest {
         Post post = createPost();
 
         PostLike mockPostLike = new PostLike();
-        when(likeAndDislikeService.saveReaction(postLikeDto, currentUser, post)).thenReturn(mockPostLike);
+        when(likeAndDislikeService.saveReaction(postLikeDto, currentUser, post.getId())).thenReturn(mockPostLike);
 
-        ResponseEntity<PostLike> response = userProfileEndpoint.addLike(postLikeDto, currentUser, post);
+        ResponseEntity<PostLike> response = userProfileEndpoint.addLike(postLikeDto, currentUser, post.getId());
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(mockPostLike, response.getBody());
 
-        verify(likeAndDislikeService, times(1)).saveReaction(postLikeDto, currentUser, post);
+        verify(likeAndDislikeService, times(1)).saveReaction(postLikeDto, currentUser, post.getId());
     }
 
     @Test
@@ -161,14 +161,14 @@ class UserProfileEndpointTest {
         Post post = createPost();
 
         PostLike mockPostLike = new PostLike();
-        when(likeAndDislikeService.saveReaction(postLikeDto, currentUser, post)).thenReturn(mockPostLike);
+        when(likeAndDislikeService.saveReaction(postLikeDto, currentUser, post.getId())).thenReturn(mockPostLike);
 
-        ResponseEntity<PostLike> response = userProfileEndpoint.addDislike(postLikeDto, currentUser, post);
+        ResponseEntity<PostLike> response = userProfileEndpoint.addDislike(postLikeDto, currentUser, post.getId());
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(mockPostLike, response.getBody());
 
-        verify(likeAndDislikeService, times(1)).saveReaction(postLikeDto, currentUser, post);
+        verify(likeAndDislikeService, times(1)).saveReaction(postLikeDto, currentUser, post.getId());
     }
 
     @Test
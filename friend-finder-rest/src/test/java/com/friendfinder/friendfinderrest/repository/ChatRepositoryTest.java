@@ -0,0 +1,148 @@
+package com.friendfinder.friendfinderrest.repository;
+
+import com.friendfinder.friendfindercommon.entity.Chat;
+import com.friendfinder.friendfindercommon.entity.Message;
+import com.friendfinder.friendfindercommon.entity.User;
+import com.friendfinder.friendfindercommon.repository.ChatRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the native queries of ChatRepository against an H2 database in MySQL mode. The changelog relies on the foreign
+ * key names MySQL generates, so the schema is created from the entity mappings, which use the same column names.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:chat-repository;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE",
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = ChatRepositoryTest.Config.class)
+class ChatRepositoryTest {
+
+    @EntityScan(basePackageClasses = Chat.class)
+    @EnableJpaRepositories(basePackageClasses = ChatRepository.class,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = ChatRepository.class))
+    static class Config {
+    }
+
+    @Autowired
+    private ChatRepository chatRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User user(String name, String profilePic) {
+        return entityManager.persist(User.builder()
+                .name(name)
+                .surname(name + "yan")
+                .email(name + "@friendfinder.com")
+                .password("password")
+                .profilePicture(profilePic)
+                .build());
+    }
+
+    private Chat chat(User current, User another, int currentUnread, int anotherUnread, LocalDateTime lastMessageAt) {
+        return entityManager.persist(Chat.builder()
+                .currentUser(current)
+                .anotherUser(another)
+                .lowUserId(Math.min(current.getId(), another.getId()))
+                .highUserId(Math.max(current.getId(), another.getId()))
+                .currentUserUnread(currentUnread)
+                .anotherUserUnread(anotherUnread)
+                .lastMessageSnippet("hi " + another.getName())
+                .lastMessageAt(lastMessageAt)
+                .build());
+    }
+
+    @Test
+    void testFindConversations_BothSidesNewestFirstWithCounterpartAndOwnUnread() {
+        User me = user("anna", "ab/cd/me.png");
+        User karen = user("karen", "ab/cd/karen.png");
+        User lilit = user("lilit", null);
+        LocalDateTime now = LocalDateTime.of(2023, 7, 1, 12, 0);
+        Chat older = chat(me, karen, 2, 5, now.minusHours(1));
+        Chat newer = chat(lilit, me, 7, 3, now);
+        entityManager.flush();
+
+        List<Object[]> rows = chatRepository.findConversations(me.getId(), 10, 0);
+
+        assertEquals(2, rows.size());
+        assertEquals(newer.getId(), ((Number) rows.get(0)[0]).intValue());
+        assertEquals(lilit.getId(), ((Number) rows.get(0)[1]).intValue());
+        assertEquals("lilit", rows.get(0)[2]);
+        assertNull(rows.get(0)[4]);
+        assertEquals(3, ((Number) rows.get(0)[7]).intValue());
+        assertEquals(older.getId(), ((Number) rows.get(1)[0]).intValue());
+        assertEquals("ab/cd/karen.png", rows.get(1)[4]);
+        assertEquals("hi karen", rows.get(1)[5]);
+        assertEquals(2, ((Number) rows.get(1)[7]).intValue());
+        assertEquals(1, chatRepository.findConversations(me.getId(), 1, 1).size());
+    }
+
+    private Message message(Chat chat, User sender, User receiver) {
+        return entityManager.persist(Message.builder()
+                .chat(chat)
+                .sender(sender)
+                .receiver(receiver)
+                .content("hi " + receiver.getName())
+                .sentAt(LocalDateTime.of(2023, 7, 1, 12, 0))
+                .build());
+    }
+
+    @Test
+    void testMarkRead_CountsMessagesAfterTheNewPointer() {
+        User me = user("anna", null);
+        User karen = user("karen", null);
+        Chat chat = chat(me, karen, 3, 0, LocalDateTime.of(2023, 7, 1, 12, 0));
+        message(chat, karen, me);
+        Message read = message(chat, karen, me);
+        message(chat, karen, me);
+        message(chat, me, karen);
+        entityManager.flush();
+
+        assertEquals(1, chatRepository.markRead(chat.getId(), me.getId(), read.getId()));
+        entityManager.clear();
+
+        Chat updated = chatRepository.findById(chat.getId()).orElseThrow();
+        assertEquals(read.getId(), updated.getCurrentUserReadId());
+        assertEquals(1, updated.getCurrentUserUnread());
+        assertEquals(0, updated.getAnotherUserReadId());
+        assertEquals(0, updated.getAnotherUserUnread());
+    }
+
+    @Test
+    void testBatchUpdate_IncrementsBeforeSenderRecounts_CountsEachMessageOnce() {
+        User anna = user("anna", null);
+        User karen = user("karen", null);
+        Chat chat = chat(anna, karen, 0, 0, LocalDateTime.of(2023, 7, 1, 12, 0));
+        // one group-committed batch: both messages are inserted before the chat is updated
+        Message toKaren = message(chat, anna, karen);
+        Message toAnna = message(chat, karen, anna);
+        entityManager.flush();
+
+        // the order MessageWriter.updateChats uses
+        chatRepository.addUnread(chat.getId(), karen.getId(), 1);
+        chatRepository.addUnread(chat.getId(), anna.getId(), 1);
+        chatRepository.markRead(chat.getId(), anna.getId(), toKaren.getId());
+        chatRepository.markRead(chat.getId(), karen.getId(), toAnna.getId());
+        entityManager.clear();
+
+        Chat updated = chatRepository.findById(chat.getId()).orElseThrow();
+        assertEquals(1, updated.getCurrentUserUnread());
+        assertEquals(0, updated.getAnotherUserUnread());
+    }
+}
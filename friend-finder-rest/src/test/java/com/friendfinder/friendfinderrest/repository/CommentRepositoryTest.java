@@ -0,0 +1,127 @@
+package com.friendfinder.friendfinderrest.repository;
+
+import com.friendfinder.friendfindercommon.dto.feedDto.FeedCommentDto;
+import com.friendfinder.friendfindercommon.entity.Comment;
+import com.friendfinder.friendfindercommon.entity.Post;
+import com.friendfinder.friendfindercommon.entity.User;
+import com.friendfinder.friendfindercommon.repository.CommentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the window function query of CommentRepository against an H2 database in MySQL mode, with the schema created
+ * from the entity mappings like in ChatRepositoryTest.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:comment-repository;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE",
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = CommentRepositoryTest.Config.class)
+class CommentRepositoryTest {
+
+    @EntityScan(basePackageClasses = Comment.class)
+    @EnableJpaRepositories(basePackageClasses = CommentRepository.class,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = CommentRepository.class))
+    static class Config {
+    }
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User user(String name) {
+        return entityManager.persist(User.builder()
+                .name(name)
+                .surname(name + "yan")
+                .email(name + "@friendfinder.com")
+                .password("password")
+                .profilePicture("ab/cd/" + name + ".png")
+                .build());
+    }
+
+    private Post post(User author) {
+        return entityManager.persist(Post.builder()
+                .description("post of " + author.getName())
+                .postDatetime(new Date())
+                .user(author)
+                .build());
+    }
+
+    private Comment comment(Post post, User author, String text) {
+        return entityManager.persist(Comment.builder()
+                .post(post)
+                .user(author)
+                .commentaryText(text)
+                .datetime(LocalDateTime.of(2023, 7, 1, 12, 0))
+                .build());
+    }
+
+    @Test
+    void testFindLatestByPostIdIn_LatestCommentsOfEveryPostWithTheirAuthors() {
+        User anna = user("anna");
+        User karen = user("karen");
+        Post first = post(anna);
+        Post second = post(karen);
+        Post other = post(karen);
+        comment(first, karen, "first 1");
+        Comment firstTwo = comment(first, anna, "first 2");
+        Comment firstThree = comment(first, karen, "first 3");
+        Comment secondOne = comment(second, anna, "second 1");
+        comment(other, anna, "other 1");
+        entityManager.flush();
+
+        List<Object[]> rows = commentRepository.findLatestByPostIdIn(List.of(first.getId(), second.getId()), 2);
+
+        assertEquals(List.of(firstTwo.getId(), firstThree.getId(), secondOne.getId()),
+                rows.stream().map(row -> ((Number) row[0]).intValue()).toList());
+        Object[] row = rows.get(1);
+        assertEquals(first.getId(), ((Number) row[1]).intValue());
+        assertEquals(karen.getId(), ((Number) row[2]).intValue());
+        assertEquals("karen", row[3]);
+        assertEquals("karenyan", row[4]);
+        assertEquals("ab/cd/karen.png", row[5]);
+        assertEquals("first 3", row[6]);
+        assertNotNull(row[7]);
+    }
+
+    @Test
+    void testFindByPostIdBefore_CommentRowsNewestFirst() {
+        User anna = user("anna");
+        User karen = user("karen");
+        Post post = post(anna);
+        Comment first = comment(post, karen, "first");
+        Comment second = comment(post, anna, "second");
+        Comment third = comment(post, karen, "third");
+        entityManager.flush();
+
+        List<FeedCommentDto> comments = commentRepository.findByPostIdBefore(post.getId(), third.getId(), PageRequest.of(0, 10));
+
+        assertEquals(List.of(second.getId(), first.getId()), comments.stream().map(FeedCommentDto::getId).toList());
+        FeedCommentDto comment = comments.get(1);
+        assertEquals(karen.getId(), comment.getUserId());
+        assertEquals("karen", comment.getUserName());
+        assertEquals("karenyan", comment.getUserSurname());
+        assertEquals("ab/cd/karen.png", comment.getUserProfilePicture());
+        assertEquals("first", comment.getCommentaryText());
+        assertNotNull(comment.getDatetime());
+    }
+}
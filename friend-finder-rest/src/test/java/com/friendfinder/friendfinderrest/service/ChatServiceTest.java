@@ -1,12 +1,17 @@
 package com.friendfinder.friendfinderrest.service;
 
+import com.friendfinder.friendfindercommon.cache.FriendGraph;
+import com.friendfinder.friendfindercommon.cache.ReadReceiptBuffer;
+import com.friendfinder.friendfindercommon.dto.chatDto.ConversationDto;
+import com.friendfinder.friendfindercommon.dto.chatDto.ConversationPageDto;
 import com.friendfinder.friendfindercommon.entity.Chat;
+import com.friendfinder.friendfindercommon.entity.Message;
 import com.friendfinder.friendfindercommon.entity.User;
 import com.friendfinder.friendfindercommon.mapper.UserRegisterMapper;
 import com.friendfinder.friendfindercommon.repository.ChatRepository;
 import com.friendfinder.friendfindercommon.repository.CountryRepository;
 import com.friendfinder.friendfindercommon.repository.UserRepository;
-import com.friendfinder.friendfindercommon.service.FriendRequestService;
+import com.friendfinder.friendfindercommon.service.MediaStorageService;
 import com.friendfinder.friendfindercommon.service.impl.ChatServiceImpl;
 import com.friendfinder.friendfindercommon.service.impl.MailService;
 import com.friendfinder.friendfindercommon.service.impl.UserServiceImpl;
@@ -16,9 +21,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.mail.MailSender;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -38,13 +46,18 @@ class ChatServiceTest {
     @Mock
     PasswordEncoder passwordEncoder;
     @Mock
-    FriendRequestService friendRequestService;
-    @Mock
     UserRegisterMapper userRegisterMapper;
     @Mock
     CountryRepository countryRepository;
     @Mock
     MailSender mailSender;
+    @Mock
+    FriendGraph friendGraph;
+
+    @Mock
+    MediaStorageService mediaStorageService;
+    @Mock
+    ReadReceiptBuffer readReceiptBuffer;
 
     @InjectMocks
     private ChatServiceImpl chatService;
@@ -55,8 +68,9 @@ class ChatServiceTest {
     @BeforeEach
     public void setUp() {
         MailService mailService = new MailService(mailSender);
-        chatService = new ChatServiceImpl(chatRepository, userService);
-        userService = new UserServiceImpl(passwordEncoder, friendRequestService, userRegisterMapper, countryRepository, userRepository, mailService);
+        chatService = new ChatServiceImpl(chatRepository, userService, readReceiptBuffer);
+        userService = new UserServiceImpl(passwordEncoder, userRegisterMapper, countryRepository, userRepository, mailService, friendGraph,
+                mediaStorageService);
     }
 
     @Test
@@ -135,13 +149,12 @@ class ChatServiceTest {
         currentUser.setId(1);
 
         when(userService.findUserById(userId)).thenReturn(Optional.of(currentUser));
-        when(chatRepository.findByCurrentUserIdAndAnotherUserId(user.getId(), userId)).thenReturn(Optional.empty());
-        when(chatRepository.findByCurrentUserIdAndAnotherUserId(userId, user.getId())).thenReturn(Optional.empty());
+        when(chatRepository.findByLowUserIdAndHighUserId(1, 2)).thenReturn(Optional.empty());
 
         boolean result = chatService.create(userId, user);
 
         assertTrue(result);
-        verify(chatRepository, times(1)).save(any());
+        verify(chatRepository, times(1)).save(argThat(chat -> chat.getLowUserId() == 1 && chat.getHighUserId() == 2));
     }
 
     @Test
@@ -180,11 +193,100 @@ class ChatServiceTest {
         currentUser.setId(1);
 
         when(userService.findUserById(userId)).thenReturn(Optional.of(currentUser));
-        when(chatRepository.findByCurrentUserIdAndAnotherUserId(user.getId(), userId)).thenReturn(Optional.of(new Chat()));
+        when(chatRepository.findByLowUserIdAndHighUserId(1, 2)).thenReturn(Optional.of(new Chat()));
 
         boolean result = chatService.create(userId, user);
 
         assertFalse(result);
         verify(chatRepository, never()).save(any());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCreateConcurrentCreateLosesOnUniqueIndex() {
+        User user = new User();
+        user.setId(2);
+        User anotherUser = new User();
+        anotherUser.setId(1);
+
+        when(userService.findUserById(1)).thenReturn(Optional.of(anotherUser));
+        when(chatRepository.findByLowUserIdAndHighUserId(1, 2)).thenReturn(Optional.empty());
+        when(chatRepository.save(any())).thenThrow(new DataIntegrityViolationException("chat_user_pair_uq"));
+
+        assertFalse(chatService.create(1, user));
+    }
+
+    @Test
+    void testFindByUserPair_OrderIndependent() {
+        Chat chat = new Chat();
+        when(chatRepository.findByLowUserIdAndHighUserId(3, 8)).thenReturn(Optional.of(chat));
+
+        assertSame(chat, chatService.findByUserPair(8, 3).orElseThrow());
+        assertSame(chat, chatService.findByUserPair(3, 8).orElseThrow());
+    }
+
+    @Test
+    void testConversations_MapsRowsAndNextPage() {
+        LocalDateTime sentAt = LocalDateTime.of(2023, 7, 1, 12, 0);
+        when(chatRepository.findConversations(1, 3, 2)).thenReturn(List.of(
+                new Object[]{7, 2, "Anna", "Petrosyan", null, "hi", Timestamp.valueOf(sentAt), 3L},
+                new Object[]{4, 5, "Aram", "Sargsyan", "pic.jpg", null, Timestamp.valueOf(sentAt), 0L},
+                new Object[]{2, 6, "Mane", "Grigoryan", null, null, Timestamp.valueOf(sentAt), 0L}));
+
+        ConversationPageDto page = chatService.conversations(1, 1, 2);
+
+        assertEquals(2, page.getConversations().size());
+        ConversationDto first = page.getConversations().get(0);
+        assertEquals(7, first.getChatId());
+        assertEquals(2, first.getUserId());
+        assertEquals("hi", first.getLastMessage());
+        assertEquals(sentAt, first.getLastMessageAt());
+        assertEquals(3, first.getUnreadCount());
+        assertEquals(2, page.getNextPage());
+    }
+
+    @Test
+    void testConversations_LastPage() {
+        when(chatRepository.findConversations(1, 21, 0)).thenReturn(new ArrayList<>());
+
+        ConversationPageDto page = chatService.conversations(1, 0, 20);
+
+        assertTrue(page.getConversations().isEmpty());
+        assertNull(page.getNextPage());
+    }
+
+    @Test
+    void testUpdateLastMessage_TruncatesSnippetAndMarksSenderRead() {
+        Chat chat = new Chat();
+        chat.setId(3);
+        User sender = new User();
+        sender.setId(1);
+        LocalDateTime sentAt = LocalDateTime.now();
+        Message message = Message.builder()
+                .id(10)
+                .chat(chat)
+                .sender(sender)
+                .content("a".repeat(300))
+                .sentAt(sentAt)
+                .build();
+
+        chatService.updateLastMessage(message);
+
+        verify(chatRepository).updateLastMessage(3, "a".repeat(255), sentAt);
+        verify(chatRepository).markRead(3, 1, 10);
+    }
+
+    @Test
+    void testMarkRead_GoesThroughReadReceiptBuffer() {
+        chatService.markRead(3, 1, 10);
+
+        verify(readReceiptBuffer).acknowledge(3, 1, 10);
+        verify(chatRepository, never()).markRead(anyInt(), anyInt(), anyInt());
+    }
+
+    @Test
+    void testTotalUnread_SumsCounters() {
+        when(chatRepository.sumUnread(1)).thenReturn(7L);
+
+        assertEquals(7, chatService.totalUnread(1));
+    }
+}
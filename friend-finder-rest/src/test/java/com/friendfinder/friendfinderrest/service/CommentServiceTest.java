@@ -1,10 +1,13 @@
 package com.friendfinder.friendfinderrest.service;
 
+import com.friendfinder.friendfindercommon.dto.commentDto.CommentPageResponseDto;
 import com.friendfinder.friendfindercommon.dto.commentDto.CommentRequestDto;
+import com.friendfinder.friendfindercommon.dto.feedDto.FeedCommentDto;
 import com.friendfinder.friendfindercommon.entity.Comment;
 import com.friendfinder.friendfindercommon.entity.Post;
 import com.friendfinder.friendfindercommon.mapper.CommentMapper;
 import com.friendfinder.friendfindercommon.repository.CommentRepository;
+import com.friendfinder.friendfindercommon.repository.PostRepository;
 import com.friendfinder.friendfindercommon.security.CurrentUser;
 import com.friendfinder.friendfindercommon.service.UserActivityService;
 import com.friendfinder.friendfindercommon.service.impl.CommentServiceImpl;
@@ -15,6 +18,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -24,6 +28,8 @@ import static com.friendfinder.friendfinderrest.util.TestUtil.createComment;
 import static com.friendfinder.friendfinderrest.util.TestUtil.mockCurrentUser;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -42,13 +48,16 @@ import static org.mockito.Mockito.when;
     @Mock
     private UserActivityService userActivityService;
 
+    @Mock
+    private PostRepository postRepository;
+
     @InjectMocks
     private CommentServiceImpl commentService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        commentService = new CommentServiceImpl(commentRepository, userActivityService,commentMapper);
+        commentService = new CommentServiceImpl(commentRepository, userActivityService, commentMapper, postRepository);
         currentUser = mockCurrentUser();
     }
 
@@ -81,6 +90,7 @@ import static org.mockito.Mockito.when;
         when(commentMapper.map(any(CommentRequestDto.class))).thenReturn(savedComment);
         Comment result = commentService.addComment(commentDto, currentUser, post);
         assertNull(result);
+        verify(postRepository).updateCommentCount(post.getId(), 1);
     }
 
     @Test
@@ -93,6 +103,41 @@ import static org.mockito.Mockito.when;
         Comment deleteComment = commentService.deleteComment(postId);
 
         assertNull(deleteComment, "Deleted comment should be null for non-existing ID.");
+        verify(postRepository).updateCommentCount(comment.getPost().getId(), -1);
+    }
+
+    @Test
+    void testDeleteComment_NotFound_CountUnchanged() {
+        when(commentRepository.findById(1)).thenReturn(Optional.empty());
+
+        commentService.deleteComment(1);
+
+        verify(postRepository, never()).updateCommentCount(any(Integer.class), any(Integer.class));
+    }
+
+    @Test
+    void testCommentsBefore_ReturnsNextCursorWhenMoreRows() {
+        FeedCommentDto newest = FeedCommentDto.builder().id(9).build();
+        FeedCommentDto older = FeedCommentDto.builder().id(7).build();
+        FeedCommentDto oldest = FeedCommentDto.builder().id(3).build();
+        when(commentRepository.findByPostIdBefore(1, 10, PageRequest.of(0, 3)))
+                .thenReturn(List.of(newest, older, oldest));
+
+        CommentPageResponseDto result = commentService.commentsBefore(1, 10, 2);
+
+        assertEquals(2, result.getComments().size());
+        assertEquals(7, result.getNextCursor());
+    }
+
+    @Test
+    void testCommentsBefore_LastPage() {
+        FeedCommentDto comment = FeedCommentDto.builder().id(4).build();
+        when(commentRepository.findByPostIdBefore(1, Integer.MAX_VALUE, PageRequest.of(0, 11)))
+                .thenReturn(List.of(comment));
+
+        CommentPageResponseDto result = commentService.commentsBefore(1, null, 10);
 
+        assertEquals(1, result.getComments().size());
+        assertNull(result.getNextCursor());
     }
 }
@@ -0,0 +1,126 @@
+package com.friendfinder.friendfinderrest.service;
+
+import com.friendfinder.friendfindercommon.cache.ReactionCounterBuffer;
+import com.friendfinder.friendfindercommon.entity.types.LikeStatus;
+import com.friendfinder.friendfindercommon.repository.PostLikeRepository;
+import com.friendfinder.friendfindercommon.repository.PostRepository;
+import com.friendfinder.friendfindercommon.service.impl.CounterReconciliationServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CounterReconciliationServiceTest {
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private PostLikeRepository postLikeRepository;
+
+    @Mock
+    private ReactionCounterBuffer reactionCounterBuffer;
+
+    private CounterReconciliationServiceImpl counterReconciliationService;
+
+    @BeforeEach
+    void setUp() {
+        counterReconciliationService = new CounterReconciliationServiceImpl(postRepository, postLikeRepository,
+                reactionCounterBuffer);
+        ReflectionTestUtils.setField(counterReconciliationService, "chunkSize", 2);
+        ReflectionTestUtils.setField(counterReconciliationService, "threads", 2);
+        ReflectionTestUtils.setField(counterReconciliationService, "pauseMillis", 0L);
+    }
+
+    @Test
+    void testReconcile_FixesOnlyDriftedPostsInEveryChunk() {
+        when(postRepository.findMaxId()).thenReturn(3);
+        when(postRepository.findReactionCountsByIdBetween(1, 2))
+                .thenReturn(List.of(new Object[]{1, 2, 0}, new Object[]{2, 5, 1}));
+        when(postRepository.findReactionCountsByIdBetween(3, 3))
+                .thenReturn(Collections.singletonList(new Object[]{3, 0, 0}));
+        when(postLikeRepository.countReactionsByPostIdBetween(1, 2))
+                .thenReturn(List.of(new Object[]{1, LikeStatus.LIKE, 2L}, new Object[]{2, LikeStatus.LIKE, 4L}));
+        when(postLikeRepository.countReactionsByPostIdBetween(3, 3))
+                .thenReturn(Collections.singletonList(new Object[]{3, LikeStatus.DISLIKE, 1L}));
+        when(postRepository.replaceReactionCounts(anyInt(), anyInt(), anyInt(), anyInt(), anyInt())).thenReturn(1);
+
+        int fixed = counterReconciliationService.reconcile();
+
+        assertEquals(2, fixed);
+        verify(postRepository).replaceReactionCounts(2, 5, 1, 4, 0);
+        verify(postRepository).replaceReactionCounts(3, 0, 0, 0, 1);
+        verify(postRepository, never()).replaceReactionCounts(eq(1), anyInt(), anyInt(), anyInt(), anyInt());
+        assertFalse(counterReconciliationService.isRunning());
+    }
+
+    @Test
+    void testReconcile_WriteBehindActive_DoesNotRun() {
+        when(reactionCounterBuffer.isWriteBehindActive()).thenReturn(true);
+
+        assertEquals(0, counterReconciliationService.reconcile());
+        verifyNoInteractions(postRepository, postLikeRepository);
+        assertFalse(counterReconciliationService.isRunning());
+    }
+
+    @Test
+    void testReconcile_WriteBehindBecomesActive_StopsBeforeNextChunk() {
+        when(reactionCounterBuffer.isWriteBehindActive()).thenReturn(false, false, true);
+        ReflectionTestUtils.setField(counterReconciliationService, "threads", 1);
+        when(postRepository.findMaxId()).thenReturn(3);
+        when(postRepository.findReactionCountsByIdBetween(1, 2))
+                .thenReturn(Collections.singletonList(new Object[]{1, 0, 0}));
+        when(postLikeRepository.countReactionsByPostIdBetween(1, 2))
+                .thenReturn(Collections.singletonList(new Object[]{1, LikeStatus.LIKE, 1L}));
+        when(postRepository.replaceReactionCounts(1, 0, 0, 1, 0)).thenReturn(1);
+
+        assertEquals(1, counterReconciliationService.reconcile());
+        verify(postRepository, never()).findReactionCountsByIdBetween(3, 3);
+    }
+
+    @Test
+    void testReconcile_NoPosts() {
+        when(postRepository.findMaxId()).thenReturn(0);
+
+        assertEquals(0, counterReconciliationService.reconcile());
+        verifyNoInteractions(postLikeRepository);
+    }
+
+    @Test
+    void testStartReconcile_RunsInBackgroundAndRejectsSecondStart() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(postRepository.findMaxId()).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return 0;
+        });
+
+        assertTrue(counterReconciliationService.startReconcile());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(counterReconciliationService.isRunning());
+        assertFalse(counterReconciliationService.startReconcile());
+        assertEquals(0, counterReconciliationService.reconcile());
+
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (counterReconciliationService.isRunning() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(counterReconciliationService.isRunning());
+        verify(postRepository, times(1)).findMaxId();
+        counterReconciliationService.shutdown();
+    }
+}
@@ -0,0 +1,123 @@
+package com.friendfinder.friendfinderrest.service;
+
+import com.friendfinder.friendfindercommon.cache.ReactionCounterBuffer;
+import com.friendfinder.friendfindercommon.dto.feedDto.FeedCommentDto;
+import com.friendfinder.friendfindercommon.dto.feedDto.FeedPageDto;
+import com.friendfinder.friendfindercommon.dto.feedDto.FeedPostDto;
+import com.friendfinder.friendfindercommon.dto.postDto.PostFeedResponseDto;
+import com.friendfinder.friendfindercommon.entity.Post;
+import com.friendfinder.friendfindercommon.entity.types.LikeStatus;
+import com.friendfinder.friendfindercommon.repository.CommentRepository;
+import com.friendfinder.friendfindercommon.repository.PostLikeRepository;
+import com.friendfinder.friendfindercommon.service.impl.FeedAssemblerServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static com.friendfinder.friendfinderrest.util.TestUtil.createPost;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FeedAssemblerServiceTest {
+
+    @Mock
+    private CommentRepository commentRepository;
+
+    @Mock
+    private PostLikeRepository postLikeRepository;
+
+    @Mock
+    private ReactionCounterBuffer reactionCounterBuffer;
+
+    private FeedAssemblerServiceImpl feedAssemblerService;
+
+    @BeforeEach
+    void setUp() {
+        feedAssemblerService = new FeedAssemblerServiceImpl(commentRepository, postLikeRepository, reactionCounterBuffer);
+        ReflectionTestUtils.setField(feedAssemblerService, "commentPreviewSize", 2);
+    }
+
+    private Post post(int id) {
+        Post post = createPost();
+        post.setId(id);
+        return post;
+    }
+
+    private static Object[] comment(int id, Post post) {
+        return new Object[]{id, post.getId(), 3, "karen", "karenyan", "ab/cd/karen.png", "comment " + id,
+                Timestamp.valueOf(LocalDateTime.of(2023, 7, 1, 12, id))};
+    }
+
+    @Test
+    void testAssemble_GroupsCommentsAndReactionsPerPost() {
+        Post first = post(9);
+        first.setCommentCount(3);
+        first.setLikeCount(10);
+        Post second = post(4);
+        second.setCommentCount(1);
+        List<Integer> postIds = List.of(9, 4);
+        when(commentRepository.findLatestByPostIdIn(postIds, 2))
+                .thenReturn(List.of(comment(11, second), comment(12, first), comment(13, first)));
+        when(postLikeRepository.findReactionsByUserIdAndPostIdIn(1, postIds))
+                .thenReturn(Collections.singletonList(new Object[]{4, LikeStatus.DISLIKE}));
+        when(reactionCounterBuffer.pendingLikes(anyInt())).thenAnswer(invocation -> invocation.<Integer>getArgument(0) == 9 ? 2L : 0L);
+        when(reactionCounterBuffer.pendingDislikes(anyInt())).thenAnswer(invocation -> invocation.<Integer>getArgument(0) == 4 ? 1L : 0L);
+
+        List<FeedPostDto> result = feedAssemblerService.assemble(List.of(first, second), 1);
+
+        assertEquals(2, result.size());
+        assertEquals(9, result.get(0).getId());
+        assertEquals(first.getUser().getId(), result.get(0).getUserId());
+        assertEquals(first.getUser().getName(), result.get(0).getUserName());
+        assertEquals(first.getImgName(), result.get(0).getImgName());
+        assertEquals(List.of(12, 13), result.get(0).getComments().stream().map(FeedCommentDto::getId).toList());
+        FeedCommentDto latest = result.get(0).getComments().get(1);
+        assertEquals(3, latest.getUserId());
+        assertEquals("karen", latest.getUserName());
+        assertEquals("ab/cd/karen.png", latest.getUserProfilePicture());
+        assertEquals("comment 13", latest.getCommentaryText());
+        assertEquals(LocalDateTime.of(2023, 7, 1, 12, 13), latest.getDatetime());
+        assertEquals(3, result.get(0).getCommentCount());
+        assertNull(result.get(0).getViewerReaction());
+        assertEquals(12, result.get(0).getLikeCount());
+        assertEquals(4, result.get(1).getId());
+        assertEquals(1, result.get(1).getComments().size());
+        assertEquals(1, result.get(1).getCommentCount());
+        assertEquals(LikeStatus.DISLIKE, result.get(1).getViewerReaction());
+        assertEquals(1, result.get(1).getDislikeCount());
+    }
+
+    @Test
+    void testAssemble_EmptyPage_NoQueries() {
+        List<FeedPostDto> result = feedAssemblerService.assemble(Collections.emptyList(), 1);
+
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(commentRepository, postLikeRepository, reactionCounterBuffer);
+    }
+
+    @Test
+    void testAssembleFeed_KeepsNextCursor() {
+        Post post = post(5);
+        when(commentRepository.findLatestByPostIdIn(List.of(5), 2)).thenReturn(Collections.emptyList());
+        when(postLikeRepository.findReactionsByUserIdAndPostIdIn(1, List.of(5))).thenReturn(Collections.emptyList());
+
+        FeedPageDto result = feedAssemblerService.assemble(PostFeedResponseDto.builder()
+                .posts(List.of(post))
+                .nextCursor(5)
+                .build(), 1);
+
+        assertEquals(5, result.getNextCursor());
+        assertEquals(1, result.getPosts().size());
+        assertEquals(0, result.getPosts().get(0).getCommentCount());
+        assertTrue(result.getPosts().get(0).getComments().isEmpty());
+    }
+}
@@ -0,0 +1,146 @@
+package com.friendfinder.friendfinderrest.service;
+
+import com.friendfinder.friendfindercommon.cache.FriendGraph;
+import com.friendfinder.friendfindercommon.entity.Post;
+import com.friendfinder.friendfindercommon.entity.types.FriendStatus;
+import com.friendfinder.friendfindercommon.repository.FeedInboxRepository;
+import com.friendfinder.friendfindercommon.repository.PostRepository;
+import com.friendfinder.friendfindercommon.service.impl.FeedInboxServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.List;
+
+import static com.friendfinder.friendfinderrest.util.TestUtil.createPost;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FeedInboxServiceTest {
+
+    @Mock
+    private FeedInboxRepository feedInboxRepository;
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private FriendGraph friendGraph;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private FeedInboxServiceImpl feedInboxService;
+
+    @BeforeEach
+    void setUp() {
+        feedInboxService = new FeedInboxServiceImpl(feedInboxRepository, postRepository, friendGraph, transactionTemplate);
+        ReflectionTestUtils.setField(feedInboxService, "maxFanOutFriends", 10);
+    }
+
+    private Post post(int id) {
+        Post post = createPost();
+        post.setId(id);
+        return post;
+    }
+
+    private void runTransactionsInline() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void testFanOut_InsertsIntoFriendsInboxes() {
+        Post post = post(5);
+        runTransactionsInline();
+        when(friendGraph.friendCount(post.getUser().getId())).thenReturn(3);
+        when(postRepository.markFannedOut(5)).thenReturn(1);
+
+        feedInboxService.fanOut(post);
+
+        verify(feedInboxRepository).fanOutPost(5, post.getUser().getId());
+    }
+
+    @Test
+    void testFanOut_SkipsAuthorsAboveThreshold() {
+        Post post = post(5);
+        when(friendGraph.friendCount(post.getUser().getId())).thenReturn(11);
+
+        feedInboxService.fanOut(post);
+
+        verify(postRepository, never()).markFannedOut(anyInt());
+        verify(feedInboxRepository, never()).fanOutPost(anyInt(), anyInt());
+    }
+
+    @Test
+    void testFanOut_AlreadyFannedOut() {
+        Post post = post(5);
+        runTransactionsInline();
+        when(friendGraph.friendCount(post.getUser().getId())).thenReturn(3);
+        when(postRepository.markFannedOut(5)).thenReturn(0);
+
+        feedInboxService.fanOut(post);
+
+        verify(feedInboxRepository, never()).fanOutPost(anyInt(), anyInt());
+    }
+
+    @Test
+    void testFeedBefore_MergesInboxWithPulledPosts() {
+        PageRequest pageRequest = PageRequest.of(0, 3);
+        when(feedInboxRepository.findPostIdsByOwnerIdBefore(1, 100, pageRequest)).thenReturn(List.of(9, 6, 4));
+        when(postRepository.findPostsWithUserByIdIn(List.of(9, 6, 4))).thenReturn(List.of(post(4), post(9), post(6)));
+        when(postRepository.findNotFannedOutFriendsPostsBefore(1, FriendStatus.ACCEPTED, 100, pageRequest))
+                .thenReturn(List.of(post(7), post(2)));
+
+        List<Post> feed = feedInboxService.feedBefore(1, 100, 3);
+
+        assertEquals(List.of(9, 7, 6), feed.stream().map(Post::getId).toList());
+    }
+
+    @Test
+    void testFeedBefore_EmptyInbox() {
+        PageRequest pageRequest = PageRequest.of(0, 5);
+        when(feedInboxRepository.findPostIdsByOwnerIdBefore(1, 100, pageRequest)).thenReturn(Collections.emptyList());
+        when(postRepository.findNotFannedOutFriendsPostsBefore(1, FriendStatus.ACCEPTED, 100, pageRequest))
+                .thenReturn(Collections.emptyList());
+
+        assertTrue(feedInboxService.feedBefore(1, 100, 5).isEmpty());
+        verify(postRepository, never()).findPostsWithUserByIdIn(any());
+    }
+
+    @Test
+    void testAddAndRemoveFriendship() {
+        feedInboxService.addFriendship(1, 2);
+        feedInboxService.removeFriendship(1, 2);
+
+        verify(feedInboxRepository).copyAuthorPosts(1, 2);
+        verify(feedInboxRepository).copyAuthorPosts(2, 1);
+        verify(feedInboxRepository).deleteByOwnerIdAndAuthorId(1, 2);
+        verify(feedInboxRepository).deleteByOwnerIdAndAuthorId(2, 1);
+    }
+
+    @Test
+    void testBackfill() {
+        Post first = post(1);
+        Post second = post(2);
+        runTransactionsInline();
+        when(postRepository.findNotFannedOutAfter(0, PageRequest.of(0, 500))).thenReturn(List.of(first, second));
+        when(friendGraph.friendCount(first.getUser().getId())).thenReturn(3);
+        when(postRepository.markFannedOut(anyInt())).thenReturn(1);
+
+        int fannedOut = feedInboxService.backfill();
+
+        assertEquals(2, fannedOut);
+        verify(feedInboxRepository).fanOutPost(1, first.getUser().getId());
+        verify(feedInboxRepository).fanOutPost(2, second.getUser().getId());
+    }
+}
@@ -0,0 +1,147 @@
+package com.friendfinder.friendfinderrest.service;
+
+import com.friendfinder.friendfindercommon.cache.FriendGraph;
+import com.friendfinder.friendfindercommon.entity.types.FriendStatus;
+import com.friendfinder.friendfindercommon.repository.FriendRequestRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FriendGraphTest {
+
+    @Mock
+    private FriendRequestRepository friendRequestRepository;
+
+    private FriendGraph friendGraph;
+
+    @BeforeEach
+    void setUp() {
+        friendGraph = new FriendGraph(friendRequestRepository, 2, 300);
+    }
+
+    private void mockFriends(int userId, List<Integer> sent, List<Integer> received) {
+        when(friendRequestRepository.findReceiverIdsBySenderIdAndStatus(userId, FriendStatus.ACCEPTED)).thenReturn(sent);
+        when(friendRequestRepository.findSenderIdsByReceiverIdAndStatus(userId, FriendStatus.ACCEPTED)).thenReturn(received);
+    }
+
+    @Test
+    void testFriendIds_LoadsOnceAndCaches() {
+        mockFriends(1, List.of(7, 3), List.of(5));
+
+        assertArrayEquals(new int[]{3, 5, 7}, friendGraph.friendIds(1));
+        assertArrayEquals(new int[]{3, 5, 7}, friendGraph.friendIds(1));
+
+        verify(friendRequestRepository, times(1)).findReceiverIdsBySenderIdAndStatus(1, FriendStatus.ACCEPTED);
+        assertEquals(1, friendGraph.getMisses());
+        assertEquals(1, friendGraph.getHits());
+        assertEquals(1, friendGraph.getSize());
+    }
+
+    @Test
+    void testFriendIdsOf_LoadsMissingUsersWithOneQuery() {
+        mockFriends(1, List.of(4), Collections.emptyList());
+        friendGraph.friendIds(1);
+        when(friendRequestRepository.findEdgesByUserIdInAndStatus(List.of(2, 3), FriendStatus.ACCEPTED))
+                .thenReturn(List.of(new Object[]{2, 5}, new Object[]{6, 2}, new Object[]{3, 2}));
+
+        int[][] friendIds = friendGraph.friendIdsOf(new int[]{1, 2, 3});
+
+        assertArrayEquals(new int[]{4}, friendIds[0]);
+        assertArrayEquals(new int[]{3, 5, 6}, friendIds[1]);
+        assertArrayEquals(new int[]{2}, friendIds[2]);
+        verify(friendRequestRepository, times(1)).findEdgesByUserIdInAndStatus(anyList(), eq(FriendStatus.ACCEPTED));
+        verify(friendRequestRepository, never()).findReceiverIdsBySenderIdAndStatus(2, FriendStatus.ACCEPTED);
+        assertEquals(3, friendGraph.getMisses());
+        assertEquals(1, friendGraph.getHits());
+    }
+
+    @Test
+    void testAreFriendsAndCount() {
+        mockFriends(1, List.of(2, 4), Collections.emptyList());
+
+        assertTrue(friendGraph.areFriends(1, 4));
+        assertFalse(friendGraph.areFriends(1, 3));
+        assertEquals(2, friendGraph.friendCount(1));
+    }
+
+    @Test
+    void testAddAndRemoveEdge_WriteThrough() {
+        mockFriends(1, Collections.emptyList(), Collections.emptyList());
+        mockFriends(2, Collections.emptyList(), Collections.emptyList());
+        friendGraph.friendIds(1);
+        friendGraph.friendIds(2);
+
+        friendGraph.addEdge(1, 2);
+
+        assertArrayEquals(new int[]{2}, friendGraph.friendIds(1));
+        assertArrayEquals(new int[]{1}, friendGraph.friendIds(2));
+
+        friendGraph.removeEdge(2, 1);
+
+        assertEquals(0, friendGraph.friendCount(1));
+        assertEquals(0, friendGraph.friendCount(2));
+        verify(friendRequestRepository, times(1)).findReceiverIdsBySenderIdAndStatus(1, FriendStatus.ACCEPTED);
+    }
+
+    @Test
+    void testEviction_WhenMaxUsersExceeded() {
+        mockFriends(1, Collections.emptyList(), Collections.emptyList());
+        mockFriends(2, Collections.emptyList(), Collections.emptyList());
+        mockFriends(3, Collections.emptyList(), Collections.emptyList());
+
+        friendGraph.friendIds(1);
+        friendGraph.friendIds(2);
+        friendGraph.friendIds(3);
+
+        assertEquals(2, friendGraph.getSize());
+        assertEquals(1, friendGraph.getEvictions());
+    }
+
+    @Test
+    void testRemoveUser_DropsUserAndEdges() {
+        mockFriends(1, List.of(2), Collections.emptyList());
+        mockFriends(2, Collections.emptyList(), List.of(1));
+        friendGraph.friendIds(1);
+        friendGraph.friendIds(2);
+
+        friendGraph.removeUser(1);
+
+        assertEquals(1, friendGraph.getSize());
+        assertEquals(0, friendGraph.friendCount(2));
+    }
+
+    @Test
+    void testMutualFriends_SortedIntersection() {
+        mockFriends(1, List.of(2, 5, 9), List.of(7));
+        mockFriends(3, List.of(9), List.of(4, 5, 8));
+
+        assertArrayEquals(new int[]{5, 9}, friendGraph.mutualFriendIds(1, 3));
+        assertEquals(2, friendGraph.mutualFriendCount(1, 3));
+    }
+
+    @Test
+    void testExpiredEntry_ReloadedFromDatabase() {
+        FriendGraph expiring = new FriendGraph(friendRequestRepository, 2, 0);
+        when(friendRequestRepository.findReceiverIdsBySenderIdAndStatus(1, FriendStatus.ACCEPTED))
+                .thenReturn(List.of(2), List.of(2, 3));
+        when(friendRequestRepository.findSenderIdsByReceiverIdAndStatus(1, FriendStatus.ACCEPTED))
+                .thenReturn(Collections.emptyList());
+
+        assertArrayEquals(new int[]{2}, expiring.friendIds(1));
+        assertArrayEquals(new int[]{2, 3}, expiring.friendIds(1));
+
+        assertEquals(0, expiring.getHits());
+        assertEquals(2, expiring.getMisses());
+        assertEquals(1, expiring.getExpirations());
+        assertEquals(1, expiring.getSize());
+    }
+}
@@ -1,10 +1,13 @@
 package com.friendfinder.friendfinderrest.service;
 
+import com.friendfinder.friendfindercommon.cache.FriendGraph;
 import com.friendfinder.friendfindercommon.entity.FriendRequest;
 import com.friendfinder.friendfindercommon.entity.User;
 import com.friendfinder.friendfindercommon.entity.types.FriendStatus;
 import com.friendfinder.friendfindercommon.repository.FriendRequestRepository;
 import com.friendfinder.friendfindercommon.repository.UserRepository;
+import com.friendfinder.friendfindercommon.service.FeedInboxService;
+import com.friendfinder.friendfindercommon.service.FriendSuggestionService;
 import com.friendfinder.friendfindercommon.service.impl.FriendRequestServiceImpl;
 import com.friendfinder.friendfindercommon.service.impl.MailService;
 import org.junit.jupiter.api.BeforeEach;
@@ -40,13 +43,22 @@ class FriendRequestServiceTest {
     @Mock
     private MailService mailService;
 
+    @Mock
+    private FriendGraph friendGraph;
+
+    @Mock
+    private FeedInboxService feedInboxService;
+
+    @Mock
+    private FriendSuggestionService friendSuggestionService;
+
     @InjectMocks
     private FriendRequestServiceImpl friendRequestService;
 
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);
-        friendRequestService = new FriendRequestServiceImpl(friendRequestRepository, userRepository, mailService);
+        friendRequestService = new FriendRequestServiceImpl(friendRequestRepository, userRepository, mailService, friendGraph, feedInboxService, friendSuggestionService);
     }
 
     @Test
@@ -178,7 +190,7 @@ class FriendRequestServiceTest {
 
         Page<User> users = new PageImpl<>(friendsByUserId);
 
-        when(friendRequestRepository.findAll()).thenReturn(Collections.emptyList());
+        when(friendGraph.friendIds(userId)).thenReturn(new int[]{1, 2});
         when(userRepository.findUsersByIdIn(anyList(), any())).thenReturn(users);
 
         Page<User> userPage = friendRequestService.userFriendsPageByUserId(userId, 1);
@@ -190,34 +202,31 @@ class FriendRequestServiceTest {
 
     @Test
     void testFindFriendsByUserId_Success() {
-        User sender1 = mockUserFirst();
-        User receiver1 = mockUserSecond();
-
-        User sender2 = mockUserFirst();
-        User receiver2 = mockUserSecond();
-
-        FriendRequest friendRequest1 = FriendRequest.builder()
-                .status(FriendStatus.ACCEPTED)
-                .receiver(receiver1)
-                .sender(sender1)
-                .build();
-        FriendRequest friendRequest2 = FriendRequest.builder()
-                .status(FriendStatus.ACCEPTED)
-                .sender(sender2)
-                .receiver(receiver2)
-                .build();
-
-        List<FriendRequest> allFriendRequests = Arrays.asList(
-                friendRequest1,
-                friendRequest2
+        User sender = mockUserFirst();
+        List<User> friendList = Arrays.asList(
+                mockUserSecond(),
+                mockUserSecond()
         );
 
-        when(friendRequestRepository.findAll()).thenReturn(allFriendRequests);
+        when(friendRequestRepository.findFriendsByUserIdAndStatus(sender.getId(), FriendStatus.ACCEPTED)).thenReturn(friendList);
 
-        List<User> friends = friendRequestService.findFriendsByUserId(sender1.getId());
+        List<User> friends = friendRequestService.findFriendsByUserId(sender.getId());
 
         assertNotNull(friends);
         assertEquals(2, friends.size());
+        verify(friendRequestRepository, never()).findAll();
+    }
+
+    @Test
+    void testFindFriendIdsByUserId_Success() {
+        int userId = 100;
+
+        when(friendGraph.friendIds(userId)).thenReturn(new int[]{1, 2, 3});
+
+        int[] friendIds = friendRequestService.findFriendIdsByUserId(userId);
+
+        assertArrayEquals(new int[]{1, 2, 3}, friendIds);
+        verify(friendRequestRepository, never()).findAll();
     }
 
     @Test
@@ -237,37 +246,45 @@ class FriendRequestServiceTest {
         assertNotNull(updatedFriendRequest);
         assertEquals(FriendStatus.ACCEPTED, updatedFriendRequest.getStatus());
         verify(mailService, times(1)).sendMail(anyString(), anyString(), anyString());
+        verify(friendGraph).addEdge(sender.getId(), receiver.getId());
+        verify(feedInboxService).addFriendship(sender.getId(), receiver.getId());
+        verify(friendSuggestionService).invalidate(sender.getId());
+        verify(friendSuggestionService).invalidate(receiver.getId());
     }
 
     @Test
     void testFindFriendsByUserIdCount_Success() {
-        User user1 = mockUserFirst();
-        User user2 = mockUserSecond();
-        User user3 = mockUserFirst();
-        FriendRequest friendRequest1 = FriendRequest.builder()
-                .status(FriendStatus.ACCEPTED)
-                .receiver(user1)
-                .sender(user2)
-                .build();
-        FriendRequest friendRequest2 = FriendRequest.builder()
-                .status(FriendStatus.ACCEPTED)
-                .sender(user2)
-                .receiver(user3)
-                .build();
-        FriendRequest friendRequest3 = FriendRequest.builder()
-                .status(FriendStatus.ACCEPTED)
-                .receiver(user3)
-                .sender(user2)
-                .build();
-
-        List<FriendRequest> friendsByUserId = Arrays.asList(
-                friendRequest1, friendRequest2, friendRequest3
-        );
+        User user = mockUserSecond();
 
-        when(friendRequestRepository.findAll()).thenReturn(friendsByUserId);
+        when(friendGraph.friendCount(user.getId())).thenReturn(3);
 
-        int friendCount = friendRequestService.findFriendsByUserIdCount(user2.getId());
+        int friendCount = friendRequestService.findFriendsByUserIdCount(user.getId());
 
         assertEquals(3, friendCount);
+        verify(friendRequestRepository, never()).findAll();
+    }
+
+    @Test
+    void testMutualFriendsPage_LoadsOnlyPageUsers() {
+        int[] mutualIds = new int[15];
+        for (int i = 0; i < mutualIds.length; i++) {
+            mutualIds[i] = i + 1;
+        }
+        when(friendGraph.mutualFriendIds(100, 200)).thenReturn(mutualIds);
+        List<Integer> expectedIds = List.of(3, 2, 1);
+        when(userRepository.findAllById(expectedIds)).thenReturn(List.of(
+                User.builder().id(1).build(), User.builder().id(3).build(), User.builder().id(2).build()));
+
+        Page<User> page = friendRequestService.mutualFriendsPage(100, 200, 2);
+
+        assertEquals(15, page.getTotalElements());
+        assertEquals(List.of(3, 2, 1), page.getContent().stream().map(User::getId).toList());
+    }
+
+    @Test
+    void testFindMutualFriendsCount() {
+        when(friendGraph.mutualFriendCount(100, 200)).thenReturn(4);
+
+        assertEquals(4, friendRequestService.findMutualFriendsCount(100, 200));
     }
 }
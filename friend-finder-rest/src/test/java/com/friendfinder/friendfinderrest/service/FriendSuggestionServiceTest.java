@@ -0,0 +1,118 @@
+package com.friendfinder.friendfinderrest.service;
+
+import com.friendfinder.friendfindercommon.cache.FriendGraph;
+import com.friendfinder.friendfindercommon.entity.User;
+import com.friendfinder.friendfindercommon.repository.FriendRequestRepository;
+import com.friendfinder.friendfindercommon.repository.UserRepository;
+import com.friendfinder.friendfindercommon.security.CurrentUser;
+import com.friendfinder.friendfindercommon.service.impl.FriendSuggestionServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static com.friendfinder.friendfinderrest.util.TestUtil.mockUser;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FriendSuggestionServiceTest {
+
+    @Mock
+    private FriendGraph friendGraph;
+
+    @Mock
+    private FriendRequestRepository friendRequestRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private FriendSuggestionServiceImpl friendSuggestionService;
+
+    private CurrentUser currentUser;
+
+    @BeforeEach
+    void setUp() {
+        friendSuggestionService = new FriendSuggestionServiceImpl(friendGraph, friendRequestRepository, userRepository);
+        ReflectionTestUtils.setField(friendSuggestionService, "limit", 2);
+        ReflectionTestUtils.setField(friendSuggestionService, "ttlMillis", 60000L);
+        ReflectionTestUtils.setField(friendSuggestionService, "maxCachedUsers", 100);
+        User user = mockUser();
+        user.setId(1);
+        currentUser = new CurrentUser(user);
+    }
+
+    private User user(int id) {
+        User user = mockUser();
+        user.setId(id);
+        user.setCity("Paris");
+        user.setCountry(null);
+        return user;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockUsersById() {
+        when(userRepository.findAllById(any())).thenAnswer(invocation ->
+                ((Collection<Integer>) invocation.getArgument(0)).stream().map(this::user).toList());
+    }
+
+    @Test
+    void testSuggestFriends_RankedByMutualFriends() {
+        // user 1 is friends with 2 and 3 and has a pending request to 6
+        int[] friendIds = {2, 3};
+        when(friendGraph.friendIds(1)).thenReturn(friendIds);
+        when(friendGraph.friendIdsOf(friendIds)).thenReturn(new int[][]{{1, 3, 4, 5, 6}, {1, 2, 5, 6}});
+        when(friendRequestRepository.findReceiverIdsBySenderId(1)).thenReturn(List.of(2, 6));
+        when(friendRequestRepository.findSenderIdsByReceiverId(1)).thenReturn(List.of(3));
+        mockUsersById();
+
+        List<User> suggestions = friendSuggestionService.suggestFriends(currentUser);
+
+        assertEquals(List.of(5, 4), suggestions.stream().map(User::getId).toList());
+        verify(userRepository, never()).findAll();
+        verify(friendGraph, never()).friendIds(2);
+        verify(userRepository, never()).findByIdNotInOrderByIdDesc(anyList(), any(Pageable.class));
+    }
+
+    @Test
+    void testSuggestFriends_FillsWithNewestUsers() {
+        int[] friendIds = new int[0];
+        when(friendGraph.friendIds(1)).thenReturn(friendIds);
+        when(friendGraph.friendIdsOf(friendIds)).thenReturn(new int[0][]);
+        when(friendRequestRepository.findReceiverIdsBySenderId(1)).thenReturn(Collections.emptyList());
+        when(friendRequestRepository.findSenderIdsByReceiverId(1)).thenReturn(Collections.emptyList());
+        when(userRepository.findAllById(any())).thenReturn(Collections.emptyList());
+        when(userRepository.findByIdNotInOrderByIdDesc(anyList(), any(Pageable.class))).thenReturn(List.of(user(9), user(8)));
+
+        List<User> suggestions = friendSuggestionService.suggestFriends(currentUser);
+
+        assertEquals(List.of(9, 8), suggestions.stream().map(User::getId).toList());
+    }
+
+    @Test
+    void testSuggestFriends_CachedUntilInvalidated() {
+        int[] friendIds = {2};
+        when(friendGraph.friendIds(1)).thenReturn(friendIds);
+        when(friendGraph.friendIdsOf(friendIds)).thenReturn(new int[][]{{1, 4, 5}});
+        when(friendRequestRepository.findReceiverIdsBySenderId(1)).thenReturn(List.of(2));
+        when(friendRequestRepository.findSenderIdsByReceiverId(1)).thenReturn(Collections.emptyList());
+        mockUsersById();
+
+        friendSuggestionService.suggestFriends(currentUser);
+        List<User> cached = friendSuggestionService.suggestFriends(currentUser);
+        friendSuggestionService.invalidate(1);
+        friendSuggestionService.suggestFriends(currentUser);
+
+        assertEquals(List.of(4, 5), cached.stream().map(User::getId).toList());
+        verify(friendRequestRepository, times(2)).findReceiverIdsBySenderId(1);
+    }
+}
@@ -1,10 +1,11 @@
 package com.friendfinder.friendfinderrest.service;
 
+import com.friendfinder.friendfindercommon.cache.ReactionCounterBuffer;
 import com.friendfinder.friendfindercommon.dto.postLikeDto.PostLikeDto;
 import com.friendfinder.friendfindercommon.entity.Post;
 import com.friendfinder.friendfindercommon.entity.PostLike;
 import com.friendfinder.friendfindercommon.entity.types.LikeStatus;
-import com.friendfinder.friendfindercommon.mapper.PostLikeMapper;
+import com.friendfinder.friendfindercommon.exception.custom.PostNotFoundException;
 import com.friendfinder.friendfindercommon.repository.PostLikeRepository;
 import com.friendfinder.friendfindercommon.repository.PostRepository;
 import com.friendfinder.friendfindercommon.security.CurrentUser;
@@ -21,7 +22,7 @@ import java.util.Optional;
 
 import static com.friendfinder.friendfinderrest.util.TestUtil.createPost;
 import static com.friendfinder.friendfinderrest.util.TestUtil.mockCurrentUser;
-import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,10 +32,10 @@ class LikeAndDislikeServiceImplTest {
     private PostLikeRepository postLikeRepository;
 
     @Mock
-    private PostRepository postRepository;
+    private ReactionCounterBuffer reactionCounterBuffer;
 
     @Mock
-    private PostLikeMapper postLikeMapper;
+    private PostRepository postRepository;
 
     @InjectMocks
     private LikeAndDislikeServiceImpl likeAndDislikeService;
@@ -43,32 +44,45 @@ class LikeAndDislikeServiceImplTest {
     public void setup() {
         MockitoAnnotations.openMocks(this);
         likeAndDislikeService = new LikeAndDislikeServiceImpl(postLikeRepository,
-                postRepository, postLikeMapper);
+                postRepository, reactionCounterBuffer);
     }
 
     @Test
-     void testSaveReactionLike() {
+    void testSaveReactionLike() {
         CurrentUser currentUser = mockCurrentUser();
         Post post = createPost();
         PostLikeDto postLikeDto = new PostLikeDto();
-        postLikeDto.setLikeStatus(LikeStatus.DISLIKE);
+        postLikeDto.setLikeStatus(LikeStatus.LIKE);
+        PostLike postLike = new PostLike();
+        postLike.setId(42);
+
+        when(postLikeRepository.insertIfAbsent(currentUser.getUser().getId(), post.getId(), "LIKE")).thenReturn(1);
+        when(postLikeRepository.findByUserIdAndPostId(currentUser.getUser().getId(), post.getId()))
+                .thenReturn(Optional.of(postLike));
 
-        PostLike existingLike = new PostLike();
-        existingLike.setId(1);
-        existingLike.setUser(currentUser.getUser());
-        existingLike.setPost(post);
-        existingLike.setLikeStatus(LikeStatus.DISLIKE);
+        PostLike result = likeAndDislikeService.saveReaction(postLikeDto, currentUser, post.getId());
 
+        assertSame(postLike, result);
+        verify(reactionCounterBuffer, times(1)).add(post.getId(), LikeStatus.LIKE, 1);
+        verify(reactionCounterBuffer, never()).add(anyInt(), eq(LikeStatus.DISLIKE), anyInt());
+        verify(postLikeRepository, never()).deleteByUserIdAndPostIdAndLikeStatus(anyInt(), anyInt(), any());
+    }
 
-        when(postLikeRepository.findByUserIdAndPostId(currentUser.getUser().getId(), post.getId())).thenReturn(Optional.empty());
-        when(postLikeMapper.map(postLikeDto)).thenReturn(new PostLike());
+    @Test
+    void testSaveReactionDislike() {
+        CurrentUser currentUser = mockCurrentUser();
+        Post post = createPost();
+        PostLikeDto postLikeDto = new PostLikeDto();
+        postLikeDto.setLikeStatus(LikeStatus.DISLIKE);
 
-        PostLike result = likeAndDislikeService.saveReaction(postLikeDto, currentUser, post);
+        when(postLikeRepository.insertIfAbsent(currentUser.getUser().getId(), post.getId(), "DISLIKE")).thenReturn(1);
+        when(postLikeRepository.findByUserIdAndPostId(currentUser.getUser().getId(), post.getId()))
+                .thenReturn(Optional.of(new PostLike()));
 
-        verify(postLikeRepository, times(1)).findByUserIdAndPostId(anyInt(), anyInt());
-        verify(postRepository, times(1)).save(post);
-        assertNull(result);
+        likeAndDislikeService.saveReaction(postLikeDto, currentUser, post.getId());
 
+        verify(reactionCounterBuffer, times(1)).add(post.getId(), LikeStatus.DISLIKE, 1);
+        verify(reactionCounterBuffer, never()).add(anyInt(), eq(LikeStatus.LIKE), anyInt());
     }
 
     @Test
@@ -77,20 +91,15 @@ class LikeAndDislikeServiceImplTest {
         Post post = createPost();
         PostLikeDto postLikeDto = new PostLikeDto();
         postLikeDto.setLikeStatus(LikeStatus.LIKE);
+        int userId = currentUser.getUser().getId();
 
-        PostLike existingLike = new PostLike();
-        existingLike.setId(1);
-        existingLike.setUser(currentUser.getUser());
-        existingLike.setPost(post);
-        existingLike.setLikeStatus(LikeStatus.LIKE);
+        when(postLikeRepository.insertIfAbsent(userId, post.getId(), "LIKE")).thenReturn(0);
+        when(postLikeRepository.deleteByUserIdAndPostIdAndLikeStatus(userId, post.getId(), LikeStatus.LIKE)).thenReturn(1);
 
-        when(postLikeRepository.findByUserIdAndPostId(anyInt(), anyInt())).thenReturn(Optional.of(existingLike));
+        PostLike result = likeAndDislikeService.saveReaction(postLikeDto, currentUser, post.getId());
 
-        PostLike result = likeAndDislikeService.saveReaction(postLikeDto, currentUser, post);
-
-        verify(postLikeRepository, times(1)).findByUserIdAndPostId(anyInt(), anyInt());
-        verify(postRepository, times(1)).save(post);
-        verify(postLikeRepository, times(1)).delete(existingLike);
+        verify(reactionCounterBuffer, times(1)).add(post.getId(), LikeStatus.LIKE, -1);
+        verify(postLikeRepository, never()).deleteByUserIdAndPostIdAndLikeStatus(userId, post.getId(), LikeStatus.DISLIKE);
         assertNull(result);
     }
 
@@ -98,23 +107,32 @@ class LikeAndDislikeServiceImplTest {
     void testRemoveDislike() {
         CurrentUser currentUser = mockCurrentUser();
         Post post = createPost();
+        PostLikeDto postLikeDto = new PostLikeDto();
+        postLikeDto.setLikeStatus(LikeStatus.LIKE);
+        int userId = currentUser.getUser().getId();
 
-        PostLikeDto postDislikeDto = new PostLikeDto();
-        postDislikeDto.setLikeStatus(LikeStatus.DISLIKE);
+        when(postLikeRepository.insertIfAbsent(userId, post.getId(), "LIKE")).thenReturn(0);
+        when(postLikeRepository.deleteByUserIdAndPostIdAndLikeStatus(userId, post.getId(), LikeStatus.LIKE)).thenReturn(0);
+        when(postLikeRepository.deleteByUserIdAndPostIdAndLikeStatus(userId, post.getId(), LikeStatus.DISLIKE)).thenReturn(1);
 
-        PostLike existingDislike = new PostLike();
-        existingDislike.setId(1);
-        existingDislike.setUser(currentUser.getUser());
-        existingDislike.setPost(post);
-        existingDislike.setLikeStatus(LikeStatus.DISLIKE);
+        PostLike result = likeAndDislikeService.saveReaction(postLikeDto, currentUser, post.getId());
 
-        when(postLikeRepository.findByUserIdAndPostId(anyInt(), anyInt())).thenReturn(Optional.of(existingDislike));
+        verify(reactionCounterBuffer, times(1)).add(post.getId(), LikeStatus.DISLIKE, -1);
+        verify(reactionCounterBuffer, never()).add(anyInt(), eq(LikeStatus.LIKE), anyInt());
+        assertNull(result);
+    }
 
-        PostLike result = likeAndDislikeService.saveReaction(postDislikeDto, currentUser, post);
+    @Test
+    void testSaveReaction_UnknownPost_NotFound() {
+        CurrentUser currentUser = mockCurrentUser();
+        PostLikeDto postLikeDto = new PostLikeDto();
+        postLikeDto.setLikeStatus(LikeStatus.LIKE);
+        int userId = currentUser.getUser().getId();
 
-        verify(postLikeRepository, times(1)).findByUserIdAndPostId(anyInt(), anyInt());
-        verify(postRepository, times(1)).save(post);
-        verify(postLikeRepository, times(1)).delete(existingDislike);
-        assertNull(result);
+        when(postLikeRepository.insertIfAbsent(userId, 404, "LIKE")).thenReturn(0);
+        when(postRepository.existsById(404)).thenReturn(false);
+
+        assertThrows(PostNotFoundException.class, () -> likeAndDislikeService.saveReaction(postLikeDto, currentUser, 404));
+        verify(reactionCounterBuffer, never()).add(anyInt(), any(), anyInt());
     }
 }
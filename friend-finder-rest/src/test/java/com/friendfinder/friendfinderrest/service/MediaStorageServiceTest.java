@@ -0,0 +1,315 @@
+package com.friendfinder.friendfinderrest.service;
+
+import com.friendfinder.friendfindercommon.dto.mediaDto.MediaMigrationResultDto;
+import com.friendfinder.friendfindercommon.entity.MediaFile;
+import com.friendfinder.friendfindercommon.repository.MediaFileRepository;
+import com.friendfinder.friendfindercommon.repository.PostRepository;
+import com.friendfinder.friendfindercommon.repository.UserImageRepository;
+import com.friendfinder.friendfindercommon.repository.UserRepository;
+import com.friendfinder.friendfindercommon.service.ThumbnailService;
+import com.friendfinder.friendfindercommon.service.impl.MediaStorageServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MediaStorageServiceTest {
+
+    private static final byte[] CONTENT = "same picture".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path uploadDir;
+
+    @Mock
+    private MediaFileRepository mediaFileRepository;
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private UserImageRepository userImageRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ThumbnailService thumbnailService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MediaStorageServiceImpl mediaStorageService;
+
+    @BeforeEach
+    void setUp() {
+        mediaStorageService = new MediaStorageServiceImpl(mediaFileRepository, postRepository, userImageRepository,
+                userRepository, thumbnailService, jdbcTemplate, transactionManager);
+        for (String path : List.of("postImageUploadPath", "postVideoUploadPath", "userProfilePicPath",
+                "userBgProfilePicPath")) {
+            ReflectionTestUtils.setField(mediaStorageService, path, uploadDir.toString());
+        }
+    }
+
+    private static String contentName(String extension) throws Exception {
+        String hex = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(CONTENT));
+        return hex.substring(0, 2) + "/" + hex.substring(2, 4) + "/" + hex + "." + extension;
+    }
+
+    private static MediaFile row(String directory, String fileName, int refCount) {
+        return MediaFile.builder()
+                .directory(directory)
+                .fileName(fileName)
+                .fileSize(CONTENT.length)
+                .refCount(refCount)
+                .build();
+    }
+
+    private Path storedFile(String fileName) throws Exception {
+        Path file = uploadDir.resolve(fileName);
+        Files.createDirectories(file.getParent());
+        return Files.write(file, CONTENT);
+    }
+
+    private long regularFiles() throws Exception {
+        try (Stream<Path> files = Files.walk(uploadDir)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    @Test
+    void testStore_SameContentTwice_StoredOnceUnderItsHash() throws Exception {
+        String root = uploadDir.toString();
+        String expected = contentName("jpg");
+        MediaFile row = row(root, expected, 0);
+        when(mediaFileRepository.existsByDirectoryAndFileName(root, expected)).thenReturn(false, true);
+        when(mediaFileRepository.findForUpdate(root, expected)).thenReturn(Optional.of(row));
+
+        String first = mediaStorageService.store(new MockMultipartFile("image", "cat.JPG", "image/jpeg", CONTENT), root);
+        String second = mediaStorageService.store(new MockMultipartFile("image", "meme.jpg", "image/jpeg", CONTENT), root);
+
+        assertEquals(expected, first);
+        assertEquals(expected, second);
+        assertArrayEquals(CONTENT, Files.readAllBytes(uploadDir.resolve(expected)));
+        assertEquals(1, regularFiles());
+        assertEquals(2, row.getRefCount());
+        verify(mediaFileRepository).saveAndFlush(argThat((MediaFile file) ->
+                file.getRefCount() == 0 && file.getFileSize() == CONTENT.length && file.getFileName().equals(expected)));
+    }
+
+    @Test
+    void testStore_RowDeletedBeforeLocked_LooksItUpAgain() throws Exception {
+        String root = uploadDir.toString();
+        String expected = contentName("jpg");
+        MediaFile row = row(root, expected, 0);
+        when(mediaFileRepository.existsByDirectoryAndFileName(root, expected)).thenReturn(true, false);
+        when(mediaFileRepository.findForUpdate(root, expected)).thenReturn(Optional.empty(), Optional.of(row));
+
+        assertEquals(expected, mediaStorageService.store(
+                new MockMultipartFile("image", "cat.jpg", "image/jpeg", CONTENT), root));
+
+        assertEquals(1, row.getRefCount());
+        assertTrue(Files.exists(uploadDir.resolve(expected)));
+        verify(mediaFileRepository).saveAndFlush(any(MediaFile.class));
+    }
+
+    @Test
+    void testStore_WrongFormat_NothingStored() throws Exception {
+        assertNull(mediaStorageService.store(new MockMultipartFile("image", "run.exe", null, CONTENT),
+                uploadDir.toString()));
+        assertNull(mediaStorageService.store(null, uploadDir.toString()));
+
+        assertEquals(0, regularFiles());
+        verifyNoInteractions(mediaFileRepository);
+    }
+
+    @Test
+    void testRelease_DeletesFileOnlyWithLastReference() throws Exception {
+        String root = uploadDir.toString();
+        String fileName = contentName("png");
+        storedFile(fileName);
+        MediaFile row = row(root, fileName, 2);
+        when(mediaFileRepository.findForUpdate(root, fileName)).thenReturn(Optional.of(row));
+
+        mediaStorageService.release(root, fileName);
+        assertTrue(Files.exists(uploadDir.resolve(fileName)));
+        verify(mediaFileRepository, never()).delete(any(MediaFile.class));
+
+        mediaStorageService.release(root, fileName);
+        assertFalse(Files.exists(uploadDir.resolve(fileName)));
+        assertEquals(0, regularFiles());
+        verify(mediaFileRepository).delete(row);
+        verify(thumbnailService).remove(root, fileName);
+
+        mediaStorageService.release(root, fileName);
+        assertEquals(0, row.getRefCount());
+    }
+
+    @Test
+    void testRelease_TransactionRolledBack_FileRestored() throws Exception {
+        String root = uploadDir.toString();
+        String fileName = contentName("png");
+        storedFile(fileName);
+        when(mediaFileRepository.findForUpdate(root, fileName)).thenReturn(Optional.of(row(root, fileName, 1)));
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            TransactionSynchronizationManager.initSynchronization();
+            return null;
+        });
+        doAnswer(invocation -> {
+            assertFalse(Files.exists(uploadDir.resolve(fileName)));
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations,
+                    TransactionSynchronization.STATUS_ROLLED_BACK);
+            return null;
+        }).when(transactionManager).commit(any());
+
+        mediaStorageService.release(root, fileName);
+
+        assertArrayEquals(CONTENT, Files.readAllBytes(uploadDir.resolve(fileName)));
+        assertEquals(1, regularFiles());
+    }
+
+    @Test
+    void testRelease_WithinTransaction_DroppedOnlyAfterCommit() throws Exception {
+        String root = uploadDir.toString();
+        String fileName = contentName("png");
+        storedFile(fileName);
+        MediaFile row = row(root, fileName, 1);
+        when(mediaFileRepository.findForUpdate(root, fileName)).thenReturn(Optional.of(row));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            mediaStorageService.release(root, fileName);
+            assertEquals(1, row.getRefCount());
+            verifyNoInteractions(mediaFileRepository);
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+        } finally {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+
+        assertEquals(0, row.getRefCount());
+        assertFalse(Files.exists(uploadDir.resolve(fileName)));
+    }
+
+    @Test
+    void testRetain_CountsReferenceOnLockedRow() throws Exception {
+        String root = uploadDir.toString();
+        String fileName = contentName("png");
+        MediaFile row = row(root, fileName, 1);
+        when(mediaFileRepository.findForUpdate(root, fileName)).thenReturn(Optional.of(row));
+
+        mediaStorageService.retain(root, fileName);
+
+        assertEquals(2, row.getRefCount());
+    }
+
+    @Test
+    void testReleaseAndRetain_LegacyNamesAreNotCounted() {
+        mediaStorageService.release(uploadDir.toString(), "1690000000_photo.jpg");
+        mediaStorageService.retain(uploadDir.toString(), "1690000000_photo.jpg");
+        mediaStorageService.release(uploadDir.toString(), null);
+
+        verifyNoInteractions(mediaFileRepository, thumbnailService);
+    }
+
+    @Test
+    void testMigrateLegacyFiles_MovesAndDeduplicatesFilesAndRewritesRows() throws Exception {
+        String root = uploadDir.toString();
+        String expected = contentName("jpg");
+        Files.write(uploadDir.resolve("1_photo.jpg"), CONTENT);
+        Files.write(uploadDir.resolve("2_copy.jpg"), CONTENT);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            if (!"".equals(invocation.getArgument(2))) {
+                return Collections.emptyList();
+            }
+            if (sql.contains("img_name")) {
+                return List.of("1_photo.jpg", "2_copy.jpg");
+            }
+            if (sql.contains("profile_pic ")) {
+                return List.of("gone.jpg");
+            }
+            return Collections.emptyList();
+        });
+        when(jdbcTemplate.update(eq("update post set img_name = ? where img_name = ?"), eq(expected), anyString()))
+                .thenReturn(1);
+        MediaFile row = row(root, expected, 0);
+        when(mediaFileRepository.existsByDirectoryAndFileName(root, expected)).thenReturn(false, true);
+        when(mediaFileRepository.findForUpdate(root, expected)).thenReturn(Optional.of(row));
+
+        MediaMigrationResultDto result = mediaStorageService.migrateLegacyFiles();
+
+        assertEquals(2, result.getFiles());
+        assertEquals(1, result.getDeduplicatedFiles());
+        assertEquals(1, result.getMissingFiles());
+        assertEquals(2, result.getReferences());
+        assertArrayEquals(CONTENT, Files.readAllBytes(uploadDir.resolve(expected)));
+        assertEquals(1, regularFiles());
+        verify(jdbcTemplate).update("update post set img_name = ? where img_name = ?", expected, "1_photo.jpg");
+        verify(jdbcTemplate).update("update post set img_name = ? where img_name = ?", expected, "2_copy.jpg");
+        assertEquals(2, row.getRefCount());
+        verify(thumbnailService).move(root, "1_photo.jpg", expected);
+        assertFalse(mediaStorageService.isMigrating());
+    }
+
+    @Test
+    void testStartMigration_RunsInBackgroundOnceAndReportsProgress() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return Collections.emptyList();
+        });
+
+        assertTrue(mediaStorageService.startMigration());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(mediaStorageService.migrationProgress().isRunning());
+        assertFalse(mediaStorageService.startMigration());
+        assertEquals(0, mediaStorageService.migrateLegacyFiles().getFiles());
+
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (mediaStorageService.isMigrating() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(mediaStorageService.migrationProgress().isRunning());
+        // one query per migrated column of the single run
+        verify(jdbcTemplate, times(5)).queryForList(anyString(), eq(String.class), any());
+        mediaStorageService.shutdown();
+    }
+}
@@ -0,0 +1,122 @@
+package com.friendfinder.friendfinderrest.service;
+
+import com.friendfinder.friendfindercommon.dto.chatDto.MessageResponseDto;
+import com.friendfinder.friendfindercommon.service.impl.MessagePushServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class MessagePushServiceTest {
+
+    private final List<SseEmitter> emitters = new ArrayList<>();
+
+    private MessagePushServiceImpl pushService;
+
+    private MessagePushServiceImpl pushService(int bufferSize) {
+        pushService = new MessagePushServiceImpl(60000, bufferSize, 1) {
+            @Override
+            protected SseEmitter newEmitter(long timeoutMillis) {
+                SseEmitter emitter = mock(SseEmitter.class);
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+        return pushService;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        pushService.shutdown();
+    }
+
+    private MessageResponseDto message(int senderId, int receiverId) {
+        return MessageResponseDto.builder()
+                .id(1)
+                .chatId(3)
+                .senderId(senderId)
+                .receiverId(receiverId)
+                .content("hi")
+                .build();
+    }
+
+    @Test
+    void testPublish_ReachesReceiverAndSenderOnly() throws Exception {
+        MessagePushServiceImpl service = pushService(8);
+        SseEmitter receiver = service.subscribe(2);
+        SseEmitter sender = service.subscribe(1);
+        SseEmitter stranger = service.subscribe(5);
+
+        service.publish(message(1, 2));
+
+        // the "connected" comment and the message
+        verify(receiver, timeout(1000).times(2)).send(any(SseEmitter.SseEventBuilder.class));
+        verify(sender, timeout(1000).times(2)).send(any(SseEmitter.SseEventBuilder.class));
+        verify(stranger, timeout(1000).times(1)).send(any(SseEmitter.SseEventBuilder.class));
+        assertEquals(3, service.getConnections());
+    }
+
+    @Test
+    void testPublish_InTransaction_WaitsForCommit() throws Exception {
+        MessagePushServiceImpl service = pushService(8);
+        SseEmitter receiver = service.subscribe(2);
+        verify(receiver, timeout(1000).times(1)).send(any(SseEmitter.SseEventBuilder.class));
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.publish(message(1, 2));
+
+        Thread.sleep(50);
+        verify(receiver, times(1)).send(any(SseEmitter.SseEventBuilder.class));
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        verify(receiver, timeout(1000).times(2)).send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    @Test
+    void testSlowClient_StreamClosedWhenBufferIsFull() throws Exception {
+        MessagePushServiceImpl service = pushService(2);
+        CountDownLatch release = new CountDownLatch(1);
+        SseEmitter slow = service.subscribe(2);
+        verify(slow, timeout(1000)).send(any(SseEmitter.SseEventBuilder.class));
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(slow).send(any(SseEmitter.SseEventBuilder.class));
+
+        for (int i = 0; i < 5; i++) {
+            service.publish(message(1, 2));
+        }
+        release.countDown();
+
+        verify(slow).complete();
+        assertEquals(0, service.getConnections());
+        assertEquals(1, service.getDroppedConnections());
+    }
+
+    @Test
+    void testFailedSend_RemovesConnection() throws Exception {
+        MessagePushServiceImpl service = pushService(8);
+        SseEmitter gone = service.subscribe(2);
+        verify(gone, timeout(1000)).send(any(SseEmitter.SseEventBuilder.class));
+        doThrow(new IllegalStateException("completed")).when(gone).send(any(SseEmitter.SseEventBuilder.class));
+
+        service.publish(message(1, 2));
+
+        verify(gone, timeout(1000).times(2)).send(any(SseEmitter.SseEventBuilder.class));
+        Thread.sleep(50);
+        assertEquals(0, service.getConnections());
+    }
+}
@@ -0,0 +1,142 @@
+package com.friendfinder.friendfinderrest.service;
+
+import com.friendfinder.friendfindercommon.dto.chatDto.MessageSearchHitDto;
+import com.friendfinder.friendfindercommon.dto.chatDto.MessageSearchPageDto;
+import com.friendfinder.friendfindercommon.entity.Chat;
+import com.friendfinder.friendfindercommon.entity.Message;
+import com.friendfinder.friendfindercommon.entity.User;
+import com.friendfinder.friendfindercommon.repository.ChatRepository;
+import com.friendfinder.friendfindercommon.repository.MessageRepository;
+import com.friendfinder.friendfindercommon.service.impl.MessageSearchServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageSearchServiceTest {
+
+    private static final LocalDateTime SENT_AT = LocalDateTime.of(2023, 7, 1, 12, 0);
+
+    @Mock
+    private MessageRepository messageRepository;
+
+    @Mock
+    private ChatRepository chatRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private MessageSearchServiceImpl searchService(String engine) {
+        MessageSearchServiceImpl searchService = new MessageSearchServiceImpl(messageRepository, chatRepository, jdbcTemplate);
+        ReflectionTestUtils.setField(searchService, "engine", engine);
+        searchService.init();
+        return searchService;
+    }
+
+    private Message message(int id, int chatId, int senderId, String content) {
+        Chat chat = new Chat();
+        chat.setId(chatId);
+        User sender = new User();
+        sender.setId(senderId);
+        return Message.builder()
+                .id(id)
+                .chat(chat)
+                .sender(sender)
+                .content(content)
+                .sentAt(SENT_AT)
+                .build();
+    }
+
+    @Test
+    void testMemory_LoadsOnceAndMatchesEveryWordByPrefixInUsersChats() {
+        MessageSearchServiceImpl searchService = searchService("memory");
+        when(messageRepository.findIndexRowsAfter(anyInt(), any())).thenReturn(List.of(
+                new Object[]{1, 10, 2, "Dinner tomorrow at eight?", SENT_AT},
+                new Object[]{2, 11, 3, "Tomorrow's dinner is cancelled", SENT_AT},
+                new Object[]{3, 10, 1, "Lunch tomorrow instead", SENT_AT}));
+        when(chatRepository.findIdsByUserId(1)).thenReturn(List.of(10));
+        searchService.index(message(4, 10, 2, "DINNER plans for tomorrow evening"));
+
+        MessageSearchPageDto result = searchService.search(1, "tomorrow dinn", 0, 20);
+        searchService.search(1, "lunch", 0, 20);
+
+        assertEquals(List.of(4, 1), result.getHits().stream().map(MessageSearchHitDto::getMessageId).toList());
+        assertEquals(10, result.getHits().get(0).getChatId());
+        assertEquals(2, result.getHits().get(0).getSenderId());
+        assertNull(result.getNextPage());
+        verify(messageRepository, times(1)).findIndexRowsAfter(anyInt(), any());
+    }
+
+    @Test
+    void testMemory_PagesNewestFirst() {
+        MessageSearchServiceImpl searchService = searchService("memory");
+        List<Object[]> rows = new ArrayList<>();
+        for (int id = 1; id <= 5; id++) {
+            rows.add(new Object[]{id, 10, 2, "hello number " + id, SENT_AT});
+        }
+        when(messageRepository.findIndexRowsAfter(anyInt(), any())).thenReturn(rows);
+        when(chatRepository.findIdsByUserId(1)).thenReturn(List.of(10));
+
+        MessageSearchPageDto first = searchService.search(1, "hello", 0, 2);
+        MessageSearchPageDto last = searchService.search(1, "hello", 2, 2);
+
+        assertEquals(List.of(5, 4), first.getHits().stream().map(MessageSearchHitDto::getMessageId).toList());
+        assertEquals(1, first.getNextPage());
+        assertEquals(List.of(1), last.getHits().stream().map(MessageSearchHitDto::getMessageId).toList());
+        assertNull(last.getNextPage());
+    }
+
+    @Test
+    void testMemory_SnippetAroundFirstMatch() {
+        MessageSearchServiceImpl searchService = searchService("memory");
+        when(messageRepository.findIndexRowsAfter(anyInt(), any())).thenReturn(Collections.emptyList());
+        when(chatRepository.findIdsByUserId(1)).thenReturn(List.of(10));
+        searchService.index(message(1, 10, 2, "x".repeat(300) + " needle " + "y".repeat(300)));
+
+        String snippet = searchService.search(1, "needle", 0, 20).getHits().get(0).getSnippet();
+
+        assertTrue(snippet.contains("needle"));
+        assertTrue(snippet.startsWith("…"));
+        assertTrue(snippet.endsWith("…"));
+        assertTrue(snippet.length() <= 122);
+    }
+
+    @Test
+    void testFullText_BuildsBooleanQueryFromWords() {
+        MessageSearchServiceImpl searchService = searchService("fulltext");
+        when(messageRepository.searchFullText(1, "+dinner* +tomorrow*", 3, 2)).thenReturn(List.of(
+                new Object[]{7, 10, 2, "Dinner tomorrow?", Timestamp.valueOf(SENT_AT)},
+                new Object[]{5, 10, 1, "Dinner tomorrow!", Timestamp.valueOf(SENT_AT)},
+                new Object[]{3, 12, 4, "Dinner tomorrow.", Timestamp.valueOf(SENT_AT)}));
+
+        MessageSearchPageDto result = searchService.search(1, "Dinner, tomorrow at", 1, 2);
+
+        assertEquals(List.of(7, 5), result.getHits().stream().map(MessageSearchHitDto::getMessageId).toList());
+        assertEquals(SENT_AT, result.getHits().get(0).getSentAt());
+        assertEquals(2, result.getNextPage());
+        searchService.index(message(8, 10, 2, "ignored"));
+        verifyNoInteractions(chatRepository);
+    }
+
+    @Test
+    void testSearch_NoUsableWords_NoQuery() {
+        MessageSearchServiceImpl searchService = searchService("fulltext");
+
+        assertTrue(searchService.search(1, "a ?", 0, 20).getHits().isEmpty());
+        verifyNoInteractions(messageRepository);
+    }
+}
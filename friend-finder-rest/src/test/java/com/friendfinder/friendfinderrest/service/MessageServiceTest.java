@@ -1,38 +1,53 @@
 package com.friendfinder.friendfinderrest.service;
 
+import com.friendfinder.friendfindercommon.cache.MessageWriter;
+import com.friendfinder.friendfindercommon.dto.chatDto.MessagePageResponseDto;
+import com.friendfinder.friendfindercommon.dto.chatDto.MessageResponseDto;
 import com.friendfinder.friendfindercommon.dto.chatDto.SendMessageDto;
 import com.friendfinder.friendfindercommon.entity.Chat;
 import com.friendfinder.friendfindercommon.entity.Message;
 import com.friendfinder.friendfindercommon.entity.User;
+import com.friendfinder.friendfindercommon.mapper.MessageMapper;
 import com.friendfinder.friendfindercommon.repository.MessageRepository;
 import com.friendfinder.friendfindercommon.service.ChatService;
-import com.friendfinder.friendfindercommon.service.UserService;
+import com.friendfinder.friendfindercommon.service.MessagePushService;
+import com.friendfinder.friendfindercommon.service.MessageSearchService;
 import com.friendfinder.friendfindercommon.service.impl.MessageServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 
+import java.util.List;
 import java.util.Optional;
 
-import static org.junit.jupiter.api.Assertions.assertFalse;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class MessageServiceTest {
 
     private MessageRepository messageRepository;
-    private UserService userService;
     private ChatService chatService;
+    private MessageMapper messageMapper;
+    private MessagePushService messagePushService;
+    private MessageWriter messageWriter;
+    private MessageSearchService messageSearchService;
     private MessageServiceImpl messageService;
 
     @BeforeEach
     void setUp() {
         messageRepository = mock(MessageRepository.class);
-        userService = mock(UserService.class);
         chatService = mock(ChatService.class);
-        messageService = new MessageServiceImpl(messageRepository, userService, chatService);
+        messageMapper = mock(MessageMapper.class);
+        messagePushService = mock(MessagePushService.class);
+        messageWriter = mock(MessageWriter.class);
+        messageSearchService = mock(MessageSearchService.class);
+        messageService = new MessageServiceImpl(messageRepository, chatService, messageMapper,
+                messagePushService, messageWriter, messageSearchService);
     }
 
     @Test
@@ -42,40 +57,54 @@ class MessageServiceTest {
         sendMessageDto.setChatId(1);
         sendMessageDto.setContent("Test message content");
 
-        User currentUser = new User();
-        currentUser.setId(1);
+        Chat chat = chat(1, 1, 2);
 
-        User receiverUser = new User();
-        receiverUser.setId(2);
+        when(chatService.findById(sendMessageDto.getChatId())).thenReturn(Optional.of(chat));
 
-        Chat chat = new Chat();
-        chat.setId(1);
+        boolean saved = messageService.save(sendMessageDto, chat.getCurrentUser());
+
+        verify(messageWriter, times(1)).write(argThat(message -> message.getSender().getId() == 1
+                && message.getReceiver().getId() == 2 && message.getChat() == chat));
+        verify(messageSearchService, times(1)).index(any(Message.class));
+        verify(messagePushService, times(1)).publish(any());
+
+        assertTrue(saved);
+    }
+
+    @Test
+    void testSave_ReceiverTakenFromChat() {
+        SendMessageDto sendMessageDto = new SendMessageDto();
+        sendMessageDto.setReceiverId(3);
+        sendMessageDto.setChatId(1);
+        sendMessageDto.setContent("Test message content");
+
+        Chat chat = chat(1, 1, 2);
 
-        when(userService.findUserById(sendMessageDto.getReceiverId())).thenReturn(Optional.of(receiverUser));
         when(chatService.findById(sendMessageDto.getChatId())).thenReturn(Optional.of(chat));
 
-        boolean saved = messageService.save(sendMessageDto, currentUser);
+        boolean saved = messageService.save(sendMessageDto, chat.getAnotherUser());
 
-        verify(messageRepository, times(1)).save(any(Message.class));
+        verify(messageWriter, times(1)).write(argThat(message -> message.getSender().getId() == 2
+                && message.getReceiver().getId() == 1));
 
         assertTrue(saved);
     }
 
     @Test
-    void testSaveWithInvalidReceiverId() {
+    void testSave_NotParticipant() {
         SendMessageDto sendMessageDto = new SendMessageDto();
         sendMessageDto.setReceiverId(2);
         sendMessageDto.setChatId(1);
         sendMessageDto.setContent("Test message content");
 
         User currentUser = new User();
-        currentUser.setId(1);
+        currentUser.setId(3);
 
-        when(userService.findUserById(sendMessageDto.getReceiverId())).thenReturn(Optional.empty());
+        when(chatService.findById(sendMessageDto.getChatId())).thenReturn(Optional.of(chat(1, 1, 2)));
 
         boolean saved = messageService.save(sendMessageDto, currentUser);
 
-        verify(messageRepository, never()).save(any(Message.class));
+        verifyNoInteractions(messageWriter, messageSearchService, messagePushService);
 
         assertFalse(saved);
     }
@@ -90,15 +119,12 @@ class MessageServiceTest {
         User currentUser = new User();
         currentUser.setId(1);
 
-        User receiverUser = new User();
-        receiverUser.setId(2);
-
-        when(userService.findUserById(sendMessageDto.getReceiverId())).thenReturn(Optional.of(receiverUser));
         when(chatService.findById(sendMessageDto.getChatId())).thenReturn(Optional.empty());
 
         boolean saved = messageService.save(sendMessageDto, currentUser);
 
-        verify(messageRepository, never()).save(any(Message.class));
+        verify(messageWriter, never()).write(any(Message.class));
+        verifyNoInteractions(messagePushService);
 
         assertFalse(saved);
     }
@@ -107,8 +133,96 @@ class MessageServiceTest {
     void testSaveWithNullInputs() {
         boolean saved = messageService.save(null, null);
 
-        verify(messageRepository, never()).save(any(Message.class));
+        verify(messageWriter, never()).write(any(Message.class));
+        verifyNoInteractions(messagePushService);
 
         assertFalse(saved);
     }
-}
\ No newline at end of file
+
+    private Chat chat(int id, int currentUserId, int anotherUserId) {
+        User currentUser = new User();
+        currentUser.setId(currentUserId);
+        User anotherUser = new User();
+        anotherUser.setId(anotherUserId);
+        Chat chat = new Chat();
+        chat.setId(id);
+        chat.setCurrentUser(currentUser);
+        chat.setAnotherUser(anotherUser);
+        return chat;
+    }
+
+    private Message message(int id) {
+        Message message = new Message();
+        message.setId(id);
+        return message;
+    }
+
+    private void mockMapper() {
+        when(messageMapper.mapToDtos(anyList())).thenAnswer(invocation -> invocation.<List<Message>>getArgument(0).stream()
+                .map(message -> MessageResponseDto.builder().id(message.getId()).build())
+                .toList());
+    }
+
+    @Test
+    void testMessagesBefore_FirstPage_OldestFirstWithCursor() {
+        when(messageRepository.findByChatIdBefore(1, Integer.MAX_VALUE, PageRequest.of(0, 3)))
+                .thenReturn(List.of(message(9), message(8), message(5)));
+        mockMapper();
+
+        MessagePageResponseDto page = messageService.messagesBefore(1, null, 2);
+
+        assertEquals(List.of(8, 9), page.getMessages().stream().map(MessageResponseDto::getId).toList());
+        assertEquals(8, page.getNextCursor());
+    }
+
+    @Test
+    void testMessagesBefore_LastPage_NoCursor() {
+        when(messageRepository.findByChatIdBefore(1, 8, PageRequest.of(0, 3)))
+                .thenReturn(List.of(message(5)));
+        mockMapper();
+
+        MessagePageResponseDto page = messageService.messagesBefore(1, 8, 2);
+
+        assertEquals(1, page.getMessages().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testMessagesBefore_NotParticipant() {
+        User stranger = new User();
+        stranger.setId(3);
+        when(chatService.findById(1)).thenReturn(Optional.of(chat(1, 1, 2)));
+
+        assertNull(messageService.messagesBefore(1, stranger, null, 20));
+        verifyNoInteractions(messageRepository);
+    }
+
+    @Test
+    void testMessagesBefore_ParticipantClampsLimit() {
+        User anotherUser = new User();
+        anotherUser.setId(2);
+        when(chatService.findById(1)).thenReturn(Optional.of(chat(1, 1, 2)));
+        when(messageRepository.findByChatIdBefore(1, Integer.MAX_VALUE, PageRequest.of(0, 51))).thenReturn(List.of());
+        mockMapper();
+
+        MessagePageResponseDto page = messageService.messagesBefore(1, anotherUser, null, 1000);
+
+        assertTrue(page.getMessages().isEmpty());
+        assertNull(page.getNextCursor());
+        verify(chatService, never()).markRead(anyInt(), anyInt(), anyInt());
+    }
+
+    @Test
+    void testMessagesBefore_LatestPageMarksChatRead() {
+        User currentUser = new User();
+        currentUser.setId(1);
+        when(chatService.findById(1)).thenReturn(Optional.of(chat(1, 1, 2)));
+        when(messageRepository.findByChatIdBefore(1, Integer.MAX_VALUE, PageRequest.of(0, 21)))
+                .thenReturn(List.of(message(9), message(8)));
+        mockMapper();
+
+        messageService.messagesBefore(1, currentUser, null, 20);
+
+        verify(chatService).markRead(1, 1, 9);
+    }
+}
@@ -0,0 +1,303 @@
+package com.friendfinder.friendfinderrest.service;
+
+import com.friendfinder.friendfindercommon.cache.MessageWriter;
+import com.friendfinder.friendfindercommon.entity.Chat;
+import com.friendfinder.friendfindercommon.entity.Message;
+import com.friendfinder.friendfindercommon.entity.User;
+import com.friendfinder.friendfindercommon.exception.custom.MessageQueueFullException;
+import com.friendfinder.friendfindercommon.exception.custom.SendMessageException;
+import com.friendfinder.friendfindercommon.repository.MessageRepository;
+import com.friendfinder.friendfindercommon.service.ChatService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class MessageWriterTest {
+
+    @Mock
+    private MessageRepository messageRepository;
+
+    @Mock
+    private ChatService chatService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement statement;
+
+    @Mock
+    private ResultSet keys;
+
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final AtomicInteger pendingKeys = new AtomicInteger();
+
+    private MessageWriter messageWriter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(connection.prepareStatement(anyString(), anyInt())).thenReturn(statement);
+        doAnswer(invocation -> pendingKeys.incrementAndGet()).when(statement).addBatch();
+        when(statement.getGeneratedKeys()).thenReturn(keys);
+        when(keys.next()).thenAnswer(invocation -> pendingKeys.getAndUpdate(n -> Math.max(n - 1, 0)) > 0);
+        when(keys.getInt(1)).thenAnswer(invocation -> nextId.getAndIncrement());
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (messageWriter != null) {
+            messageWriter.shutdown();
+        }
+    }
+
+    private MessageWriter writer(boolean groupCommit, int queueCapacity) {
+        return writer(groupCommit, queueCapacity, 2000);
+    }
+
+    private MessageWriter writer(boolean groupCommit, int queueCapacity, long maxWaitMillis) {
+        messageWriter = new MessageWriter(messageRepository, chatService, jdbcTemplate, transactionManager,
+                groupCommit, 200, queueCapacity, 10, maxWaitMillis);
+        messageWriter.start();
+        return messageWriter;
+    }
+
+    private void runBatchesOnMockConnection() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(invocation -> invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+    }
+
+    private Message message(int chatId, int senderId) {
+        Chat chat = new Chat();
+        chat.setId(chatId);
+        User sender = new User();
+        sender.setId(senderId);
+        User receiver = new User();
+        receiver.setId(senderId + 1);
+        return Message.builder()
+                .chat(chat)
+                .sender(sender)
+                .receiver(receiver)
+                .content("hello")
+                .sentAt(LocalDateTime.now())
+                .build();
+    }
+
+    private Thread writeAsync(Message message, List<Throwable> errors) {
+        Thread thread = new Thread(() -> {
+            try {
+                messageWriter.write(message);
+            } catch (RuntimeException e) {
+                errors.add(e);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    @Test
+    void testWrite_Disabled_SavesInOwnTransaction() {
+        writer(false, 10);
+        Message message = message(1, 1);
+
+        messageWriter.write(message);
+
+        verify(messageRepository).save(message);
+        verify(chatService).updateLastMessage(message);
+        verify(chatService).addUnread(1, 2, 1);
+        verify(transactionManager).commit(any());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testWrite_GroupCommit_SharesOneBatchBetweenQueuedSenders() throws Exception {
+        CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenAnswer(invocation -> {
+            if (calls.getAndIncrement() == 0) {
+                firstBatchStarted.countDown();
+                releaseFirstBatch.await();
+            }
+            return invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection);
+        });
+        writer(true, 100);
+        List<Throwable> errors = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        List<Message> messages = new ArrayList<>();
+
+        Message first = message(1, 1);
+        messages.add(first);
+        threads.add(writeAsync(first, errors));
+        firstBatchStarted.await();
+        for (int i = 0; i < 5; i++) {
+            Message message = message(2, 1);
+            messages.add(message);
+            threads.add(writeAsync(message, errors));
+        }
+        while (messageWriter.getQueuedMessages() < 5) {
+            Thread.sleep(5);
+        }
+        releaseFirstBatch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(errors.isEmpty());
+        assertEquals(2, messageWriter.getBatches());
+        assertEquals(6, messageWriter.getWrittenMessages());
+        assertEquals(6, messages.stream().map(Message::getId).distinct().filter(id -> id > 0).count());
+        verify(statement, times(2)).executeBatch();
+        // one summary update per chat and sender and batch
+        verify(chatService, times(2)).updateLastMessage(any(Message.class));
+        verify(chatService).addUnread(1, 2, 1);
+        verify(chatService).addUnread(2, 2, 5);
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void testWrite_GroupCommit_RejectsWhenQueueIsFull() throws Exception {
+        CountDownLatch batchStarted = new CountDownLatch(1);
+        CountDownLatch releaseBatch = new CountDownLatch(1);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenAnswer(invocation -> {
+            batchStarted.countDown();
+            releaseBatch.await();
+            return invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection);
+        });
+        writer(true, 1);
+        List<Throwable> errors = new ArrayList<>();
+
+        Thread inFlight = writeAsync(message(1, 1), errors);
+        batchStarted.await();
+        Thread queued = writeAsync(message(1, 1), errors);
+        while (messageWriter.getQueuedMessages() < 1) {
+            Thread.sleep(5);
+        }
+
+        assertThrows(MessageQueueFullException.class, () -> messageWriter.write(message(1, 1)));
+        assertEquals(1, messageWriter.getRejectedMessages());
+
+        releaseBatch.countDown();
+        inFlight.join();
+        queued.join();
+        assertTrue(errors.isEmpty());
+    }
+
+    @Test
+    void testWrite_GroupCommit_FailedBatchFailsItsSenders() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenThrow(new QueryTimeoutException("timeout"));
+        writer(true, 10);
+
+        assertThrows(SendMessageException.class, () -> messageWriter.write(message(1, 1)));
+        assertEquals(1, messageWriter.getFailedBatches());
+        verify(transactionManager).rollback(any());
+        verify(chatService, never()).updateLastMessage(any());
+    }
+
+    @Test
+    void testWrite_GroupCommit_SlowBatch_KeepsWaitingOnceTaken() throws Exception {
+        CountDownLatch batchStarted = new CountDownLatch(1);
+        CountDownLatch releaseBatch = new CountDownLatch(1);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenAnswer(invocation -> {
+            batchStarted.countDown();
+            releaseBatch.await();
+            return invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection);
+        });
+        writer(true, 10, 50);
+        List<Throwable> errors = new ArrayList<>();
+        Message inFlight = message(1, 1);
+
+        Thread sender = writeAsync(inFlight, errors);
+        batchStarted.await();
+        Thread.sleep(150);
+        releaseBatch.countDown();
+        sender.join();
+
+        assertTrue(errors.isEmpty());
+        assertTrue(inFlight.getId() > 0);
+        assertEquals(1, messageWriter.getWrittenMessages());
+    }
+
+    @Test
+    void testWrite_GroupCommit_StillQueuedAfterMaxWait_FailsAndIsNotWritten() throws Exception {
+        CountDownLatch batchStarted = new CountDownLatch(1);
+        CountDownLatch releaseBatch = new CountDownLatch(1);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenAnswer(invocation -> {
+            batchStarted.countDown();
+            releaseBatch.await();
+            return invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection);
+        });
+        writer(true, 10, 50);
+        List<Throwable> errors = new ArrayList<>();
+
+        Thread inFlight = writeAsync(message(1, 1), errors);
+        batchStarted.await();
+
+        assertThrows(SendMessageException.class, () -> messageWriter.write(message(2, 1)));
+        assertEquals(0, messageWriter.getQueuedMessages());
+
+        releaseBatch.countDown();
+        inFlight.join();
+        assertTrue(errors.isEmpty());
+        assertEquals(1, messageWriter.getBatches());
+        assertEquals(1, messageWriter.getWrittenMessages());
+        verify(chatService, never()).addUnread(eq(2), anyInt(), anyInt());
+    }
+
+    @Test
+    void testWrite_GroupCommit_IncrementsUnreadBeforeSenderRecount() {
+        runBatchesOnMockConnection();
+        writer(true, 10);
+        Message message = message(1, 1);
+
+        messageWriter.write(message);
+
+        // the sender recount sees the whole batch, incrementing after it would count replies twice
+        InOrder inOrder = inOrder(chatService);
+        inOrder.verify(chatService).addUnread(1, 2, 1);
+        inOrder.verify(chatService).updateLastMessage(message);
+    }
+
+    @Test
+    void testShutdown_WritesQueuedMessages() throws Exception {
+        runBatchesOnMockConnection();
+        writer(true, 10);
+        Message message = message(1, 1);
+
+        messageWriter.write(message);
+        messageWriter.shutdown();
+
+        assertTrue(message.getId() > 0);
+        assertThrows(MessageQueueFullException.class, () -> messageWriter.write(message(1, 1)));
+    }
+}
@@ -1,16 +1,20 @@
 package com.friendfinder.friendfinderrest.service;
 
+import com.friendfinder.friendfindercommon.dto.postDto.PostFeedResponseDto;
 import com.friendfinder.friendfindercommon.dto.postDto.PostRequestDto;
 import com.friendfinder.friendfindercommon.dto.postDto.PostResponseDto;
 import com.friendfinder.friendfindercommon.entity.FriendRequest;
 import com.friendfinder.friendfindercommon.entity.Post;
 import com.friendfinder.friendfindercommon.entity.User;
 import com.friendfinder.friendfindercommon.entity.types.FriendStatus;
+import com.friendfinder.friendfindercommon.entity.types.MediaKind;
 import com.friendfinder.friendfindercommon.mapper.PostMapper;
 import com.friendfinder.friendfindercommon.repository.PostRepository;
 import com.friendfinder.friendfindercommon.repository.UserRepository;
 import com.friendfinder.friendfindercommon.security.CurrentUser;
-import com.friendfinder.friendfindercommon.service.FriendRequestService;
+import com.friendfinder.friendfindercommon.service.FeedInboxService;
+import com.friendfinder.friendfindercommon.service.MediaStorageService;
+import com.friendfinder.friendfindercommon.service.ThumbnailService;
 import com.friendfinder.friendfindercommon.service.UserActivityService;
 import com.friendfinder.friendfindercommon.service.impl.PostServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
@@ -20,7 +24,9 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.*;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.ArrayList;
@@ -45,23 +51,31 @@ class PostServiceTest {
     @Mock
     private UserRepository userRepository;
 
-    @Mock
-    private FriendRequestService friendRequestService;
-
     @Mock
     private PostMapper postMapper;
 
     @Mock
     private UserActivityService userActivityService;
 
+    @Mock
+    private FeedInboxService feedInboxService;
+
+    @Mock
+    private ThumbnailService thumbnailService;
+
+    @Mock
+    private MediaStorageService mediaStorageService;
+
     @InjectMocks
     private PostServiceImpl postService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        postService = new PostServiceImpl(postRepository, userRepository,
-                friendRequestService, postMapper, userActivityService);
+        postService = new PostServiceImpl(postRepository, userRepository, postMapper, userActivityService,
+                feedInboxService, thumbnailService, mediaStorageService);
+        ReflectionTestUtils.setField(postService, "postImageUploadPath", "images/");
+        ReflectionTestUtils.setField(postService, "postVideoUploadPath", "videos/");
         currentUser = mockCurrentUser();
     }
 
@@ -69,34 +83,112 @@ class PostServiceTest {
     void testPostFindPage() {
         CurrentUser currentUser = mockCurrentUser();
         int pageNumber = 1;
-        List<PostResponseDto> allPostFriends = createPostResponseDto();
-        when(friendRequestService.findFriendsByUserId(currentUser.getUser().getId())).thenReturn(List.of(currentUser.getUser()));
-        when(postMapper.mapResp(any())).thenReturn(allPostFriends);
-        List<Integer> friendIds = allPostFriends.stream()
-                .map(post -> post.getUser().getId())
-                .collect(Collectors.toList());
         Pageable pageable = PageRequest.of(pageNumber - 1, 5, Sort.by(Sort.Order.desc("id")));
-        when(postRepository.findByUserIdIn(friendIds, pageable)).thenReturn(new PageImpl<>(new ArrayList<>()));
-        when(postMapper.mapResp(postRepository.findByUserId(any(Integer.class)))).thenReturn(allPostFriends);
+        when(postRepository.findFriendsPostsByUserIdAndStatus(currentUser.getUser().getId(), FriendStatus.ACCEPTED, pageable))
+                .thenReturn(new PageImpl<>(new ArrayList<>()));
         Page<Post> result = postService.postFindPage(pageNumber, currentUser);
-        verify(postRepository).findByUserIdIn(friendIds, pageable);
+        verify(postRepository).findFriendsPostsByUserIdAndStatus(currentUser.getUser().getId(), FriendStatus.ACCEPTED, pageable);
+        verify(postRepository, never()).findByUserId(anyInt());
         assertTrue(result.isEmpty());
     }
 
+    @Test
+    void testPostFeedBefore_ReturnsNextCursor() {
+        CurrentUser currentUser = mockCurrentUser();
+        List<Post> posts = new ArrayList<>();
+        for (int id = 9; id >= 7; id--) {
+            Post post = createPost();
+            post.setId(id);
+            posts.add(post);
+        }
+        when(feedInboxService.feedBefore(currentUser.getUser().getId(), 10, 3)).thenReturn(posts);
+
+        PostFeedResponseDto result = postService.postFeedBefore(10, 2, currentUser);
+
+        assertEquals(2, result.getPosts().size());
+        assertEquals(8, result.getNextCursor());
+        verify(postRepository, never()).findFriendsPostsByUserIdAndStatus(anyInt(), any(), any(Pageable.class));
+    }
+
+    @Test
+    void testPostFeedBefore_LastPage() {
+        CurrentUser currentUser = mockCurrentUser();
+        Post post = createPost();
+        post.setId(3);
+        when(feedInboxService.feedBefore(currentUser.getUser().getId(), Integer.MAX_VALUE, 6)).thenReturn(List.of(post));
+
+        PostFeedResponseDto result = postService.postFeedBefore(null, 5, currentUser);
+
+        assertEquals(1, result.getPosts().size());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void testPostFeedBefore_ExactlyFullPage_NoNextCursor() {
+        CurrentUser currentUser = mockCurrentUser();
+        List<Post> posts = new ArrayList<>();
+        for (int id = 9; id >= 8; id--) {
+            Post post = createPost();
+            post.setId(id);
+            posts.add(post);
+        }
+        when(feedInboxService.feedBefore(currentUser.getUser().getId(), 10, 3)).thenReturn(posts);
+
+        PostFeedResponseDto result = postService.postFeedBefore(10, 2, currentUser);
+
+        assertEquals(2, result.getPosts().size());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void testPostFeedBefore_LimitAboveMaximum_Clamped() {
+        CurrentUser currentUser = mockCurrentUser();
+        List<Post> posts = new ArrayList<>();
+        for (int id = 100; id > 49; id--) {
+            Post post = createPost();
+            post.setId(id);
+            posts.add(post);
+        }
+        when(feedInboxService.feedBefore(currentUser.getUser().getId(), 101, 51)).thenReturn(posts);
+
+        PostFeedResponseDto result = postService.postFeedBefore(101, 500, currentUser);
+
+        assertEquals(50, result.getPosts().size());
+        assertEquals(51, result.getNextCursor());
+        verify(feedInboxService).feedBefore(currentUser.getUser().getId(), 101, 51);
+    }
+
+    @Test
+    void testPostFeedBefore_LimitBelowOne_Clamped() {
+        CurrentUser currentUser = mockCurrentUser();
+        List<Post> posts = new ArrayList<>();
+        for (int id = 5; id >= 4; id--) {
+            Post post = createPost();
+            post.setId(id);
+            posts.add(post);
+        }
+        when(feedInboxService.feedBefore(currentUser.getUser().getId(), Integer.MAX_VALUE, 2)).thenReturn(posts);
+
+        PostFeedResponseDto result = postService.postFeedBefore(null, 0, currentUser);
+
+        assertEquals(1, result.getPosts().size());
+        assertEquals(5, result.getNextCursor());
+        verify(feedInboxService).feedBefore(currentUser.getUser().getId(), Integer.MAX_VALUE, 2);
+    }
+
     @Test
     void testFindPageVideo() {
         int pageNumber = 1;
-        List<PostResponseDto> allPostFriends = createPostResponseDto();
+        Pageable pageable = PageRequest.of(pageNumber - 1, 10, Sort.by(Sort.Order.desc("id")));
+        List<MediaKind> videoKinds = List.of(MediaKind.VIDEO, MediaKind.IMAGE_VIDEO);
+        when(postRepository.findFriendsPostsByUserIdAndStatusAndMediaKindIn(currentUser.getUser().getId(),
+                FriendStatus.ACCEPTED, videoKinds, pageable)).thenReturn(new PageImpl<>(new ArrayList<>()));
 
-        when(friendRequestService.findFriendsByUserId(currentUser.getUser().getId())).thenReturn(List.of(currentUser.getUser()));
-        when(postMapper.mapResp(any())).thenReturn(allPostFriends);
-        when(postRepository.findPostsByMusicFileNameIn(anyList(), any(Pageable.class)))
-                .thenReturn(new PageImpl<>(new ArrayList<>()));
-
-        when(postMapper.mapResp(postRepository.findByUserId(any(Integer.class)))).thenReturn(allPostFriends);
         Page<Post> resultPage = postService.postFindPageVideo(pageNumber, currentUser);
 
-        verify(postRepository).findPostsByMusicFileNameIn(anyList(), any(Pageable.class));
+        verify(postRepository).findFriendsPostsByUserIdAndStatusAndMediaKindIn(currentUser.getUser().getId(),
+                FriendStatus.ACCEPTED, videoKinds, pageable);
+        verify(postRepository, never()).findByUserId(anyInt());
         assertTrue(resultPage.isEmpty());
     }
 
@@ -104,20 +196,26 @@ class PostServiceTest {
     @Test
     void testFindPageImage() {
         int pageNumber = 1;
-        List<PostResponseDto> allPostFriends = createPostResponseDto();
+        Pageable pageable = PageRequest.of(pageNumber - 1, 10, Sort.by(Sort.Order.desc("id")));
+        List<MediaKind> imageKinds = List.of(MediaKind.IMAGE, MediaKind.IMAGE_VIDEO);
+        when(postRepository.findFriendsPostsByUserIdAndStatusAndMediaKindIn(currentUser.getUser().getId(),
+                FriendStatus.ACCEPTED, imageKinds, pageable)).thenReturn(new PageImpl<>(new ArrayList<>()));
 
-        when(friendRequestService.findFriendsByUserId(currentUser.getUser().getId())).thenReturn(List.of(currentUser.getUser()));
-        when(postMapper.mapResp(any())).thenReturn(allPostFriends);
-        when(postRepository.findPostsByImgNameIn(anyList(), any(Pageable.class)))
-                .thenReturn(new PageImpl<>(new ArrayList<>()));
-
-        when(postMapper.mapResp(postRepository.findByUserId(any(Integer.class)))).thenReturn(allPostFriends);
         Page<Post> resultPage = postService.postFindPageImage(pageNumber, currentUser);
 
-        verify(postRepository).findPostsByImgNameIn(anyList(), any(Pageable.class));
+        verify(postRepository).findFriendsPostsByUserIdAndStatusAndMediaKindIn(currentUser.getUser().getId(),
+                FriendStatus.ACCEPTED, imageKinds, pageable);
         assertTrue(resultPage.isEmpty());
     }
 
+    @Test
+    void testMediaKindOf() {
+        assertEquals(MediaKind.IMAGE, MediaKind.of("image.jpg", null));
+        assertEquals(MediaKind.VIDEO, MediaKind.of(null, "video.mp4"));
+        assertEquals(MediaKind.IMAGE_VIDEO, MediaKind.of("image.jpg", "video.mp4"));
+        assertEquals(MediaKind.TEXT, MediaKind.of(null, ""));
+    }
+
 
     @Test
      void testPostPageByUserId() {
@@ -158,6 +256,7 @@ class PostServiceTest {
         savedPost.setId(1);
         savedPost.setImgName(imgName);
 
+        when(mediaStorageService.store(image, "images/")).thenReturn(imgName);
         when(postMapper.map(any(PostRequestDto.class))).thenReturn(savedPost);
         when(postRepository.save(savedPost)).thenReturn(savedPost);
 
@@ -167,6 +266,29 @@ class PostServiceTest {
         assertEquals(savedPost.getId(), result.getId());
         assertEquals(savedPost.getImgName(), result.getImgName());
         assertNull(result.getMusicFileName());
+        verify(thumbnailService).enqueue("images/", imgName);
+        verify(feedInboxService).fanOut(savedPost);
+    }
+
+    @Test
+    void testPostSave_SaveFails_StoredFilesReleased() {
+        MultipartFile image = mock(MultipartFile.class);
+        MultipartFile video = mock(MultipartFile.class);
+        PostRequestDto requestDto = new PostRequestDto();
+        requestDto.setDescription("Post that cannot be saved");
+        Post post = new Post();
+
+        when(mediaStorageService.store(image, "images/")).thenReturn("ab/cd/abcd.jpg");
+        when(mediaStorageService.store(video, "videos/")).thenReturn("ef/01/ef01.mp4");
+        when(postMapper.map(any(PostRequestDto.class))).thenReturn(post);
+        when(postRepository.save(post)).thenThrow(new DataIntegrityViolationException("post"));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> postService.postSave(requestDto, currentUser, image, video));
+
+        verify(mediaStorageService).release("images/", "ab/cd/abcd.jpg");
+        verify(mediaStorageService).release("videos/", "ef/01/ef01.mp4");
+        verify(feedInboxService, never()).fanOut(any());
     }
 
     @Test
@@ -267,6 +389,8 @@ class PostServiceTest {
 
         assertNull(deletedPost, "Deleted post should be null for non-existing ID.");
         verify(postRepository, never()).deleteById(postId);
+        verify(mediaStorageService).release("images/", existingPost.getImgName());
+        verify(mediaStorageService).release("videos/", existingPost.getMusicFileName());
     }
 
 
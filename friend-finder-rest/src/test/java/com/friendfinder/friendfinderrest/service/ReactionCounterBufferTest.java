@@ -0,0 +1,235 @@
+package com.friendfinder.friendfinderrest.service;
+
+import com.friendfinder.friendfindercommon.cache.ReactionCounterBuffer;
+import com.friendfinder.friendfindercommon.entity.types.LikeStatus;
+import com.friendfinder.friendfindercommon.repository.PostRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactionCounterBufferTest {
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @SuppressWarnings("unchecked")
+    private ArgumentCaptor<List<Object[]>> batchCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+
+    private List<Object[]> captureBatch() {
+        ArgumentCaptor<List<Object[]>> captor = batchCaptor();
+        verify(jdbcTemplate).batchUpdate(anyString(), captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    void testAdd_WriteBehindDisabled_UpdatesImmediately() {
+        ReactionCounterBuffer buffer = new ReactionCounterBuffer(postRepository, jdbcTemplate, false, 10);
+
+        buffer.add(1, LikeStatus.LIKE, 1);
+        buffer.add(1, LikeStatus.DISLIKE, -1);
+
+        verify(postRepository).updateLikeCount(1, 1);
+        verify(postRepository).updateDislikeCount(1, -1);
+        assertEquals(0, buffer.getPendingPosts());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testAdd_WriteBehind_MergesPendingAndFlushesInOneBatch() {
+        ReactionCounterBuffer buffer = new ReactionCounterBuffer(postRepository, jdbcTemplate, true, 10);
+
+        buffer.add(1, LikeStatus.LIKE, 1);
+        buffer.add(1, LikeStatus.LIKE, 1);
+        buffer.add(1, LikeStatus.DISLIKE, 1);
+        buffer.add(2, LikeStatus.LIKE, -1);
+
+        assertEquals(2, buffer.pendingLikes(1));
+        assertEquals(1, buffer.pendingDislikes(1));
+        assertEquals(-1, buffer.pendingLikes(2));
+        assertEquals(2, buffer.getPendingPosts());
+        assertEquals(4, buffer.getPendingDeltas());
+        verifyNoInteractions(postRepository, jdbcTemplate);
+
+        buffer.flush();
+
+        List<Object[]> batch = captureBatch();
+        assertEquals(2, batch.size());
+        for (Object[] row : batch) {
+            if ((Integer) row[2] == 1) {
+                assertArrayEquals(new Object[]{2L, 1L, 1}, row);
+            } else {
+                assertArrayEquals(new Object[]{-1L, 0L, 2}, row);
+            }
+        }
+        assertEquals(0, buffer.getPendingPosts());
+        assertEquals(0, buffer.pendingLikes(1));
+        assertEquals(1, buffer.getFlushes());
+        assertEquals(2, buffer.getFlushedPosts());
+    }
+
+    @Test
+    void testAdd_FlushesWhenSizeThresholdReached() {
+        ReactionCounterBuffer buffer = new ReactionCounterBuffer(postRepository, jdbcTemplate, true, 2);
+
+        buffer.add(1, LikeStatus.LIKE, 1);
+        verifyNoInteractions(jdbcTemplate);
+        AtomicReference<Thread> flushThread = new AtomicReference<>();
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            flushThread.set(Thread.currentThread());
+            return new int[2];
+        });
+        buffer.add(2, LikeStatus.LIKE, 1);
+
+        ArgumentCaptor<List<Object[]>> captor = batchCaptor();
+        verify(jdbcTemplate, timeout(5000)).batchUpdate(anyString(), captor.capture());
+        assertEquals(2, captor.getValue().size());
+        assertNotSame(Thread.currentThread(), flushThread.get());
+        assertEquals(0, buffer.getPendingPosts());
+    }
+
+    @Test
+    void testAdd_WithinTransaction_BufferedOnlyAfterCommit() {
+        ReactionCounterBuffer buffer = new ReactionCounterBuffer(postRepository, jdbcTemplate, true, 10);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            buffer.add(1, LikeStatus.LIKE, 1);
+            assertEquals(0, buffer.pendingLikes(1));
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+        } finally {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+
+        assertEquals(1, buffer.pendingLikes(1));
+    }
+
+    @Test
+    void testAdd_TransactionRolledBack_DeltaDropped() {
+        ReactionCounterBuffer buffer = new ReactionCounterBuffer(postRepository, jdbcTemplate, true, 10);
+        buffer.add(2, LikeStatus.DISLIKE, 1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            buffer.add(1, LikeStatus.LIKE, 1);
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations,
+                    TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+
+        assertEquals(0, buffer.pendingLikes(1));
+        assertEquals(1, buffer.pendingDislikes(2));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testFlush_WriteBehind_RecordsHeartbeatUntilShutdown() {
+        ReactionCounterBuffer buffer = new ReactionCounterBuffer(postRepository, jdbcTemplate, true, 10);
+        // the first heartbeat finds no row and inserts it, the later ones update it
+        when(jdbcTemplate.update(anyString(), anyString())).thenReturn(0, 1);
+
+        buffer.flush();
+        buffer.flush();
+        buffer.shutdown();
+
+        verify(jdbcTemplate, times(1)).update(startsWith("insert into reaction_buffer_instance"), anyString());
+        verify(jdbcTemplate, times(1)).update(startsWith("delete from reaction_buffer_instance"), anyString());
+        assertTrue(buffer.isWriteBehindActive());
+    }
+
+    @Test
+    void testIsWriteBehindActive_ReadsHeartbeatsOfOtherApplications() {
+        ReactionCounterBuffer buffer = new ReactionCounterBuffer(postRepository, jdbcTemplate, false, 10);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(-60L))).thenReturn(1, 0);
+
+        assertTrue(buffer.isWriteBehindActive());
+        assertFalse(buffer.isWriteBehindActive());
+        buffer.flush();
+        verify(jdbcTemplate, never()).update(anyString(), anyString());
+    }
+
+    @Test
+    void testFlush_Failure_KeepsDeltasForNextFlush() {
+        ReactionCounterBuffer buffer = new ReactionCounterBuffer(postRepository, jdbcTemplate, true, 10);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new QueryTimeoutException("timeout"));
+
+        buffer.add(1, LikeStatus.LIKE, 3);
+        buffer.flush();
+
+        assertEquals(3, buffer.pendingLikes(1));
+        assertEquals(1, buffer.getFlushFailures());
+        assertEquals(0, buffer.getFlushes());
+    }
+
+    @Test
+    void testConcurrentAddsAndFlushes_NoDeltaLost() throws InterruptedException {
+        ReactionCounterBuffer buffer = new ReactionCounterBuffer(postRepository, jdbcTemplate, true, 1000);
+        AtomicLong flushed = new AtomicLong();
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> batch = invocation.getArgument(1);
+            for (Object[] row : batch) {
+                flushed.addAndGet((Long) row[0]);
+            }
+            return new int[batch.size()];
+        });
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    buffer.add(7, LikeStatus.LIKE, 1);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        Thread flusher = new Thread(() -> {
+            for (int i = 0; i < 200; i++) {
+                buffer.flush();
+            }
+        });
+        flusher.start();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        flusher.join();
+        buffer.flush();
+
+        assertEquals(20000, flushed.get());
+        assertEquals(0, buffer.getPendingPosts());
+    }
+}
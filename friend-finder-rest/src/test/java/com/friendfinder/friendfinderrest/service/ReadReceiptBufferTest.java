@@ -0,0 +1,60 @@
+package com.friendfinder.friendfinderrest.service;
+
+import com.friendfinder.friendfindercommon.cache.ReadReceiptBuffer;
+import com.friendfinder.friendfindercommon.repository.ChatRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReadReceiptBufferTest {
+
+    @Mock
+    private ChatRepository chatRepository;
+
+    private ReadReceiptBuffer readReceiptBuffer;
+
+    @BeforeEach
+    void setUp() {
+        readReceiptBuffer = new ReadReceiptBuffer(chatRepository);
+    }
+
+    @Test
+    void testFlush_CoalescesAcknowledgementsPerChatAndUser() {
+        readReceiptBuffer.acknowledge(3, 1, 10);
+        readReceiptBuffer.acknowledge(3, 1, 14);
+        readReceiptBuffer.acknowledge(3, 1, 12);
+        readReceiptBuffer.acknowledge(3, 2, 11);
+        readReceiptBuffer.acknowledge(4, 1, 20);
+
+        assertEquals(3, readReceiptBuffer.getPending());
+        verifyNoInteractions(chatRepository);
+
+        readReceiptBuffer.flush();
+
+        verify(chatRepository).markRead(3, 1, 14);
+        verify(chatRepository).markRead(3, 2, 11);
+        verify(chatRepository).markRead(4, 1, 20);
+        verifyNoMoreInteractions(chatRepository);
+        assertEquals(0, readReceiptBuffer.getPending());
+        assertEquals(5, readReceiptBuffer.getAcknowledgements());
+        assertEquals(3, readReceiptBuffer.getWrites());
+    }
+
+    @Test
+    void testFlush_Failure_KeepsAcknowledgement() {
+        when(chatRepository.markRead(3, 1, 10)).thenThrow(new QueryTimeoutException("timeout"));
+
+        readReceiptBuffer.acknowledge(3, 1, 10);
+        readReceiptBuffer.flush();
+
+        assertEquals(1, readReceiptBuffer.getPending());
+        assertEquals(0, readReceiptBuffer.getWrites());
+    }
+}
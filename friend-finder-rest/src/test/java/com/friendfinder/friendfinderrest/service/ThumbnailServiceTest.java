@@ -0,0 +1,174 @@
+package com.friendfinder.friendfinderrest.service;
+
+import com.friendfinder.friendfindercommon.service.impl.ThumbnailServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThumbnailServiceTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private ThumbnailServiceImpl thumbnailService;
+
+    @BeforeEach
+    void setUp() {
+        thumbnailService = new ThumbnailServiceImpl(new int[]{480, 160, 1080}, 1, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        thumbnailService.shutdown();
+    }
+
+    private void writeImage(String fileName, int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        String format = fileName.substring(fileName.lastIndexOf('.') + 1);
+        ImageIO.write(image, format, uploadDir.resolve(fileName).toFile());
+    }
+
+    private void awaitGenerated(String fileName) throws InterruptedException {
+        for (int i = 0; i < 100 && thumbnailService.isPending(smallest(fileName)); i++) {
+            Thread.sleep(50);
+        }
+        assertFalse(thumbnailService.isPending(smallest(fileName)));
+    }
+
+    private Resource smallest(String fileName) {
+        return thumbnailService.variant(uploadDir.toString(), fileName, 1);
+    }
+
+    private int width(Path file) throws IOException {
+        return ImageIO.read(file.toFile()).getWidth();
+    }
+
+    @Test
+    void testEnqueue_GeneratesVariantsNarrowerThanOriginal() throws Exception {
+        writeImage("1_photo.jpg", 2000, 1000);
+
+        thumbnailService.enqueue(uploadDir.toString(), "1_photo.jpg");
+        awaitGenerated("1_photo.jpg");
+
+        assertEquals(1080, width(uploadDir.resolve("w1080_1_photo.jpg")));
+        assertEquals(480, width(uploadDir.resolve("w480_1_photo.jpg")));
+        BufferedImage smallest = ImageIO.read(uploadDir.resolve("w160_1_photo.jpg").toFile());
+        assertEquals(160, smallest.getWidth());
+        assertEquals(80, smallest.getHeight());
+    }
+
+    @Test
+    void testVariant_PicksSmallestExistingVariantAtLeastSize() throws Exception {
+        writeImage("2_photo.png", 600, 300);
+        thumbnailService.enqueue(uploadDir.toString(), "2_photo.png");
+        awaitGenerated("2_photo.png");
+
+        assertFalse(Files.exists(uploadDir.resolve("w1080_2_photo.png")));
+        assertEquals("w160_2_photo.png", thumbnailService.variant(uploadDir.toString(), "2_photo.png", 100).getFilename());
+        assertEquals("w480_2_photo.png", thumbnailService.variant(uploadDir.toString(), "2_photo.png", 200).getFilename());
+        assertEquals("2_photo.png", thumbnailService.variant(uploadDir.toString(), "2_photo.png", 800).getFilename());
+        assertEquals("2_photo.png", thumbnailService.variant(uploadDir.toString(), "2_photo.png", null).getFilename());
+        assertNull(thumbnailService.variant(uploadDir.toString(), "missing.png", 100));
+    }
+
+    @Test
+    void testVariant_FallsBackToOriginalWhileNotGenerated() throws Exception {
+        writeImage("3_photo.png", 600, 300);
+
+        assertEquals("3_photo.png", thumbnailService.variant(uploadDir.toString(), "3_photo.png", 160).getFilename());
+        awaitGenerated("3_photo.png");
+    }
+
+    @Test
+    void testVariant_MissingVariantIsQueued() throws Exception {
+        // stored before the thumbnails existed, never passed to enqueue
+        writeImage("6_photo.png", 600, 300);
+        writeImage("7_icon.png", 100, 100);
+
+        // whether an image gets variants is only known once it was processed
+        assertTrue(thumbnailService.isPending(thumbnailService.variant(uploadDir.toString(), "6_photo.png", 160)));
+        assertTrue(thumbnailService.isPending(thumbnailService.variant(uploadDir.toString(), "7_icon.png", 160)));
+        awaitGenerated("6_photo.png");
+        awaitGenerated("7_icon.png");
+
+        Resource wide = thumbnailService.variant(uploadDir.toString(), "6_photo.png", 160);
+        Resource narrow = thumbnailService.variant(uploadDir.toString(), "7_icon.png", 160);
+        assertEquals("w160_6_photo.png", wide.getFilename());
+        assertFalse(thumbnailService.isPending(wide));
+        assertEquals("7_icon.png", narrow.getFilename());
+        assertFalse(thumbnailService.isPending(narrow));
+        assertFalse(Files.exists(uploadDir.resolve("w160_7_icon.png")));
+    }
+
+    @Test
+    void testIsPending_OnlyForOriginalsStandingInForMissingVariants() throws Exception {
+        writeImage("8_photo.png", 600, 300);
+        writeImage("w160_9_photo.png", 160, 80);
+        writeImage("9_photo.png", 600, 300);
+
+        assertFalse(thumbnailService.isPending(thumbnailService.variant(uploadDir.toString(), "8_photo.png", null)));
+        // wider than the largest variant of an image that has its variants: the original is the final answer
+        assertFalse(thumbnailService.isPending(thumbnailService.variant(uploadDir.toString(), "9_photo.png", 800)));
+        assertTrue(thumbnailService.isPending(thumbnailService.variant(uploadDir.toString(), "8_photo.png", 160)));
+
+        awaitGenerated("8_photo.png");
+
+        assertTrue(Files.exists(uploadDir.resolve("w160_8_photo.png")));
+    }
+
+    @Test
+    void testIsPending_QueueRejected_OriginalStillNotFinal() throws Exception {
+        writeImage("10_photo.png", 600, 300);
+        thumbnailService.shutdown();
+
+        Resource standIn = thumbnailService.variant(uploadDir.toString(), "10_photo.png", 160);
+
+        assertEquals("10_photo.png", standIn.getFilename());
+        assertTrue(thumbnailService.isPending(standIn));
+    }
+
+    @Test
+    void testEnqueue_UnreadableImage_NoVariants() throws Exception {
+        Files.writeString(uploadDir.resolve("4_logo.svg"), "<svg/>");
+        Files.writeString(uploadDir.resolve("5_broken.png"), "not a png");
+
+        thumbnailService.enqueue(uploadDir.toString(), "4_logo.svg");
+        thumbnailService.enqueue(uploadDir.toString(), "5_broken.png");
+        awaitGenerated("4_logo.svg");
+        awaitGenerated("5_broken.png");
+
+        try (var files = Files.list(uploadDir)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void testContentNames_VariantsStayNextToOriginalAndFollowIt() throws Exception {
+        Files.createDirectories(uploadDir.resolve("ab/cd"));
+        writeImage("ab/cd/abcd.png", 600, 300);
+        thumbnailService.enqueue(uploadDir.toString(), "ab/cd/abcd.png");
+        awaitGenerated("ab/cd/abcd.png");
+
+        assertTrue(Files.exists(uploadDir.resolve("ab/cd/w160_abcd.png")));
+        assertEquals("w480_abcd.png", thumbnailService.variant(uploadDir.toString(), "ab/cd/abcd.png", 200).getFilename());
+
+        thumbnailService.move(uploadDir.toString(), "ab/cd/abcd.png", "ef/01/ef01.png");
+        assertTrue(Files.exists(uploadDir.resolve("ef/01/w160_ef01.png")));
+        assertTrue(Files.exists(uploadDir.resolve("ef/01/w480_ef01.png")));
+        assertFalse(Files.exists(uploadDir.resolve("ab/cd/w480_abcd.png")));
+
+        thumbnailService.remove(uploadDir.toString(), "ef/01/ef01.png");
+        assertFalse(Files.exists(uploadDir.resolve("ef/01/w160_ef01.png")));
+        assertFalse(Files.exists(uploadDir.resolve("ef/01/w480_ef01.png")));
+    }
+}
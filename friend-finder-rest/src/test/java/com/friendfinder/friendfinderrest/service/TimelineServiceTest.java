@@ -8,6 +8,8 @@ import com.friendfinder.friendfindercommon.entity.types.UserGender;
 import com.friendfinder.friendfindercommon.repository.CountryRepository;
 import com.friendfinder.friendfindercommon.repository.UserRepository;
 import com.friendfinder.friendfindercommon.security.CurrentUser;
+import com.friendfinder.friendfindercommon.service.MediaStorageService;
+import com.friendfinder.friendfindercommon.service.ThumbnailService;
 import com.friendfinder.friendfindercommon.service.UserImageService;
 import com.friendfinder.friendfindercommon.service.impl.TimelineServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,15 +19,22 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
 import static com.friendfinder.friendfinderrest.util.TestUtil.mockCurrentUser;
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -40,6 +49,12 @@ class TimelineServiceTest {
     @Mock
     private UserImageService userImageService;
 
+    @Mock
+    private ThumbnailService thumbnailService;
+
+    @Mock
+    private MediaStorageService mediaStorageService;
+
     @InjectMocks
     private TimelineServiceImpl timelineService;
 
@@ -48,6 +63,10 @@ class TimelineServiceTest {
     @BeforeEach
     public void setup() {
         MockitoAnnotations.openMocks(this);
+        timelineService = new TimelineServiceImpl(countryRepository, userRepository, userImageService, thumbnailService,
+                mediaStorageService);
+        ReflectionTestUtils.setField(timelineService, "userProfilePicPath", "profile/");
+        ReflectionTestUtils.setField(timelineService, "userBgProfilePicPath", "background/");
         currentUser = mockCurrentUser();
     }
 
@@ -63,6 +82,15 @@ class TimelineServiceTest {
         assertEquals(countries, result);
     }
 
+    /**
+     * The row the service reads again, a different instance than the User held by the session.
+     */
+    private User storedUser() {
+        User stored = mockCurrentUser().getUser();
+        when(userRepository.findById(stored.getId())).thenReturn(Optional.of(stored));
+        return stored;
+    }
+
     @Test
     void testUpdateUser() {
         UserUpdateRequestDto userDto = UserUpdateRequestDto.builder()
@@ -76,9 +104,8 @@ class TimelineServiceTest {
                 .personalInformation("Some personal info")
                 .build();
 
-        User loggedInUser = currentUser.getUser();
-
-        when(timelineService.updateUser(userDto, currentUser)).thenReturn(loggedInUser);
+        User stored = storedUser();
+        when(userRepository.save(stored)).thenReturn(stored);
 
         User updatedUser = timelineService.updateUser(userDto, currentUser);
 
@@ -89,52 +116,110 @@ class TimelineServiceTest {
         assertEquals(userDto.getGender(), updatedUser.getGender());
         assertEquals(userDto.getDateOfBirth(), updatedUser.getDateOfBirth());
         assertEquals(userDto.getPersonalInformation(), updatedUser.getPersonalInformation());
+        assertEquals("John", currentUser.getUser().getName());
     }
 
     @Test
-    void testUpdateUserProfilePic() {
-        byte[] profilePicData = "Dummy profile pic data".getBytes();
+    void testUpdateUser_KeepsPictureRewrittenSinceLogin() {
+        UserUpdateRequestDto userDto = UserUpdateRequestDto.builder()
+                .name("John")
+                .surname("Doe")
+                .email("john.doe@example.com")
+                .build();
+        currentUser.getUser().setProfilePicture("legacy.jpg");
+        User stored = storedUser();
+        stored.setProfilePicture("ab/cd/abcd.jpg");
+        when(userRepository.save(stored)).thenReturn(stored);
+
+        timelineService.updateUser(userDto, currentUser);
+
+        verify(userRepository).save(argThat(user -> "ab/cd/abcd.jpg".equals(user.getProfilePicture())));
+        assertEquals("ab/cd/abcd.jpg", currentUser.getUser().getProfilePicture());
+    }
 
+    @Test
+    void testUpdateUserProfilePic() {
         MockMultipartFile image = new MockMultipartFile(
                 "image1010IgOsadlCAAsd",
                 "image1010IgOsadlCAAsd.jpg",
                 "image/jpeg",
-                profilePicData
+                "Dummy profile pic data".getBytes()
         );
 
-        CurrentUser user = currentUser;
+        // the session still holds the name the picture had before the media migration
+        currentUser.getUser().setProfilePicture("legacy.jpg");
+        User user = storedUser();
+        user.setProfilePicture("0a/1b/old.jpg");
         UserImage userImage = UserImage.builder()
-                .user(user.getUser())
+                .user(user)
                 .imageName("profilePic")
                 .build();
+        when(mediaStorageService.store(image, "profile/")).thenReturn("ab/cd/abcd.jpg");
+        when(userRepository.save(user)).thenReturn(user);
 
-        when(timelineService.updateUserProfilePic(image, user, userImage)).thenReturn(user.getUser());
-        User updatedUser = timelineService.updateUserProfilePic(image, user, userImage);
+        User updatedUser = timelineService.updateUserProfilePic(image, currentUser, userImage);
 
-        assertTrue(image.getName().contains("image1010IgOsadlCAAsd") &&
-                updatedUser.getProfilePicture().contains("image1010IgOsadlCAAsd"));
+        assertEquals("ab/cd/abcd.jpg", updatedUser.getProfilePicture());
+        assertEquals("ab/cd/abcd.jpg", currentUser.getUser().getProfilePicture());
+        verify(thumbnailService).enqueue("profile/", "ab/cd/abcd.jpg");
+        verify(userImageService).userImageSave(userImage, currentUser, "ab/cd/abcd.jpg");
+        verify(mediaStorageService).release("profile/", "0a/1b/old.jpg");
+        verify(mediaStorageService, never()).release("profile/", "legacy.jpg");
     }
 
     @Test
     void testUpdateUserProfileBackgroundPic() {
-        byte[] profilePicData = "Dummy profile pic data".getBytes();
-
         MockMultipartFile image = new MockMultipartFile(
                 "image1010IgOsadlCAAsd",
                 "image1010IgOsadlCAAsd.jpg",
                 "image/jpeg",
-                profilePicData
+                "Dummy profile pic data".getBytes()
         );
 
-        CurrentUser user = currentUser;
+        User user = storedUser();
+        user.setProfileBackgroundPic("0a/1b/old.jpg");
+        when(mediaStorageService.store(image, "background/")).thenReturn("ab/cd/abcd.jpg");
+        when(userRepository.save(user)).thenReturn(user);
 
-        when(timelineService.updateUserProfileBackgroundPic(image, user)).thenReturn(user.getUser());
-        User updatedUser = timelineService.updateUserProfileBackgroundPic(image, user);
+        User updatedUser = timelineService.updateUserProfileBackgroundPic(image, currentUser);
 
-        assertTrue(image.getName().contains("image1010IgOsadlCAAsd") &&
-                updatedUser.getProfileBackgroundPic().contains("image1010IgOsadlCAAsd"));
+        assertEquals("ab/cd/abcd.jpg", updatedUser.getProfileBackgroundPic());
+        assertEquals("ab/cd/abcd.jpg", currentUser.getUser().getProfileBackgroundPic());
+        verify(thumbnailService).enqueue("background/", "ab/cd/abcd.jpg");
+        verify(mediaStorageService).release("background/", "0a/1b/old.jpg");
     }
 
+    @Test
+    void testUpdateUserProfilePic_SaveFails_UploadReleasedAndPreviousKept() {
+        MockMultipartFile image = new MockMultipartFile("image", "image.jpg", "image/jpeg", "pic".getBytes());
+        User user = storedUser();
+        user.setProfilePicture("0a/1b/old.jpg");
+        UserImage userImage = UserImage.builder().user(user).imageName("profilePic").build();
+        when(mediaStorageService.store(image, "profile/")).thenReturn("ab/cd/abcd.jpg");
+        when(userRepository.save(user)).thenThrow(new DataIntegrityViolationException("user"));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> timelineService.updateUserProfilePic(image, currentUser, userImage));
+
+        assertEquals("0a/1b/old.jpg", user.getProfilePicture());
+        assertNull(currentUser.getUser().getProfilePicture());
+        verify(mediaStorageService).release("profile/", "ab/cd/abcd.jpg");
+        verify(mediaStorageService, never()).release("profile/", "0a/1b/old.jpg");
+    }
 
-
+    @Test
+    void testUpdateUserProfileBackgroundPic_SaveFails_UploadReleasedAndPreviousKept() {
+        MockMultipartFile image = new MockMultipartFile("image", "image.jpg", "image/jpeg", "pic".getBytes());
+        User user = storedUser();
+        user.setProfileBackgroundPic("0a/1b/old.jpg");
+        when(mediaStorageService.store(image, "background/")).thenReturn("ab/cd/abcd.jpg");
+        when(userRepository.save(user)).thenThrow(new DataIntegrityViolationException("user"));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> timelineService.updateUserProfileBackgroundPic(image, currentUser));
+
+        assertEquals("0a/1b/old.jpg", user.getProfileBackgroundPic());
+        verify(mediaStorageService).release("background/", "ab/cd/abcd.jpg");
+        verify(mediaStorageService, never()).release("background/", "0a/1b/old.jpg");
+    }
 }
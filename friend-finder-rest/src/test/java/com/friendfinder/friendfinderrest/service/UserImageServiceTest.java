@@ -5,6 +5,7 @@ import com.friendfinder.friendfindercommon.entity.UserImage;
 import com.friendfinder.friendfindercommon.repository.UserImageRepository;
 import com.friendfinder.friendfindercommon.repository.UserRepository;
 import com.friendfinder.friendfindercommon.security.CurrentUser;
+import com.friendfinder.friendfindercommon.service.MediaStorageService;
 import com.friendfinder.friendfindercommon.service.impl.UserImageServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,6 +18,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -40,13 +42,17 @@ import static org.mockito.Mockito.when;
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private MediaStorageService mediaStorageService;
+
     @InjectMocks
     private UserImageServiceImpl userImageService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        userImageService = new UserImageServiceImpl(userImageRepository, userRepository);
+        userImageService = new UserImageServiceImpl(userImageRepository, userRepository, mediaStorageService);
+        ReflectionTestUtils.setField(userImageService, "userProfilePicPath", "profile/");
         CurrentUser  currentUser = mockCurrentUser();
     }
 
@@ -76,7 +82,7 @@ import static org.mockito.Mockito.when;
         CurrentUser currentUser = mockCurrentUser();
         UserImage userImage = new UserImage();
 
-        userImageService.userImageSave(userImage, currentUser);
+        userImageService.userImageSave(userImage, currentUser, "ab/cd/abcd.jpg");
 
         ArgumentCaptor<UserImage> captor = ArgumentCaptor.forClass(UserImage.class);
         verify(userImageRepository).save(captor.capture());
@@ -84,7 +90,8 @@ import static org.mockito.Mockito.when;
         UserImage savedUserImage = captor.getValue();
         assertNotNull(savedUserImage);
         assertEquals(currentUser.getUser(), savedUserImage.getUser());
-        assertEquals(currentUser.getUser().getProfilePicture(), savedUserImage.getImageName());
+        assertEquals("ab/cd/abcd.jpg", savedUserImage.getImageName());
+        verify(mediaStorageService).retain("profile/", "ab/cd/abcd.jpg");
 
     }
 
@@ -122,6 +129,7 @@ import static org.mockito.Mockito.when;
         UserImage deletedPost = userImageService.deleteUserImageById(postId);
 
         assertNull(deletedPost, "Deleted post should be null for non-existing ID.");
+        verify(mediaStorageService).release("profile/", existingPost.getImageName());
     }
 
 }
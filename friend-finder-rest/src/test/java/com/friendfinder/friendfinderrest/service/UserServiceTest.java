@@ -1,5 +1,6 @@
 package com.friendfinder.friendfinderrest.service;
 
+import com.friendfinder.friendfindercommon.cache.FriendGraph;
 import com.friendfinder.friendfindercommon.entity.Country;
 import com.friendfinder.friendfindercommon.entity.User;
 import com.friendfinder.friendfindercommon.entity.types.UserRole;
@@ -7,7 +8,7 @@ import com.friendfinder.friendfindercommon.mapper.UserRegisterMapper;
 import com.friendfinder.friendfindercommon.repository.CountryRepository;
 import com.friendfinder.friendfindercommon.repository.UserRepository;
 import com.friendfinder.friendfindercommon.security.CurrentUser;
-import com.friendfinder.friendfindercommon.service.FriendRequestService;
+import com.friendfinder.friendfindercommon.service.MediaStorageService;
 import com.friendfinder.friendfindercommon.service.impl.MailService;
 import com.friendfinder.friendfindercommon.service.impl.UserServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
@@ -38,9 +39,6 @@ class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
-    @Mock
-    private FriendRequestService friendRequestService;
-
     @Mock
     private UserRegisterMapper userRegisterMapper;
 
@@ -53,6 +51,12 @@ class UserServiceTest {
     @Mock
     private MailService mailService;
 
+    @Mock
+    private FriendGraph friendGraph;
+
+    @Mock
+    private MediaStorageService mediaStorageService;
+
     @Mock
     private CurrentUser currentUser;
 
@@ -65,7 +69,8 @@ class UserServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        userService = new UserServiceImpl(passwordEncoder, friendRequestService, userRegisterMapper, countryRepository, userRepository, mailService);
+        userService = new UserServiceImpl(passwordEncoder, userRegisterMapper, countryRepository, userRepository, mailService, friendGraph,
+                mediaStorageService);
     }
 
     @Test
@@ -104,31 +109,6 @@ class UserServiceTest {
         assertEquals(true, result);
     }
 
-    @Test
-    void testUserForAddFriend() {
-        int currentUserUserId = 1;
-
-        User currentUserUser = mockCurrentUser().getUser();
-        currentUserUser.setId(currentUserUserId);
-        CurrentUser currentUser = new CurrentUser(currentUserUser);
-
-        List<User> users = new ArrayList<>();
-        users.add(new User());
-        users.add(new User());
-        users.add(new User());
-
-        when(userRepository.findAll()).thenReturn(users);
-
-        for (User user : users) {
-            when(friendRequestService.findBySenderIdAndReceiverId(user.getId(), currentUserUserId)).thenReturn(null);
-        }
-
-        List<User> result = userService.userForAddFriend(currentUser);
-
-        assertEquals(3, result.size());
-        assertTrue(result.stream().allMatch(user -> user.getId() != currentUserUserId));
-    }
-
     @Test
     void testFindAllCountries() {
         List<Country> countries = new ArrayList<>();
@@ -221,7 +201,9 @@ class UserServiceTest {
 
         userService.deleteUserById(userId);
 
+        verify(mediaStorageService).releaseUserMedia(userId);
         verify(userRepository).deleteById(userId);
+        verify(friendGraph).removeUser(userId);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.friendfinder.friendfinderweb.config;
+
+import com.friendfinder.friendfindercommon.security.CurrentUser;
+import com.friendfinder.friendfindercommon.service.ChatService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+/**
+ * Adds the number of unread messages of the current user, shown in the header menu, to the model of every rendered
+ * page. Handlers that write their response themselves, such as media, event stream and JSON endpoints, and redirects
+ * return no view to render, so the count is not queried for them.
+ */
+@Component
+@RequiredArgsConstructor
+public class UnreadMessagesInterceptor implements HandlerInterceptor {
+
+    private final ChatService chatService;
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        if (modelAndView == null || !modelAndView.isReference()
+                || modelAndView.getViewName().startsWith("redirect:")) {
+            return;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof CurrentUser currentUser) {
+            modelAndView.addObject("unreadMessages", chatService.totalUnread(currentUser.getUser().getId()));
+        }
+    }
+}
@@ -1,79 +1,131 @@
 package com.friendfinder.friendfinderweb.controller;
 
-import com.friendfinder.friendfindercommon.entity.Chat;
-import com.friendfinder.friendfindercommon.entity.Message;
-import com.friendfinder.friendfindercommon.entity.User;
+import com.friendfinder.friendfindercommon.dto.chatDto.ConversationDto;
+import com.friendfinder.friendfindercommon.dto.chatDto.ConversationPageDto;
+import com.friendfinder.friendfindercommon.dto.chatDto.MessagePageResponseDto;
+import com.friendfinder.friendfindercommon.dto.chatDto.MessageSearchPageDto;
+import com.friendfinder.friendfindercommon.dto.chatDto.SendMessageDto;
 import com.friendfinder.friendfindercommon.security.CurrentUser;
 import com.friendfinder.friendfindercommon.service.ChatService;
 import com.friendfinder.friendfindercommon.service.FriendRequestService;
+import com.friendfinder.friendfindercommon.service.FriendSuggestionService;
+import com.friendfinder.friendfindercommon.service.MessagePushService;
+import com.friendfinder.friendfindercommon.service.MessageSearchService;
 import com.friendfinder.friendfindercommon.service.MessageService;
 import com.friendfinder.friendfindercommon.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.ModelMap;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.time.LocalDateTime;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Optional;
+import java.util.HashMap;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/newsfeed")
 @RequiredArgsConstructor
 public class ChatController {
 
+    private static final int MESSAGE_WINDOW = 20;
+    private static final int CONVERSATION_PAGE_SIZE = 20;
+
     private final UserService userService;
     private final ChatService chatService;
     private final MessageService messageService;
+    private final MessagePushService messagePushService;
+    private final MessageSearchService messageSearchService;
     private final FriendRequestService friendRequestService;
+    private final FriendSuggestionService friendSuggestionService;
 
     @GetMapping("/messages")
-    public String messagesPage(@AuthenticationPrincipal CurrentUser currentUser, ModelMap modelMap) {
-        List<Chat> allChats = chatService.findAllByCurrentUserId(currentUser.getUser().getId());
-        allChats.addAll(chatService.findAllByAnotherUserId(currentUser.getUser().getId()));
+    public String messagesPage(@AuthenticationPrincipal CurrentUser currentUser,
+                               @RequestParam(value = "page", defaultValue = "0") int page,
+                               ModelMap modelMap) {
+        ConversationPageDto conversations = chatService.conversations(currentUser.getUser().getId(), page, CONVERSATION_PAGE_SIZE);
+        // only the most recent window of every chat is rendered, older messages are loaded on demand
+        Map<Integer, MessagePageResponseDto> messagePages = new HashMap<>();
+        for (ConversationDto conversation : conversations.getConversations()) {
+            messagePages.put(conversation.getChatId(), messageService.messagesBefore(conversation.getChatId(), null, MESSAGE_WINDOW));
+        }
 
         modelMap.addAttribute("user", currentUser.getUser());
-        modelMap.addAttribute("chats", new HashSet<>(allChats));
-        modelMap.addAttribute("users", userService.userForAddFriend(currentUser));
+        modelMap.addAttribute("conversations", conversations);
+        modelMap.addAttribute("messagePages", messagePages);
+        modelMap.addAttribute("users", friendSuggestionService.suggestFriends(currentUser));
         modelMap.addAttribute("allExceptCurrentUser", userService.findAllExceptCurrentUser(currentUser.getUser().getId()));
         modelMap.addAttribute("requestSenders", friendRequestService.findSenderByReceiverId(currentUser.getUser().getId()));
 
         return "newsfeed-messages";
     }
 
+    @GetMapping("/chat/{chatId}/messages")
+    public @ResponseBody ResponseEntity<MessagePageResponseDto> chatMessages(@PathVariable("chatId") int chatId,
+                                                                             @RequestParam(value = "before", required = false) Integer before,
+                                                                             @RequestParam(value = "limit", defaultValue = "20") int limit,
+                                                                             @AuthenticationPrincipal CurrentUser currentUser) {
+        MessagePageResponseDto page = messageService.messagesBefore(chatId, currentUser.getUser(), before, limit);
+        if (page == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping("/chat/search")
+    public @ResponseBody ResponseEntity<MessageSearchPageDto> searchMessages(@RequestParam("q") String query,
+                                                                             @RequestParam(value = "page", defaultValue = "0") int page,
+                                                                             @AuthenticationPrincipal CurrentUser currentUser) {
+        return ResponseEntity.ok(messageSearchService.search(currentUser.getUser().getId(), query, page, CONVERSATION_PAGE_SIZE));
+    }
+
     @GetMapping("/chat/create/{id}")
     public String createNewChat(@PathVariable("id") int userId, @AuthenticationPrincipal CurrentUser currentUser) {
         chatService.create(userId, currentUser.getUser());
         return "redirect:/newsfeed/messages";
     }
 
+    @PostMapping("/chat/{chatId}/read")
+    public @ResponseBody ResponseEntity<Void> markRead(@PathVariable("chatId") int chatId,
+                                                       @RequestParam("messageId") int messageId,
+                                                       @AuthenticationPrincipal CurrentUser currentUser) {
+        chatService.markRead(chatId, currentUser.getUser().getId(), messageId);
+        return ResponseEntity.accepted().build();
+    }
+
+    @GetMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public @ResponseBody SseEmitter stream(@AuthenticationPrincipal CurrentUser currentUser) {
+        return messagePushService.subscribe(currentUser.getUser().getId());
+    }
+
     @PostMapping("/send-message")
     public String sendMessage(@AuthenticationPrincipal CurrentUser currentUser,
                               @RequestParam("chatId") int chatId,
-                              @RequestParam("receiverId") int receiverId,
                               @RequestParam("content") String content) {
-        Optional<User> userById = userService.findUserById(receiverId);
-        if (userById.isEmpty()) {
-            return "redirect:/newsfeed/messages";
-        }
+        send(currentUser, chatId, content);
+        return "redirect:/newsfeed/messages";
+    }
 
-        Optional<Chat> chatById = chatService.findById(chatId);
-        if (chatById.isEmpty()) {
-            return "redirect:/newsfeed/messages";
+    /**
+     * Same as sendMessage, for the page script: the message reaches both participants over the event stream,
+     * so the page is not reloaded.
+     */
+    @PostMapping(value = "/send-message", headers = "X-Requested-With=XMLHttpRequest")
+    public @ResponseBody ResponseEntity<Void> sendMessageAsync(@AuthenticationPrincipal CurrentUser currentUser,
+                                                               @RequestParam("chatId") int chatId,
+                                                               @RequestParam("content") String content) {
+        if (!send(currentUser, chatId, content)) {
+            return ResponseEntity.notFound().build();
         }
+        return ResponseEntity.noContent().build();
+    }
 
-        messageService.save(Message.builder()
-                .receiver(userById.get())
-                .chat(chatById.get())
-                .sender(currentUser.getUser())
+    private boolean send(CurrentUser currentUser, int chatId, String content) {
+        return messageService.save(SendMessageDto.builder()
+                .chatId(chatId)
                 .content(content)
-                .sentAt(LocalDateTime.now())
-                .build());
-
-        return "redirect:/newsfeed/messages";
+                .build(), currentUser.getUser());
     }
-
-
-}
\ No newline at end of file
+}
@@ -3,6 +3,7 @@ package com.friendfinder.friendfinderweb.controller;
 import com.friendfinder.friendfindercommon.entity.User;
 import com.friendfinder.friendfindercommon.security.CurrentUser;
 import com.friendfinder.friendfindercommon.service.FriendRequestService;
+import com.friendfinder.friendfindercommon.service.FriendSuggestionService;
 import com.friendfinder.friendfindercommon.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -19,6 +20,7 @@ import java.util.List;
 public class FriendController {
 
     private final FriendRequestService friendRequestService;
+    private final FriendSuggestionService friendSuggestionService;
     private final UserService userService;
 
     @GetMapping
@@ -40,7 +42,7 @@ public class FriendController {
         modelMap.addAttribute("friends", content);
 
         modelMap.addAttribute("friendsCount", friendRequestService.findFriendsByUserIdCount(currentUser.getUser().getId()));
-        modelMap.addAttribute("users", userService.userForAddFriend(currentUser));
+        modelMap.addAttribute("users", friendSuggestionService.suggestFriends(currentUser));
         modelMap.addAttribute("requestSenders", friendRequestService.findSenderByReceiverId(currentUser.getUser().getId()));
         modelMap.addAttribute("user", currentUser.getUser());
         modelMap.addAttribute("allExceptCurrentUser", userService.findAllExceptCurrentUser(currentUser.getUser().getId()));
@@ -2,20 +2,23 @@ package com.friendfinder.friendfinderweb.controller;
 
 import com.friendfinder.friendfindercommon.security.CurrentUser;
 import com.friendfinder.friendfindercommon.service.MainService;
+import com.friendfinder.friendfindercommon.service.MediaService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.MediaType;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.ModelMap;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
 
 @Controller
 @RequiredArgsConstructor
 public class InputEndpoint {
 
     public final MainService mainService;
+    public final MediaService mediaService;
 
     @GetMapping("/")
     public String mainPage(ModelMap modelMap,
@@ -30,28 +33,30 @@ public class InputEndpoint {
         return "index";
     }
 
-    @GetMapping(value = "/getImage",
-            produces = MediaType.IMAGE_JPEG_VALUE)
-    public @ResponseBody byte[] getImage(@RequestParam("imageName") String imageName) {
-        return mainService.getImage(imageName);
+    @GetMapping("/getImage")
+    public ResponseEntity<Resource> getImage(@RequestParam("imageName") String imageName,
+                                             @RequestParam(value = "size", required = false) Integer size,
+                                             WebRequest request) {
+        return mediaService.serve(mainService.getImage(imageName, size), request);
     }
 
-    @GetMapping(value = "/getVideo",
-            produces = MediaType.IMAGE_JPEG_VALUE)
-    public @ResponseBody byte[] getVideo(@RequestParam("videoName") String videoName) {
-        return mainService.getVideo(videoName);
+    @GetMapping("/getVideo")
+    public ResponseEntity<Resource> getVideo(@RequestParam("videoName") String videoName, WebRequest request) {
+        return mediaService.serve(mainService.getVideo(videoName), request);
     }
 
-    @GetMapping(value = "/getProfilePic",
-            produces = MediaType.IMAGE_JPEG_VALUE)
-    public @ResponseBody byte[] getProfilePic(@RequestParam("imageName") String imageName) {
-        return mainService.getProfilePic(imageName);
+    @GetMapping("/getProfilePic")
+    public ResponseEntity<Resource> getProfilePic(@RequestParam("imageName") String imageName,
+                                                  @RequestParam(value = "size", required = false) Integer size,
+                                                  WebRequest request) {
+        return mediaService.serve(mainService.getProfilePic(imageName, size), request);
     }
 
-    @GetMapping(value = "/getBgProfilePic",
-            produces = MediaType.IMAGE_JPEG_VALUE)
-    public @ResponseBody byte[] getBgProfilePic(@RequestParam("imageName") String imageName) {
-        return mainService.getBgProfilePic(imageName);
+    @GetMapping("/getBgProfilePic")
+    public ResponseEntity<Resource> getBgProfilePic(@RequestParam("imageName") String imageName,
+                                                    @RequestParam(value = "size", required = false) Integer size,
+                                                    WebRequest request) {
+        return mediaService.serve(mainService.getBgProfilePic(imageName, size), request);
     }
 
     @GetMapping("/login-register")
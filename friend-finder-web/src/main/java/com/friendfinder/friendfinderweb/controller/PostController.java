@@ -1,9 +1,10 @@
 package com.friendfinder.friendfinderweb.controller;
 
+import com.friendfinder.friendfindercommon.dto.commentDto.CommentPageResponseDto;
 import com.friendfinder.friendfindercommon.dto.commentDto.CommentRequestDto;
+import com.friendfinder.friendfindercommon.dto.feedDto.FeedPageDto;
 import com.friendfinder.friendfindercommon.dto.postDto.PostRequestDto;
 import com.friendfinder.friendfindercommon.dto.postLikeDto.PostLikeDto;
-import com.friendfinder.friendfindercommon.entity.Comment;
 import com.friendfinder.friendfindercommon.entity.Post;
 import com.friendfinder.friendfindercommon.entity.User;
 import com.friendfinder.friendfindercommon.entity.types.LikeStatus;
@@ -28,13 +29,13 @@ public class PostController {
     private final LikeAndDislikeService likeAndDislikeService;
     private final UserService userService;
     private final FriendRequestService friendRequestService;
+    private final FriendSuggestionService friendSuggestionService;
     private final CommentService commentService;
+    private final FeedAssemblerService feedAssemblerService;
 
 
     @GetMapping
     public String postAddPage(ModelMap modelMap, @AuthenticationPrincipal CurrentUser currentUser) {
-        List<Comment> comments = commentService.commentList();
-        modelMap.addAttribute("comments", comments);
         return listByPage(modelMap, 1, currentUser);
 
     }
@@ -52,14 +53,29 @@ public class PostController {
         modelMap.addAttribute("currentPage", currentPage);
         modelMap.addAttribute("totalItems", totalItems);
         modelMap.addAttribute("totalPages", totalPages);
-        modelMap.addAttribute("posts", content);
+        modelMap.addAttribute("posts", feedAssemblerService.assemble(content, currentUser.getUser().getId()));
         modelMap.addAttribute("user", currentUser.getUser());
-        modelMap.addAttribute("users", userService.userForAddFriend(currentUser));
+        modelMap.addAttribute("users", friendSuggestionService.suggestFriends(currentUser));
         modelMap.addAttribute("requestSenders", requestSenders);
         modelMap.addAttribute("allExceptCurrentUser", userService.findAllExceptCurrentUser(currentUser.getUser().getId()));
         return "newsfeed";
     }
 
+    @GetMapping("/feed")
+    public @ResponseBody FeedPageDto feed(@RequestParam(value = "before", required = false) Integer before,
+                                          @RequestParam(value = "limit", defaultValue = "5") int limit,
+                                          @AuthenticationPrincipal CurrentUser currentUser) {
+        return feedAssemblerService.assemble(postService.postFeedBefore(before, limit, currentUser),
+                currentUser.getUser().getId());
+    }
+
+    @GetMapping("/{postId}/comments")
+    public @ResponseBody CommentPageResponseDto comments(@PathVariable("postId") int postId,
+                                                         @RequestParam(value = "cursor", required = false) Integer cursor,
+                                                         @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return commentService.commentsBefore(postId, cursor, limit);
+    }
+
     @PostMapping("/add")
     public String postAdd(@ModelAttribute PostRequestDto requestDto,
                           @AuthenticationPrincipal CurrentUser currentUser,
@@ -72,18 +88,18 @@ public class PostController {
     @PostMapping("/reaction/like/{postId}")
     public String addLike(@ModelAttribute PostLikeDto postLikeDto,
                           @AuthenticationPrincipal CurrentUser currentUser,
-                          @PathVariable(name = "postId") Post post) {
+                          @PathVariable(name = "postId") int postId) {
         postLikeDto.setLikeStatus(LikeStatus.LIKE);
-        likeAndDislikeService.saveReaction(postLikeDto, currentUser, post);
+        likeAndDislikeService.saveReaction(postLikeDto, currentUser, postId);
         return "redirect:/posts";
     }
 
     @PostMapping("/reaction/dislike/{postId}")
     public String addDislike(@ModelAttribute PostLikeDto postLikeDto,
                              @AuthenticationPrincipal CurrentUser currentUser,
-                             @PathVariable(name = "postId") Post post) {
+                             @PathVariable(name = "postId") int postId) {
         postLikeDto.setLikeStatus(LikeStatus.DISLIKE);
-        likeAndDislikeService.saveReaction(postLikeDto, currentUser, post);
+        likeAndDislikeService.saveReaction(postLikeDto, currentUser, postId);
         return "redirect:/posts";
     }
 
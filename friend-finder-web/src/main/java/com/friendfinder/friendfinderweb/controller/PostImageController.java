@@ -25,6 +25,8 @@ public class PostImageController {
     private final CommentService commentService;
     private final LikeAndDislikeService likeAndDislikeService;
     private final FriendRequestService friendRequestService;
+    private final FriendSuggestionService friendSuggestionService;
+    private final FeedAssemblerService feedAssemblerService;
 
 
     @GetMapping
@@ -44,11 +46,10 @@ public class PostImageController {
         modelMap.addAttribute("currentPage", currentPage);
         modelMap.addAttribute("totalItems", totalItems);
         modelMap.addAttribute("totalPages", totalPages);
-        modelMap.addAttribute("posts", content);
+        modelMap.addAttribute("posts", feedAssemblerService.assemble(content, currentUser.getUser().getId()));
         modelMap.addAttribute("allExceptCurrentUser", userService.findAllExceptCurrentUser(currentUser.getUser().getId()));
         modelMap.addAttribute("user", currentUser.getUser());
-        modelMap.addAttribute("comments", commentService.commentList());
-        modelMap.addAttribute("users", userService.userForAddFriend(currentUser));
+        modelMap.addAttribute("users", friendSuggestionService.suggestFriends(currentUser));
         modelMap.addAttribute("requestSenders", friendRequestService.findSenderByReceiverId(currentUser.getUser().getId()));
         return "newsfeed-images";
     }
@@ -56,18 +57,18 @@ public class PostImageController {
     @PostMapping("/reaction/like/{postId}")
     public String addLike(@ModelAttribute PostLikeDto postLikeDto,
                           @AuthenticationPrincipal CurrentUser currentUser,
-                          @PathVariable(name = "postId") Post post) {
+                          @PathVariable(name = "postId") int postId) {
         postLikeDto.setLikeStatus(LikeStatus.LIKE);
-        likeAndDislikeService.saveReaction(postLikeDto, currentUser, post);
+        likeAndDislikeService.saveReaction(postLikeDto, currentUser, postId);
         return "redirect:/posts/images";
     }
 
     @PostMapping("/reaction/dislike/{postId}")
     public String addDislike(@ModelAttribute PostLikeDto postLikeDto,
                              @AuthenticationPrincipal CurrentUser currentUser,
-                             @PathVariable(name = "postId") Post post) {
+                             @PathVariable(name = "postId") int postId) {
         postLikeDto.setLikeStatus(LikeStatus.DISLIKE);
-        likeAndDislikeService.saveReaction(postLikeDto, currentUser, post);
+        likeAndDislikeService.saveReaction(postLikeDto, currentUser, postId);
         return "redirect:/posts/images";
     }
 
@@ -3,6 +3,7 @@ package com.friendfinder.friendfinderweb.controller;
 import com.friendfinder.friendfindercommon.entity.User;
 import com.friendfinder.friendfindercommon.security.CurrentUser;
 import com.friendfinder.friendfindercommon.service.FriendRequestService;
+import com.friendfinder.friendfindercommon.service.FriendSuggestionService;
 import com.friendfinder.friendfindercommon.service.SearchService;
 import com.friendfinder.friendfindercommon.service.UserService;
 import lombok.RequiredArgsConstructor;
@@ -23,6 +24,7 @@ public class SearchController {
     private final SearchService searchService;
     private final UserService userService;
     private final FriendRequestService friendRequestService;
+    private final FriendSuggestionService friendSuggestionService;
 
 
     @PostMapping("/{pageNumber}")
@@ -40,7 +42,7 @@ public class SearchController {
         modelMap.addAttribute("result", page.getContent());
         modelMap.addAttribute("requestSenders", friendRequestService.findSenderByReceiverId(currentUser.getUser().getId()));
         modelMap.addAttribute("user", currentUser.getUser());
-        modelMap.addAttribute("users", userService.userForAddFriend(currentUser));
+        modelMap.addAttribute("users", friendSuggestionService.suggestFriends(currentUser));
         modelMap.addAttribute("allExceptCurrentUser", userService.findAllExceptCurrentUser(currentUser.getUser().getId()));
         return "resultOfSearchUsers";
     }
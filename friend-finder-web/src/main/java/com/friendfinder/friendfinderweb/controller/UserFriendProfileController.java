@@ -46,6 +46,8 @@ public class UserFriendProfileController {
         modelMap.addAttribute("profile", currentUser.getUser());
         modelMap.addAttribute("user", user);
         modelMap.addAttribute("friendsCount", friendRequestService.findFriendsByUserIdCount(user.getId()));
+        modelMap.addAttribute("mutualFriendsCount",
+                friendRequestService.findMutualFriendsCount(currentUser.getUser().getId(), user.getId()));
         modelMap.addAttribute("userActivity", userActivityService.getAllByUserId(user.getId()));
         return "timeline-friends";
     }
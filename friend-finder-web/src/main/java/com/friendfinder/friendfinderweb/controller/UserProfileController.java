@@ -30,6 +30,7 @@ public class UserProfileController {
     private final LikeAndDislikeService likeAndDislikeService;
     private final FriendRequestService friendRequestService;
     private final UserActivityService userActivityService;
+    private final FeedAssemblerService feedAssemblerService;
 
     @GetMapping("/{userId}")
     public String getUserId(@PathVariable("userId") User user, ModelMap modelMap,
@@ -48,11 +49,10 @@ public class UserProfileController {
         modelMap.addAttribute("currentPage", currentPage);
         modelMap.addAttribute("totalItems", totalItems);
         modelMap.addAttribute("totalPages", totalPages);
-        modelMap.addAttribute("userPage", content);
+        modelMap.addAttribute("userPage", feedAssemblerService.assemble(content, currentUser.getUser().getId()));
 
         modelMap.addAttribute("profile", currentUser.getUser());
         modelMap.addAttribute("user", user);
-        modelMap.addAttribute("comments", commentService.commentList());
         modelMap.addAttribute("friendsCount", friendRequestService.findFriendsByUserIdCount(user.getId()));
         modelMap.addAttribute("userActivity", userActivityService.getAllByUserId(user.getId()));
         return "timeline";
@@ -89,19 +89,21 @@ public class UserProfileController {
     @PostMapping("/reaction/like/{postId}")
     public String addLike(@ModelAttribute PostLikeDto postLikeDto,
                           @AuthenticationPrincipal CurrentUser currentUser,
-                          @PathVariable(name = "postId") Post post) {
+                          @PathVariable(name = "postId") int postId,
+                          @RequestParam("userId") int userId) {
         postLikeDto.setLikeStatus(LikeStatus.LIKE);
-        likeAndDislikeService.saveReaction(postLikeDto, currentUser, post);
-        return "redirect:/users/profile/" + post.getUser().getId();
+        likeAndDislikeService.saveReaction(postLikeDto, currentUser, postId);
+        return "redirect:/users/profile/" + userId;
     }
 
     @PostMapping("/reaction/dislike/{postId}")
     public String addDislike(@ModelAttribute PostLikeDto postLikeDto,
                              @AuthenticationPrincipal CurrentUser currentUser,
-                             @PathVariable(name = "postId") Post post) {
+                             @PathVariable(name = "postId") int postId,
+                             @RequestParam("userId") int userId) {
         postLikeDto.setLikeStatus(LikeStatus.DISLIKE);
-        likeAndDislikeService.saveReaction(postLikeDto, currentUser, post);
-        return "redirect:/users/profile/" + post.getUser().getId();
+        likeAndDislikeService.saveReaction(postLikeDto, currentUser, postId);
+        return "redirect:/users/profile/" + userId;
     }
 
 
@@ -0,0 +1,73 @@
+'use strict'
+
+// Loads the older comments of a post from /posts/{postId}/comments and prepends them above the rendered ones.
+// The button carries the post id, the cursor of the oldest rendered comment and where and by whom comments can be deleted.
+
+function formatCommentDatetime(datetime) {
+    if (!datetime) {
+        return '';
+    }
+    // LocalDateTime is serialized as yyyy-MM-ddTHH:mm:ss
+    return datetime.substring(8, 10) + '-' + datetime.substring(5, 7) + '-' + datetime.substring(0, 4)
+        + ' ' + datetime.substring(11, 16);
+}
+
+function commentItem(button, comment) {
+    var item = document.createElement('div');
+    var body = document.createElement('div');
+    body.className = 'post-comment';
+    var img = document.createElement('img');
+    if (comment.userProfilePicture && comment.userProfilePicture !== 'null') {
+        img.src = '/getProfilePic?imageName=' + encodeURIComponent(comment.userProfilePicture)
+            + (button.dataset.pictureSize ? '&size=' + button.dataset.pictureSize : '');
+    } else {
+        img.src = '/images/post-images/difault.png';
+    }
+    img.alt = '';
+    img.className = 'profile-photo-sm';
+    var text = document.createElement('p');
+    var author = document.createElement('a');
+    author.href = '/users/profile/' + comment.userId;
+    author.className = 'profile-link';
+    author.textContent = comment.userName;
+    var commentaryText = document.createElement('i');
+    commentaryText.textContent = comment.commentaryText;
+    text.appendChild(author);
+    text.appendChild(document.createTextNode(' '));
+    text.appendChild(commentaryText);
+    text.appendChild(document.createElement('br'));
+    body.appendChild(img);
+    body.appendChild(text);
+    var datetime = document.createElement('samp');
+    datetime.textContent = formatCommentDatetime(comment.datetime);
+    item.appendChild(body);
+    item.appendChild(datetime);
+    item.appendChild(document.createElement('br'));
+    if (button.dataset.deleteAll === 'true' || String(comment.userId) === button.dataset.deletableUserId) {
+        var remove = document.createElement('a');
+        remove.href = button.dataset.deleteUrl + '?id=' + comment.id;
+        remove.textContent = 'Delete comment';
+        item.appendChild(remove);
+    }
+    return item;
+}
+
+document.querySelectorAll('.load-older-comments').forEach(function (button) {
+    button.addEventListener('click', function () {
+        var url = '/posts/' + button.dataset.postId + '/comments?cursor=' + button.dataset.before;
+        fetch(url).then(function (response) {
+            return response.json();
+        }).then(function (page) {
+            var list = button.nextElementSibling;
+            // the page is newest first, so every comment goes above the one inserted before it
+            page.comments.forEach(function (comment) {
+                list.insertBefore(commentItem(button, comment), list.firstElementChild);
+            });
+            if (page.nextCursor === null) {
+                button.remove();
+            } else {
+                button.dataset.before = page.nextCursor;
+            }
+        });
+    });
+});